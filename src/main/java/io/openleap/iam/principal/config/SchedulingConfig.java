@@ -0,0 +1,14 @@
+package io.openleap.iam.principal.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables background processing: {@code @Scheduled} jobs and {@code @Async} event listeners.
+ */
+@Configuration
+@EnableScheduling
+@EnableAsync
+public class SchedulingConfig {
+}
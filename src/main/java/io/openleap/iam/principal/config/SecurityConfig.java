@@ -23,6 +23,13 @@ public class SecurityConfig {
                                 authorize
                                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/v1/iam/principals").hasAuthority("ROLE_iam.principal:search")
                                         .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals").hasAuthority("ROLE_iam.principal:create")
+                                        .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/v1/iam/principals/export").hasAuthority("ROLE_iam.principal:export")
+                                        .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/batch-get").hasAuthority("ROLE_iam.principal:read")
+                                        .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/bulk").hasAuthority("ROLE_iam.principal:create")
+                                        .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/service/verify-api-key").hasAuthority("ROLE_iam.service_principal.credentials:verify")
+                                        .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/certificates/resolve").hasAuthority("ROLE_iam.principal.certificate:resolve")
+                                        .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/entitlements/check").hasAuthority("ROLE_iam.principal.entitlement:check")
+                                        .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/v1/iam/principals/*/entitlements/check").hasAuthority("ROLE_iam.principal.entitlement:check")
                                         .requestMatchers("/api/v1/iam/principals/service").hasAuthority("ROLE_iam.service_principal:create")
                                         .requestMatchers("/api/v1/iam/principals/system").hasAuthority("ROLE_iam.system_principal:create")
                                         .requestMatchers("/api/v1/iam/principals/device").hasAuthority("ROLE_iam.device_principal:create")
@@ -33,10 +40,12 @@ public class SecurityConfig {
                                         .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/*/tenants").hasAuthority("ROLE_iam.principal.tenant:assign")
                                         .requestMatchers(org.springframework.http.HttpMethod.DELETE, "/api/v1/iam/principals/*/tenants/*").hasAuthority("ROLE_iam.principal.tenant:remove")
                                         .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/*/heartbeat").hasAuthority("ROLE_iam.device_principal:heartbeat")
+                                        .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/v1/iam/principals/heartbeats").hasAuthority("ROLE_iam.device_principal:heartbeat")
                                         .requestMatchers("/api/v1/iam/principals/*/activate").hasAuthority("ROLE_iam.principal.profile:update")
                                         .requestMatchers("/api/v1/iam/principals/*/suspend").hasAuthority("ROLE_iam.principal:suspend")
                                         .requestMatchers("/api/v1/iam/principals/*/deactivate").hasAuthority("ROLE_iam.principal:deactivate")
                                         .requestMatchers(org.springframework.http.HttpMethod.DELETE, "/api/v1/iam/principals/*/gdpr").hasAuthority("ROLE_iam.principal.gdpr:delete")
+                                        .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/v1/iam/principals/*/gdpr/export").hasAuthority("ROLE_iam.principal.gdpr:export")
                                         .requestMatchers("/api/v1/iam/principals/*/rotate-credentials").hasAuthority("ROLE_iam.service_principal.credentials:rotate")
                                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/v1/iam/principals/*").hasAuthority("ROLE_iam.principal:read")
                                         .requestMatchers(org.springframework.http.HttpMethod.PATCH, "/api/v1/iam/principals/*").hasAuthority("ROLE_iam.principal:update")
@@ -55,6 +64,8 @@ public class SecurityConfig {
                         authorize ->
                                 authorize
                                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/v1/iam/admin/principals").hasAuthority("ROLE_iam.admin:cross_tenant")
+                                        .requestMatchers("/api/v1/iam/admin/principals/imports", "/api/v1/iam/admin/principals/imports/*").hasAuthority("ROLE_iam.admin:import")
+                                        .anyRequest().denyAll()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt ->
                         jwt.jwtAuthenticationConverter(customJwtAuthenticationConverter())));
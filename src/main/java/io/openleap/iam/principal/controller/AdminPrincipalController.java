@@ -1,26 +1,38 @@
 package io.openleap.iam.principal.controller;
 
 import io.openleap.iam.principal.controller.dto.CrossTenantSearchResponseDto;
+import io.openleap.iam.principal.controller.dto.PrincipalImportResponseDto;
 import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
-import io.openleap.iam.principal.domain.dto.CrossTenantSearchQuery;
 import io.openleap.iam.principal.service.PrincipalService;
+import io.openleap.iam.principal.service.importing.ImportFormat;
+import io.openleap.iam.principal.service.importing.PrincipalImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+
 /**
  * Admin controller for cross-tenant principal operations.
  */
-//TODO: Enable when cross-tenant principal search is implemented
-//@RestController
-//@RequestMapping("/api/v1/iam/admin/principals")
+@RestController
+@RequestMapping("/api/v1/iam/admin/principals")
 public class AdminPrincipalController {
 
     private final PrincipalService principalService;
     private final PrincipalMapper principalMapper;
+    private final PrincipalImportService principalImportService;
 
-    public AdminPrincipalController(PrincipalService principalService, PrincipalMapper principalMapper) {
+    public AdminPrincipalController(
+            PrincipalService principalService,
+            PrincipalMapper principalMapper,
+            PrincipalImportService principalImportService) {
         this.principalService = principalService;
         this.principalMapper = principalMapper;
+        this.principalImportService = principalImportService;
     }
 
     /**
@@ -28,25 +40,61 @@ public class AdminPrincipalController {
      *
      * Requires permission: iam.admin:cross_tenant
      *
-     * @param search search term (partial match on username or email)
+     * @param search search term (partial match on username, email or display name)
      * @param principalType filter by principal type
      * @param status filter by status
      * @param page page number (1-indexed, default 1)
      * @param size page size (default 50, max 100)
+     * @param cursor opaque cursor from a previous response's next_cursor; when set, page is ignored
      * @return paginated search results across all tenants
      */
-//    @GetMapping
-//    public ResponseEntity<CrossTenantSearchResponseDto> searchPrincipalsCrossTenant(
-//            @RequestParam(required = false) String search,
-//            @RequestParam(required = false, name = "principal_type") String principalType,
-//            @RequestParam(required = false) String status,
-//            @RequestParam(defaultValue = "1") int page,
-//            @RequestParam(defaultValue = "50") int size) {
-//
-//        var query = new CrossTenantSearchQuery(search, principalType, status, page, size);
-//        var result = principalService.searchPrincipalsCrossTenant(query);
-//        var response = principalMapper.toResponseDto(result);
-//
-//        return ResponseEntity.ok(response);
-//    }
+    @GetMapping
+    public ResponseEntity<CrossTenantSearchResponseDto> searchPrincipalsCrossTenant(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false, name = "principal_type") String principalType,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String cursor) {
+
+        var query = principalMapper.toCrossTenantQuery(search, principalType, status, page, size, cursor);
+        var result = principalService.searchPrincipalsCrossTenant(query);
+        var response = principalMapper.toResponseDto(result);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Starts importing human principals from an NDJSON or CSV file. The file is processed in the background;
+     * poll the returned Location for progress.
+     *
+     * Requires permission: iam.admin:import
+     *
+     * @param contentType application/x-ndjson or text/csv
+     * @param content the file content
+     * @return the initial import status
+     */
+    @PostMapping(value = "/imports", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<PrincipalImportResponseDto> startImport(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream content) {
+        var status = principalImportService.startImport(content, ImportFormat.fromContentType(contentType));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/v1/iam/admin/principals/imports/" + status.jobId()))
+                .body(principalMapper.toResponseDto(status));
+    }
+
+    /**
+     * Returns progress, throughput and errors of an import started on this instance.
+     *
+     * Requires permission: iam.admin:import
+     *
+     * @param jobId the import job ID
+     * @return the current import status
+     */
+    @GetMapping("/imports/{jobId}")
+    public ResponseEntity<PrincipalImportResponseDto> getImport(@PathVariable UUID jobId) {
+        var status = principalImportService.getStatus(jobId);
+        return ResponseEntity.ok(principalMapper.toResponseDto(status));
+    }
 }
@@ -0,0 +1,45 @@
+package io.openleap.iam.principal.controller;
+
+import io.openleap.iam.principal.controller.dto.ResolveCertificateRequestDto;
+import io.openleap.iam.principal.controller.dto.ResolveCertificateResponseDto;
+import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
+import io.openleap.iam.principal.service.certificate.CertificateResolutionService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Certificate-based operations spanning system and device principals.
+ */
+@RestController
+@RequestMapping("/api/v1/iam/principals")
+public class CertificatePrincipalController {
+
+    private final CertificateResolutionService certificateResolutionService;
+    private final PrincipalMapper principalMapper;
+
+    public CertificatePrincipalController(
+            CertificateResolutionService certificateResolutionService,
+            PrincipalMapper principalMapper) {
+        this.certificateResolutionService = certificateResolutionService;
+        this.principalMapper = principalMapper;
+    }
+
+    /**
+     * Resolves an mTLS client certificate for gateways authenticating system and device calls. Always 200:
+     * unknown thumbprints and principals that are not ACTIVE come back with {@code valid=false}.
+     *
+     * Requires permission: iam.principal.certificate:resolve
+     */
+    @PostMapping("/certificates/resolve")
+    public ResponseEntity<ResolveCertificateResponseDto> resolveCertificate(
+            @Valid @RequestBody ResolveCertificateRequestDto request) {
+        var command = principalMapper.toCommand(request);
+        var resolved = certificateResolutionService.resolveCertificate(command);
+        var response = principalMapper.toResponseDto(resolved);
+        return ResponseEntity.ok(response);
+    }
+}
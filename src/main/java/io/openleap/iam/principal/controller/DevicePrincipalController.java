@@ -1,5 +1,7 @@
 package io.openleap.iam.principal.controller;
 
+import io.openleap.iam.principal.controller.dto.BatchHeartbeatRequestDto;
+import io.openleap.iam.principal.controller.dto.BatchHeartbeatResponseDto;
 import io.openleap.iam.principal.controller.dto.CreateDevicePrincipalRequestDto;
 import io.openleap.iam.principal.controller.dto.CreateDevicePrincipalResponseDto;
 import io.openleap.iam.principal.controller.dto.UpdateHeartbeatRequestDto;
@@ -46,4 +48,13 @@ public class DevicePrincipalController {
         var response = principalMapper.toResponseDto(updated);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/heartbeats")
+    public ResponseEntity<BatchHeartbeatResponseDto> updateHeartbeats(
+            @Valid @RequestBody BatchHeartbeatRequestDto request) {
+        var commands = principalMapper.toCommands(request);
+        var updated = principalService.updateHeartbeats(commands);
+        var response = principalMapper.toResponseDto(updated);
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,69 @@
+package io.openleap.iam.principal.controller;
+
+import io.openleap.iam.principal.controller.dto.CheckEntitlementsRequestDto;
+import io.openleap.iam.principal.controller.dto.CheckEntitlementsResponseDto;
+import io.openleap.iam.principal.controller.dto.EntitlementCheckResultDto;
+import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
+import io.openleap.iam.principal.domain.dto.EntitlementCheck;
+import io.openleap.iam.principal.service.entitlement.EntitlementService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+/**
+ * Entitlement checks against the allowed scopes of service principals and allowed operations of system principals.
+ */
+@RestController
+@RequestMapping("/api/v1/iam/principals")
+public class EntitlementController {
+
+    private final EntitlementService entitlementService;
+    private final PrincipalMapper principalMapper;
+
+    public EntitlementController(
+            EntitlementService entitlementService,
+            PrincipalMapper principalMapper) {
+        this.entitlementService = entitlementService;
+        this.principalMapper = principalMapper;
+    }
+
+    /**
+     * Checks whether a principal may use a scope or operation.
+     *
+     * Requires permission: iam.principal.entitlement:check
+     *
+     * @param principalId the principal ID
+     * @param entitlement the scope or operation
+     * @return the check result; 404 if the principal does not exist
+     */
+    @GetMapping("/{principalId}/entitlements/check")
+    public ResponseEntity<EntitlementCheckResultDto> checkEntitlement(
+            @PathVariable UUID principalId,
+            @RequestParam String entitlement) {
+        var checked = entitlementService.checkEntitlement(new EntitlementCheck(principalId, entitlement));
+        return ResponseEntity.ok(principalMapper.toResponseDto(checked));
+    }
+
+    /**
+     * Checks up to {@value CheckEntitlementsRequestDto#MAX_CHECKS} entitlements at once. Checks for unknown
+     * principals are reported per item.
+     *
+     * Requires permission: iam.principal.entitlement:check
+     */
+    @PostMapping("/entitlements/check")
+    public ResponseEntity<CheckEntitlementsResponseDto> checkEntitlements(
+            @Valid @RequestBody CheckEntitlementsRequestDto request) {
+        var command = principalMapper.toCommand(request);
+        var checked = entitlementService.checkEntitlements(command);
+        var response = principalMapper.toResponseDto(checked);
+        return ResponseEntity.ok(response);
+    }
+}
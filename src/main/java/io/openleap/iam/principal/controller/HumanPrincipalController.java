@@ -1,5 +1,9 @@
 package io.openleap.iam.principal.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.openleap.iam.principal.controller.dto.*;
 import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
 import io.openleap.iam.principal.domain.dto.ProfileUpdated;
@@ -7,31 +11,49 @@ import io.openleap.iam.principal.domain.entity.PrincipalId;
 import io.openleap.iam.principal.repository.HumanPrincipalRepository;
 import io.openleap.iam.principal.service.HumanPrincipalService;
 import io.openleap.iam.principal.service.PrincipalService;
+import io.openleap.iam.principal.service.gdpr.GdprExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/iam/principals")
 public class HumanPrincipalController {
 
+    private static final String EXPORT_MEDIA_TYPE = "application/x-ndjson";
+
     private final HumanPrincipalService humanPrincipalService;
     private final PrincipalMapper principalMapper;
     private final HumanPrincipalRepository humanPrincipalRepository;
     private final PrincipalService principalService;
+    private final GdprExportService gdprExportService;
+    private final ObjectWriter exportLineWriter;
 
     public HumanPrincipalController(
             HumanPrincipalService humanPrincipalService,
             PrincipalMapper principalMapper,
             HumanPrincipalRepository humanPrincipalRepository,
-            PrincipalService principalService) {
+            PrincipalService principalService,
+            GdprExportService gdprExportService,
+            ObjectMapper objectMapper) {
         this.humanPrincipalService = humanPrincipalService;
         this.principalMapper = principalMapper;
         this.humanPrincipalRepository = humanPrincipalRepository;
         this.principalService = principalService;
+        this.gdprExportService = gdprExportService;
+        // Flushing is left to the buffered response stream instead of forcing a chunk per line
+        this.exportLineWriter = objectMapper.writerFor(PrincipalExportItemDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @PostMapping
@@ -43,6 +65,19 @@ public class HumanPrincipalController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Creates up to {@value BulkCreateHumanPrincipalsRequestDto#MAX_PRINCIPALS} human principals at once. Rejected
+     * principals are reported per item and do not fail the others.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkCreateHumanPrincipalsResponseDto> createHumanPrincipals(
+            @Valid @RequestBody BulkCreateHumanPrincipalsRequestDto request) {
+        var commands = principalMapper.toCommands(request);
+        var created = humanPrincipalService.createHumanPrincipals(commands);
+        var response = principalMapper.toResponseDto(created);
+        return ResponseEntity.ok(response);
+    }
+
     @PatchMapping("/{principalId}/profile")
     public ResponseEntity<ProfileUpdated> updateProfile(
             @PathVariable UUID principalId,
@@ -145,6 +180,24 @@ public class HumanPrincipalController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Exports all data held about a human principal, including its Keycloak user, as one JSON document
+     * (GDPR right of access). The document is streamed to the response while it is assembled.
+     *
+     * Requires permission: iam.principal.gdpr:export
+     *
+     * @param principalId the principal ID
+     */
+    @GetMapping(value = "/{principalId}/gdpr/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void exportPrincipalGdpr(@PathVariable UUID principalId, HttpServletResponse response) throws IOException {
+        var export = gdprExportService.exportHumanPrincipal(PrincipalId.of(principalId));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("principal-" + principalId + ".json").build().toString());
+        export.writeTo(response.getOutputStream());
+    }
+
 
     @GetMapping("/{principalId}")
     public ResponseEntity<GetPrincipalResponseDto> getPrincipal(@PathVariable UUID principalId) {
@@ -153,6 +206,14 @@ public class HumanPrincipalController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/batch-get")
+    public ResponseEntity<BatchGetPrincipalsResponseDto> batchGetPrincipals(
+            @Valid @RequestBody BatchGetPrincipalsRequestDto request) {
+        var batch = principalService.getPrincipalDetails(request.getIds());
+        var response = principalMapper.toResponseDto(batch);
+        return ResponseEntity.ok(response);
+    }
+
     @PatchMapping("/{principalId}")
     public ResponseEntity<UpdateCommonAttributesResponseDto> updateCommonAttributes(
             @PathVariable UUID principalId,
@@ -172,10 +233,46 @@ public class HumanPrincipalController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false, name = "tenant_id") UUID tenantId,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "50") int size) {
-        var query = principalMapper.toQuery(search, principalType, status, tenantId, page, size);
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String cursor) {
+        var query = principalMapper.toQuery(search, principalType, status, tenantId, page, size, cursor);
         var result = principalService.searchPrincipals(query);
         var response = principalMapper.toResponseDto(result);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Exports all principals matching the filters as NDJSON, one principal per line. Rows are written to the
+     * response as they are read from the database, so the export never holds more than one fetch in memory.
+     *
+     * Requires permission: iam.principal:export
+     *
+     * @param principalType filter by principal type
+     * @param status filter by status
+     * @param tenantId filter by primary tenant
+     */
+    @GetMapping(value = "/export", produces = EXPORT_MEDIA_TYPE)
+    public void exportPrincipals(
+            @RequestParam(required = false, name = "principal_type") String principalType,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false, name = "tenant_id") UUID tenantId,
+            HttpServletResponse response) throws IOException {
+        var query = principalMapper.toExportQuery(principalType, status, tenantId);
+        response.setContentType(EXPORT_MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = exportLineWriter.createGenerator(response.getOutputStream())) {
+            // Lines are separated by the newline written after each item, not by the default root separator
+            generator.setRootValueSeparator(null);
+            principalService.exportPrincipals(query, item -> writeExportLine(generator, principalMapper.toExportItemDto(item)));
+        }
+    }
+
+    private void writeExportLine(JsonGenerator generator, PrincipalExportItemDto line) {
+        try {
+            exportLineWriter.writeValue(generator, line);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write principal export", e);
+        }
+    }
 }
@@ -4,6 +4,8 @@ import io.openleap.iam.principal.controller.dto.CreateServicePrincipalRequestDto
 import io.openleap.iam.principal.controller.dto.CreateServicePrincipalResponseDto;
 import io.openleap.iam.principal.controller.dto.RotateCredentialsRequestDto;
 import io.openleap.iam.principal.controller.dto.RotateCredentialsResponseDto;
+import io.openleap.iam.principal.controller.dto.VerifyApiKeyRequestDto;
+import io.openleap.iam.principal.controller.dto.VerifyApiKeyResponseDto;
 import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
 import io.openleap.iam.principal.service.ServicePrincipalService;
 import jakarta.validation.Valid;
@@ -49,4 +51,16 @@ public class ServicePrincipalController {
         var response = principalMapper.toResponseDto(rotated);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Verifies an API key for gateways authenticating service calls. Always 200: unknown keys and keys of
+     * principals that are not ACTIVE come back with {@code valid=false}.
+     */
+    @PostMapping("/service/verify-api-key")
+    public ResponseEntity<VerifyApiKeyResponseDto> verifyApiKey(@Valid @RequestBody VerifyApiKeyRequestDto request) {
+        var command = principalMapper.toCommand(request);
+        var verified = servicePrincipalService.verifyApiKey(command);
+        var response = principalMapper.toResponseDto(verified);
+        return ResponseEntity.ok(response);
+    }
 }
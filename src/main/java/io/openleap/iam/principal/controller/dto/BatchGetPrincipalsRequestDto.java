@@ -0,0 +1,35 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request DTO for looking up several principals by ID.
+ */
+public class BatchGetPrincipalsRequestDto {
+
+    public static final int MAX_IDS = 500;
+
+    /**
+     * Principal IDs to look up (required, at most {@value #MAX_IDS})
+     */
+    @NotEmpty(message = "IDs are required")
+    @Size(max = MAX_IDS, message = "At most " + MAX_IDS + " IDs can be requested at once")
+    @JsonProperty("ids")
+    private List<@NotNull UUID> ids;
+
+    // Getters and Setters
+
+    public List<UUID> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<UUID> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,85 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response DTO for looking up several principals by ID.
+ */
+public class BatchGetPrincipalsResponseDto {
+
+    /**
+     * One item per requested ID, in request order
+     */
+    @JsonProperty("items")
+    private List<BatchGetPrincipalItemDto> items;
+
+    /**
+     * Requested IDs for which no principal exists
+     */
+    @JsonProperty("not_found")
+    private List<String> notFound;
+
+    // Getters and Setters
+
+    public List<BatchGetPrincipalItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchGetPrincipalItemDto> items) {
+        this.items = items;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<String> notFound) {
+        this.notFound = notFound;
+    }
+
+    /**
+     * Lookup result for a single requested ID.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BatchGetPrincipalItemDto {
+
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("found")
+        private boolean found;
+
+        /**
+         * Principal details, omitted if not found
+         */
+        @JsonProperty("principal")
+        private GetPrincipalResponseDto principal;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public boolean isFound() {
+            return found;
+        }
+
+        public void setFound(boolean found) {
+            this.found = found;
+        }
+
+        public GetPrincipalResponseDto getPrincipal() {
+            return principal;
+        }
+
+        public void setPrincipal(GetPrincipalResponseDto principal) {
+            this.principal = principal;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request DTO for reporting heartbeats of several devices at once (e.g. from an edge gateway).
+ */
+public class BatchHeartbeatRequestDto {
+
+    public static final int MAX_HEARTBEATS = 1000;
+
+    /**
+     * Heartbeats to record (required, at most {@value #MAX_HEARTBEATS})
+     */
+    @NotEmpty(message = "Heartbeats are required")
+    @Size(max = MAX_HEARTBEATS, message = "At most " + MAX_HEARTBEATS + " heartbeats can be sent at once")
+    @JsonProperty("heartbeats")
+    private List<@Valid @NotNull DeviceHeartbeatDto> heartbeats;
+
+    // Getters and Setters
+
+    public List<DeviceHeartbeatDto> getHeartbeats() {
+        return heartbeats;
+    }
+
+    public void setHeartbeats(List<DeviceHeartbeatDto> heartbeats) {
+        this.heartbeats = heartbeats;
+    }
+
+    /**
+     * Heartbeat of a single device.
+     */
+    public static class DeviceHeartbeatDto extends UpdateHeartbeatRequestDto {
+
+        /**
+         * Device principal ID (required)
+         */
+        @NotNull(message = "Principal ID is required")
+        @JsonProperty("principal_id")
+        private UUID principalId;
+
+        public UUID getPrincipalId() {
+            return principalId;
+        }
+
+        public void setPrincipalId(UUID principalId) {
+            this.principalId = principalId;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response DTO for reporting heartbeats of several devices at once.
+ */
+public class BatchHeartbeatResponseDto {
+
+    /**
+     * One item per submitted heartbeat, in request order
+     */
+    @JsonProperty("items")
+    private List<BatchHeartbeatItemDto> items;
+
+    /**
+     * Device IDs for which no device principal exists
+     */
+    @JsonProperty("not_found")
+    private List<String> notFound;
+
+    // Getters and Setters
+
+    public List<BatchHeartbeatItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchHeartbeatItemDto> items) {
+        this.items = items;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<String> notFound) {
+        this.notFound = notFound;
+    }
+
+    /**
+     * Result for a single device.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BatchHeartbeatItemDto {
+
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("found")
+        private boolean found;
+
+        /**
+         * Recorded heartbeat timestamp, omitted if the device was not found
+         */
+        @JsonProperty("last_heartbeat_at")
+        private String lastHeartbeatAt;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public boolean isFound() {
+            return found;
+        }
+
+        public void setFound(boolean found) {
+            this.found = found;
+        }
+
+        public String getLastHeartbeatAt() {
+            return lastHeartbeatAt;
+        }
+
+        public void setLastHeartbeatAt(String lastHeartbeatAt) {
+            this.lastHeartbeatAt = lastHeartbeatAt;
+        }
+    }
+}
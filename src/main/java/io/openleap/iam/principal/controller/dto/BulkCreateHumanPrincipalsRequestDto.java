@@ -0,0 +1,35 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request DTO for creating several human principals at once.
+ */
+public class BulkCreateHumanPrincipalsRequestDto {
+
+    public static final int MAX_PRINCIPALS = 1000;
+
+    /**
+     * Principals to create (required, at most {@value #MAX_PRINCIPALS})
+     */
+    @NotEmpty(message = "Principals are required")
+    @Size(max = MAX_PRINCIPALS, message = "At most " + MAX_PRINCIPALS + " principals can be created at once")
+    @JsonProperty("principals")
+    private List<@Valid @NotNull CreateHumanPrincipalRequestDto> principals;
+
+    // Getters and Setters
+
+    public List<CreateHumanPrincipalRequestDto> getPrincipals() {
+        return principals;
+    }
+
+    public void setPrincipals(List<CreateHumanPrincipalRequestDto> principals) {
+        this.principals = principals;
+    }
+}
@@ -0,0 +1,124 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response DTO for creating several human principals at once.
+ */
+public class BulkCreateHumanPrincipalsResponseDto {
+
+    /**
+     * Number of principals created
+     */
+    @JsonProperty("created")
+    private int created;
+
+    /**
+     * Number of principals rejected
+     */
+    @JsonProperty("failed")
+    private int failed;
+
+    /**
+     * One item per submitted principal, in request order
+     */
+    @JsonProperty("items")
+    private List<BulkCreateItemDto> items;
+
+    // Getters and Setters
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkCreateItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BulkCreateItemDto> items) {
+        this.items = items;
+    }
+
+    /**
+     * Result for a single principal.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BulkCreateItemDto {
+
+        @JsonProperty("index")
+        private int index;
+
+        @JsonProperty("username")
+        private String username;
+
+        /**
+         * ID of the created principal, omitted if the principal was rejected
+         */
+        @JsonProperty("id")
+        private String id;
+
+        /**
+         * Error code, omitted if the principal was created
+         */
+        @JsonProperty("error")
+        private String error;
+
+        @JsonProperty("message")
+        private String message;
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
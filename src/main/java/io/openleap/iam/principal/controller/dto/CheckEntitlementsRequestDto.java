@@ -0,0 +1,73 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request DTO for checking several entitlements at once.
+ */
+public class CheckEntitlementsRequestDto {
+
+    public static final int MAX_CHECKS = 1000;
+
+    /**
+     * Checks to answer (required, at most {@value #MAX_CHECKS})
+     */
+    @NotEmpty(message = "Checks are required")
+    @Size(max = MAX_CHECKS, message = "At most " + MAX_CHECKS + " checks can be sent at once")
+    @JsonProperty("checks")
+    private List<@Valid @NotNull EntitlementCheckDto> checks;
+
+    // Getters and Setters
+
+    public List<EntitlementCheckDto> getChecks() {
+        return checks;
+    }
+
+    public void setChecks(List<EntitlementCheckDto> checks) {
+        this.checks = checks;
+    }
+
+    /**
+     * A single check.
+     */
+    public static class EntitlementCheckDto {
+
+        /**
+         * Principal ID (required)
+         */
+        @NotNull(message = "Principal ID is required")
+        @JsonProperty("principal_id")
+        private UUID principalId;
+
+        /**
+         * Scope or operation to check (required)
+         */
+        @NotBlank(message = "Entitlement is required")
+        @JsonProperty("entitlement")
+        private String entitlement;
+
+        public UUID getPrincipalId() {
+            return principalId;
+        }
+
+        public void setPrincipalId(UUID principalId) {
+            this.principalId = principalId;
+        }
+
+        public String getEntitlement() {
+            return entitlement;
+        }
+
+        public void setEntitlement(String entitlement) {
+            this.entitlement = entitlement;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response DTO for checking several entitlements at once.
+ */
+public class CheckEntitlementsResponseDto {
+
+    /**
+     * One item per check, in request order
+     */
+    @JsonProperty("items")
+    private List<EntitlementCheckResultDto> items;
+
+    // Getters and Setters
+
+    public List<EntitlementCheckResultDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<EntitlementCheckResultDto> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,61 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response DTO for a single entitlement check.
+ */
+public class EntitlementCheckResultDto {
+
+    @JsonProperty("principal_id")
+    private String principalId;
+
+    @JsonProperty("entitlement")
+    private String entitlement;
+
+    /**
+     * False if no principal with this ID exists
+     */
+    @JsonProperty("found")
+    private boolean found;
+
+    /**
+     * True if the principal is ACTIVE and holds the entitlement
+     */
+    @JsonProperty("allowed")
+    private boolean allowed;
+
+    // Getters and Setters
+
+    public String getPrincipalId() {
+        return principalId;
+    }
+
+    public void setPrincipalId(String principalId) {
+        this.principalId = principalId;
+    }
+
+    public String getEntitlement() {
+        return entitlement;
+    }
+
+    public void setEntitlement(String entitlement) {
+        this.entitlement = entitlement;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public void setAllowed(boolean allowed) {
+        this.allowed = allowed;
+    }
+}
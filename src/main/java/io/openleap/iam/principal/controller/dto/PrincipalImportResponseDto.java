@@ -0,0 +1,260 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response DTO for the status of a principal import.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PrincipalImportResponseDto {
+
+    @JsonProperty("job_id")
+    private String jobId;
+
+    @JsonProperty("format")
+    private String format;
+
+    /**
+     * RUNNING, COMPLETED or FAILED
+     */
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("started_at")
+    private String startedAt;
+
+    /**
+     * Omitted while the import is running
+     */
+    @JsonProperty("finished_at")
+    private String finishedAt;
+
+    /**
+     * Records read from the file so far
+     */
+    @JsonProperty("read")
+    private long read;
+
+    /**
+     * Records that could not be parsed or failed validation
+     */
+    @JsonProperty("invalid")
+    private long invalid;
+
+    /**
+     * Valid records that were not created, e.g. because the username already exists
+     */
+    @JsonProperty("rejected")
+    private long rejected;
+
+    @JsonProperty("created")
+    private long created;
+
+    /**
+     * Created principals whose Keycloak user was created by the import
+     */
+    @JsonProperty("provisioned")
+    private long provisioned;
+
+    /**
+     * Created principals left to the background Keycloak sync
+     */
+    @JsonProperty("provisioning_deferred")
+    private long provisioningDeferred;
+
+    @JsonProperty("records_per_second")
+    private double recordsPerSecond;
+
+    @JsonProperty("error_count")
+    private long errorCount;
+
+    /**
+     * The first errors of the import
+     */
+    @JsonProperty("errors")
+    private List<ImportErrorDto> errors;
+
+    /**
+     * Reason the import stopped early, omitted unless FAILED
+     */
+    @JsonProperty("failure")
+    private String failure;
+
+    // Getters and Setters
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(String finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public void setRead(long read) {
+        this.read = read;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getProvisioned() {
+        return provisioned;
+    }
+
+    public void setProvisioned(long provisioned) {
+        this.provisioned = provisioned;
+    }
+
+    public long getProvisioningDeferred() {
+        return provisioningDeferred;
+    }
+
+    public void setProvisioningDeferred(long provisioningDeferred) {
+        this.provisioningDeferred = provisioningDeferred;
+    }
+
+    public double getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+
+    public void setRecordsPerSecond(double recordsPerSecond) {
+        this.recordsPerSecond = recordsPerSecond;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public List<ImportErrorDto> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportErrorDto> errors) {
+        this.errors = errors;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public void setFailure(String failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Error of a single record.
+     */
+    public static class ImportErrorDto {
+
+        /**
+         * Line number for NDJSON, data row number for CSV
+         */
+        @JsonProperty("record")
+        private long record;
+
+        @JsonProperty("username")
+        private String username;
+
+        @JsonProperty("error")
+        private String error;
+
+        @JsonProperty("message")
+        private String message;
+
+        public long getRecord() {
+            return record;
+        }
+
+        public void setRecord(long record) {
+            this.record = record;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
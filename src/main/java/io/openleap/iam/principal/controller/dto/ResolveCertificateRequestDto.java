@@ -0,0 +1,29 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Request DTO for resolving an mTLS client certificate to its principal.
+ */
+public class ResolveCertificateRequestDto {
+
+    /**
+     * SHA-256 thumbprint of the client certificate, as registered on the principal (required)
+     */
+    @NotBlank(message = "Certificate thumbprint is required")
+    @Size(max = 64, message = "Certificate thumbprint must not exceed 64 characters")
+    @JsonProperty("certificate_thumbprint")
+    private String certificateThumbprint;
+
+    // Getters and Setters
+
+    public String getCertificateThumbprint() {
+        return certificateThumbprint;
+    }
+
+    public void setCertificateThumbprint(String certificateThumbprint) {
+        this.certificateThumbprint = certificateThumbprint;
+    }
+}
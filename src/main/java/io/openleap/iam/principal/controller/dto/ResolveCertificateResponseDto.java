@@ -0,0 +1,85 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response DTO for resolving an mTLS client certificate.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResolveCertificateResponseDto {
+
+    /**
+     * True if the certificate belongs to exactly one principal and it is ACTIVE
+     */
+    @JsonProperty("valid")
+    private boolean valid;
+
+    /**
+     * Principal ID (omitted for unknown certificates)
+     */
+    @JsonProperty("principal_id")
+    private String principalId;
+
+    /**
+     * SYSTEM or DEVICE (omitted for unknown certificates)
+     */
+    @JsonProperty("principal_type")
+    private String principalType;
+
+    /**
+     * Principal status (omitted for unknown certificates)
+     */
+    @JsonProperty("status")
+    private String status;
+
+    /**
+     * Operations the principal may perform, empty unless the certificate is valid
+     */
+    @JsonProperty("allowed_operations")
+    private List<String> allowedOperations;
+
+    // Getters and Setters
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public String getPrincipalId() {
+        return principalId;
+    }
+
+    public void setPrincipalId(String principalId) {
+        this.principalId = principalId;
+    }
+
+    public String getPrincipalType() {
+        return principalType;
+    }
+
+    public void setPrincipalType(String principalType) {
+        this.principalType = principalType;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<String> getAllowedOperations() {
+        return allowedOperations;
+    }
+
+    public void setAllowedOperations(List<String> allowedOperations) {
+        this.allowedOperations = allowedOperations;
+    }
+}
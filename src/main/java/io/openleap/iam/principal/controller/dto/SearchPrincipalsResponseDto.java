@@ -16,16 +16,16 @@ public class SearchPrincipalsResponseDto {
     private List<PrincipalSearchItem> items;
 
     /**
-     * Total count of matching principals
+     * Total count of matching principals (null in cursor mode)
      */
     @JsonProperty("total")
-    private long total;
+    private Long total;
 
     /**
-     * Current page number (1-indexed)
+     * Current page number (1-indexed, null in cursor mode)
      */
     @JsonProperty("page")
-    private int page;
+    private Integer page;
 
     /**
      * Page size
@@ -33,6 +33,12 @@ public class SearchPrincipalsResponseDto {
     @JsonProperty("size")
     private int size;
 
+    /**
+     * Opaque cursor for the next page, null if there are no more results
+     */
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
     // Getters and Setters
 
     public List<PrincipalSearchItem> getItems() {
@@ -43,19 +49,19 @@ public class SearchPrincipalsResponseDto {
         this.items = items;
     }
 
-    public long getTotal() {
+    public Long getTotal() {
         return total;
     }
 
-    public void setTotal(long total) {
+    public void setTotal(Long total) {
         this.total = total;
     }
 
-    public int getPage() {
+    public Integer getPage() {
         return page;
     }
 
-    public void setPage(int page) {
+    public void setPage(Integer page) {
         this.page = page;
     }
 
@@ -67,6 +73,14 @@ public class SearchPrincipalsResponseDto {
         this.size = size;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     /**
      * Item representing a principal in search results.
      */
@@ -0,0 +1,28 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Request DTO for verifying a service principal API key. The key is sent in the body so it never appears in
+ * access logs.
+ */
+public class VerifyApiKeyRequestDto {
+
+    /**
+     * The plain-text API key presented by the service (required)
+     */
+    @NotBlank(message = "API key is required")
+    @JsonProperty("api_key")
+    private String apiKey;
+
+    // Getters and Setters
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public void setApiKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+}
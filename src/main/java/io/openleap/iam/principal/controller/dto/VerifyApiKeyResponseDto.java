@@ -0,0 +1,71 @@
+package io.openleap.iam.principal.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response DTO for verifying a service principal API key.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VerifyApiKeyResponseDto {
+
+    /**
+     * True if the key belongs to an ACTIVE service principal
+     */
+    @JsonProperty("valid")
+    private boolean valid;
+
+    /**
+     * Principal ID (omitted for unknown keys)
+     */
+    @JsonProperty("principal_id")
+    private String principalId;
+
+    /**
+     * Principal status (omitted for unknown keys)
+     */
+    @JsonProperty("status")
+    private String status;
+
+    /**
+     * Scopes granted to the service, empty unless the key is valid
+     */
+    @JsonProperty("allowed_scopes")
+    private List<String> allowedScopes;
+
+    // Getters and Setters
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public String getPrincipalId() {
+        return principalId;
+    }
+
+    public void setPrincipalId(String principalId) {
+        this.principalId = principalId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<String> getAllowedScopes() {
+        return allowedScopes;
+    }
+
+    public void setAllowedScopes(List<String> allowedScopes) {
+        this.allowedScopes = allowedScopes;
+    }
+}
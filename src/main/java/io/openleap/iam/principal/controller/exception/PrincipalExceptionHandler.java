@@ -71,6 +71,54 @@ public class PrincipalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
     
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidCursor(InvalidCursorException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "InvalidCursor");
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
+    @ExceptionHandler(PrincipalSearchOffsetTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> handlePrincipalSearchOffsetTooLarge(PrincipalSearchOffsetTooLargeException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "OffsetTooLarge");
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
+    @ExceptionHandler(PrincipalSearchTimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handlePrincipalSearchTimeout(PrincipalSearchTimeoutException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "SearchTimeout");
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
+
+    @ExceptionHandler(PrincipalNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handlePrincipalNotFound(PrincipalNotFoundException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "PrincipalNotFound");
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+    }
+
+    @ExceptionHandler(PrincipalImportNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handlePrincipalImportNotFound(PrincipalImportNotFoundException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "ImportNotFound");
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+    }
+
+    @ExceptionHandler(PrincipalImportCapacityExceededException.class)
+    public ResponseEntity<Map<String, Object>> handlePrincipalImportCapacityExceeded(PrincipalImportCapacityExceededException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "TooManyImports");
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(body);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, Object> body = new HashMap<>();
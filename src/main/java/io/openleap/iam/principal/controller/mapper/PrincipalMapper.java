@@ -8,14 +8,26 @@ import io.openleap.iam.principal.controller.dto.DeletePrincipalGdprRequestDto;
 import io.openleap.iam.principal.controller.dto.DeletePrincipalGdprResponseDto;
 import io.openleap.iam.principal.controller.dto.AddTenantMembershipRequestDto;
 import io.openleap.iam.principal.controller.dto.AddTenantMembershipResponseDto;
+import io.openleap.iam.principal.controller.dto.BatchGetPrincipalsResponseDto;
+import io.openleap.iam.principal.controller.dto.BatchHeartbeatRequestDto;
+import io.openleap.iam.principal.controller.dto.BatchHeartbeatResponseDto;
+import io.openleap.iam.principal.controller.dto.BulkCreateHumanPrincipalsRequestDto;
+import io.openleap.iam.principal.controller.dto.BulkCreateHumanPrincipalsResponseDto;
+import io.openleap.iam.principal.controller.dto.CheckEntitlementsRequestDto;
+import io.openleap.iam.principal.controller.dto.CheckEntitlementsResponseDto;
 import io.openleap.iam.principal.controller.dto.CrossTenantSearchResponseDto;
+import io.openleap.iam.principal.controller.dto.EntitlementCheckResultDto;
 import io.openleap.iam.principal.controller.dto.GetCredentialStatusResponseDto;
 import io.openleap.iam.principal.controller.dto.GetPrincipalResponseDto;
 import io.openleap.iam.principal.controller.dto.GetProfileResponseDto;
 import io.openleap.iam.principal.controller.dto.ListTenantMembershipsResponseDto;
+import io.openleap.iam.principal.controller.dto.PrincipalExportItemDto;
+import io.openleap.iam.principal.controller.dto.PrincipalImportResponseDto;
 import io.openleap.iam.principal.controller.dto.SearchPrincipalsResponseDto;
 import io.openleap.iam.principal.controller.dto.UpdateHeartbeatRequestDto;
 import io.openleap.iam.principal.controller.dto.UpdateHeartbeatResponseDto;
+import io.openleap.iam.principal.controller.dto.ResolveCertificateRequestDto;
+import io.openleap.iam.principal.controller.dto.ResolveCertificateResponseDto;
 import io.openleap.iam.principal.controller.dto.RotateCredentialsRequestDto;
 import io.openleap.iam.principal.controller.dto.RotateCredentialsResponseDto;
 import io.openleap.iam.principal.controller.dto.SuspendPrincipalRequestDto;
@@ -32,13 +44,22 @@ import io.openleap.iam.principal.controller.dto.CreateSystemPrincipalRequestDto;
 import io.openleap.iam.principal.controller.dto.CreateSystemPrincipalResponseDto;
 import io.openleap.iam.principal.controller.dto.UpdateProfileRequestDto;
 import io.openleap.iam.principal.controller.dto.UpdateProfileResponseDto;
+import io.openleap.iam.principal.controller.dto.VerifyApiKeyRequestDto;
+import io.openleap.iam.principal.controller.dto.VerifyApiKeyResponseDto;
 import io.openleap.iam.principal.domain.dto.ActivatePrincipalCommand;
+import io.openleap.iam.principal.domain.dto.ApiKeyVerified;
+import io.openleap.iam.principal.domain.dto.CertificateResolved;
+import io.openleap.iam.principal.domain.dto.CheckEntitlementsCommand;
 import io.openleap.iam.principal.domain.dto.AddTenantMembershipCommand;
 import io.openleap.iam.principal.domain.dto.CommonAttributesUpdated;
 import io.openleap.iam.principal.domain.dto.CredentialStatus;
 import io.openleap.iam.principal.domain.dto.CreateDevicePrincipalCommand;
+import io.openleap.iam.principal.domain.dto.CrossTenantSearchQuery;
 import io.openleap.iam.principal.domain.dto.CrossTenantSearchResult;
+import io.openleap.iam.principal.domain.dto.EntitlementCheck;
+import io.openleap.iam.principal.domain.dto.EntitlementsChecked;
 import io.openleap.iam.principal.domain.dto.HeartbeatUpdated;
+import io.openleap.iam.principal.domain.dto.HeartbeatsUpdated;
 import io.openleap.iam.principal.domain.dto.ListTenantMembershipsResult;
 import io.openleap.iam.principal.domain.dto.TenantMembershipAdded;
 import io.openleap.iam.principal.domain.dto.UpdateHeartbeatCommand;
@@ -52,12 +73,18 @@ import io.openleap.iam.principal.domain.dto.ProfileDetails;
 import io.openleap.iam.principal.domain.dto.UpdateCommonAttributesCommand;
 import io.openleap.iam.principal.domain.dto.DevicePrincipalCreated;
 import io.openleap.iam.principal.domain.dto.HumanPrincipalCreated;
+import io.openleap.iam.principal.domain.dto.HumanPrincipalsCreated;
 import io.openleap.iam.principal.domain.dto.PrincipalActivated;
 import io.openleap.iam.principal.domain.dto.PrincipalDeactivated;
 import io.openleap.iam.principal.domain.dto.PrincipalDeleted;
 import io.openleap.iam.principal.domain.dto.PrincipalDetails;
+import io.openleap.iam.principal.domain.dto.PrincipalDetailsBatch;
+import io.openleap.iam.principal.domain.dto.PrincipalExportItem;
+import io.openleap.iam.principal.domain.dto.PrincipalExportQuery;
+import io.openleap.iam.principal.domain.dto.PrincipalImportStatus;
 import io.openleap.iam.principal.domain.dto.PrincipalSuspended;
 import io.openleap.iam.principal.domain.dto.ProfileUpdated;
+import io.openleap.iam.principal.domain.dto.ResolveCertificateCommand;
 import io.openleap.iam.principal.domain.dto.RotateCredentialsCommand;
 import io.openleap.iam.principal.domain.dto.SearchPrincipalsQuery;
 import io.openleap.iam.principal.domain.dto.SearchPrincipalsResult;
@@ -65,11 +92,14 @@ import io.openleap.iam.principal.domain.dto.ServicePrincipalCreated;
 import io.openleap.iam.principal.domain.dto.SuspendPrincipalCommand;
 import io.openleap.iam.principal.domain.dto.SystemPrincipalCreated;
 import io.openleap.iam.principal.domain.dto.UpdateProfileCommand;
+import io.openleap.iam.principal.domain.dto.VerifyApiKeyCommand;
 import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
 import io.openleap.iam.principal.domain.entity.Principal;
 import io.openleap.iam.principal.domain.entity.PrincipalStatus;
 import io.openleap.iam.principal.domain.entity.PrincipalType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -90,6 +120,38 @@ public interface PrincipalMapper {
      * Maps service domain result to controller response DTO.
      */
     CreateHumanPrincipalResponseDto toResponseDto(HumanPrincipalCreated created);
+
+    /**
+     * Maps bulk create request to one command per principal, normalized like a single create.
+     */
+    default List<CreateHumanPrincipalCommand> toCommands(BulkCreateHumanPrincipalsRequestDto dto) {
+        return dto.getPrincipals().stream()
+                .map(this::toCommand)
+                .toList();
+    }
+
+    /**
+     * Maps bulk create result to response DTO, keeping request order.
+     */
+    default BulkCreateHumanPrincipalsResponseDto toResponseDto(HumanPrincipalsCreated created) {
+        BulkCreateHumanPrincipalsResponseDto dto = new BulkCreateHumanPrincipalsResponseDto();
+        List<BulkCreateHumanPrincipalsResponseDto.BulkCreateItemDto> items = new ArrayList<>();
+        for (int i = 0; i < created.items().size(); i++) {
+            HumanPrincipalsCreated.Item item = created.items().get(i);
+            var itemDto = new BulkCreateHumanPrincipalsResponseDto.BulkCreateItemDto();
+            itemDto.setIndex(i);
+            itemDto.setUsername(item.username());
+            itemDto.setId(item.isCreated() ? item.id().toString() : null);
+            itemDto.setError(item.error());
+            itemDto.setMessage(item.message());
+            items.add(itemDto);
+        }
+        int createdCount = (int) created.createdCount();
+        dto.setCreated(createdCount);
+        dto.setFailed(items.size() - createdCount);
+        dto.setItems(items);
+        return dto;
+    }
     
     /**
      * Maps controller request DTO to service domain command for service principal.
@@ -342,6 +404,29 @@ public interface PrincipalMapper {
         return dto;
     }
 
+    /**
+     * Maps batch lookup result to response DTO, keeping request order and listing misses.
+     */
+    default BatchGetPrincipalsResponseDto toResponseDto(PrincipalDetailsBatch batch) {
+        BatchGetPrincipalsResponseDto dto = new BatchGetPrincipalsResponseDto();
+        var items = batch.items().stream()
+                .map(item -> {
+                    var itemDto = new BatchGetPrincipalsResponseDto.BatchGetPrincipalItemDto();
+                    itemDto.setId(item.id().toString());
+                    itemDto.setFound(item.found());
+                    itemDto.setPrincipal(item.found() ? toResponseDto(item.details()) : null);
+                    return itemDto;
+                })
+                .toList();
+        dto.setItems(items);
+        dto.setNotFound(batch.items().stream()
+                .filter(item -> !item.found())
+                .map(item -> item.id().toString())
+                .distinct()
+                .toList());
+        return dto;
+    }
+
     /**
      * Maps service domain result to controller response DTO for get principal.
      */
@@ -425,6 +510,76 @@ public interface PrincipalMapper {
         return dto;
     }
 
+    /**
+     * Maps controller request DTO to service domain command for API key verification.
+     */
+    default VerifyApiKeyCommand toCommand(VerifyApiKeyRequestDto dto) {
+        return new VerifyApiKeyCommand(dto.getApiKey());
+    }
+
+    /**
+     * Maps service domain result to controller response DTO for API key verification.
+     */
+    default VerifyApiKeyResponseDto toResponseDto(ApiKeyVerified verified) {
+        VerifyApiKeyResponseDto dto = new VerifyApiKeyResponseDto();
+        dto.setValid(verified.valid());
+        dto.setPrincipalId(verified.principalId() != null ? verified.principalId().toString() : null);
+        dto.setStatus(verified.status());
+        dto.setAllowedScopes(verified.allowedScopes());
+        return dto;
+    }
+
+    /**
+     * Maps controller request DTO to service domain command for certificate resolution.
+     */
+    default ResolveCertificateCommand toCommand(ResolveCertificateRequestDto dto) {
+        return new ResolveCertificateCommand(dto.getCertificateThumbprint());
+    }
+
+    /**
+     * Maps service domain result to controller response DTO for certificate resolution.
+     */
+    default ResolveCertificateResponseDto toResponseDto(CertificateResolved resolved) {
+        ResolveCertificateResponseDto dto = new ResolveCertificateResponseDto();
+        dto.setValid(resolved.valid());
+        dto.setPrincipalId(resolved.principalId() != null ? resolved.principalId().toString() : null);
+        dto.setPrincipalType(resolved.principalType());
+        dto.setStatus(resolved.status());
+        dto.setAllowedOperations(resolved.allowedOperations());
+        return dto;
+    }
+
+    /**
+     * Maps controller request DTO to service domain command for checking several entitlements.
+     */
+    default CheckEntitlementsCommand toCommand(CheckEntitlementsRequestDto dto) {
+        List<EntitlementCheck> checks = dto.getChecks().stream()
+                .map(check -> new EntitlementCheck(check.getPrincipalId(), check.getEntitlement()))
+                .toList();
+        return new CheckEntitlementsCommand(checks);
+    }
+
+    /**
+     * Maps service domain result to controller response DTO for checking several entitlements.
+     */
+    default CheckEntitlementsResponseDto toResponseDto(EntitlementsChecked checked) {
+        CheckEntitlementsResponseDto dto = new CheckEntitlementsResponseDto();
+        dto.setItems(checked.items().stream().map(this::toResponseDto).toList());
+        return dto;
+    }
+
+    /**
+     * Maps a single entitlement check result to its controller response DTO.
+     */
+    default EntitlementCheckResultDto toResponseDto(EntitlementsChecked.Item item) {
+        EntitlementCheckResultDto dto = new EntitlementCheckResultDto();
+        dto.setPrincipalId(item.principalId().toString());
+        dto.setEntitlement(item.entitlement());
+        dto.setFound(item.found());
+        dto.setAllowed(item.allowed());
+        return dto;
+    }
+
     /**
      * Maps service domain result to controller response DTO for credential status.
      */
@@ -514,6 +669,69 @@ public interface PrincipalMapper {
         );
     }
 
+    /**
+     * Maps batch heartbeat request DTO to one command per device heartbeat.
+     */
+    default List<UpdateHeartbeatCommand> toCommands(BatchHeartbeatRequestDto dto) {
+        return dto.getHeartbeats().stream()
+                .map(heartbeat -> toCommand(heartbeat, heartbeat.getPrincipalId()))
+                .toList();
+    }
+
+    /**
+     * Maps batch heartbeat result to response DTO, keeping request order and listing unknown devices.
+     */
+    default BatchHeartbeatResponseDto toResponseDto(HeartbeatsUpdated updated) {
+        BatchHeartbeatResponseDto dto = new BatchHeartbeatResponseDto();
+        dto.setItems(updated.items().stream()
+                .map(item -> {
+                    var itemDto = new BatchHeartbeatResponseDto.BatchHeartbeatItemDto();
+                    itemDto.setId(item.id().toString());
+                    itemDto.setFound(item.found());
+                    itemDto.setLastHeartbeatAt(item.found() ? item.lastHeartbeatAt().toString() : null);
+                    return itemDto;
+                })
+                .toList());
+        dto.setNotFound(updated.items().stream()
+                .filter(item -> !item.found())
+                .map(item -> item.id().toString())
+                .distinct()
+                .toList());
+        return dto;
+    }
+
+    /**
+     * Maps principal import progress to response DTO.
+     */
+    default PrincipalImportResponseDto toResponseDto(PrincipalImportStatus status) {
+        PrincipalImportResponseDto dto = new PrincipalImportResponseDto();
+        dto.setJobId(status.jobId().toString());
+        dto.setFormat(status.format());
+        dto.setState(status.state());
+        dto.setStartedAt(status.startedAt().toString());
+        dto.setFinishedAt(status.finishedAt() != null ? status.finishedAt().toString() : null);
+        dto.setRead(status.read());
+        dto.setInvalid(status.invalid());
+        dto.setRejected(status.rejected());
+        dto.setCreated(status.created());
+        dto.setProvisioned(status.provisioned());
+        dto.setProvisioningDeferred(status.provisioningDeferred());
+        dto.setRecordsPerSecond(status.recordsPerSecond());
+        dto.setErrorCount(status.errorCount());
+        dto.setErrors(status.errors().stream()
+                .map(error -> {
+                    var errorDto = new PrincipalImportResponseDto.ImportErrorDto();
+                    errorDto.setRecord(error.record());
+                    errorDto.setUsername(error.username());
+                    errorDto.setError(error.error());
+                    errorDto.setMessage(error.message());
+                    return errorDto;
+                })
+                .toList());
+        dto.setFailure(status.failure());
+        return dto;
+    }
+
     /**
      * Maps result to response DTO for updating heartbeat.
      */
@@ -532,6 +750,7 @@ public interface PrincipalMapper {
         dto.setTotal(result.total());
         dto.setPage(result.page());
         dto.setSize(result.size());
+        dto.setNextCursor(result.nextCursor());
 
         var items = result.items().stream()
                 .map(item -> {
@@ -553,7 +772,7 @@ public interface PrincipalMapper {
     /**
      * Maps request parameters to search principals query.
      */
-    default SearchPrincipalsQuery toQuery(String search, String principalType, String status, UUID tenantId, int page, int size) {
+    default SearchPrincipalsQuery toQuery(String search, String principalType, String status, UUID tenantId, int page, int size, String cursor) {
         PrincipalType parsedPrincipalType = null;
         if (principalType != null && !principalType.isBlank()) {
             try {
@@ -572,7 +791,40 @@ public interface PrincipalMapper {
             }
         }
 
-        return new SearchPrincipalsQuery(search, parsedPrincipalType, parsedStatus, tenantId, page, size);
+        return new SearchPrincipalsQuery(search, parsedPrincipalType, parsedStatus, tenantId, page, size,
+                cursor != null && !cursor.isBlank() ? cursor : null);
+    }
+
+    /**
+     * Maps request parameters to cross-tenant search query; invalid type or status values are ignored.
+     */
+    default CrossTenantSearchQuery toCrossTenantQuery(String search, String principalType, String status, int page, int size, String cursor) {
+        SearchPrincipalsQuery query = toQuery(search, principalType, status, null, page, size, cursor);
+        return new CrossTenantSearchQuery(query.search(), query.principalType(), query.status(),
+                query.page(), query.size(), query.cursor());
+    }
+
+    /**
+     * Maps request parameters to an export query; invalid type or status values are ignored like in search.
+     */
+    default PrincipalExportQuery toExportQuery(String principalType, String status, UUID tenantId) {
+        SearchPrincipalsQuery query = toQuery(null, principalType, status, tenantId, 1, 1, null);
+        return new PrincipalExportQuery(query.principalType(), query.status(), query.tenantId());
+    }
+
+    /**
+     * Maps an exported principal to one export line.
+     */
+    default PrincipalExportItemDto toExportItemDto(PrincipalExportItem item) {
+        PrincipalExportItemDto dto = new PrincipalExportItemDto();
+        dto.setId(item.principalId().toString());
+        dto.setPrincipalType(item.principalType());
+        dto.setUsername(item.username());
+        dto.setEmail(item.email());
+        dto.setStatus(item.status().name());
+        dto.setDefaultTenantId(item.defaultTenantId() != null ? item.defaultTenantId().toString() : null);
+        dto.setCreatedAt(item.createdAt() != null ? item.createdAt().toString() : null);
+        return dto;
     }
 
     /**
@@ -583,6 +835,7 @@ public interface PrincipalMapper {
         dto.setTotal(result.total());
         dto.setPage(result.page());
         dto.setSize(result.size());
+        dto.setNextCursor(result.nextCursor());
 
         var items = result.items().stream()
                 .map(item -> {
@@ -0,0 +1,27 @@
+package io.openleap.iam.principal.domain.dto;
+
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The service principal an API key hash belongs to, as cached for key verification.
+ */
+public record ApiKeyOwner(
+    /**
+     * Principal ID
+     */
+    UUID principalId,
+
+    /**
+     * Account state
+     */
+    PrincipalStatus status,
+
+    /**
+     * OAuth2 scopes granted to the service
+     */
+    List<String> allowedScopes
+) {
+}
@@ -0,0 +1,30 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result DTO for API key verification.
+ */
+public record ApiKeyVerified(
+    /**
+     * True if the key belongs to an ACTIVE service principal
+     */
+    boolean valid,
+
+    /**
+     * Principal ID, null if the key is unknown
+     */
+    UUID principalId,
+
+    /**
+     * Principal status, null if the key is unknown
+     */
+    String status,
+
+    /**
+     * Scopes granted to the service, empty unless the key is valid
+     */
+    List<String> allowedScopes
+) {
+}
@@ -0,0 +1,33 @@
+package io.openleap.iam.principal.domain.dto;
+
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The system or device principal a certificate thumbprint belongs to, as cached for mTLS resolution.
+ */
+public record CertificateOwner(
+    /**
+     * Principal ID
+     */
+    UUID principalId,
+
+    /**
+     * SYSTEM or DEVICE
+     */
+    PrincipalType principalType,
+
+    /**
+     * Account state
+     */
+    PrincipalStatus status,
+
+    /**
+     * Operations the system may perform, empty for devices
+     */
+    List<String> allowedOperations
+) {
+}
@@ -0,0 +1,35 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result DTO for certificate thumbprint resolution.
+ */
+public record CertificateResolved(
+    /**
+     * True if the thumbprint belongs to exactly one principal and it is ACTIVE
+     */
+    boolean valid,
+
+    /**
+     * Principal ID, null if the thumbprint is unknown
+     */
+    UUID principalId,
+
+    /**
+     * SYSTEM or DEVICE, null if the thumbprint is unknown
+     */
+    String principalType,
+
+    /**
+     * Principal status, null if the thumbprint is unknown
+     */
+    String status,
+
+    /**
+     * Operations the principal may perform, empty unless the certificate is valid
+     */
+    List<String> allowedOperations
+) {
+}
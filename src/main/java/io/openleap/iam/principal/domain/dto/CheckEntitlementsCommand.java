@@ -0,0 +1,14 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.util.List;
+
+/**
+ * Command for checking several entitlements at once.
+ */
+public record CheckEntitlementsCommand(
+    /**
+     * Checks to answer, duplicates allowed
+     */
+    List<EntitlementCheck> checks
+) {
+}
@@ -1,27 +1,59 @@
 package io.openleap.iam.principal.domain.dto;
 
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
 import java.util.Map;
 import java.util.UUID;
 
 /**
  * Domain DTO for creating a human principal.
  * Used by the service layer.
+ * <p>
+ * Carries the same constraints as the REST request, so commands that do not come from a request (e.g. a file
+ * import) are validated by the same rules.
  */
 public record CreateHumanPrincipalCommand(
+    @NotBlank(message = "Username is required")
+    @Size(max = 100, message = "Username must not exceed 100 characters")
     String username,
+
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email must be a valid email address")
+    @Size(max = 255, message = "Email must not exceed 255 characters")
     String email,
+
     UUID defaultTenantId,
     Map<String, Object> contextTags,
+
+    @Size(max = 200, message = "Display name must not exceed 200 characters")
     String displayName,
+
+    @Size(max = 200, message = "First name must not exceed 200 characters")
     String firstName,
+
+    @Size(max = 200, message = "Last name must not exceed 200 characters")
     String lastName,
+
+    @Size(max = 20, message = "Phone must not exceed 20 characters")
     String phone,
+
+    @Size(max = 10, message = "Language must not exceed 10 characters")
     String language,
+
+    @Size(max = 100, message = "Timezone must not exceed 100 characters")
     String timezone,
+
+    @Size(max = 20, message = "Locale must not exceed 20 characters")
     String locale,
+
+    @Size(max = 500, message = "Avatar URL must not exceed 500 characters")
     String avatarUrl,
+
+    @Size(max = 2000, message = "Bio must not exceed 2000 characters")
     String bio,
+
     Map<String, Object> preferences
 ) {
 }
-
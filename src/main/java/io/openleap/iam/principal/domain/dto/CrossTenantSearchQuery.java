@@ -1,23 +1,26 @@
 package io.openleap.iam.principal.domain.dto;
 
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+
 /**
  * Query for cross-tenant principal search.
  */
 public record CrossTenantSearchQuery(
     /**
-     * Search term for username or email
+     * Search term (case-insensitive partial match on username, email or display name)
      */
     String search,
 
     /**
      * Filter by principal type (HUMAN, SERVICE, SYSTEM, DEVICE)
      */
-    String principalType,
+    PrincipalType principalType,
 
     /**
-     * Filter by status (PENDING, ACTIVE, SUSPENDED, DEACTIVATED)
+     * Filter by status (PENDING, ACTIVE, SUSPENDED, INACTIVE, DELETED)
      */
-    String status,
+    PrincipalStatus status,
 
     /**
      * Page number (1-indexed)
@@ -27,6 +30,11 @@ public record CrossTenantSearchQuery(
     /**
      * Page size
      */
-    int size
+    int size,
+
+    /**
+     * Opaque keyset cursor; when present, {@code page} is ignored and results continue after the cursor
+     */
+    String cursor
 ) {
 }
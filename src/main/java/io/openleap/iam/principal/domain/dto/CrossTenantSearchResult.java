@@ -12,18 +12,23 @@ public record CrossTenantSearchResult(
     List<CrossTenantPrincipalItem> items,
 
     /**
-     * Total number of matching principals
+     * Total number of matching principals (null in cursor mode, which skips the count)
      */
-    long total,
+    Long total,
 
     /**
-     * Current page number
+     * Current page number (null in cursor mode)
      */
-    int page,
+    Integer page,
 
     /**
      * Page size
      */
-    int size
+    int size,
+
+    /**
+     * Cursor for the next page, null if there are no more results
+     */
+    String nextCursor
 ) {
 }
@@ -0,0 +1,45 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A device heartbeat waiting to be written to {@code device_principals}.
+ */
+public record DeviceHeartbeat(
+    /**
+     * Device principal ID
+     */
+    UUID deviceId,
+
+    /**
+     * Time the heartbeat was received
+     */
+    Instant heartbeatAt,
+
+    /**
+     * Reported firmware version, null if unchanged
+     */
+    String firmwareVersion,
+
+    /**
+     * Reported location info, null if unchanged
+     */
+    Map<String, Object> locationInfo
+) {
+
+    /**
+     * Combines two heartbeats of the same device: the later timestamp wins, and firmware and location are taken
+     * from the later heartbeat unless it did not report them.
+     */
+    public static DeviceHeartbeat coalesce(DeviceHeartbeat a, DeviceHeartbeat b) {
+        DeviceHeartbeat older = a.heartbeatAt().isAfter(b.heartbeatAt()) ? b : a;
+        DeviceHeartbeat newer = older == a ? b : a;
+        return new DeviceHeartbeat(
+                newer.deviceId(),
+                newer.heartbeatAt(),
+                newer.firmwareVersion() != null ? newer.firmwareVersion() : older.firmwareVersion(),
+                newer.locationInfo() != null ? newer.locationInfo() : older.locationInfo());
+    }
+}
@@ -0,0 +1,19 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.util.UUID;
+
+/**
+ * A single entitlement check: may the principal use this scope or operation.
+ */
+public record EntitlementCheck(
+    /**
+     * Principal ID
+     */
+    UUID principalId,
+
+    /**
+     * Scope (service principals) or operation (system principals) to check
+     */
+    String entitlement
+) {
+}
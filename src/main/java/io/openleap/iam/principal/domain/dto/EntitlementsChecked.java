@@ -0,0 +1,41 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of checking several entitlements.
+ */
+public record EntitlementsChecked(
+    /**
+     * One item per check, in request order
+     */
+    List<Item> items
+) {
+
+    /**
+     * Result of a single check.
+     */
+    public record Item(
+        /**
+         * Principal ID
+         */
+        UUID principalId,
+
+        /**
+         * Checked scope or operation
+         */
+        String entitlement,
+
+        /**
+         * False if no principal with this ID exists
+         */
+        boolean found,
+
+        /**
+         * True if the principal is ACTIVE and holds the entitlement
+         */
+        boolean allowed
+    ) {
+    }
+}
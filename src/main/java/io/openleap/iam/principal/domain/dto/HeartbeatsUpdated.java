@@ -0,0 +1,36 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of recording heartbeats of several devices.
+ */
+public record HeartbeatsUpdated(
+    /**
+     * One item per submitted heartbeat, in request order
+     */
+    List<Item> items
+) {
+
+    /**
+     * Result for a single device.
+     */
+    public record Item(
+        /**
+         * Device principal ID
+         */
+        UUID id,
+
+        /**
+         * Recorded heartbeat timestamp, null if no device with this ID exists
+         */
+        Instant lastHeartbeatAt
+    ) {
+
+        public boolean found() {
+            return lastHeartbeatAt != null;
+        }
+    }
+}
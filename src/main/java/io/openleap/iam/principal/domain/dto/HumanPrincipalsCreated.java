@@ -0,0 +1,57 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of creating several human principals at once.
+ */
+public record HumanPrincipalsCreated(
+    /**
+     * One item per submitted principal, in request order
+     */
+    List<Item> items
+) {
+
+    /**
+     * Result for a single principal.
+     */
+    public record Item(
+        /**
+         * Username as submitted
+         */
+        String username,
+
+        /**
+         * ID of the created principal, null if the row was rejected
+         */
+        UUID id,
+
+        /**
+         * Error code if the row was rejected, e.g. UsernameAlreadyExists
+         */
+        String error,
+
+        /**
+         * Human-readable reason if the row was rejected
+         */
+        String message
+    ) {
+
+        public static Item created(String username, UUID id) {
+            return new Item(username, id, null, null);
+        }
+
+        public static Item rejected(String username, String error, String message) {
+            return new Item(username, null, error, message);
+        }
+
+        public boolean isCreated() {
+            return id != null;
+        }
+    }
+
+    public long createdCount() {
+        return items.stream().filter(Item::isCreated).count();
+    }
+}
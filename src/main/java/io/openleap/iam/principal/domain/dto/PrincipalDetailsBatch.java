@@ -0,0 +1,35 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of looking up several principals by ID.
+ */
+public record PrincipalDetailsBatch(
+    /**
+     * One item per requested ID, in request order
+     */
+    List<Item> items
+) {
+
+    /**
+     * Lookup result for a single requested ID.
+     */
+    public record Item(
+        /**
+         * Requested principal ID
+         */
+        UUID id,
+
+        /**
+         * Principal details, null if no principal with this ID exists
+         */
+        PrincipalDetails details
+    ) {
+
+        public boolean found() {
+            return details != null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.openleap.iam.principal.domain.dto;
+
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Scopes or operations of a principal, compiled into a hash set for entitlement checks.
+ */
+public record PrincipalEntitlements(
+    /**
+     * Principal ID
+     */
+    UUID principalId,
+
+    /**
+     * Account state
+     */
+    PrincipalStatus status,
+
+    /**
+     * Allowed scopes of a service or allowed operations of a system, empty for other principal types
+     */
+    Set<String> entitlements
+) {
+
+    /**
+     * @return true if the principal is ACTIVE and holds {@code entitlement}
+     */
+    public boolean allows(String entitlement) {
+        return status == PrincipalStatus.ACTIVE && entitlements.contains(entitlement);
+    }
+}
@@ -0,0 +1,35 @@
+package io.openleap.iam.principal.domain.dto;
+
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A single exported principal. Selected by constructor expression, so exported rows are never managed entities.
+ */
+public record PrincipalExportItem(
+    /**
+     * Principal ID
+     */
+    UUID principalId,
+
+    /**
+     * Principal type (HUMAN, SERVICE, SYSTEM, DEVICE)
+     */
+    String principalType,
+
+    String username,
+
+    String email,
+
+    PrincipalStatus status,
+
+    /**
+     * Primary tenant ID
+     */
+    UUID defaultTenantId,
+
+    Instant createdAt
+) {
+}
@@ -0,0 +1,27 @@
+package io.openleap.iam.principal.domain.dto;
+
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+
+import java.util.UUID;
+
+/**
+ * Filters of a principal export; a null filter matches everything.
+ */
+public record PrincipalExportQuery(
+    /**
+     * Filter by principal type (HUMAN, SERVICE, SYSTEM, DEVICE)
+     */
+    PrincipalType principalType,
+
+    /**
+     * Filter by status (PENDING, ACTIVE, SUSPENDED, INACTIVE, DELETED)
+     */
+    PrincipalStatus status,
+
+    /**
+     * Filter by primary tenant
+     */
+    UUID tenantId
+) {
+}
@@ -0,0 +1,100 @@
+package io.openleap.iam.principal.domain.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress snapshot of a principal file import.
+ */
+public record PrincipalImportStatus(
+    UUID jobId,
+
+    /**
+     * NDJSON or CSV
+     */
+    String format,
+
+    /**
+     * RUNNING, COMPLETED or FAILED
+     */
+    String state,
+
+    Instant startedAt,
+
+    /**
+     * Null while the import is running
+     */
+    Instant finishedAt,
+
+    /**
+     * Records read from the file so far
+     */
+    long read,
+
+    /**
+     * Records that could not be parsed or failed validation
+     */
+    long invalid,
+
+    /**
+     * Valid records that were not created, e.g. because the username already exists
+     */
+    long rejected,
+
+    /**
+     * Principals created
+     */
+    long created,
+
+    /**
+     * Created principals whose Keycloak user was created by the import
+     */
+    long provisioned,
+
+    /**
+     * Created principals left to the background Keycloak sync
+     */
+    long provisioningDeferred,
+
+    /**
+     * Records read per second since the start
+     */
+    double recordsPerSecond,
+
+    /**
+     * Total number of invalid and rejected records
+     */
+    long errorCount,
+
+    /**
+     * The first errors, capped at {@code iam.principal.import.max-reported-errors}
+     */
+    List<RecordError> errors,
+
+    /**
+     * Reason the import stopped early, null unless FAILED
+     */
+    String failure
+) {
+
+    /**
+     * Error of a single record.
+     */
+    public record RecordError(
+        /**
+         * Line number for NDJSON, data row number (header excluded) for CSV; starts at 1
+         */
+        long record,
+
+        String username,
+
+        /**
+         * Error code, e.g. ValidationFailed or UsernameAlreadyExists
+         */
+        String error,
+
+        String message
+    ) {
+    }
+}
@@ -0,0 +1,12 @@
+package io.openleap.iam.principal.domain.dto;
+
+/**
+ * Command for resolving a client certificate to its principal.
+ */
+public record ResolveCertificateCommand(
+    /**
+     * SHA-256 thumbprint of the client certificate, as stored on the principal
+     */
+    String thumbprint
+) {
+}
@@ -0,0 +1,73 @@
+package io.openleap.iam.principal.domain.dto;
+
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a search ordered by {@code created_at DESC, principal type, id DESC}. The principal type
+ * makes the order total across the four principal tables, whose IDs come from separate sequences.
+ * <p>
+ * Clients only ever see the opaque {@link #encode() encoded} form.
+ */
+public record SearchCursor(
+    /**
+     * Creation time of the last returned principal
+     */
+    Instant createdAt,
+
+    /**
+     * Type (table) of the last returned principal
+     */
+    PrincipalType principalType,
+
+    /**
+     * Database ID of the last returned principal (tie-breaker for equal creation times)
+     */
+    Long id
+) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + principalType.name() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @throws InvalidCursorException if the value was not produced by this service
+     */
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected 3 cursor parts but got " + parts.length);
+            }
+            return new SearchCursor(
+                    Instant.parse(parts[0]),
+                    PrincipalType.valueOf(parts[1]),
+                    Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    /**
+     * The ID bound to pass to the keyset query of {@code tableType}, so that the per-table seek
+     * {@code (created_at, id) < (createdAt, bound)} reproduces the cross-table order: tables sorting after the
+     * cursor's type still include rows created at exactly {@code createdAt}, tables sorting before exclude them.
+     */
+    public long idBoundFor(PrincipalType tableType) {
+        int order = tableType.compareTo(principalType);
+        if (order == 0) {
+            return id;
+        }
+        return order > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+}
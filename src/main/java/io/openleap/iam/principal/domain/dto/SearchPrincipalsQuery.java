@@ -10,7 +10,7 @@ import java.util.UUID;
  */
 public record SearchPrincipalsQuery(
     /**
-     * Search term (partial match on username or email)
+     * Search term (case-insensitive partial match on username, email or display name)
      */
     String search,
 
@@ -37,6 +37,11 @@ public record SearchPrincipalsQuery(
     /**
      * Page size
      */
-    int size
+    int size,
+
+    /**
+     * Opaque keyset cursor; when present, {@code page} is ignored and results continue after the cursor
+     */
+    String cursor
 ) {
 }
@@ -14,19 +14,24 @@ public record SearchPrincipalsResult(
     List<PrincipalItem> items,
 
     /**
-     * Total count of matching principals
+     * Total count of matching principals (null in cursor mode, which skips the count)
      */
-    long total,
+    Long total,
 
     /**
-     * Current page number (1-indexed)
+     * Current page number (1-indexed, null in cursor mode)
      */
-    int page,
+    Integer page,
 
     /**
      * Page size
      */
-    int size
+    int size,
+
+    /**
+     * Cursor for the next page, null if there are no more results
+     */
+    String nextCursor
 ) {
     /**
      * Item representing a principal in search results.
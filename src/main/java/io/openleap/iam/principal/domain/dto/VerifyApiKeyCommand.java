@@ -0,0 +1,16 @@
+package io.openleap.iam.principal.domain.dto;
+
+/**
+ * Command for verifying a service principal API key.
+ */
+public record VerifyApiKeyCommand(
+    /**
+     * The plain-text API key presented by the caller
+     */
+    String apiKey
+) {
+    @Override
+    public String toString() {
+        return "VerifyApiKeyCommand[apiKey=***]";
+    }
+}
@@ -10,6 +10,16 @@ import java.util.Map;
 @Entity
 @Table(name = "device_principals", schema = "iam_principal")
 public class DevicePrincipalEntity extends Principal {
+
+    /**
+     * Surrogate key, taken from device_principals_seq in blocks of 50 so inserts can be batched. Overrides the
+     * inherited id mapping, which knows nothing of the per-table sequence.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "device_principals_seq")
+    @SequenceGenerator(name = "device_principals_seq", sequenceName = "device_principals_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
     
     /**
      * Keycloak client ID (UK, nullable, set after sync)
@@ -67,6 +77,15 @@ public class DevicePrincipalEntity extends Principal {
     @Column(name = "location_info", columnDefinition = "jsonb")
     private Map<String, Object> locationInfo;
     
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     @Override
     public PrincipalType getPrincipalType() {
         return PrincipalType.DEVICE;
@@ -10,6 +10,16 @@ import java.util.Map;
 @Entity
 @Table(name = "human_principals", schema = "iam_principal")
 public class HumanPrincipalEntity extends Principal {
+
+    /**
+     * Surrogate key, taken from human_principals_seq in blocks of 50 so inserts can be batched. Overrides the
+     * inherited id mapping, which knows nothing of the per-table sequence.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "human_principals_seq")
+    @SequenceGenerator(name = "human_principals_seq", sequenceName = "human_principals_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
     
     /**
      * Keycloak user ID (UK, nullable, set after sync)
@@ -90,6 +100,15 @@ public class HumanPrincipalEntity extends Principal {
     @Column(name = "preferences", columnDefinition = "jsonb")
     private Map<String, Object> preferences;
     
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     @Override
     public PrincipalType getPrincipalType() {
         return PrincipalType.HUMAN;
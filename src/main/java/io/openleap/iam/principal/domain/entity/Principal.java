@@ -59,6 +59,12 @@ public abstract class Principal extends AuditableEntity implements DomainEntity<
     @Column(name = "sync_retry_count", nullable = false)
     private Integer syncRetryCount = 0;
 
+    /**
+     * When the principal became INACTIVE; the GDPR retention period runs from here
+     */
+    @Column(name = "inactivated_at")
+    private Instant inactivatedAt;
+
     @PrePersist
     protected void onCreate() {
         if (getCreatedAt() == null) {
@@ -141,6 +147,14 @@ public abstract class Principal extends AuditableEntity implements DomainEntity<
     public void setSyncRetryCount(Integer syncRetryCount) {
         this.syncRetryCount = syncRetryCount;
     }
+
+    public Instant getInactivatedAt() {
+        return inactivatedAt;
+    }
+
+    public void setInactivatedAt(Instant inactivatedAt) {
+        this.inactivatedAt = inactivatedAt;
+    }
     
     /**
      * Get the principal type (discriminator).
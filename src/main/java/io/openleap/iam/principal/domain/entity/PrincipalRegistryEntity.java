@@ -0,0 +1,72 @@
+package io.openleap.iam.principal.domain.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.util.UUID;
+
+/**
+ * Global registry entry for a principal of any type.
+ * <p>
+ * Maintained by database triggers on the four principal tables, so it is read-only from the application.
+ */
+@Entity
+@Immutable
+@Table(name = "principal_registry", schema = "iam_principal")
+public class PrincipalRegistryEntity {
+
+    /**
+     * Principal business ID (PK)
+     */
+    @Id
+    @Column(name = "business_id", nullable = false, updatable = false)
+    private UUID businessId;
+
+    /**
+     * Discriminator indicating which table owns the principal (HUMAN, SERVICE, SYSTEM, DEVICE)
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "principal_type", nullable = false, length = 50, updatable = false)
+    private PrincipalType principalType;
+
+    /**
+     * Internal ID of the principal in its owning table
+     */
+    @Column(name = "principal_id", nullable = false, updatable = false)
+    private Long principalId;
+
+    /**
+     * Login username (UK across all principal tables)
+     */
+    @Column(name = "username", nullable = false, unique = true, length = 100)
+    private String username;
+
+    /**
+     * Account state, mirrored from the owning table
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 50)
+    private PrincipalStatus status;
+
+    // Getters
+
+    public UUID getBusinessId() {
+        return businessId;
+    }
+
+    public PrincipalType getPrincipalType() {
+        return principalType;
+    }
+
+    public Long getPrincipalId() {
+        return principalId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public PrincipalStatus getStatus() {
+        return status;
+    }
+}
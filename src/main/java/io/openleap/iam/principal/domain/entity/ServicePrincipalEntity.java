@@ -9,6 +9,16 @@ import java.util.List;
 @Entity
 @Table(name = "service_principals", schema = "iam_principal")
 public class ServicePrincipalEntity extends Principal {
+
+    /**
+     * Surrogate key, taken from service_principals_seq in blocks of 50 so inserts can be batched. Overrides the
+     * inherited id mapping, which knows nothing of the per-table sequence.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "service_principals_seq")
+    @SequenceGenerator(name = "service_principals_seq", sequenceName = "service_principals_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
     
     /**
      * Keycloak client ID (UK, nullable, set after sync)
@@ -46,6 +56,15 @@ public class ServicePrincipalEntity extends Principal {
     @Column(name = "rotated_at")
     private Instant rotatedAt;
     
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     @Override
     public PrincipalType getPrincipalType() {
         return PrincipalType.SERVICE;
@@ -7,6 +7,16 @@ import java.util.List;
 @Entity
 @Table(name = "system_principals", schema = "iam_principal")
 public class SystemPrincipalEntity extends Principal {
+
+    /**
+     * Surrogate key, taken from system_principals_seq in blocks of 50 so inserts can be batched. Overrides the
+     * inherited id mapping, which knows nothing of the per-table sequence.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "system_principals_seq")
+    @SequenceGenerator(name = "system_principals_seq", sequenceName = "system_principals_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
     
     /**
      * Keycloak client ID (UK, nullable, set after sync)
@@ -39,6 +49,15 @@ public class SystemPrincipalEntity extends Principal {
     @Column(name = "allowed_operations", columnDefinition = "text[]")
     private List<String> allowedOperations;
     
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     @Override
     public PrincipalType getPrincipalType() {
         return PrincipalType.SYSTEM;
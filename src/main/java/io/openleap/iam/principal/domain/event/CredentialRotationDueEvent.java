@@ -0,0 +1,28 @@
+package io.openleap.iam.principal.domain.event;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Event payload for iam.principal.credentials.rotation_due event.
+ *
+ * Published once per rotation date when a service principal's credentials are due, so its owner rotates them
+ * through the rotate endpoint.
+ */
+public record CredentialRotationDueEvent(
+    /**
+     * Principal unique identifier
+     */
+    UUID principalId,
+
+    /**
+     * Service name
+     */
+    String serviceName,
+
+    /**
+     * Date the credentials were due to be rotated
+     */
+    LocalDate credentialRotationDate
+) {
+}
@@ -0,0 +1,28 @@
+package io.openleap.iam.principal.domain.event;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Event payload for iam.principal.device.connectivity_changed event.
+ *
+ * Published in batches when devices stop sending heartbeats within their type's timeout, or resume.
+ */
+public record DeviceConnectivityChangedEvent(
+    /**
+     * Devices that went offline
+     */
+    List<UUID> wentOffline,
+
+    /**
+     * Devices that came back online
+     */
+    List<UUID> cameOnline,
+
+    /**
+     * When the transitions were detected
+     */
+    Instant detectedAt
+) {
+}
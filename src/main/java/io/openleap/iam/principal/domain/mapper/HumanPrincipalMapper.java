@@ -1,5 +1,6 @@
 package io.openleap.iam.principal.domain.mapper;
 
+import io.openleap.iam.principal.domain.dto.CreateHumanPrincipalCommand;
 import io.openleap.iam.principal.domain.dto.HumanPrincipalCreated;
 import io.openleap.iam.principal.domain.dto.ProfileDetails;
 import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
@@ -24,4 +25,25 @@ public interface HumanPrincipalMapper {
 
     @Mapping(target = "id", source = "businessId.value")
     ProfileDetails toProfileDetails(HumanPrincipalEntity entity);
+
+    /**
+     * Normalizes a create command like the REST API does: username and email are lowercased.
+     */
+    default CreateHumanPrincipalCommand normalize(CreateHumanPrincipalCommand command) {
+        return new CreateHumanPrincipalCommand(
+                command.username() != null ? command.username().toLowerCase() : null,
+                command.email() != null ? command.email().toLowerCase() : null,
+                command.defaultTenantId(),
+                command.contextTags(),
+                command.displayName(),
+                command.firstName(),
+                command.lastName(),
+                command.phone(),
+                command.language(),
+                command.timezone(),
+                command.locale(),
+                command.avatarUrl(),
+                command.bio(),
+                command.preferences());
+    }
 }
@@ -0,0 +1,8 @@
+package io.openleap.iam.principal.exception;
+
+public class ClientAlreadyExistsException extends RuntimeException {
+
+    public ClientAlreadyExistsException(String clientId) {
+        super("Client already exists: " + clientId);
+    }
+}
@@ -0,0 +1,8 @@
+package io.openleap.iam.principal.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid search cursor: " + cursor);
+    }
+}
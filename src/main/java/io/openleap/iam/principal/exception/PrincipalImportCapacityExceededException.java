@@ -0,0 +1,8 @@
+package io.openleap.iam.principal.exception;
+
+public class PrincipalImportCapacityExceededException extends RuntimeException {
+
+    public PrincipalImportCapacityExceededException(int maxConcurrent) {
+        super("At most " + maxConcurrent + " principal imports can run at the same time");
+    }
+}
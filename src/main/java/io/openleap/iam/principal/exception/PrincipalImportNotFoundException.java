@@ -0,0 +1,10 @@
+package io.openleap.iam.principal.exception;
+
+import java.util.UUID;
+
+public class PrincipalImportNotFoundException extends RuntimeException {
+
+    public PrincipalImportNotFoundException(UUID jobId) {
+        super("Principal import not found: " + jobId);
+    }
+}
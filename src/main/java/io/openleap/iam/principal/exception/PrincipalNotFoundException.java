@@ -0,0 +1,10 @@
+package io.openleap.iam.principal.exception;
+
+import java.util.UUID;
+
+public class PrincipalNotFoundException extends RuntimeException {
+
+    public PrincipalNotFoundException(UUID principalId) {
+        super("Principal not found: " + principalId);
+    }
+}
@@ -0,0 +1,9 @@
+package io.openleap.iam.principal.exception;
+
+public class PrincipalSearchOffsetTooLargeException extends RuntimeException {
+
+    public PrincipalSearchOffsetTooLargeException(long offset, int maxOffset) {
+        super("Offset " + offset + " exceeds the maximum of " + maxOffset
+                + " for searches across principal types; follow next_cursor instead");
+    }
+}
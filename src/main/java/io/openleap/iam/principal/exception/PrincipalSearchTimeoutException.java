@@ -0,0 +1,10 @@
+package io.openleap.iam.principal.exception;
+
+import java.time.Duration;
+
+public class PrincipalSearchTimeoutException extends RuntimeException {
+
+    public PrincipalSearchTimeoutException(Duration timeout) {
+        super("Principal search did not complete within " + timeout.toMillis() + " ms");
+    }
+}
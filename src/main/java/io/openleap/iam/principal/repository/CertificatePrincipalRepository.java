@@ -0,0 +1,61 @@
+package io.openleap.iam.principal.repository;
+
+import io.openleap.iam.principal.domain.dto.CertificateOwner;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Finds the system or device principal a client certificate belongs to, through the thumbprint indexes on both
+ * tables. DELETED principals are skipped.
+ */
+@Repository
+public class CertificatePrincipalRepository {
+
+    // Two rows are enough to tell a unique thumbprint from a shared one
+    private static final String FIND_BY_THUMBPRINT = """
+            SELECT business_id, 'SYSTEM' AS principal_type, status, allowed_operations
+            FROM iam_principal.system_principals
+            WHERE certificate_thumbprint = :thumbprint AND status <> 'DELETED'
+            UNION ALL
+            SELECT business_id, 'DEVICE' AS principal_type, status, NULL AS allowed_operations
+            FROM iam_principal.device_principals
+            WHERE certificate_thumbprint = :thumbprint AND status <> 'DELETED'
+            LIMIT 2
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CertificatePrincipalRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the principals holding the thumbprint, at most two
+     */
+    public List<CertificateOwner> findByThumbprint(String thumbprint) {
+        return jdbcTemplate.query(FIND_BY_THUMBPRINT, new MapSqlParameterSource("thumbprint", thumbprint),
+                (rs, rowNum) -> new CertificateOwner(
+                        rs.getObject("business_id", UUID.class),
+                        PrincipalType.valueOf(rs.getString("principal_type")),
+                        PrincipalStatus.valueOf(rs.getString("status")),
+                        allowedOperations(rs)));
+    }
+
+    private static List<String> allowedOperations(ResultSet rs) throws SQLException {
+        Array array = rs.getArray("allowed_operations");
+        if (array == null) {
+            return List.of();
+        }
+        return Arrays.asList((String[]) array.getArray());
+    }
+}
@@ -0,0 +1,104 @@
+package io.openleap.iam.principal.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Finds ACTIVE service principals whose credential rotation is due, through {@code idx_service_principals_rotation},
+ * and records in {@code credential_rotation_notices} that their owners were notified.
+ * <p>
+ * Due rows are claimed with {@code FOR UPDATE SKIP LOCKED}, so {@link #claimDue} and {@link #markNotified} must run
+ * in the same transaction: rotation scanners on other instances skip the page, and a principal is claimed again
+ * only once its rotation date has changed. The service principal rows themselves are never updated here.
+ */
+@Repository
+public class CredentialRotationRepository {
+
+    private static final String CLAIM_DUE = """
+            SELECT sp.business_id, sp.service_name, sp.credential_rotation_date
+            FROM iam_principal.service_principals sp
+            WHERE sp.credential_rotation_date <= CURRENT_DATE
+              AND sp.status = 'ACTIVE'
+              AND NOT EXISTS (SELECT 1
+                              FROM iam_principal.credential_rotation_notices n
+                              WHERE n.business_id = sp.business_id
+                                AND n.rotation_date = sp.credential_rotation_date)
+            ORDER BY sp.credential_rotation_date
+            LIMIT :limit
+            FOR UPDATE OF sp SKIP LOCKED
+            """;
+
+    private static final String MARK_NOTIFIED = """
+            INSERT INTO iam_principal.credential_rotation_notices (business_id, rotation_date, notified_at)
+            VALUES (:businessId, :rotationDate, now())
+            ON CONFLICT (business_id) DO UPDATE
+                SET rotation_date = EXCLUDED.rotation_date,
+                    notified_at   = EXCLUDED.notified_at
+            """;
+
+    private static final String COUNT_DUE = """
+            SELECT count(*) AS due,
+                   count(*) FILTER (WHERE credential_rotation_date < CURRENT_DATE) AS overdue
+            FROM iam_principal.service_principals
+            WHERE credential_rotation_date <= CURRENT_DATE
+              AND status = 'ACTIVE'
+            """;
+
+    /**
+     * A claimed service principal whose owner has not been notified of its current rotation date yet.
+     */
+    public record DueRotation(UUID businessId, String serviceName, LocalDate credentialRotationDate) {
+    }
+
+    /**
+     * ACTIVE service principals due for rotation today or earlier, and those of them already past their date.
+     */
+    public record RotationBacklog(long due, long overdue) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CredentialRotationRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks up to {@code limit} due service principals not notified of their current rotation date, most overdue
+     * first. Rows locked by another transaction are skipped.
+     */
+    public List<DueRotation> claimDue(int limit) {
+        return jdbcTemplate.query(CLAIM_DUE, new MapSqlParameterSource("limit", limit),
+                (rs, rowNum) -> new DueRotation(
+                        rs.getObject("business_id", UUID.class),
+                        rs.getString("service_name"),
+                        rs.getObject("credential_rotation_date", LocalDate.class)));
+    }
+
+    /**
+     * Records that the owners of the given principals were notified of their current rotation date, as one JDBC
+     * batch. The notice of an earlier rotation date is replaced.
+     */
+    public void markNotified(List<DueRotation> rotations) {
+        if (rotations.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[rotations.size()];
+        for (int i = 0; i < rotations.size(); i++) {
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("businessId", rotations.get(i).businessId())
+                    .addValue("rotationDate", rotations.get(i).credentialRotationDate());
+        }
+        jdbcTemplate.batchUpdate(MARK_NOTIFIED, batch);
+    }
+
+    public RotationBacklog countDue() {
+        return jdbcTemplate.queryForObject(COUNT_DUE, new MapSqlParameterSource(),
+                (rs, rowNum) -> new RotationBacklog(rs.getLong("due"), rs.getLong("overdue")));
+    }
+}
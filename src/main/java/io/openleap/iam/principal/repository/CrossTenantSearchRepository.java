@@ -0,0 +1,155 @@
+package io.openleap.iam.principal.repository;
+
+import io.openleap.iam.principal.domain.dto.CrossTenantPrincipalItem;
+import io.openleap.iam.principal.domain.dto.SearchCursor;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Cross-tenant principal search over all four principal tables in a single {@code UNION ALL} statement.
+ * <p>
+ * Filtering, ordering and paging all happen in the database: every branch returns at most the rows the
+ * requested page can need, using the {@code (created_at, id)} and trigram indexes, and the outer query merges
+ * them. Only the requested page is materialized, so memory use does not depend on table size. The order is
+ * {@code created_at DESC}, then principal type, then {@code id DESC}, the same as {@link SearchCursor}.
+ */
+@Repository
+public class CrossTenantSearchRepository {
+
+    private static final String BRANCH = """
+            (SELECT business_id, '%1$s' AS principal_type, %2$d AS type_order, id, username, email, status,
+                    default_tenant_id, created_at
+             FROM iam_principal.%3$s
+             WHERE %4$s
+             ORDER BY created_at DESC, id DESC
+             LIMIT :branchLimit)
+            """;
+
+    private static final String SEARCH = """
+            SELECT business_id, principal_type, id, username, email, status, default_tenant_id, created_at
+            FROM (%s) p
+            ORDER BY created_at DESC, type_order, id DESC
+            LIMIT :limit
+            OFFSET :offset
+            """;
+
+    private static final String COUNT = "SELECT count(*) FROM iam_principal.%s WHERE %s";
+
+    /**
+     * A matching principal together with its keyset position.
+     */
+    public record Match(CrossTenantPrincipalItem item, SearchCursor position) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CrossTenantSearchRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns up to {@code limit} matches after skipping {@code offset}, or after {@code after} if given.
+     */
+    public List<Match> search(List<PrincipalType> types, String search, PrincipalStatus status,
+                              SearchCursor after, long offset, int limit) {
+        MapSqlParameterSource params = filterParams(search, status)
+                .addValue("branchLimit", offset + limit)
+                .addValue("offset", offset)
+                .addValue("limit", limit);
+        if (after != null) {
+            params.addValue("afterCreatedAt", Timestamp.from(after.createdAt()));
+            for (PrincipalType type : types) {
+                params.addValue(idBoundParam(type), after.idBoundFor(type));
+            }
+        }
+
+        String union = types.stream()
+                .map(type -> BRANCH.formatted(type.name(), type.ordinal(), tableName(type),
+                        where(type, search, status, after != null)))
+                .collect(Collectors.joining("UNION ALL\n"));
+
+        return jdbcTemplate.query(SEARCH.formatted(union), params, (rs, rowNum) -> {
+            PrincipalType type = PrincipalType.valueOf(rs.getString("principal_type"));
+            CrossTenantPrincipalItem item = new CrossTenantPrincipalItem(
+                    rs.getObject("business_id", UUID.class),
+                    type.name(),
+                    rs.getString("username"),
+                    rs.getString("email"),
+                    rs.getString("status"),
+                    rs.getObject("default_tenant_id", UUID.class));
+            SearchCursor position = new SearchCursor(
+                    rs.getTimestamp("created_at").toInstant(), type, rs.getLong("id"));
+            return new Match(item, position);
+        });
+    }
+
+    /**
+     * Counts all matches across {@code types}, one indexed count per table.
+     */
+    public long count(List<PrincipalType> types, String search, PrincipalStatus status) {
+        MapSqlParameterSource params = filterParams(search, status);
+        long total = 0;
+        for (PrincipalType type : types) {
+            Long count = jdbcTemplate.queryForObject(
+                    COUNT.formatted(tableName(type), where(type, search, status, false)), params, Long.class);
+            total += count != null ? count : 0;
+        }
+        return total;
+    }
+
+    private static MapSqlParameterSource filterParams(String search, PrincipalStatus status) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (search != null && !search.isBlank()) {
+            params.addValue("pattern", LikePatterns.contains(search));
+        }
+        if (status != null) {
+            params.addValue("status", status.name());
+        }
+        return params;
+    }
+
+    /**
+     * Only predicates for filters that are actually set are emitted, so the planner never sees an
+     * {@code IS NULL OR} arm that would keep it from using the indexes.
+     */
+    private static String where(PrincipalType type, String search, PrincipalStatus status, boolean keyset) {
+        List<String> predicates = new ArrayList<>();
+        if (search != null && !search.isBlank()) {
+            String match = "lower(username) LIKE :pattern ESCAPE '!' OR lower(email) LIKE :pattern ESCAPE '!'";
+            if (type == PrincipalType.HUMAN) {
+                match += " OR lower(display_name) LIKE :pattern ESCAPE '!'";
+            }
+            predicates.add("(" + match + ")");
+        }
+        if (status != null) {
+            predicates.add("status = :status");
+        }
+        if (keyset) {
+            predicates.add("created_at <= :afterCreatedAt AND (created_at < :afterCreatedAt OR id < :"
+                    + idBoundParam(type) + ")");
+        }
+        return predicates.isEmpty() ? "TRUE" : String.join(" AND ", predicates);
+    }
+
+    private static String idBoundParam(PrincipalType type) {
+        return "afterId" + type.name();
+    }
+
+    private static String tableName(PrincipalType principalType) {
+        return switch (principalType) {
+            case HUMAN -> "human_principals";
+            case SERVICE -> "service_principals";
+            case SYSTEM -> "system_principals";
+            case DEVICE -> "device_principals";
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package io.openleap.iam.principal.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.domain.dto.DeviceHeartbeat;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes device heartbeats with narrow, batched updates that only touch the heartbeat columns.
+ * <p>
+ * Unlike a JPA save, this neither loads the row nor rewrites the other columns. An update never moves
+ * {@code last_heartbeat_at} backwards, so instances flushing out of order cannot overwrite a newer heartbeat.
+ */
+@Repository
+public class DeviceHeartbeatRepository {
+
+    private static final String UPDATE_HEARTBEAT = """
+            UPDATE iam_principal.device_principals
+            SET last_heartbeat_at = :heartbeatAt,
+                firmware_version = COALESCE(:firmwareVersion, firmware_version),
+                location_info = COALESCE(CAST(:locationInfo AS jsonb), location_info)
+            WHERE business_id = :businessId
+              AND (last_heartbeat_at IS NULL OR last_heartbeat_at < :heartbeatAt)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public DeviceHeartbeatRepository(NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Applies the heartbeats as one JDBC batch.
+     *
+     * @return the update count per heartbeat; 0 if the device does not exist or already has a newer heartbeat
+     */
+    public int[] updateHeartbeats(List<DeviceHeartbeat> heartbeats) {
+        SqlParameterSource[] batch = new SqlParameterSource[heartbeats.size()];
+        for (int i = 0; i < batch.length; i++) {
+            DeviceHeartbeat heartbeat = heartbeats.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("businessId", heartbeat.deviceId())
+                    .addValue("heartbeatAt", Timestamp.from(heartbeat.heartbeatAt()), Types.TIMESTAMP)
+                    .addValue("firmwareVersion", heartbeat.firmwareVersion(), Types.VARCHAR)
+                    .addValue("locationInfo", toJson(heartbeat), Types.VARCHAR);
+        }
+        return jdbcTemplate.batchUpdate(UPDATE_HEARTBEAT, batch);
+    }
+
+    /**
+     * Returns those of {@code deviceIds} that belong to an existing device principal.
+     */
+    public Set<UUID> findExisting(Collection<UUID> deviceIds) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT business_id FROM iam_principal.device_principals WHERE business_id IN (:businessIds)",
+                new MapSqlParameterSource("businessIds", deviceIds), UUID.class));
+    }
+
+    private String toJson(DeviceHeartbeat heartbeat) {
+        if (heartbeat.locationInfo() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(heartbeat.locationInfo());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Location info is not serializable for device " + heartbeat.deviceId(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.openleap.iam.principal.repository;
+
+import io.openleap.iam.principal.domain.entity.DeviceType;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads the device columns that liveness tracking needs, without loading entities.
+ */
+@Repository
+public class DeviceLivenessRepository {
+
+    private static final String SELECT_ACTIVE = """
+            SELECT business_id, device_type, status, last_heartbeat_at
+            FROM iam_principal.device_principals
+            WHERE status = 'ACTIVE'
+            """;
+
+    private static final String SELECT_BY_IDS = """
+            SELECT business_id, device_type, status, last_heartbeat_at
+            FROM iam_principal.device_principals
+            WHERE business_id IN (:businessIds)
+            """;
+
+    /**
+     * Liveness-relevant state of a device principal.
+     */
+    public record DeviceState(UUID deviceId, DeviceType deviceType, PrincipalStatus status, Instant lastHeartbeatAt) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public DeviceLivenessRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams all active devices to {@code consumer}. Rows are fetched {@code fetchSize} at a time through a
+     * server-side cursor, which PostgreSQL only uses inside a transaction, so memory use does not depend on the
+     * number of devices.
+     */
+    @Transactional(readOnly = true)
+    public void streamActiveDevices(int fetchSize, Consumer<DeviceState> consumer) {
+        jdbcTemplate.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ACTIVE,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(toState(rs)));
+    }
+
+    /**
+     * Returns the current state of those of {@code deviceIds} that exist.
+     */
+    public List<DeviceState> findStates(Collection<UUID> deviceIds) {
+        return jdbcTemplate.query(SELECT_BY_IDS, new MapSqlParameterSource("businessIds", deviceIds),
+                (rs, rowNum) -> toState(rs));
+    }
+
+    private static DeviceState toState(ResultSet rs) throws SQLException {
+        Timestamp lastHeartbeatAt = rs.getTimestamp("last_heartbeat_at");
+        return new DeviceState(
+                rs.getObject("business_id", UUID.class),
+                DeviceType.valueOf(rs.getString("device_type")),
+                PrincipalStatus.valueOf(rs.getString("status")),
+                lastHeartbeatAt != null ? lastHeartbeatAt.toInstant() : null);
+    }
+}
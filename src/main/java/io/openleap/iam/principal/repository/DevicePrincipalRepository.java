@@ -1,15 +1,27 @@
 package io.openleap.iam.principal.repository;
 
+import io.openleap.iam.principal.domain.dto.PrincipalExportItem;
 import io.openleap.iam.principal.domain.entity.DevicePrincipalEntity;
 import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
 import io.openleap.iam.principal.domain.entity.SystemPrincipalEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface DevicePrincipalRepository extends JpaRepository<DevicePrincipalEntity, UUID> {
@@ -20,6 +32,18 @@ public interface DevicePrincipalRepository extends JpaRepository<DevicePrincipal
     @Query("SELECT p FROM DevicePrincipalEntity p WHERE p.businessId.value = :businessId")
     Optional<DevicePrincipalEntity> findByBusinessId(@Param("businessId") UUID businessId);
 
+    /**
+     * Check if a device exists without loading it
+     */
+    @Query("SELECT count(p) > 0 FROM DevicePrincipalEntity p WHERE p.businessId.value = :businessId")
+    boolean existsByBusinessId(@Param("businessId") UUID businessId);
+
+    /**
+     * Find all principals with the given business IDs in a single query (IDs not in this table are skipped)
+     */
+    @Query("SELECT p FROM DevicePrincipalEntity p WHERE p.businessId.value IN :businessIds")
+    List<DevicePrincipalEntity> findAllByBusinessIdIn(@Param("businessIds") Collection<UUID> businessIds);
+
     /**
      * Find by username (globally unique)
      */
@@ -39,4 +63,79 @@ public interface DevicePrincipalRepository extends JpaRepository<DevicePrincipal
      * Check if device identifier exists (for validation)
      */
     boolean existsByDeviceIdentifier(String deviceIdentifier);
+
+    /**
+     * Search principals with filters. A non-blank {@code search} is a case-insensitive substring match on
+     * username or email.
+     */
+    default Page<DevicePrincipalEntity> searchPrincipals(String search, PrincipalStatus status, UUID tenantId, Pageable pageable) {
+        if (search == null || search.isBlank()) {
+            return filterPrincipals(status, tenantId, pageable);
+        }
+        return searchPrincipalsByPattern(LikePatterns.contains(search), status, tenantId, pageable);
+    }
+
+    /**
+     * Keyset variant of {@link #searchPrincipals}: principals strictly after {@code (createdAt, id)} in
+     * {@code created_at DESC, id DESC} order, without a count query.
+     */
+    default List<DevicePrincipalEntity> searchPrincipalsAfter(String search, PrincipalStatus status, UUID tenantId,
+            Instant createdAt, Long id, Limit limit) {
+        if (search == null || search.isBlank()) {
+            return filterPrincipalsAfter(status, tenantId, createdAt, id, limit);
+        }
+        return searchPrincipalsByPatternAfter(LikePatterns.contains(search), status, tenantId, createdAt, id, limit);
+    }
+
+    @Query("SELECT p FROM DevicePrincipalEntity p WHERE " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:tenantId IS NULL OR p.defaultTenantId = :tenantId)")
+    Page<DevicePrincipalEntity> filterPrincipals(@Param("status") PrincipalStatus status,
+                                                 @Param("tenantId") UUID tenantId,
+                                                 Pageable pageable);
+
+    @Query("SELECT p FROM DevicePrincipalEntity p WHERE " +
+           "(LOWER(p.username) LIKE :pattern ESCAPE '!' OR LOWER(p.email) LIKE :pattern ESCAPE '!') AND " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:tenantId IS NULL OR p.defaultTenantId = :tenantId)")
+    Page<DevicePrincipalEntity> searchPrincipalsByPattern(@Param("pattern") String pattern,
+                                                          @Param("status") PrincipalStatus status,
+                                                          @Param("tenantId") UUID tenantId,
+                                                          Pageable pageable);
+
+    @Query("SELECT p FROM DevicePrincipalEntity p WHERE " +
+           "p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) AND " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:tenantId IS NULL OR p.defaultTenantId = :tenantId) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<DevicePrincipalEntity> filterPrincipalsAfter(@Param("status") PrincipalStatus status,
+                                                      @Param("tenantId") UUID tenantId,
+                                                      @Param("createdAt") Instant createdAt,
+                                                      @Param("id") Long id,
+                                                      Limit limit);
+
+    @Query("SELECT p FROM DevicePrincipalEntity p WHERE " +
+           "p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) AND " +
+           "(LOWER(p.username) LIKE :pattern ESCAPE '!' OR LOWER(p.email) LIKE :pattern ESCAPE '!') AND " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:tenantId IS NULL OR p.defaultTenantId = :tenantId) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<DevicePrincipalEntity> searchPrincipalsByPatternAfter(@Param("pattern") String pattern,
+                                                               @Param("status") PrincipalStatus status,
+                                                               @Param("tenantId") UUID tenantId,
+                                                               @Param("createdAt") Instant createdAt,
+                                                               @Param("id") Long id,
+                                                               Limit limit);
+
+    /**
+     * Streams principals for export; see {@link HumanPrincipalRepository#streamForExport}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new io.openleap.iam.principal.domain.dto.PrincipalExportItem(" +
+           "p.businessId.value, 'DEVICE', p.username, p.email, p.status, p.defaultTenantId, p.createdAt) " +
+           "FROM DevicePrincipalEntity p WHERE " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:tenantId IS NULL OR p.defaultTenantId = :tenantId) " +
+           "ORDER BY p.id")
+    Stream<PrincipalExportItem> streamForExport(@Param("status") PrincipalStatus status, @Param("tenantId") UUID tenantId);
 }
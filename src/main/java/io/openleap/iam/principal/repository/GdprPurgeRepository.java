@@ -0,0 +1,154 @@
+package io.openleap.iam.principal.repository;
+
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims and anonymizes INACTIVE principals whose GDPR retention period has passed, a chunk at a time.
+ * <p>
+ * Claimed rows are locked with {@code FOR UPDATE SKIP LOCKED}, so both methods must run in the same transaction:
+ * purge jobs on other instances skip the chunk, and a concurrent write to a claimed principal waits until the
+ * chunk is anonymized or released. Anonymization bumps {@code version}, so a JPA write based on an earlier read
+ * fails with an optimistic lock error instead of restoring personal data.
+ */
+@Repository
+public class GdprPurgeRepository {
+
+    private static final String CLAIM_EXPIRED = """
+            SELECT business_id, %s AS keycloak_id
+            FROM iam_principal.%s
+            WHERE status = 'INACTIVE' AND inactivated_at <= :cutoff
+            ORDER BY inactivated_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String ANONYMIZE_HUMAN = """
+            UPDATE iam_principal.human_principals
+            SET username     = 'deleted_user_' || business_id,
+                email        = 'deleted_' || business_id || '@example.com',
+                context_tags = NULL,
+                status       = 'DELETED',
+                first_name   = 'Deleted',
+                last_name    = 'User',
+                display_name = 'Deleted User',
+                phone        = NULL,
+                bio          = NULL,
+                avatar_url   = NULL,
+                preferences  = NULL,
+                version      = version + 1
+            WHERE business_id IN (:businessIds) AND status = 'INACTIVE'
+            RETURNING business_id
+            """;
+
+    // An overdue rotation date would fail chk_service_rotation_date_future on any update of the row
+    private static final String ANONYMIZE_SERVICE = """
+            UPDATE iam_principal.service_principals
+            SET username                 = 'deleted_user_' || business_id,
+                email                    = NULL,
+                context_tags             = NULL,
+                status                   = 'DELETED',
+                service_name             = 'deleted_user_' || business_id,
+                allowed_scopes           = NULL,
+                api_key_hash             = 'deleted',
+                credential_rotation_date = GREATEST(credential_rotation_date, CURRENT_DATE),
+                version                  = version + 1
+            WHERE business_id IN (:businessIds) AND status = 'INACTIVE'
+            RETURNING business_id
+            """;
+
+    private static final String ANONYMIZE_SYSTEM = """
+            UPDATE iam_principal.system_principals
+            SET username               = 'deleted_user_' || business_id,
+                email                  = NULL,
+                context_tags           = NULL,
+                status                 = 'DELETED',
+                system_identifier      = 'deleted_user_' || business_id,
+                certificate_thumbprint = NULL,
+                allowed_operations     = NULL,
+                version                = version + 1
+            WHERE business_id IN (:businessIds) AND status = 'INACTIVE'
+            RETURNING business_id
+            """;
+
+    private static final String ANONYMIZE_DEVICE = """
+            UPDATE iam_principal.device_principals
+            SET username          = 'deleted_user_' || business_id,
+                email             = NULL,
+                context_tags      = NULL,
+                status            = 'DELETED',
+                device_identifier = 'deleted_user_' || business_id,
+                manufacturer      = NULL,
+                model             = NULL,
+                version           = version + 1
+            WHERE business_id IN (:businessIds) AND status = 'INACTIVE'
+            RETURNING business_id
+            """;
+
+    /**
+     * A claimed principal and the Keycloak user or client that has to be deleted before it is anonymized.
+     *
+     * @param keycloakId Keycloak user ID (humans) or client ID, null if the principal was never provisioned
+     */
+    public record PurgeCandidate(UUID businessId, String keycloakId) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public GdprPurgeRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks up to {@code limit} principals that became INACTIVE at or before {@code cutoff}, oldest first.
+     * Rows locked by another transaction are skipped. Served by the partial {@code inactivated_at} indexes.
+     */
+    public List<PurgeCandidate> claimExpired(PrincipalType principalType, Instant cutoff, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.from(cutoff))
+                .addValue("limit", limit);
+        return jdbcTemplate.query(CLAIM_EXPIRED.formatted(keycloakIdColumn(principalType), tableName(principalType)),
+                params,
+                (rs, rowNum) -> new PurgeCandidate(rs.getObject("business_id", UUID.class), rs.getString("keycloak_id")));
+    }
+
+    /**
+     * Replaces the personal data of the given principals with placeholders and marks them DELETED, in one
+     * statement. Placeholders are derived from the business ID, so they stay unique.
+     *
+     * @return business IDs of the anonymized principals
+     */
+    public List<UUID> anonymize(PrincipalType principalType, Collection<UUID> businessIds) {
+        if (businessIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = switch (principalType) {
+            case HUMAN -> ANONYMIZE_HUMAN;
+            case SERVICE -> ANONYMIZE_SERVICE;
+            case SYSTEM -> ANONYMIZE_SYSTEM;
+            case DEVICE -> ANONYMIZE_DEVICE;
+        };
+        return jdbcTemplate.queryForList(sql, new MapSqlParameterSource("businessIds", businessIds), UUID.class);
+    }
+
+    private static String tableName(PrincipalType principalType) {
+        return switch (principalType) {
+            case HUMAN -> "human_principals";
+            case SERVICE -> "service_principals";
+            case SYSTEM -> "system_principals";
+            case DEVICE -> "device_principals";
+        };
+    }
+
+    private static String keycloakIdColumn(PrincipalType principalType) {
+        return principalType == PrincipalType.HUMAN ? "keycloak_user_id" : "keycloak_client_id";
+    }
+}
@@ -0,0 +1,65 @@
+package io.openleap.iam.principal.repository;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reads a human principal for a GDPR data export without loading the entity. The JSONB columns are selected as
+ * text, so they reach the export exactly as PostgreSQL sends them instead of being parsed into maps and
+ * serialized again.
+ */
+@Repository
+public class HumanPrincipalGdprRepository {
+
+    private static final String SELECT_SUBJECT = """
+            SELECT keycloak_user_id
+            FROM iam_principal.human_principals
+            WHERE business_id = :businessId
+            """;
+
+    private static final String SELECT_EXPORT = """
+            SELECT business_id, username, email, default_tenant_id, status, sync_status, keycloak_user_id,
+                   email_verified, mfa_enabled, last_login_at, display_name, first_name, last_name, phone,
+                   language, timezone, locale, avatar_url, bio,
+                   context_tags::text AS context_tags, preferences::text AS preferences,
+                   created_at, created_by, updated_at, updated_by
+            FROM iam_principal.human_principals
+            WHERE business_id = :businessId
+            """;
+
+    /**
+     * What an export needs to know before it starts writing.
+     */
+    public record ExportSubject(String keycloakUserId) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public HumanPrincipalGdprRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the export subject, empty if there is no human principal with this ID
+     */
+    public Optional<ExportSubject> findExportSubject(UUID businessId) {
+        List<ExportSubject> subjects = jdbcTemplate.query(SELECT_SUBJECT,
+                new MapSqlParameterSource("businessId", businessId),
+                (rs, rowNum) -> new ExportSubject(rs.getString("keycloak_user_id")));
+        return subjects.stream().findFirst();
+    }
+
+    /**
+     * Hands the principal row to {@code handler}, which reads it column by column. The handler is not called if
+     * the principal does not exist.
+     */
+    public void streamForExport(UUID businessId, RowCallbackHandler handler) {
+        jdbcTemplate.query(SELECT_EXPORT, new MapSqlParameterSource("businessId", businessId), handler);
+    }
+}
@@ -1,18 +1,27 @@
 package io.openleap.iam.principal.repository;
 
+import io.openleap.iam.principal.domain.dto.PrincipalExportItem;
 import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
 import io.openleap.iam.principal.domain.entity.PrincipalId;
 import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface HumanPrincipalRepository extends JpaRepository<HumanPrincipalEntity, UUID>, JpaSpecificationExecutor<HumanPrincipalEntity> {
@@ -23,6 +32,12 @@ public interface HumanPrincipalRepository extends JpaRepository<HumanPrincipalEn
     @Query("SELECT p FROM HumanPrincipalEntity p WHERE p.businessId.value = :businessId")
     Optional<HumanPrincipalEntity> findByBusinessId(@Param("businessId") UUID businessId);
 
+    /**
+     * Find all principals with the given business IDs in a single query (IDs not in this table are skipped)
+     */
+    @Query("SELECT p FROM HumanPrincipalEntity p WHERE p.businessId.value IN :businessIds")
+    List<HumanPrincipalEntity> findAllByBusinessIdIn(@Param("businessIds") Collection<UUID> businessIds);
+
     /**
      * Find by username (globally unique)
      */
@@ -47,15 +62,90 @@ public interface HumanPrincipalRepository extends JpaRepository<HumanPrincipalEn
      * Find inactive principal by email (for reactivation flow)
      */
     @Query("SELECT h FROM HumanPrincipalEntity h WHERE h.email = :email AND h.status = 'INACTIVE'")
-    Optional<HumanPrincipalEntity> findInactiveByEmail(String email);
+    Optional<HumanPrincipalEntity> findInactiveByEmail(@Param("email") String email);
+
+    /**
+     * Search principals with filters. A non-blank {@code search} is a case-insensitive substring match on
+     * username, email or display name, served by the trigram indexes from {@code V4__principal_search_trigram.sql}.
+     */
+    default Page<HumanPrincipalEntity> searchPrincipals(String search, PrincipalStatus status, UUID tenantId, Pageable pageable) {
+        if (search == null || search.isBlank()) {
+            return filterPrincipals(status, tenantId, pageable);
+        }
+        return searchPrincipalsByPattern(LikePatterns.contains(search), status, tenantId, pageable);
+    }
 
     /**
-     * Search principals with filters
+     * Keyset variant of {@link #searchPrincipals}: principals strictly after {@code (createdAt, id)} in
+     * {@code created_at DESC, id DESC} order, without a count query.
      */
+    default List<HumanPrincipalEntity> searchPrincipalsAfter(String search, PrincipalStatus status, UUID tenantId,
+                                                             Instant createdAt, Long id, Limit limit) {
+        if (search == null || search.isBlank()) {
+            return filterPrincipalsAfter(status, tenantId, createdAt, id, limit);
+        }
+        return searchPrincipalsByPatternAfter(LikePatterns.contains(search), status, tenantId, createdAt, id, limit);
+    }
+
+    /*
+     * The pattern variants below keep the three LIKE predicates free of any "IS NULL OR" arm so that the planner
+     * can always combine the lower(...) gin_trgm_ops indexes in a BitmapOr. The keyset variants add a redundant
+     * "createdAt <=" bound, which gives the planner a range start on idx_human_principals_created_at_id.
+     */
+
     @Query("SELECT h FROM HumanPrincipalEntity h WHERE " +
-           "(:search IS NULL OR LOWER(h.username) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(h.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
            "(:status IS NULL OR h.status = :status) AND " +
            "(:tenantId IS NULL OR h.defaultTenantId = :tenantId)")
-    Page<HumanPrincipalEntity> searchPrincipals(String search, PrincipalStatus status, UUID tenantId, Pageable pageable);
-}
+    Page<HumanPrincipalEntity> filterPrincipals(@Param("status") PrincipalStatus status,
+                                                @Param("tenantId") UUID tenantId,
+                                                Pageable pageable);
+
+    @Query("SELECT h FROM HumanPrincipalEntity h WHERE " +
+           "(LOWER(h.username) LIKE :pattern ESCAPE '!' OR LOWER(h.email) LIKE :pattern ESCAPE '!' " +
+           "OR LOWER(h.displayName) LIKE :pattern ESCAPE '!') AND " +
+           "(:status IS NULL OR h.status = :status) AND " +
+           "(:tenantId IS NULL OR h.defaultTenantId = :tenantId)")
+    Page<HumanPrincipalEntity> searchPrincipalsByPattern(@Param("pattern") String pattern,
+                                                         @Param("status") PrincipalStatus status,
+                                                         @Param("tenantId") UUID tenantId,
+                                                         Pageable pageable);
 
+    @Query("SELECT h FROM HumanPrincipalEntity h WHERE " +
+           "h.createdAt <= :createdAt AND (h.createdAt < :createdAt OR h.id < :id) AND " +
+           "(:status IS NULL OR h.status = :status) AND " +
+           "(:tenantId IS NULL OR h.defaultTenantId = :tenantId) " +
+           "ORDER BY h.createdAt DESC, h.id DESC")
+    List<HumanPrincipalEntity> filterPrincipalsAfter(@Param("status") PrincipalStatus status,
+                                                     @Param("tenantId") UUID tenantId,
+                                                     @Param("createdAt") Instant createdAt,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    @Query("SELECT h FROM HumanPrincipalEntity h WHERE " +
+           "h.createdAt <= :createdAt AND (h.createdAt < :createdAt OR h.id < :id) AND " +
+           "(LOWER(h.username) LIKE :pattern ESCAPE '!' OR LOWER(h.email) LIKE :pattern ESCAPE '!' " +
+           "OR LOWER(h.displayName) LIKE :pattern ESCAPE '!') AND " +
+           "(:status IS NULL OR h.status = :status) AND " +
+           "(:tenantId IS NULL OR h.defaultTenantId = :tenantId) " +
+           "ORDER BY h.createdAt DESC, h.id DESC")
+    List<HumanPrincipalEntity> searchPrincipalsByPatternAfter(@Param("pattern") String pattern,
+                                                              @Param("status") PrincipalStatus status,
+                                                              @Param("tenantId") UUID tenantId,
+                                                              @Param("createdAt") Instant createdAt,
+                                                              @Param("id") Long id,
+                                                              Limit limit);
+
+    /**
+     * Streams principals for export in primary key order. Rows are fetched from a server-side cursor
+     * {@code fetchSize} at a time, which PostgreSQL only uses inside a transaction, so callers must consume and
+     * close the stream within one.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new io.openleap.iam.principal.domain.dto.PrincipalExportItem(" +
+           "h.businessId.value, 'HUMAN', h.username, h.email, h.status, h.defaultTenantId, h.createdAt) " +
+           "FROM HumanPrincipalEntity h WHERE " +
+           "(:status IS NULL OR h.status = :status) AND " +
+           "(:tenantId IS NULL OR h.defaultTenantId = :tenantId) " +
+           "ORDER BY h.id")
+    Stream<PrincipalExportItem> streamForExport(@Param("status") PrincipalStatus status, @Param("tenantId") UUID tenantId);
+}
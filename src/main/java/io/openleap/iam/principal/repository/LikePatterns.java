@@ -0,0 +1,23 @@
+package io.openleap.iam.principal.repository;
+
+import java.util.Locale;
+
+/**
+ * LIKE patterns for the principal search queries, which declare {@code ESCAPE '!'}.
+ */
+public final class LikePatterns {
+
+    private LikePatterns() {
+    }
+
+    /**
+     * Builds a lowercase {@code %term%} pattern, escaping the LIKE wildcards in the term itself.
+     */
+    public static String contains(String search) {
+        String escaped = search.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,222 @@
+package io.openleap.iam.principal.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores principal domain events in {@code principal_event_outbox} until they are published.
+ * <p>
+ * Events are appended in the caller's transaction. Pending events are claimed with {@code FOR UPDATE SKIP LOCKED},
+ * so {@link #claimPending}, {@link #markPublished}, {@link #markFailed} and {@link #markDeadLettered} must run in
+ * the same transaction. Only the oldest pending event of each principal can be claimed, so the events of a principal
+ * are published in the order they were written, one per claim, even with relays running on several instances.
+ * <p>
+ * Ids are taken when the event is appended, which is before the principal row is flushed. Two transactions writing
+ * the same principal therefore do not block each other while appending; the second one fails its flush on the
+ * principal's {@code version} column and rolls back with its event. Only one of them commits, so the events of a
+ * principal are committed in id order.
+ * <p>
+ * Dead-lettered events are neither pending nor published: they are not claimed, do not hold back the later events
+ * of their principal and are not purged.
+ */
+@Repository
+public class PrincipalEventOutboxRepository {
+
+    private static final String APPEND = """
+            INSERT INTO iam_principal.principal_event_outbox
+                (event_id, principal_id, routing_key, payload_json, occurred_at)
+            VALUES (:eventId, :principalId, :routingKey, :payloadJson, :occurredAt)
+            """;
+
+    private static final String CLAIM_PENDING = """
+            SELECT o.id, o.event_id, o.principal_id, o.routing_key, o.payload_json, o.occurred_at, o.attempts
+            FROM iam_principal.principal_event_outbox o
+            WHERE o.published_at IS NULL
+              AND o.dead_lettered_at IS NULL
+              AND o.next_attempt_at <= now()
+              AND NOT EXISTS (SELECT 1
+                              FROM iam_principal.principal_event_outbox e
+                              WHERE e.principal_id = o.principal_id
+                                AND e.published_at IS NULL
+                                AND e.dead_lettered_at IS NULL
+                                AND e.id < o.id)
+            ORDER BY o.id
+            LIMIT :limit
+            FOR UPDATE OF o SKIP LOCKED
+            """;
+
+    private static final String MARK_PUBLISHED = """
+            UPDATE iam_principal.principal_event_outbox
+            SET published_at = now(),
+                attempts     = attempts + 1,
+                last_error   = NULL
+            WHERE id IN (:ids)
+            """;
+
+    private static final String MARK_FAILED = """
+            UPDATE iam_principal.principal_event_outbox
+            SET attempts        = attempts + 1,
+                next_attempt_at = now() + make_interval(secs => :retryDelaySeconds),
+                last_error      = :lastError
+            WHERE id = :id
+            """;
+
+    private static final String MARK_DEAD_LETTERED = """
+            UPDATE iam_principal.principal_event_outbox
+            SET attempts         = attempts + 1,
+                dead_lettered_at = now(),
+                last_error       = :lastError
+            WHERE id = :id
+            """;
+
+    private static final String COUNT_PENDING = """
+            SELECT count(*) FILTER (WHERE dead_lettered_at IS NULL) AS pending,
+                   min(occurred_at) FILTER (WHERE dead_lettered_at IS NULL) AS oldest_occurred_at,
+                   count(*) FILTER (WHERE dead_lettered_at IS NOT NULL) AS dead_lettered
+            FROM iam_principal.principal_event_outbox
+            WHERE published_at IS NULL
+            """;
+
+    private static final String PURGE_PUBLISHED = """
+            DELETE FROM iam_principal.principal_event_outbox
+            WHERE id IN (SELECT id
+                         FROM iam_principal.principal_event_outbox
+                         WHERE published_at < :cutoff
+                         ORDER BY published_at
+                         LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)
+            """;
+
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    /**
+     * An event to be appended.
+     */
+    public record OutboxEntry(UUID eventId, UUID principalId, String routingKey, String payloadJson, Instant occurredAt) {
+    }
+
+    /**
+     * A claimed event. {@code attempts} counts the failed attempts so far.
+     */
+    public record PendingEvent(long id, UUID eventId, UUID principalId, String routingKey, String payloadJson,
+            Instant occurredAt, int attempts) {
+    }
+
+    /**
+     * Number of events not published yet, and when the oldest of them occurred; {@code null} if there are none.
+     * Dead-lettered events are only counted in {@code deadLettered}.
+     */
+    public record OutboxBacklog(long pending, Instant oldestOccurredAt, long deadLettered) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public PrincipalEventOutboxRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(OutboxEntry entry) {
+        jdbcTemplate.update(APPEND, toParams(entry));
+    }
+
+    /**
+     * Appends all entries as one JDBC batch.
+     */
+    public void appendAll(List<OutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            batch[i] = toParams(entries.get(i));
+        }
+        jdbcTemplate.batchUpdate(APPEND, batch);
+    }
+
+    /**
+     * Locks up to {@code limit} events that are due, at most one per principal and the oldest pending one of it.
+     * Rows locked by another transaction are skipped, as are the later events of their principals.
+     */
+    public List<PendingEvent> claimPending(int limit) {
+        return jdbcTemplate.query(CLAIM_PENDING, new MapSqlParameterSource("limit", limit),
+                (rs, rowNum) -> new PendingEvent(
+                        rs.getLong("id"),
+                        rs.getObject("event_id", UUID.class),
+                        rs.getObject("principal_id", UUID.class),
+                        rs.getString("routing_key"),
+                        rs.getString("payload_json"),
+                        rs.getTimestamp("occurred_at").toInstant(),
+                        rs.getInt("attempts")));
+    }
+
+    public void markPublished(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(MARK_PUBLISHED, new MapSqlParameterSource("ids", ids));
+    }
+
+    /**
+     * Records a failed attempt. The event and the later events of its principal are not claimed again before
+     * {@code retryDelay} has passed.
+     */
+    public void markFailed(long id, String error, Duration retryDelay) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("lastError", truncate(error))
+                .addValue("retryDelaySeconds", retryDelay.toMillis() / 1000.0);
+        jdbcTemplate.update(MARK_FAILED, params);
+    }
+
+    /**
+     * Records a last failed attempt and gives up on the event. The later events of its principal become claimable.
+     */
+    public void markDeadLettered(long id, String error) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("lastError", truncate(error));
+        jdbcTemplate.update(MARK_DEAD_LETTERED, params);
+    }
+
+    public OutboxBacklog countPending() {
+        return jdbcTemplate.queryForObject(COUNT_PENDING, new MapSqlParameterSource(), (rs, rowNum) -> {
+            Timestamp oldest = rs.getTimestamp("oldest_occurred_at");
+            return new OutboxBacklog(rs.getLong("pending"), oldest != null ? oldest.toInstant() : null,
+                    rs.getLong("dead_lettered"));
+        });
+    }
+
+    /**
+     * Deletes up to {@code limit} events published before {@code cutoff}, oldest first, in one statement.
+     *
+     * @return number of events deleted
+     */
+    public int purgePublished(Instant cutoff, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.from(cutoff))
+                .addValue("limit", limit);
+        return jdbcTemplate.update(PURGE_PUBLISHED, params);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static MapSqlParameterSource toParams(OutboxEntry entry) {
+        return new MapSqlParameterSource()
+                .addValue("eventId", entry.eventId())
+                .addValue("principalId", entry.principalId())
+                .addValue("routingKey", entry.routingKey())
+                .addValue("payloadJson", entry.payloadJson())
+                .addValue("occurredAt", Timestamp.from(entry.occurredAt()));
+    }
+}
@@ -0,0 +1,30 @@
+package io.openleap.iam.principal.repository;
+
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalRegistryEntity;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PrincipalRegistryRepository extends JpaRepository<PrincipalRegistryEntity, UUID> {
+    default Optional<PrincipalType> findPrincipalTypeByBusinessId(PrincipalId businessId) {
+        return findPrincipalTypeByBusinessId(businessId.value());
+    }
+
+    /**
+     * Resolve the owning principal table with a single primary key lookup
+     */
+    @Query("SELECT r.principalType FROM PrincipalRegistryEntity r WHERE r.businessId = :businessId")
+    Optional<PrincipalType> findPrincipalTypeByBusinessId(@Param("businessId") UUID businessId);
+
+    /**
+     * Check if username exists in any principal table (for validation)
+     */
+    boolean existsByUsername(String username);
+}
@@ -0,0 +1,162 @@
+package io.openleap.iam.principal.repository;
+
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.domain.entity.SyncStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Drives the Keycloak sync state machine ({@code sync_status}/{@code sync_retry_count}) with narrow,
+ * conditional updates so that concurrent workers on several instances never process the same row twice.
+ * <p>
+ * Every transition bumps {@code version}, so a JPA write based on a stale read fails with an optimistic
+ * lock error instead of silently reverting the sync state.
+ */
+@Repository
+public class PrincipalSyncRepository {
+
+    private static final String CLAIM_DUE = """
+            UPDATE iam_principal.%1$s SET sync_status = 'SYNCING', version = version + 1
+            WHERE id IN (
+                SELECT id FROM iam_principal.%1$s
+                WHERE (sync_status = 'PENDING'
+                        AND COALESCE(updated_at, created_at) <= now() - make_interval(secs => :backoffSeconds * (power(2, COALESCE(sync_retry_count, 0)) - 1)))
+                   OR (sync_status = 'SYNCING'
+                        AND COALESCE(updated_at, created_at) <= now() - make_interval(secs => :syncingTimeoutSeconds))
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING business_id
+            """;
+
+    private static final String CLAIM = """
+            UPDATE iam_principal.%s SET sync_status = 'SYNCING', version = version + 1
+            WHERE business_id = :businessId AND sync_status = 'PENDING'
+            """;
+
+    private static final String CLAIM_ALL = """
+            UPDATE iam_principal.%s SET sync_status = 'SYNCING', version = version + 1
+            WHERE business_id IN (:businessIds) AND sync_status = 'PENDING'
+            RETURNING business_id
+            """;
+
+    private static final String MARK_SYNCED = """
+            UPDATE iam_principal.%s SET sync_status = 'SYNCED', %s = :keycloakId, version = version + 1
+            WHERE business_id = :businessId AND sync_status = 'SYNCING'
+            """;
+
+    private static final String MARK_FAILED_ATTEMPT = """
+            UPDATE iam_principal.%s
+            SET sync_retry_count = COALESCE(sync_retry_count, 0) + 1,
+                sync_status = CASE WHEN COALESCE(sync_retry_count, 0) + 1 >= :maxRetries THEN 'FAILED' ELSE 'PENDING' END,
+                version = version + 1
+            WHERE business_id = :businessId AND sync_status = 'SYNCING'
+            RETURNING sync_status
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public PrincipalSyncRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claims up to {@code limit} rows that are due for a (re)try: PENDING rows whose exponential backoff has
+     * elapsed, and SYNCING rows abandoned by a crashed worker. Rows locked by other instances are skipped.
+     *
+     * @return business IDs of the claimed rows, now in SYNCING state
+     */
+    public List<UUID> claimDue(PrincipalType principalType, int limit, long backoffSeconds, long syncingTimeoutSeconds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("backoffSeconds", backoffSeconds)
+                .addValue("syncingTimeoutSeconds", syncingTimeoutSeconds);
+        return jdbcTemplate.queryForList(CLAIM_DUE.formatted(tableName(principalType)), params, UUID.class);
+    }
+
+    /**
+     * Claims a single PENDING row.
+     *
+     * @return true if this caller now owns the row
+     */
+    public boolean claim(PrincipalType principalType, UUID businessId) {
+        return jdbcTemplate.update(CLAIM.formatted(tableName(principalType)),
+                new MapSqlParameterSource("businessId", businessId)) == 1;
+    }
+
+    /**
+     * Claims those of the given rows that are still PENDING, in one statement.
+     *
+     * @return business IDs of the rows this caller now owns
+     */
+    public List<UUID> claimAll(PrincipalType principalType, Collection<UUID> businessIds) {
+        if (businessIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(CLAIM_ALL.formatted(tableName(principalType)),
+                new MapSqlParameterSource("businessIds", businessIds), UUID.class);
+    }
+
+    public void markSynced(PrincipalType principalType, UUID businessId, String keycloakId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("businessId", businessId)
+                .addValue("keycloakId", keycloakId);
+        jdbcTemplate.update(MARK_SYNCED.formatted(tableName(principalType), keycloakIdColumn(principalType)), params);
+    }
+
+    /**
+     * Marks several claimed rows synced as one JDBC batch.
+     *
+     * @param keycloakIds Keycloak ID per business ID
+     */
+    public void markAllSynced(PrincipalType principalType, Map<UUID, String> keycloakIds) {
+        if (keycloakIds.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = keycloakIds.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("businessId", entry.getKey())
+                        .addValue("keycloakId", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(MARK_SYNCED.formatted(tableName(principalType), keycloakIdColumn(principalType)), batch);
+    }
+
+    /**
+     * Releases a claimed row after a failed attempt, moving it to FAILED once {@code maxRetries} is reached.
+     *
+     * @return the resulting sync status, empty if the row was no longer claimed
+     */
+    public Optional<SyncStatus> markFailedAttempt(PrincipalType principalType, UUID businessId, int maxRetries) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("businessId", businessId)
+                .addValue("maxRetries", maxRetries);
+        return jdbcTemplate.queryForList(MARK_FAILED_ATTEMPT.formatted(tableName(principalType)), params, String.class)
+                .stream()
+                .findFirst()
+                .map(SyncStatus::valueOf);
+    }
+
+    private static String tableName(PrincipalType principalType) {
+        return switch (principalType) {
+            case HUMAN -> "human_principals";
+            case SERVICE -> "service_principals";
+            default -> throw new IllegalArgumentException("Principal type is not synced to Keycloak: " + principalType);
+        };
+    }
+
+    private static String keycloakIdColumn(PrincipalType principalType) {
+        return switch (principalType) {
+            case HUMAN -> "keycloak_user_id";
+            case SERVICE -> "keycloak_client_id";
+            default -> throw new IllegalArgumentException("Principal type is not synced to Keycloak: " + principalType);
+        };
+    }
+}
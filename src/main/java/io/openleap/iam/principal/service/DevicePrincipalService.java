@@ -1,6 +1,5 @@
 package io.openleap.iam.principal.service;
 
-import io.openleap.common.messaging.event.EventPublisher;
 import io.openleap.iam.principal.domain.dto.CreateDevicePrincipalCommand;
 import io.openleap.iam.principal.domain.dto.DevicePrincipalCreated;
 import io.openleap.iam.principal.domain.entity.DevicePrincipalEntity;
@@ -12,6 +11,8 @@ import io.openleap.iam.principal.domain.mapper.DevicePrincipalMapper;
 import io.openleap.iam.principal.exception.DeviceIdentifierAlreadyExistsException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
 import io.openleap.iam.principal.repository.DevicePrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
 import org.jspecify.annotations.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,22 +21,23 @@ import org.springframework.transaction.annotation.Transactional;
 public class DevicePrincipalService {
 
     private final DevicePrincipalRepository devicePrincipalRepository;
+    private final PrincipalRegistryRepository principalRegistryRepository;
     private final TenantService tenantService;
-    private final EventPublisher eventPublisher;
+    private final PrincipalEventOutbox principalEventOutbox;
     private final DevicePrincipalMapper devicePrincipalMapper;
 
-    private static final String IAM_PRINCIPAL_EXCHANGE = "iam.principal.events";
     private static final String DEVICE_PRINCIPAL_CREATED_KEY = "iam.principal.device_principal.created";
-    private static final String NO_DESC = "nodesc";
 
     public DevicePrincipalService(
             DevicePrincipalRepository devicePrincipalRepository,
+            PrincipalRegistryRepository principalRegistryRepository,
             TenantService tenantService,
-            EventPublisher eventPublisher,
+            PrincipalEventOutbox principalEventOutbox,
             DevicePrincipalMapper devicePrincipalMapper) {
         this.devicePrincipalRepository = devicePrincipalRepository;
+        this.principalRegistryRepository = principalRegistryRepository;
         this.tenantService = tenantService;
-        this.eventPublisher = eventPublisher;
+        this.principalEventOutbox = principalEventOutbox;
         this.devicePrincipalMapper = devicePrincipalMapper;
     }
 
@@ -47,7 +49,7 @@ public class DevicePrincipalService {
         }
 
         String username = command.deviceIdentifier().toLowerCase();
-        if (devicePrincipalRepository.existsByUsername(username)) {
+        if (principalRegistryRepository.existsByUsername(username)) {
             throw new UsernameAlreadyExistsException(username);
         }
 
@@ -62,8 +64,7 @@ public class DevicePrincipalService {
 
         DevicePrincipalCreatedEvent event = devicePrincipalMapper.toDevicePrincipalCreatedEvent(principal);
 
-//        RoutingKey routingKey = new RoutingKey(DEVICE_PRINCIPAL_CREATED_KEY, NO_DESC, "", "");
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), DEVICE_PRINCIPAL_CREATED_KEY, event);
 
         return devicePrincipalMapper.toDevicePrincipalCreated(principal);
     }
@@ -1,10 +1,10 @@
 package io.openleap.iam.principal.service;
 
-import io.openleap.common.messaging.event.EventPublisher;
 import io.openleap.iam.principal.domain.dto.*;
 import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
 import io.openleap.iam.principal.domain.entity.PrincipalId;
 import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
 import io.openleap.iam.principal.domain.entity.SyncStatus;
 import io.openleap.iam.principal.domain.event.PrincipalCreatedEvent;
 import io.openleap.iam.principal.domain.event.ProfileUpdatedEvent;
@@ -12,16 +12,34 @@ import io.openleap.iam.principal.domain.mapper.HumanPrincipalMapper;
 import io.openleap.iam.principal.exception.EmailAlreadyExistsException;
 import io.openleap.iam.principal.exception.InactivePrincipalFoundException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
+import io.openleap.iam.principal.repository.HumanPrincipalBatchRepository;
+import io.openleap.iam.principal.repository.HumanPrincipalBatchRepository.EmailOwner;
 import io.openleap.iam.principal.repository.HumanPrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
 import io.openleap.iam.principal.service.keycloak.KeycloakService;
 import io.openleap.iam.principal.service.keycloak.dto.User;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import io.openleap.iam.principal.service.sync.KeycloakImportRequested;
+import io.openleap.iam.principal.service.sync.KeycloakSyncRequested;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class HumanPrincipalService {
@@ -29,13 +47,15 @@ public class HumanPrincipalService {
     private static final Logger logger = LoggerFactory.getLogger(HumanPrincipalService.class);
 
     private final HumanPrincipalRepository humanPrincipalRepository;
+    private final PrincipalRegistryRepository principalRegistryRepository;
     private final TenantService tenantService;
     private final KeycloakService keycloakService;
-    private final EventPublisher eventPublisher;
+    private final PrincipalEventOutbox principalEventOutbox;
     private final HumanPrincipalMapper humanPrincipalMapper;
-
-
-    private static final String IAM_PRINCIPAL_EXCHANGE = "iam.principal.events";
+    private final PrincipalCache principalCache;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final HumanPrincipalBatchRepository humanPrincipalBatchRepository;
+    private final ObjectProvider<AuditorAware<UUID>> auditorAware;
 
     private static final String PRINCIPAL_CREATED_KEY = "iam.principal.principal.created";
     @SuppressWarnings("unused")
@@ -48,24 +68,37 @@ public class HumanPrincipalService {
     private static final String PRINCIPAL_DELETED_KEY = "iam.principal.principal.deleted";
     private static final String PROFILE_UPDATED_KEY = "iam.principal.profile.updated";
 
-    private static final String NO_DESC = "nodesc";
+    /**
+     * Recorded as {@code created_by} of bulk-created rows when no auditor is available.
+     */
+    private static final UUID SYSTEM_AUDITOR = new UUID(0L, 0L);
 
     public HumanPrincipalService(
             HumanPrincipalRepository humanPrincipalRepository,
+            PrincipalRegistryRepository principalRegistryRepository,
             KeycloakService keycloakService,
             TenantService tenantService,
-            EventPublisher eventPublisher,
-            HumanPrincipalMapper humanPrincipalMapper) {
+            PrincipalEventOutbox principalEventOutbox,
+            HumanPrincipalMapper humanPrincipalMapper,
+            PrincipalCache principalCache,
+            ApplicationEventPublisher applicationEventPublisher,
+            HumanPrincipalBatchRepository humanPrincipalBatchRepository,
+            ObjectProvider<AuditorAware<UUID>> auditorAware) {
         this.humanPrincipalRepository = humanPrincipalRepository;
+        this.principalRegistryRepository = principalRegistryRepository;
         this.keycloakService = keycloakService;
         this.tenantService = tenantService;
-        this.eventPublisher = eventPublisher;
+        this.principalEventOutbox = principalEventOutbox;
         this.humanPrincipalMapper = humanPrincipalMapper;
+        this.principalCache = principalCache;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.humanPrincipalBatchRepository = humanPrincipalBatchRepository;
+        this.auditorAware = auditorAware;
     }
 
     @Transactional
     public HumanPrincipalCreated createHumanPrincipal(CreateHumanPrincipalCommand command) {
-        if (humanPrincipalRepository.existsByUsername(command.username())) {
+        if (principalRegistryRepository.existsByUsername(command.username())) {
             throw new UsernameAlreadyExistsException(command.username());
         }
 
@@ -87,40 +120,125 @@ public class HumanPrincipalService {
 
         //TODO: call iam.tenant for membership
 
-        String keycloakUserId = createUserInKeycloak(principal);
-
-        principal.setSyncStatus(SyncStatus.SYNCED);
-        principal.setKeycloakUserId(keycloakUserId);
-        humanPrincipalRepository.save(principal);
+        // Keycloak user is provisioned by KeycloakSyncService once this transaction commits
+        applicationEventPublisher.publishEvent(new KeycloakSyncRequested(PrincipalType.HUMAN, principal.getBusinessId()));
 
         PrincipalCreatedEvent event = humanPrincipalMapper.toPrincipalCreatedEvent(principal);
 
-        //TODO: add messaging
-//        RoutingKey routingKey = new RoutingKey(PRINCIPAL_CREATED_KEY, NO_DESC, "", "");
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), PRINCIPAL_CREATED_KEY, event);
 
         return humanPrincipalMapper.toHumanPrincipalCreated(principal);
     }
 
-    private String createUserInKeycloak(HumanPrincipalEntity principal) {
-        String keycloakUserId;
-        try {
-            // Create user in Keycloak
-            User keycloakUser = User.builder()
-                    .id(principal.getBusinessId().toString())
-                    .username(principal.getUsername())
-                    .email(principal.getEmail())
-                    .firstName(principal.getFirstName())
-                    .lastName(principal.getLastName())
-                    .enabled(false)
-                    .emailVerified(false)
-                    .build();
-            keycloakUserId = keycloakService.createUser(keycloakUser);
-        } catch (Exception e) {
-            // Rollback transaction by throwing a runtime exception
-            throw new RuntimeException("Failed to create user in Keycloak: " + e.getMessage(), e);
+    /**
+     * Creates several human principals at once.
+     * <p>
+     * Applies the same uniqueness rules as {@link #createHumanPrincipal(CreateHumanPrincipalCommand)}, but checks
+     * them for the whole batch with one query per rule, and inserts the accepted rows as one JDBC batch. A row that
+     * breaks a rule is reported and skipped without failing the others. Keycloak users are created after commit
+     * through a single {@link KeycloakImportRequested}.
+     *
+     * @param commands the principals to create
+     * @return one item per command in request order
+     */
+    @Transactional
+    public HumanPrincipalsCreated createHumanPrincipals(List<CreateHumanPrincipalCommand> commands) {
+        HumanPrincipalsCreated result = insertHumanPrincipals(commands, currentAuditor());
+        List<UUID> created = result.items().stream()
+                .filter(HumanPrincipalsCreated.Item::isCreated)
+                .map(HumanPrincipalsCreated.Item::id)
+                .toList();
+        if (!created.isEmpty()) {
+            // Keycloak users are provisioned by KeycloakSyncService once this transaction commits
+            applicationEventPublisher.publishEvent(new KeycloakImportRequested(created));
         }
-        return keycloakUserId;
+        return result;
+    }
+
+    /**
+     * Same as {@link #createHumanPrincipals(List)}, but leaves Keycloak provisioning to the caller, which hands
+     * the created IDs to {@link io.openleap.iam.principal.service.sync.KeycloakSyncService#provisionUsers(List)}
+     * after commit. Principals the caller never provisions are picked up by the background retry.
+     * <p>
+     * The auditor is passed in rather than looked up, since background callers run without the security context
+     * of the request that started them; they capture it with {@link #currentAuditor()} up front.
+     *
+     * @param commands  the principals to create
+     * @param createdBy recorded as {@code created_by} of the inserted rows
+     * @return one item per command in request order
+     */
+    @Transactional
+    public HumanPrincipalsCreated insertHumanPrincipals(List<CreateHumanPrincipalCommand> commands, UUID createdBy) {
+        HumanPrincipalsCreated.Item[] items = new HumanPrincipalsCreated.Item[commands.size()];
+
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < commands.size(); i++) {
+            CreateHumanPrincipalCommand command = commands.get(i);
+            if (!usernames.add(command.username())) {
+                items[i] = HumanPrincipalsCreated.Item.rejected(command.username(), "DuplicateInRequest",
+                        "Username occurs more than once in the request: " + command.username());
+            } else if (!emails.add(command.email())) {
+                items[i] = HumanPrincipalsCreated.Item.rejected(command.username(), "DuplicateInRequest",
+                        "Email occurs more than once in the request: " + command.email());
+            }
+        }
+
+        Set<String> takenUsernames = humanPrincipalBatchRepository.findTakenUsernames(usernames);
+        Map<String, EmailOwner> emailOwners = humanPrincipalBatchRepository.findEmailOwners(emails);
+
+        List<HumanPrincipalEntity> accepted = new ArrayList<>();
+        List<Integer> acceptedRows = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            if (items[i] != null) {
+                continue;
+            }
+            CreateHumanPrincipalCommand command = commands.get(i);
+            EmailOwner emailOwner = emailOwners.get(command.email());
+            if (takenUsernames.contains(command.username())) {
+                items[i] = HumanPrincipalsCreated.Item.rejected(command.username(), "UsernameAlreadyExists",
+                        "Username already exists: " + command.username());
+            } else if (emailOwner != null && emailOwner.status() == PrincipalStatus.INACTIVE) {
+                items[i] = HumanPrincipalsCreated.Item.rejected(command.username(), "InactivePrincipalFound",
+                        "Inactive principal " + emailOwner.principalId() + " already uses email: " + command.email());
+            } else if (emailOwner != null) {
+                items[i] = HumanPrincipalsCreated.Item.rejected(command.username(), "EmailAlreadyExists",
+                        "Email already exists: " + command.email());
+            } else {
+                accepted.add(createHumanPrincipalEntity(command));
+                acceptedRows.add(i);
+            }
+        }
+
+        Set<UUID> inserted = humanPrincipalBatchRepository.insertAll(accepted, createdBy, Instant.now());
+
+        Map<PrincipalId, PrincipalCreatedEvent> createdEvents = new LinkedHashMap<>();
+        for (int j = 0; j < accepted.size(); j++) {
+            HumanPrincipalEntity principal = accepted.get(j);
+            UUID principalId = principal.getBusinessId().value();
+            int row = acceptedRows.get(j);
+            if (inserted.contains(principalId)) {
+                items[row] = HumanPrincipalsCreated.Item.created(principal.getUsername(), principalId);
+                createdEvents.put(principal.getBusinessId(), humanPrincipalMapper.toPrincipalCreatedEvent(principal));
+            } else {
+                items[row] = HumanPrincipalsCreated.Item.rejected(principal.getUsername(), "Conflict",
+                        "Username or email was taken concurrently: " + principal.getUsername());
+            }
+        }
+
+        principalEventOutbox.appendAll(PRINCIPAL_CREATED_KEY, createdEvents);
+
+        logger.info("Bulk created {} of {} human principals", createdEvents.size(), commands.size());
+
+        return new HumanPrincipalsCreated(List.of(items));
+    }
+
+    /**
+     * @return the auditor of the current security context, or the system auditor if there is none
+     */
+    public UUID currentAuditor() {
+        AuditorAware<UUID> auditor = auditorAware.getIfAvailable();
+        return auditor != null ? auditor.getCurrentAuditor().orElse(SYSTEM_AUDITOR) : SYSTEM_AUDITOR;
     }
 
     private static @NonNull HumanPrincipalEntity createHumanPrincipalEntity(CreateHumanPrincipalCommand command) {
@@ -218,6 +336,7 @@ public class HumanPrincipalService {
 
         // Save principal
         principal = humanPrincipalRepository.save(principal);
+        principalCache.invalidate(principal.getBusinessId());
 
         // Sync relevant fields to Keycloak (display_name, first_name, last_name)
         if (principal.getKeycloakUserId() != null && !principal.getKeycloakUserId().isBlank()) {
@@ -245,16 +364,18 @@ public class HumanPrincipalService {
                 changedFields
         );
 
-//        RoutingKey routingKey = new RoutingKey(PROFILE_UPDATED_KEY, NO_DESC, "", "");
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), PROFILE_UPDATED_KEY, event);
+
         return new ProfileUpdated(principal.getBusinessId().value(), changedFields);
     }
 
 
     @Transactional(readOnly = true)
     public ProfileDetails getProfile(java.util.UUID principalId) {
-        HumanPrincipalEntity principal = humanPrincipalRepository.findByBusinessId(principalId)
-                .orElseThrow(() -> new RuntimeException("Principal not found: " + principalId));
-        return humanPrincipalMapper.toProfileDetails(principal);
+        return principalCache.getProfile(PrincipalId.of(principalId), id -> {
+            HumanPrincipalEntity principal = humanPrincipalRepository.findByBusinessId(principalId)
+                    .orElseThrow(() -> new RuntimeException("Principal not found: " + principalId));
+            return humanPrincipalMapper.toProfileDetails(principal);
+        });
     }
 }
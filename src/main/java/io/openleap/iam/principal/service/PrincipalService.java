@@ -1,6 +1,5 @@
 package io.openleap.iam.principal.service;
 
-import io.openleap.common.messaging.event.EventPublisher;
 import io.openleap.iam.principal.domain.dto.*;
 import io.openleap.iam.principal.domain.entity.*;
 import io.openleap.iam.principal.domain.event.PrincipalActivatedEvent;
@@ -10,23 +9,35 @@ import io.openleap.iam.principal.domain.event.PrincipalSuspendedEvent;
 import io.openleap.iam.principal.domain.mapper.PrincipalEventMapper;
 import io.openleap.iam.principal.domain.mapper.ServicePrincipalMapper;
 import io.openleap.iam.principal.domain.mapper.SystemPrincipalMapper;
+import io.openleap.iam.principal.repository.DeviceHeartbeatRepository;
 import io.openleap.iam.principal.repository.DevicePrincipalRepository;
 import io.openleap.iam.principal.repository.HumanPrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
 import io.openleap.iam.principal.repository.ServicePrincipalRepository;
 import io.openleap.iam.principal.repository.SystemPrincipalRepository;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import io.openleap.iam.principal.service.heartbeat.HeartbeatBuffer;
+import io.openleap.iam.principal.service.liveness.DeviceLivenessService;
+import io.openleap.iam.principal.service.search.PrincipalSearchService;
 import io.openleap.iam.principal.service.keycloak.KeycloakService;
 import io.openleap.iam.principal.service.keycloak.dto.User;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class PrincipalService {
@@ -37,18 +48,22 @@ public class PrincipalService {
     private final ServicePrincipalRepository servicePrincipalRepository;
     private final SystemPrincipalRepository systemPrincipalRepository;
     private final DevicePrincipalRepository devicePrincipalRepository;
+    private final PrincipalRegistryRepository principalRegistryRepository;
     private final KeycloakService keycloakService;
-    private final EventPublisher eventPublisher;
+    private final PrincipalEventOutbox principalEventOutbox;
     private final ServicePrincipalMapper servicePrincipalMapper;
     private final SystemPrincipalMapper systemPrincipalMapper;
     private final PrincipalEventMapper principalEventMapper;
+    private final PrincipalCache principalCache;
+    private final PrincipalSearchService principalSearchService;
+    private final HeartbeatBuffer heartbeatBuffer;
+    private final DeviceHeartbeatRepository deviceHeartbeatRepository;
+    private final DeviceLivenessService deviceLivenessService;
 
-    private static final String IAM_PRINCIPAL_EXCHANGE = "iam.principal.events";
     private static final String PRINCIPAL_ACTIVATED_KEY = "iam.principal.principal.activated";
     private static final String PRINCIPAL_SUSPENDED_KEY = "iam.principal.principal.suspended";
     private static final String PRINCIPAL_DEACTIVATED_KEY = "iam.principal.principal.deactivated";
     private static final String PRINCIPAL_DELETED_KEY = "iam.principal.principal.deleted";
-    private static final String NO_DESC = "nodesc";
     private static final int GDPR_RETENTION_DAYS = 30;
 
     public PrincipalService(
@@ -56,51 +71,49 @@ public class PrincipalService {
             ServicePrincipalRepository servicePrincipalRepository,
             SystemPrincipalRepository systemPrincipalRepository,
             DevicePrincipalRepository devicePrincipalRepository,
+            PrincipalRegistryRepository principalRegistryRepository,
             KeycloakService keycloakService,
-            EventPublisher eventPublisher,
+            PrincipalEventOutbox principalEventOutbox,
             ServicePrincipalMapper servicePrincipalMapper,
             SystemPrincipalMapper systemPrincipalMapper,
-            PrincipalEventMapper principalEventMapper) {
+            PrincipalEventMapper principalEventMapper,
+            PrincipalCache principalCache,
+            PrincipalSearchService principalSearchService,
+            HeartbeatBuffer heartbeatBuffer,
+            DeviceHeartbeatRepository deviceHeartbeatRepository,
+            DeviceLivenessService deviceLivenessService) {
         this.humanPrincipalRepository = humanPrincipalRepository;
         this.servicePrincipalRepository = servicePrincipalRepository;
         this.systemPrincipalRepository = systemPrincipalRepository;
         this.devicePrincipalRepository = devicePrincipalRepository;
+        this.principalRegistryRepository = principalRegistryRepository;
         this.keycloakService = keycloakService;
-        this.eventPublisher = eventPublisher;
+        this.principalEventOutbox = principalEventOutbox;
         this.servicePrincipalMapper = servicePrincipalMapper;
         this.systemPrincipalMapper = systemPrincipalMapper;
         this.principalEventMapper = principalEventMapper;
+        this.principalCache = principalCache;
+        this.principalSearchService = principalSearchService;
+        this.heartbeatBuffer = heartbeatBuffer;
+        this.deviceHeartbeatRepository = deviceHeartbeatRepository;
+        this.deviceLivenessService = deviceLivenessService;
     }
 
     /**
      * Finds a principal by ID across all principal types.
+     * The owning table is resolved through the principal registry, so at most two queries are issued.
      *
      * @param principalId the principal ID
      * @return the principal entity if found, empty otherwise
      */
     public Optional<Principal> findPrincipalByBusinessId(PrincipalId principalId) {
-        // Try each repository in order
-        Optional<HumanPrincipalEntity> human = humanPrincipalRepository.findByBusinessId(principalId);
-        if (human.isPresent()) {
-            return Optional.of(human.get());
-        }
-
-        Optional<ServicePrincipalEntity> service = servicePrincipalRepository.findByBusinessId(principalId);
-        if (service.isPresent()) {
-            return Optional.of(service.get());
-        }
-
-        Optional<SystemPrincipalEntity> system = systemPrincipalRepository.findByBusinessId(principalId);
-        if (system.isPresent()) {
-            return Optional.of(system.get());
-        }
-
-        Optional<DevicePrincipalEntity> device = devicePrincipalRepository.findByBusinessId(principalId);
-        if (device.isPresent()) {
-            return Optional.of(device.get());
-        }
-
-        return Optional.empty();
+        return principalRegistryRepository.findPrincipalTypeByBusinessId(principalId)
+                .flatMap(principalType -> switch (principalType) {
+                    case HUMAN -> humanPrincipalRepository.findByBusinessId(principalId).map(Principal.class::cast);
+                    case SERVICE -> servicePrincipalRepository.findByBusinessId(principalId).map(Principal.class::cast);
+                    case SYSTEM -> systemPrincipalRepository.findByBusinessId(principalId).map(Principal.class::cast);
+                    case DEVICE -> devicePrincipalRepository.findByBusinessId(principalId).map(Principal.class::cast);
+                });
     }
 
     /**
@@ -141,6 +154,7 @@ public class PrincipalService {
                 devicePrincipalRepository.save((DevicePrincipalEntity) principal);
             }
         }
+        principalCache.invalidate(principal.getBusinessId());
 
         // Enable in Keycloak
         try {
@@ -201,9 +215,7 @@ public class PrincipalService {
                 activationMethod
         );
 
-//        RoutingKey routingKey = new RoutingKey(PRINCIPAL_ACTIVATED_KEY, NO_DESC, "", "");
-//        // TODO: Pass event payload when event publisher supports it
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), PRINCIPAL_ACTIVATED_KEY, event);
 
         return new PrincipalActivated(principal.getBusinessId().value());
     }
@@ -231,6 +243,7 @@ public class PrincipalService {
         } else if (principal instanceof DevicePrincipalEntity) {
             devicePrincipalRepository.save((DevicePrincipalEntity) principal);
         }
+        principalCache.invalidate(principal.getBusinessId());
 
         // Disable in Keycloak
         try {
@@ -277,9 +290,7 @@ public class PrincipalService {
 
         PrincipalSuspendedEvent event = principalEventMapper.toPrincipalSuspendedEvent(principal, command);
 
-//        RoutingKey routingKey = new RoutingKey(PRINCIPAL_SUSPENDED_KEY, NO_DESC, "", "");
-//        // TODO: Pass event payload when event publisher supports it
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), PRINCIPAL_SUSPENDED_KEY, event);
 
         return new PrincipalSuspended(principal.getBusinessId().value());
     }
@@ -302,6 +313,7 @@ public class PrincipalService {
         }
 
         principal.setStatus(PrincipalStatus.INACTIVE);
+        principal.setInactivatedAt(java.time.Instant.now());
 
         if (principal instanceof HumanPrincipalEntity) {
             humanPrincipalRepository.save((HumanPrincipalEntity) principal);
@@ -312,6 +324,7 @@ public class PrincipalService {
         } else if (principal instanceof DevicePrincipalEntity) {
             devicePrincipalRepository.save((DevicePrincipalEntity) principal);
         }
+        principalCache.invalidate(principal.getBusinessId());
 
         try {
             if (principal instanceof HumanPrincipalEntity) {
@@ -352,9 +365,7 @@ public class PrincipalService {
         // Publish event
         PrincipalDeactivatedEvent event = principalEventMapper.toPrincipalDeactivatedEvent(principal, command);
 
-//        RoutingKey routingKey = new RoutingKey(PRINCIPAL_DEACTIVATED_KEY, NO_DESC, "", "");
-//        // TODO: Pass event payload when event publisher supports it
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), PRINCIPAL_DEACTIVATED_KEY, event);
 
         return new PrincipalDeactivated(principal.getBusinessId().value());
     }
@@ -371,7 +382,8 @@ public class PrincipalService {
         }
 
         java.time.Instant inactiveThreshold = java.time.Instant.now().minus(java.time.Duration.ofDays(GDPR_RETENTION_DAYS));
-        if (principal.getUpdatedAt() != null && principal.getUpdatedAt().isAfter(inactiveThreshold)) {
+        java.time.Instant inactiveSince = principal.getInactivatedAt() != null ? principal.getInactivatedAt() : principal.getUpdatedAt();
+        if (inactiveSince != null && inactiveSince.isAfter(inactiveThreshold)) {
             throw new IllegalStateException(
                     "Principal must be INACTIVE for at least " + GDPR_RETENTION_DAYS + " days before GDPR deletion");
         }
@@ -449,70 +461,135 @@ public class PrincipalService {
             }
         }
 
+        principalCache.invalidate(principal.getBusinessId());
+
         PrincipalDeletedEvent event = principalEventMapper.toPrincipalDeletedEvent(
                 principal, command, principalType, auditReference, deletedAt);
 
-//        RoutingKey routingKey = new RoutingKey(PRINCIPAL_DELETED_KEY, NO_DESC, "", "");
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), PRINCIPAL_DELETED_KEY, event);
 
         return new PrincipalDeleted(principal.getBusinessId().value(), true, auditReference, deletedAt);
     }
 
     /**
-     * Searches principals with filters.
+     * Searches principals with filters across all principal types, or only {@code principalType} if given.
+     * <p>
+     * Two paging modes are supported: offset paging ({@code page}/{@code size}, with a total count) for small
+     * result sets, and keyset paging when {@code cursor} is given, which seeks directly to the next
+     * {@code (created_at, id)} position and skips the count so deep pages cost the same as the first one.
+     * Both modes return a {@code nextCursor}, so a client can switch to keyset paging after the first page.
+     * Not transactional: the per-type queries run concurrently in {@link PrincipalSearchService}, each on its
+     * own connection.
      *
      * @param query the search query
      * @return the search result
      */
-    @Transactional(readOnly = true)
     public SearchPrincipalsResult searchPrincipals(SearchPrincipalsQuery query) {
-        // Page is 1-indexed from API, but Spring Data uses 0-indexed
-        int pageIndex = Math.max(0, query.page() - 1);
-        int pageSize = Math.min(Math.max(1, query.size()), 100); // Limit to 100
-
-        PageRequest pageRequest = PageRequest.of(pageIndex, pageSize, Sort.by(Sort.Direction.DESC, "createdAt"));
-
-        List<SearchPrincipalsResult.PrincipalItem> items = new ArrayList<>();
-        long total = 0;
-
-        // If no specific principal type is requested, or HUMAN is requested, search human principals
-        if (query.principalType() == null || query.principalType() == PrincipalType.HUMAN) {
-            Page<HumanPrincipalEntity> humanPage = humanPrincipalRepository.searchPrincipals(
-                    query.search(),
-                    query.status(),
-                    query.tenantId(),
-                    pageRequest
-            );
-
-            for (HumanPrincipalEntity entity : humanPage.getContent()) {
-                items.add(new SearchPrincipalsResult.PrincipalItem(
-                        entity.getBusinessId().value(),
-                        entity.getUsername(),
-                        entity.getEmail(),
-                        entity.getPrincipalType().name(),
-                        entity.getStatus().name(),
-                        entity.getDefaultTenantId(),
-                        entity.getLastLoginAt(),
-                        entity.getCreatedAt()
-                ));
-            }
-            total = humanPage.getTotalElements();
-        }
+        return principalSearchService.search(query);
+    }
 
-        return new SearchPrincipalsResult(items, total, query.page(), pageSize);
+    /**
+     * Search principals across all tenants.
+     * <p>
+     * Filtering and paging run in the database as one statement over all principal tables, so memory use does
+     * not grow with the number of principals. Supports the same offset and cursor paging as
+     * {@link #searchPrincipals(SearchPrincipalsQuery)}.
+     *
+     * @param query the cross-tenant search query
+     * @return the search result
+     */
+    @Transactional(readOnly = true)
+    public CrossTenantSearchResult searchPrincipalsCrossTenant(CrossTenantSearchQuery query) {
+        return principalSearchService.searchCrossTenant(query);
+    }
+
+    /**
+     * Exports all principals matching the filters, handing each to {@code sink} as it is read.
+     * <p>
+     * Runs in one read-only transaction so that PostgreSQL can serve the rows from server-side cursors; only the
+     * current fetch is held in memory. {@code sink} typically writes to the response, so the transaction lasts
+     * as long as the client takes to read the export.
+     *
+     * @param query the export filters
+     * @param sink  receives each principal in turn
+     * @return number of exported principals
+     */
+    @Transactional(readOnly = true)
+    public long exportPrincipals(PrincipalExportQuery query, Consumer<PrincipalExportItem> sink) {
+        long exported = principalSearchService.export(query, sink);
+        logger.info("Exported {} principals (type={}, status={}, tenant={})",
+                exported, query.principalType(), query.status(), query.tenantId());
+        return exported;
     }
 
     /**
-     * Gets principal details by ID.
+     * Gets principal details by ID. Served from {@link PrincipalCache} when possible.
      *
      * @param principalId the principal ID
      * @return the principal details
      */
     @Transactional(readOnly = true)
     public PrincipalDetails getPrincipalDetails(PrincipalId principalId) {
+        return principalCache.getDetails(principalId, this::loadPrincipalDetails);
+    }
+
+    /**
+     * Gets principal details for several IDs at once.
+     * <p>
+     * Cached principals are served from {@link PrincipalCache}; the rest are loaded with one {@code IN} query per
+     * principal table, stopping as soon as every ID is resolved, so at most four statements are issued however
+     * many IDs are requested.
+     *
+     * @param principalIds the principal IDs, duplicates allowed
+     * @return one item per requested ID in request order; IDs without a principal have no details
+     */
+    @Transactional(readOnly = true)
+    public PrincipalDetailsBatch getPrincipalDetails(List<UUID> principalIds) {
+        Set<PrincipalId> distinct = new LinkedHashSet<>();
+        for (UUID principalId : principalIds) {
+            distinct.add(PrincipalId.of(principalId));
+        }
+        Map<PrincipalId, PrincipalDetails> found = principalCache.getAllDetails(distinct, this::loadAllPrincipalDetails);
+
+        List<PrincipalDetailsBatch.Item> items = new ArrayList<>(principalIds.size());
+        for (UUID principalId : principalIds) {
+            items.add(new PrincipalDetailsBatch.Item(principalId, found.get(PrincipalId.of(principalId))));
+        }
+        return new PrincipalDetailsBatch(items);
+    }
+
+    private Map<PrincipalId, PrincipalDetails> loadAllPrincipalDetails(Set<? extends PrincipalId> principalIds) {
+        Set<UUID> remaining = new HashSet<>();
+        for (PrincipalId principalId : principalIds) {
+            remaining.add(principalId.value());
+        }
+
+        Map<PrincipalId, PrincipalDetails> loaded = new HashMap<>();
+        for (PrincipalType principalType : PrincipalType.values()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            List<? extends Principal> principals = switch (principalType) {
+                case HUMAN -> humanPrincipalRepository.findAllByBusinessIdIn(remaining);
+                case SERVICE -> servicePrincipalRepository.findAllByBusinessIdIn(remaining);
+                case SYSTEM -> systemPrincipalRepository.findAllByBusinessIdIn(remaining);
+                case DEVICE -> devicePrincipalRepository.findAllByBusinessIdIn(remaining);
+            };
+            for (Principal principal : principals) {
+                remaining.remove(principal.getBusinessId().value());
+                loaded.put(principal.getBusinessId(), toPrincipalDetails(principal));
+            }
+        }
+        return loaded;
+    }
+
+    private PrincipalDetails loadPrincipalDetails(PrincipalId principalId) {
         Principal principal = findPrincipalByBusinessId(principalId)
                 .orElseThrow(() -> new RuntimeException("Principal not found: " + principalId));
+        return toPrincipalDetails(principal);
+    }
 
+    private static PrincipalDetails toPrincipalDetails(Principal principal) {
         // Human principal specific fields
         Boolean emailVerified = null;
         Boolean mfaEnabled = null;
@@ -613,6 +690,7 @@ public class PrincipalService {
         } else if (principal instanceof DevicePrincipalEntity) {
             devicePrincipalRepository.save((DevicePrincipalEntity) principal);
         }
+        principalCache.invalidate(principal.getBusinessId());
 
         return new CommonAttributesUpdated(principal.getBusinessId().value());
     }
@@ -772,123 +850,61 @@ public class PrincipalService {
 //
 //        membershipRepository.save(membership);
 //    }
-    @Transactional
-    public HeartbeatUpdated updateHeartbeat(UpdateHeartbeatCommand command) {
-
-        DevicePrincipalEntity device = devicePrincipalRepository.findByBusinessId(PrincipalId.of(command.id()))
-                .orElseThrow(() -> new RuntimeException("Device principal not found: " + command.id()));
 
-        java.time.Instant now = java.time.Instant.now();
-        device.setLastHeartbeatAt(now);
-
-        if (command.firmwareVersion() != null) {
-            device.setFirmwareVersion(command.firmwareVersion());
-        }
-        if (command.locationInfo() != null) {
-            device.setLocationInfo(command.locationInfo());
+    /**
+     * Records a device heartbeat.
+     * <p>
+     * Only checks that the device exists; the heartbeat itself is handed to {@link HeartbeatBuffer} and written
+     * with the next batched flush, so {@code last_heartbeat_at} in the database may lag by up to one flush interval.
+     *
+     * @param command the heartbeat command
+     * @return the accepted heartbeat
+     */
+    @Transactional(readOnly = true)
+    public HeartbeatUpdated updateHeartbeat(UpdateHeartbeatCommand command) {
+        if (!devicePrincipalRepository.existsByBusinessId(command.id())) {
+            throw new RuntimeException("Device principal not found: " + command.id());
         }
 
-        devicePrincipalRepository.save(device);
+        java.time.Instant now = java.time.Instant.now();
+        heartbeatBuffer.offer(new DeviceHeartbeat(command.id(), now, command.firmwareVersion(), command.locationInfo()));
+        deviceLivenessService.recordHeartbeat(command.id(), now);
 
-        return new HeartbeatUpdated(device.getBusinessId().value(), now);
+        return new HeartbeatUpdated(command.id(), now);
     }
 
-    // TODO: to be moved to iam.tenant module
-//    @Transactional(readOnly = true)
-//    public CrossTenantSearchResult searchPrincipalsCrossTenant(CrossTenantSearchQuery query) {
-//        List<CrossTenantPrincipalItem> allItems = new ArrayList<>();
-//
-//        // Search across all principal types
-//        PrincipalStatus statusFilter = null;
-//        if (query.status() != null && !query.status().isBlank()) {
-//            try {
-//                statusFilter = PrincipalStatus.valueOf(query.status());
-//            } catch (IllegalArgumentException e) {
-//                // Ignore invalid status
-//            }
-//        }
-//
-//        PrincipalType typeFilter = null;
-//        if (query.principalType() != null && !query.principalType().isBlank()) {
-//            try {
-//                typeFilter = PrincipalType.valueOf(query.principalType());
-//            } catch (IllegalArgumentException e) {
-//                // Ignore invalid type
-//            }
-//        }
-//
-//        // Search human principals
-//        if (typeFilter == null || typeFilter == PrincipalType.HUMAN) {
-//            for (HumanPrincipalEntity p : humanPrincipalRepository.findAll()) {
-//                if (matchesFilter(p, query.search(), statusFilter)) {
-//                    allItems.add(new CrossTenantPrincipalItem(
-//                            p.getBusinessId(), p.getPrincipalType().name(),
-//                            p.getUsername(), p.getEmail(), p.getStatus().name(), p.getPrimaryTenantId()));
-//                }
-//            }
-//        }
-//
-//        // Search service principals
-//        if (typeFilter == null || typeFilter == PrincipalType.SERVICE) {
-//            for (ServicePrincipalEntity p : servicePrincipalRepository.findAll()) {
-//                if (matchesFilter(p, query.search(), statusFilter)) {
-//                    allItems.add(new CrossTenantPrincipalItem(
-//                            p.getBusinessId(), p.getPrincipalType().name(),
-//                            p.getUsername(), p.getEmail(), p.getStatus().name(), p.getPrimaryTenantId()));
-//                }
-//            }
-//        }
-//
-//        // Search system principals
-//        if (typeFilter == null || typeFilter == PrincipalType.SYSTEM) {
-//            for (SystemPrincipalEntity p : systemPrincipalRepository.findAll()) {
-//                if (matchesFilter(p, query.search(), statusFilter)) {
-//                    allItems.add(new CrossTenantPrincipalItem(
-//                            p.getBusinessId(), p.getPrincipalType().name(),
-//                            p.getUsername(), p.getEmail(), p.getStatus().name(), p.getPrimaryTenantId()));
-//                }
-//            }
-//        }
-//
-//        // Search device principals
-//        if (typeFilter == null || typeFilter == PrincipalType.DEVICE) {
-//            for (DevicePrincipalEntity p : devicePrincipalRepository.findAll()) {
-//                if (matchesFilter(p, query.search(), statusFilter)) {
-//                    allItems.add(new CrossTenantPrincipalItem(
-//                            p.getPrincipalId(), p.getPrincipalType().name(),
-//                            p.getUsername(), p.getEmail(), p.getStatus().name(), p.getPrimaryTenantId()));
-//                }
-//            }
-//        }
-//
-//        // Apply pagination
-//        int pageIndex = Math.max(0, query.page() - 1);
-//        int pageSize = Math.min(Math.max(1, query.size()), 100);
-//        int fromIndex = pageIndex * pageSize;
-//        int toIndex = Math.min(fromIndex + pageSize, allItems.size());
-//
-//        List<CrossTenantPrincipalItem> pagedItems;
-//        if (fromIndex >= allItems.size()) {
-//            pagedItems = List.of();
-//        } else {
-//            pagedItems = allItems.subList(fromIndex, toIndex);
-//        }
-//
-//        return new CrossTenantSearchResult(pagedItems, allItems.size(), query.page(), pageSize);
-//    }
+    /**
+     * Records heartbeats of several devices, e.g. reported by an edge gateway.
+     * <p>
+     * Unlike {@link #updateHeartbeat(UpdateHeartbeatCommand)} this writes immediately: one query finds the
+     * existing devices, and their heartbeats are applied as a single JDBC batch in this transaction. Several
+     * heartbeats for the same device are coalesced. Rows are updated in device ID order, so concurrent batches
+     * touching the same devices cannot deadlock.
+     *
+     * @param commands the heartbeats
+     * @return one item per command in request order; unknown devices have no heartbeat timestamp
+     */
+    @Transactional
+    public HeartbeatsUpdated updateHeartbeats(List<UpdateHeartbeatCommand> commands) {
+        java.time.Instant now = java.time.Instant.now();
+        Map<UUID, DeviceHeartbeat> coalesced = new TreeMap<>();
+        for (UpdateHeartbeatCommand command : commands) {
+            coalesced.merge(command.id(),
+                    new DeviceHeartbeat(command.id(), now, command.firmwareVersion(), command.locationInfo()),
+                    DeviceHeartbeat::coalesce);
+        }
 
-    private boolean matchesFilter(Principal principal, String search, PrincipalStatus statusFilter) {
-        if (statusFilter != null && principal.getStatus() != statusFilter) {
-            return false;
+        Set<UUID> existing = deviceHeartbeatRepository.findExisting(coalesced.keySet());
+        coalesced.keySet().retainAll(existing);
+        if (!coalesced.isEmpty()) {
+            deviceHeartbeatRepository.updateHeartbeats(new ArrayList<>(coalesced.values()));
+            coalesced.keySet().forEach(deviceId -> deviceLivenessService.recordHeartbeat(deviceId, now));
         }
-        if (search != null && !search.isBlank()) {
-            String lowerSearch = search.toLowerCase();
-            boolean matchesUsername = principal.getUsername() != null &&
-                    principal.getUsername().toLowerCase().contains(lowerSearch);
-            boolean matchesEmail = principal.getEmail() != null &&
-                    principal.getEmail().toLowerCase().contains(lowerSearch);
-            return matchesUsername || matchesEmail;
+
+        List<HeartbeatsUpdated.Item> items = new ArrayList<>(commands.size());
+        for (UpdateHeartbeatCommand command : commands) {
+            items.add(new HeartbeatsUpdated.Item(command.id(), existing.contains(command.id()) ? now : null));
         }
-        return true;
+        return new HeartbeatsUpdated(items);
     }
 }
@@ -1,10 +1,12 @@
 package io.openleap.iam.principal.service;
 
-import io.openleap.common.messaging.event.EventPublisher;
+import io.openleap.iam.principal.domain.dto.ApiKeyOwner;
+import io.openleap.iam.principal.domain.dto.ApiKeyVerified;
 import io.openleap.iam.principal.domain.dto.CreateServicePrincipalCommand;
 import io.openleap.iam.principal.domain.dto.CredentialsRotated;
 import io.openleap.iam.principal.domain.dto.RotateCredentialsCommand;
 import io.openleap.iam.principal.domain.dto.ServicePrincipalCreated;
+import io.openleap.iam.principal.domain.dto.VerifyApiKeyCommand;
 import io.openleap.iam.principal.domain.entity.PrincipalId;
 import io.openleap.iam.principal.domain.entity.PrincipalStatus;
 import io.openleap.iam.principal.domain.entity.ServicePrincipalEntity;
@@ -15,80 +17,89 @@ import io.openleap.iam.principal.domain.mapper.ServicePrincipalMapper;
 import io.openleap.iam.principal.exception.ServiceNameAlreadyExistsException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
 import io.openleap.iam.principal.repository.ServicePrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
 import io.openleap.iam.principal.service.keycloak.KeycloakService;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import io.openleap.iam.principal.service.sync.KeycloakSyncService;
 import org.jspecify.annotations.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 public class ServicePrincipalService {
 
     private final ServicePrincipalRepository servicePrincipalRepository;
+    private final PrincipalRegistryRepository principalRegistryRepository;
     private final KeycloakService keycloakService;
     private final CredentialService credentialService;
-    private final EventPublisher eventPublisher;
+    private final PrincipalEventOutbox principalEventOutbox;
     private final ServicePrincipalMapper servicePrincipalMapper;
+    private final PrincipalCache principalCache;
+    private final KeycloakSyncService keycloakSyncService;
+    private final TransactionTemplate transactionTemplate;
 
-    private static final String IAM_PRINCIPAL_EXCHANGE = "iam.principal.events";
+    private static final String SERVICE_PRINCIPAL_CREATED_KEY = "iam.principal.service_principal.created";
     private static final String CREDENTIALS_ROTATED_KEY = "iam.principal.credentials.rotated";
-    private static final String NO_DESC = "nodesc";
     private static final int CREDENTIAL_ROTATION_DAYS = 90;
 
     public ServicePrincipalService(
             ServicePrincipalRepository servicePrincipalRepository,
+            PrincipalRegistryRepository principalRegistryRepository,
             KeycloakService keycloakService,
             CredentialService credentialService,
-            EventPublisher eventPublisher,
-            ServicePrincipalMapper servicePrincipalMapper) {
+            PrincipalEventOutbox principalEventOutbox,
+            ServicePrincipalMapper servicePrincipalMapper,
+            PrincipalCache principalCache,
+            KeycloakSyncService keycloakSyncService,
+            TransactionTemplate transactionTemplate) {
         this.servicePrincipalRepository = servicePrincipalRepository;
+        this.principalRegistryRepository = principalRegistryRepository;
         this.keycloakService = keycloakService;
         this.credentialService = credentialService;
-        this.eventPublisher = eventPublisher;
+        this.principalEventOutbox = principalEventOutbox;
         this.servicePrincipalMapper = servicePrincipalMapper;
+        this.principalCache = principalCache;
+        this.keycloakSyncService = keycloakSyncService;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
+    /**
+     * Creates a service principal. The row is committed together with its created event before Keycloak is
+     * called so no database connection is held during the remote round trip; if Keycloak is unavailable the principal is
+     * kept and provisioned later by {@link KeycloakSyncService}, without a client secret in the response.
+     */
     public ServicePrincipalCreated createServicePrincipal(CreateServicePrincipalCommand command) {
-
-        if (servicePrincipalRepository.existsByServiceName(command.serviceName())) {
-            throw new ServiceNameAlreadyExistsException(command.serviceName());
-        }
-
-        String username = command.serviceName().toLowerCase();
-        if (servicePrincipalRepository.existsByUsername(username)) {
-            throw new UsernameAlreadyExistsException(username);
-        }
-
         String apiKey = credentialService.generateApiKey();
-        String apiKeyHash = credentialService.hashApiKey(apiKey);
 
-        ServicePrincipalEntity principal = createServicePrincipalEntity(command, username, apiKeyHash);
+        ServicePrincipalEntity principal = transactionTemplate.execute(status -> {
+            if (servicePrincipalRepository.existsByServiceName(command.serviceName())) {
+                throw new ServiceNameAlreadyExistsException(command.serviceName());
+            }
 
-        principal = servicePrincipalRepository.save(principal);
+            String username = command.serviceName().toLowerCase();
+            if (principalRegistryRepository.existsByUsername(username)) {
+                throw new UsernameAlreadyExistsException(username);
+            }
 
-        String keycloakClientId = null;
-        String keycloakClientSecret = null;
-        try {
-            keycloakClientId = principal.getServiceName();
-            keycloakClientSecret = keycloakService.createClient(keycloakClientId, command.allowedScopes());
+            String apiKeyHash = credentialService.hashApiKey(apiKey);
+            ServicePrincipalEntity saved = servicePrincipalRepository.save(createServicePrincipalEntity(command, username, apiKeyHash));
 
-            principal.setSyncStatus(SyncStatus.SYNCED);
-            principal.setKeycloakClientId(keycloakClientId);
-            principal = servicePrincipalRepository.save(principal);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create client in Keycloak: " + e.getMessage(), e);
-        }
+            ServicePrincipalCreatedEvent event = servicePrincipalMapper.toServicePrincipalCreatedEvent(saved);
+            principalEventOutbox.append(saved.getBusinessId(), SERVICE_PRINCIPAL_CREATED_KEY, event);
+            return saved;
+        });
 
-        // Publish service principal created event
-        ServicePrincipalCreatedEvent event = servicePrincipalMapper.toServicePrincipalCreatedEvent(principal);
-//TODO: re-enable events later
-//        RoutingKey routingKey = new RoutingKey(SERVICE_PRINCIPAL_CREATED_KEY, NO_DESC, "", "");
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        Optional<String> keycloakClientSecret = keycloakSyncService.provisionClient(principal);
+        String keycloakClientId = keycloakClientSecret.isPresent() ? principal.getServiceName() : null;
 
-        return servicePrincipalMapper.toServicePrincipalCreated(principal, apiKey, keycloakClientId, keycloakClientSecret);
+        return servicePrincipalMapper.toServicePrincipalCreated(principal, apiKey, keycloakClientId, keycloakClientSecret.orElse(null));
     }
 
     private static @NonNull ServicePrincipalEntity createServicePrincipalEntity(CreateServicePrincipalCommand command, String username, String apiKeyHash) {
@@ -98,7 +109,7 @@ public class ServicePrincipalService {
         principal.setServiceName(command.serviceName());
         principal.setDefaultTenantId(command.defaultTenantId());
         principal.setStatus(PrincipalStatus.ACTIVE); // Service principals are ACTIVE immediately
-        principal.setSyncStatus(SyncStatus.PENDING);
+        principal.setSyncStatus(SyncStatus.SYNCING); // claimed by the creating request, see createServicePrincipal
         principal.setContextTags(command.contextTags());
         principal.setAllowedScopes(command.allowedScopes());
         principal.setApiKeyHash(apiKeyHash);
@@ -138,6 +149,7 @@ public class ServicePrincipalService {
         principal.setRotatedAt(rotatedAt);
 
         servicePrincipalRepository.save(principal);
+        principalCache.invalidate(principal.getBusinessId());
 
         String newKeycloakClientSecret = null;
         if (principal.getKeycloakClientId() != null && !principal.getKeycloakClientId().isBlank()) {
@@ -151,10 +163,29 @@ public class ServicePrincipalService {
         CredentialsRotatedEvent event = servicePrincipalMapper.toCredentialsRotatedEvent(
                 principal, command, newRotationDate, rotatedAt);
 
-//        RoutingKey routingKey = new RoutingKey(CREDENTIALS_ROTATED_KEY, NO_DESC, "", "");
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), CREDENTIALS_ROTATED_KEY, event);
 
         return servicePrincipalMapper.toCredentialsRotated(
                 principal, newApiKey, newKeycloakClientSecret, newRotationDate, rotatedAt);
     }
+
+    /**
+     * Verifies an API key presented by a service. The key is looked up by its hash, so verification costs one
+     * SHA-256 and, on a cache hit, no database round trip. Entries live for {@code iam.principal.cache.api-key-ttl}
+     * and are evicted when the principal's credentials are rotated or it is suspended or deactivated.
+     *
+     * @param command the verification command
+     * @return the verification result; unknown keys are invalid without further details
+     */
+    public ApiKeyVerified verifyApiKey(VerifyApiKeyCommand command) {
+        String apiKeyHash = credentialService.hashApiKey(command.apiKey());
+        ApiKeyOwner owner = principalCache.getApiKeyOwner(apiKeyHash,
+                hash -> servicePrincipalRepository.findApiKeyOwner(hash).orElse(null));
+        if (owner == null) {
+            return new ApiKeyVerified(false, null, null, List.of());
+        }
+        boolean valid = owner.status() == PrincipalStatus.ACTIVE;
+        List<String> allowedScopes = valid && owner.allowedScopes() != null ? owner.allowedScopes() : List.of();
+        return new ApiKeyVerified(valid, owner.principalId(), owner.status().name(), allowedScopes);
+    }
 }
@@ -1,6 +1,5 @@
 package io.openleap.iam.principal.service;
 
-import io.openleap.common.messaging.event.EventPublisher;
 import io.openleap.iam.principal.domain.dto.CreateSystemPrincipalCommand;
 import io.openleap.iam.principal.domain.dto.SystemPrincipalCreated;
 import io.openleap.iam.principal.domain.entity.*;
@@ -10,6 +9,8 @@ import io.openleap.iam.principal.exception.SystemIdentifierAlreadyExistsExceptio
 import io.openleap.iam.principal.exception.TenantNotFoundException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
 import io.openleap.iam.principal.repository.SystemPrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
 import org.jspecify.annotations.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,18 +21,23 @@ import java.time.LocalDate;
 public class SystemPrincipalService {
 
     private final SystemPrincipalRepository systemPrincipalRepository;
+    private final PrincipalRegistryRepository principalRegistryRepository;
     private final TenantService tenantService;
-    private final EventPublisher eventPublisher;
+    private final PrincipalEventOutbox principalEventOutbox;
     private final SystemPrincipalMapper systemPrincipalMapper;
 
+    private static final String SYSTEM_PRINCIPAL_CREATED_KEY = "iam.principal.system_principal.created";
+
     public SystemPrincipalService(
             SystemPrincipalRepository systemPrincipalRepository,
+            PrincipalRegistryRepository principalRegistryRepository,
             TenantService tenantService,
-            EventPublisher eventPublisher,
+            PrincipalEventOutbox principalEventOutbox,
             SystemPrincipalMapper systemPrincipalMapper) {
         this.systemPrincipalRepository = systemPrincipalRepository;
+        this.principalRegistryRepository = principalRegistryRepository;
         this.tenantService = tenantService;
-        this.eventPublisher = eventPublisher;
+        this.principalEventOutbox = principalEventOutbox;
         this.systemPrincipalMapper = systemPrincipalMapper;
     }
 
@@ -42,7 +48,7 @@ public class SystemPrincipalService {
         }
 
         String username = command.systemIdentifier().toLowerCase();
-        if (systemPrincipalRepository.existsByUsername(username)) {
+        if (principalRegistryRepository.existsByUsername(username)) {
             throw new UsernameAlreadyExistsException(username);
         }
 
@@ -69,9 +75,7 @@ public class SystemPrincipalService {
 
         SystemPrincipalCreatedEvent event = systemPrincipalMapper.toSystemPrincipalCreatedEvent(principal);
 
-//        TODO: Enable event publishing once consumers are ready
-//        RoutingKey routingKey = new RoutingKey(SYSTEM_PRINCIPAL_CREATED_KEY, NO_DESC, "", "");
-//        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, null, Collections.emptyMap());
+        principalEventOutbox.append(principal.getBusinessId(), SYSTEM_PRINCIPAL_CREATED_KEY, event);
 
         return systemPrincipalMapper.toSystemPrincipalCreated(principal);
     }
@@ -0,0 +1,234 @@
+package io.openleap.iam.principal.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.openleap.iam.principal.domain.dto.ApiKeyOwner;
+import io.openleap.iam.principal.domain.dto.CertificateOwner;
+import io.openleap.iam.principal.domain.dto.PrincipalDetails;
+import io.openleap.iam.principal.domain.dto.PrincipalEntitlements;
+import io.openleap.iam.principal.domain.dto.ProfileDetails;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * In-process cache for principal read models, kept coherent across instances via Postgres LISTEN/NOTIFY.
+ * <p>
+ * Writers call {@link #invalidate(PrincipalId)} inside their transaction: the local entry is evicted
+ * immediately and a notification is queued with {@code pg_notify}. Postgres only delivers the
+ * notification once the transaction commits, so every instance (including this one) evicts again
+ * after the new state is visible, which closes the window in which a concurrent reader could
+ * re-populate the cache with the pre-commit row.
+ * <p>
+ * API key verifications are cached by key hash with a shorter TTL. A second map from principal to its cached hash
+ * lets {@link #invalidate(PrincipalId)} evict the key of a rotated, suspended or deactivated principal too.
+ * <p>
+ * Certificate resolutions are cached by thumbprint the same way. Unknown thumbprints are cached as well, for a
+ * shorter TTL, since a gateway retries a rejected handshake; a principal created with such a thumbprint resolves
+ * once the negative entry expires.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    static final String CHANNEL = "iam_principal_cache";
+    private static final char PAYLOAD_SEPARATOR = ';';
+
+    private final Cache<PrincipalId, PrincipalDetails> detailsCache;
+    private final Cache<PrincipalId, ProfileDetails> profileCache;
+    private final Cache<PrincipalId, PrincipalEntitlements> entitlementCache;
+    private final Cache<String, ApiKeyOwner> apiKeyCache;
+    private final Cache<PrincipalId, String> apiKeyHashes;
+    private final Cache<String, Optional<CertificateOwner>> certificateCache;
+    private final Cache<PrincipalId, String> certificateThumbprints;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean clusterSync;
+    private final Timer invalidationLag;
+
+    public PrincipalCache(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.cache.maximum-size:10000}") long maximumSize,
+            @Value("${iam.principal.cache.ttl:5m}") Duration ttl,
+            @Value("${iam.principal.cache.api-key-ttl:30s}") Duration apiKeyTtl,
+            @Value("${iam.principal.cache.certificate-ttl:30s}") Duration certificateTtl,
+            @Value("${iam.principal.cache.certificate-negative-ttl:5s}") Duration certificateNegativeTtl,
+            @Value("${iam.principal.cache.cluster-sync:true}") boolean clusterSync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterSync = clusterSync;
+        this.detailsCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.profileCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.entitlementCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.apiKeyCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(apiKeyTtl)
+                .recordStats()
+                .build();
+        this.apiKeyHashes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(apiKeyTtl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, detailsCache, "iam.principal.details");
+        CaffeineCacheMetrics.monitor(meterRegistry, profileCache, "iam.principal.profile");
+        CaffeineCacheMetrics.monitor(meterRegistry, entitlementCache, "iam.principal.entitlements");
+        this.certificateCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.creating((String thumbprint, Optional<CertificateOwner> owner) ->
+                        owner.isPresent() ? certificateTtl : certificateNegativeTtl))
+                .recordStats()
+                .build();
+        this.certificateThumbprints = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(certificateTtl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, apiKeyCache, "iam.principal.api-key");
+        CaffeineCacheMetrics.monitor(meterRegistry, certificateCache, "iam.principal.certificate");
+        this.invalidationLag = Timer.builder("iam.principal.cache.invalidation.lag")
+                .description("Time between a principal write and the eviction of its cached entry on this instance")
+                .register(meterRegistry);
+    }
+
+    public PrincipalDetails getDetails(PrincipalId principalId, Function<PrincipalId, PrincipalDetails> loader) {
+        return detailsCache.get(principalId, loader);
+    }
+
+    /**
+     * Returns the cached details for {@code principalIds}, loading all misses with one call to {@code loader}.
+     * IDs the loader does not return are absent from the result and are not cached.
+     */
+    public Map<PrincipalId, PrincipalDetails> getAllDetails(
+            Collection<PrincipalId> principalIds,
+            Function<Set<? extends PrincipalId>, Map<PrincipalId, PrincipalDetails>> loader) {
+        return detailsCache.getAll(principalIds, loader);
+    }
+
+    public ProfileDetails getProfile(PrincipalId principalId, Function<PrincipalId, ProfileDetails> loader) {
+        return profileCache.get(principalId, loader);
+    }
+
+    /**
+     * Returns the compiled entitlements for {@code principalIds}, loading all misses with one call to
+     * {@code loader}. IDs the loader does not return are absent from the result and are not cached.
+     */
+    public Map<PrincipalId, PrincipalEntitlements> getAllEntitlements(
+            Collection<PrincipalId> principalIds,
+            Function<Set<? extends PrincipalId>, Map<PrincipalId, PrincipalEntitlements>> loader) {
+        return entitlementCache.getAll(principalIds, loader);
+    }
+
+    /**
+     * Returns the owner of an API key hash. Unknown hashes are not cached, so a key issued after a miss is found
+     * right away.
+     *
+     * @param loader loads the owner, returns null if no principal has this hash
+     * @return the owner, null if the hash is unknown
+     */
+    public ApiKeyOwner getApiKeyOwner(String apiKeyHash, Function<String, ApiKeyOwner> loader) {
+        return apiKeyCache.get(apiKeyHash, hash -> {
+            ApiKeyOwner owner = loader.apply(hash);
+            if (owner != null) {
+                apiKeyHashes.put(PrincipalId.of(owner.principalId()), hash);
+            }
+            return owner;
+        });
+    }
+
+    /**
+     * Returns the owner of a certificate thumbprint. Empty results are cached too, for the negative TTL.
+     *
+     * @param loader loads the owner, returns empty if no principal (or more than one) has this thumbprint
+     */
+    public Optional<CertificateOwner> getCertificateOwner(
+            String thumbprint, Function<String, Optional<CertificateOwner>> loader) {
+        return certificateCache.get(thumbprint, key -> {
+            Optional<CertificateOwner> owner = loader.apply(key);
+            owner.ifPresent(found -> certificateThumbprints.put(PrincipalId.of(found.principalId()), key));
+            return owner;
+        });
+    }
+
+    /**
+     * Evicts a principal on this instance and, once the surrounding transaction commits, on all instances.
+     *
+     * @param principalId the principal whose cached views are stale
+     */
+    public void invalidate(PrincipalId principalId) {
+        evict(principalId);
+        if (clusterSync) {
+            String payload = principalId.value().toString() + PAYLOAD_SEPARATOR + Instant.now().toEpochMilli();
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+        }
+    }
+
+    /**
+     * Drops every cached entry. Used when invalidation notifications may have been missed.
+     */
+    public void invalidateAll() {
+        detailsCache.invalidateAll();
+        profileCache.invalidateAll();
+        entitlementCache.invalidateAll();
+        apiKeyCache.invalidateAll();
+        apiKeyHashes.invalidateAll();
+        certificateCache.invalidateAll();
+        certificateThumbprints.invalidateAll();
+    }
+
+    void onNotification(String payload) {
+        int separator = payload.indexOf(PAYLOAD_SEPARATOR);
+        try {
+            UUID principalId = UUID.fromString(separator < 0 ? payload : payload.substring(0, separator));
+            evict(PrincipalId.of(principalId));
+            if (separator >= 0) {
+                long writtenAt = Long.parseLong(payload.substring(separator + 1));
+                invalidationLag.record(Duration.ofMillis(Math.max(0, Instant.now().toEpochMilli() - writtenAt)));
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed principal cache notification: {}", payload);
+        }
+    }
+
+    private void evict(PrincipalId principalId) {
+        detailsCache.invalidate(principalId);
+        profileCache.invalidate(principalId);
+        entitlementCache.invalidate(principalId);
+        String apiKeyHash = apiKeyHashes.getIfPresent(principalId);
+        if (apiKeyHash != null) {
+            apiKeyCache.invalidate(apiKeyHash);
+            apiKeyHashes.invalidate(principalId);
+        }
+        String thumbprint = certificateThumbprints.getIfPresent(principalId);
+        if (thumbprint != null) {
+            certificateCache.invalidate(thumbprint);
+            certificateThumbprints.invalidate(principalId);
+        }
+    }
+}
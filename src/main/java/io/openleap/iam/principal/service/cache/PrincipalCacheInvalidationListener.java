@@ -0,0 +1,104 @@
+package io.openleap.iam.principal.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Listens on the {@link PrincipalCache#CHANNEL} notification channel and evicts entries written on other instances.
+ * <p>
+ * Holds one pooled connection for the lifetime of the application. Whenever the connection is
+ * (re-)established the whole cache is dropped, since notifications sent while not listening are lost.
+ */
+@Component
+@ConditionalOnProperty(name = "iam.principal.cache.cluster-sync", havingValue = "true", matchIfMissing = true)
+public class PrincipalCacheInvalidationListener implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCacheInvalidationListener.class);
+
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_BACKOFF_MILLIS = 5000;
+
+    private final DataSource dataSource;
+    private final PrincipalCache principalCache;
+    private final Counter resyncs;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PrincipalCacheInvalidationListener(DataSource dataSource, PrincipalCache principalCache, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.principalCache = principalCache;
+        this.resyncs = Counter.builder("iam.principal.cache.resyncs")
+                .description("Full cache flushes caused by (re-)connecting the invalidation listener")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .name("principal-cache-listener")
+                .daemon()
+                .start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + PrincipalCache.CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                principalCache.invalidateAll();
+                resyncs.increment();
+                logger.info("Listening for principal cache invalidations on channel {}", PrincipalCache.CHANNEL);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        principalCache.onNotification(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Principal cache listener connection lost, reconnecting in {} ms", RECONNECT_BACKOFF_MILLIS, e);
+                principalCache.invalidateAll();
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
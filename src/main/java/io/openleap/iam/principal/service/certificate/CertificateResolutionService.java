@@ -0,0 +1,62 @@
+package io.openleap.iam.principal.service.certificate;
+
+import io.openleap.iam.principal.domain.dto.CertificateOwner;
+import io.openleap.iam.principal.domain.dto.CertificateResolved;
+import io.openleap.iam.principal.domain.dto.ResolveCertificateCommand;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.repository.CertificatePrincipalRepository;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Resolves mTLS client certificates to the system or device principal holding their thumbprint, for gateways that
+ * authenticate on every handshake. Resolutions are served from {@link PrincipalCache}, and the entry of a principal
+ * is evicted whenever it is suspended, deactivated or deleted per GDPR.
+ */
+@Service
+public class CertificateResolutionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateResolutionService.class);
+
+    private final CertificatePrincipalRepository certificatePrincipalRepository;
+    private final PrincipalCache principalCache;
+
+    public CertificateResolutionService(
+            CertificatePrincipalRepository certificatePrincipalRepository,
+            PrincipalCache principalCache) {
+        this.certificatePrincipalRepository = certificatePrincipalRepository;
+        this.principalCache = principalCache;
+    }
+
+    /**
+     * Resolves a certificate thumbprint. A thumbprint held by more than one principal is treated as unknown, since
+     * the gateway could not tell which of them is connecting.
+     *
+     * @param command the resolution command
+     * @return the resolution result; unknown thumbprints are invalid without further details
+     */
+    public CertificateResolved resolveCertificate(ResolveCertificateCommand command) {
+        Optional<CertificateOwner> owner = principalCache.getCertificateOwner(command.thumbprint(), this::loadOwner);
+        if (owner.isEmpty()) {
+            return new CertificateResolved(false, null, null, null, List.of());
+        }
+        CertificateOwner found = owner.get();
+        boolean valid = found.status() == PrincipalStatus.ACTIVE;
+        return new CertificateResolved(valid, found.principalId(), found.principalType().name(), found.status().name(),
+                valid ? found.allowedOperations() : List.of());
+    }
+
+    private Optional<CertificateOwner> loadOwner(String thumbprint) {
+        List<CertificateOwner> owners = certificatePrincipalRepository.findByThumbprint(thumbprint);
+        if (owners.size() > 1) {
+            logger.warn("Certificate thumbprint {} is held by more than one principal, refusing to resolve it", thumbprint);
+            return Optional.empty();
+        }
+        return owners.stream().findFirst();
+    }
+}
@@ -0,0 +1,107 @@
+package io.openleap.iam.principal.service.entitlement;
+
+import io.openleap.iam.principal.domain.dto.CheckEntitlementsCommand;
+import io.openleap.iam.principal.domain.dto.EntitlementCheck;
+import io.openleap.iam.principal.domain.dto.EntitlementsChecked;
+import io.openleap.iam.principal.domain.dto.PrincipalDetails;
+import io.openleap.iam.principal.domain.dto.PrincipalDetailsBatch;
+import io.openleap.iam.principal.domain.dto.PrincipalEntitlements;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.exception.PrincipalNotFoundException;
+import io.openleap.iam.principal.service.PrincipalService;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Answers whether a principal may use a scope or operation, for gateways authorizing every call.
+ * <p>
+ * The allowed scopes of a service principal and the allowed operations of a system principal are compiled once into
+ * a hash set and kept in {@link PrincipalCache}, so a check is a set lookup instead of a scan of the stored array.
+ * Entries are evicted with the rest of the principal's cached views, e.g. when it is suspended or deactivated.
+ * Misses are compiled from the cached principal details, so a check reaches the database only if those are not
+ * cached either.
+ */
+@Service
+public class EntitlementService {
+
+    private final PrincipalService principalService;
+    private final PrincipalCache principalCache;
+
+    public EntitlementService(PrincipalService principalService, PrincipalCache principalCache) {
+        this.principalService = principalService;
+        this.principalCache = principalCache;
+    }
+
+    /**
+     * Checks a single entitlement.
+     *
+     * @return the result, allowed if the principal is ACTIVE and holds the entitlement
+     * @throws PrincipalNotFoundException if there is no principal with this ID
+     */
+    public EntitlementsChecked.Item checkEntitlement(EntitlementCheck check) {
+        PrincipalId principalId = PrincipalId.of(check.principalId());
+        PrincipalEntitlements entitlements = principalCache.getAllEntitlements(List.of(principalId), this::loadEntitlements)
+                .get(principalId);
+        if (entitlements == null) {
+            throw new PrincipalNotFoundException(check.principalId());
+        }
+        return new EntitlementsChecked.Item(check.principalId(), check.entitlement(), true,
+                entitlements.allows(check.entitlement()));
+    }
+
+    /**
+     * Checks several entitlements, loading all uncached principals at once.
+     *
+     * @return one item per check in request order; checks for unknown principals are denied and not found
+     */
+    public EntitlementsChecked checkEntitlements(CheckEntitlementsCommand command) {
+        Set<PrincipalId> distinct = new LinkedHashSet<>();
+        for (EntitlementCheck check : command.checks()) {
+            distinct.add(PrincipalId.of(check.principalId()));
+        }
+        Map<PrincipalId, PrincipalEntitlements> found = principalCache.getAllEntitlements(distinct, this::loadEntitlements);
+
+        List<EntitlementsChecked.Item> items = new ArrayList<>(command.checks().size());
+        for (EntitlementCheck check : command.checks()) {
+            PrincipalEntitlements entitlements = found.get(PrincipalId.of(check.principalId()));
+            items.add(new EntitlementsChecked.Item(check.principalId(), check.entitlement(),
+                    entitlements != null, entitlements != null && entitlements.allows(check.entitlement())));
+        }
+        return new EntitlementsChecked(items);
+    }
+
+    private Map<PrincipalId, PrincipalEntitlements> loadEntitlements(Set<? extends PrincipalId> principalIds) {
+        List<UUID> ids = new ArrayList<>(principalIds.size());
+        for (PrincipalId principalId : principalIds) {
+            ids.add(principalId.value());
+        }
+
+        Map<PrincipalId, PrincipalEntitlements> loaded = new HashMap<>();
+        for (PrincipalDetailsBatch.Item item : principalService.getPrincipalDetails(ids).items()) {
+            if (item.found()) {
+                loaded.put(PrincipalId.of(item.id()), compile(item.details()));
+            }
+        }
+        return loaded;
+    }
+
+    private static PrincipalEntitlements compile(PrincipalDetails details) {
+        List<String> granted = switch (PrincipalType.valueOf(details.principalType())) {
+            case SERVICE -> details.allowedScopes();
+            case SYSTEM -> details.allowedOperations();
+            case HUMAN, DEVICE -> null;
+        };
+        return new PrincipalEntitlements(details.id(), PrincipalStatus.valueOf(details.status()),
+                granted != null ? Set.copyOf(granted) : Set.of());
+    }
+}
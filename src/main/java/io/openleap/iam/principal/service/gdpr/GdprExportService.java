@@ -0,0 +1,146 @@
+package io.openleap.iam.principal.service.gdpr;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.exception.PrincipalNotFoundException;
+import io.openleap.iam.principal.repository.HumanPrincipalGdprRepository;
+import io.openleap.iam.principal.repository.HumanPrincipalGdprRepository.ExportSubject;
+import io.openleap.iam.principal.service.keycloak.KeycloakService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assembles the GDPR data export (right of access) of a human principal.
+ * <p>
+ * The document is generated incrementally with a Jackson {@link JsonGenerator} writing to the caller's stream:
+ * the principal row is written column by column straight from the JDBC result set, and the JSONB columns
+ * ({@code preferences}, {@code context_tags}) are copied as raw JSON text, so a large preference blob is held
+ * once, as the text the driver received, and never parsed or re-serialized. Everything that can fail with an
+ * error response (unknown principal, Keycloak unavailable) is resolved before the first byte is written, so a
+ * client never receives a truncated document with a success status.
+ */
+@Service
+public class GdprExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GdprExportService.class);
+
+    private static final Set<String> JSON_COLUMNS = Set.of("context_tags", "preferences");
+
+    private final HumanPrincipalGdprRepository humanPrincipalGdprRepository;
+    private final KeycloakService keycloakService;
+    private final ObjectMapper objectMapper;
+
+    public GdprExportService(
+            HumanPrincipalGdprRepository humanPrincipalGdprRepository,
+            KeycloakService keycloakService,
+            ObjectMapper objectMapper) {
+        this.humanPrincipalGdprRepository = humanPrincipalGdprRepository;
+        this.keycloakService = keycloakService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Prepares the export of all data held about a human principal, here and in Keycloak. Nothing is written
+     * yet; the returned export streams the document when {@link GdprExport#writeTo(OutputStream)} is called.
+     *
+     * @param principalId the principal ID
+     * @return the prepared export
+     * @throws PrincipalNotFoundException if there is no human principal with this ID
+     */
+    public GdprExport exportHumanPrincipal(PrincipalId principalId) {
+        ExportSubject subject = humanPrincipalGdprRepository.findExportSubject(principalId.value())
+                .orElseThrow(() -> new PrincipalNotFoundException(principalId.value()));
+        Map<String, Object> keycloakUser = subject.keycloakUserId() != null
+                ? keycloakService.getUser(subject.keycloakUserId())
+                : null;
+        return new GdprExport(principalId, keycloakUser);
+    }
+
+    /**
+     * A GDPR export whose fallible lookups are done, ready to be written.
+     */
+    public final class GdprExport {
+
+        private final PrincipalId principalId;
+        private final Map<String, Object> keycloakUser;
+
+        private GdprExport(PrincipalId principalId, Map<String, Object> keycloakUser) {
+            this.principalId = principalId;
+            this.keycloakUser = keycloakUser;
+        }
+
+        /**
+         * Writes the document as it is assembled.
+         *
+         * @param out receives the document; closed when done
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeStringField("principal_id", principalId.value().toString());
+                generator.writeStringField("principal_type", PrincipalType.HUMAN.name());
+                generator.writeStringField("exported_at", Instant.now().toString());
+
+                generator.writeFieldName("principal");
+                boolean[] found = {false};
+                humanPrincipalGdprRepository.streamForExport(principalId.value(), rs -> {
+                    found[0] = true;
+                    writeRow(generator, rs);
+                });
+                if (!found[0]) {
+                    // Deleted between the lookup and the export
+                    generator.writeNull();
+                }
+
+                generator.writeFieldName("keycloak");
+                if (keycloakUser != null) {
+                    generator.writeObject(keycloakUser);
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeEndObject();
+            }
+            logger.info("Exported GDPR data of principal {}", principalId.value());
+        }
+    }
+
+    private static void writeRow(JsonGenerator generator, ResultSet rs) throws SQLException {
+        try {
+            ResultSetMetaData metaData = rs.getMetaData();
+            generator.writeStartObject();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                String name = metaData.getColumnLabel(column);
+                generator.writeFieldName(name);
+                Object value = rs.getObject(column);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (JSON_COLUMNS.contains(name)) {
+                    generator.writeRawValue(value.toString());
+                } else if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toInstant().toString());
+                } else if (value instanceof Boolean bool) {
+                    generator.writeBoolean(bool);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write GDPR export", e);
+        }
+    }
+}
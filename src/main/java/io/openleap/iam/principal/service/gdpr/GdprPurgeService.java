@@ -0,0 +1,85 @@
+package io.openleap.iam.principal.service.gdpr;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.service.gdpr.GdprPurgeWorker.PurgeChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Deletes principals per GDPR once they have been INACTIVE for the retention period, without a request per
+ * principal. Each type is worked off in chunks of {@code batch-size}, one transaction per chunk, so a backlog of
+ * any size never holds more than one chunk of locks. Chunks are claimed with {@code SKIP LOCKED}, so the job is
+ * safe to run on every instance at the same time.
+ */
+@Service
+public class GdprPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GdprPurgeService.class);
+
+    private final GdprPurgeWorker gdprPurgeWorker;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration retention;
+    private final Counter purgedCounter;
+    private final Counter failedCounter;
+
+    public GdprPurgeService(
+            GdprPurgeWorker gdprPurgeWorker,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.gdpr-purge.enabled:true}") boolean enabled,
+            @Value("${iam.principal.gdpr-purge.batch-size:200}") int batchSize,
+            @Value("${iam.principal.gdpr-purge.retention:30d}") Duration retention) {
+        this.gdprPurgeWorker = gdprPurgeWorker;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.purgedCounter = purgeCounter(meterRegistry, "purged");
+        this.failedCounter = purgeCounter(meterRegistry, "failed");
+    }
+
+    private static Counter purgeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("iam.principal.gdpr.purge")
+                .description("Principals purged per GDPR by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${iam.principal.gdpr-purge.interval-ms:3600000}")
+    public void purgeExpired() {
+        if (enabled) {
+            purgeExpired(Instant.now().minus(retention));
+        }
+    }
+
+    /**
+     * Purges all principals that became INACTIVE at or before {@code cutoff}. A type is left for the next run
+     * as soon as one of its chunks has Keycloak failures, since the failed principals would be claimed again
+     * right away.
+     *
+     * @return number of principals anonymized
+     */
+    int purgeExpired(Instant cutoff) {
+        int purged = 0;
+        for (PrincipalType principalType : PrincipalType.values()) {
+            PurgeChunk chunk;
+            do {
+                chunk = gdprPurgeWorker.purgeChunk(principalType, cutoff, batchSize);
+                purged += chunk.purged();
+                purgedCounter.increment(chunk.purged());
+                failedCounter.increment(chunk.failed());
+            } while (chunk.claimed() == batchSize && chunk.failed() == 0);
+        }
+        if (purged > 0) {
+            logger.info("Purged {} principals inactive since {}", purged, cutoff);
+        }
+        return purged;
+    }
+}
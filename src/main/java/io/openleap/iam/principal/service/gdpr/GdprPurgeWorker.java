@@ -0,0 +1,159 @@
+package io.openleap.iam.principal.service.gdpr;
+
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.domain.event.PrincipalDeletedEvent;
+import io.openleap.iam.principal.repository.GdprPurgeRepository;
+import io.openleap.iam.principal.repository.GdprPurgeRepository.PurgeCandidate;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import io.openleap.iam.principal.service.keycloak.KeycloakService;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Purges one chunk of principals in one transaction: claims them, deletes their Keycloak users or clients, and
+ * anonymizes those whose Keycloak identity is gone in a single statement. An
+ * {@code iam.principal.principal.deleted} event is recorded in the outbox for every anonymized principal, in the
+ * same transaction, as the admin GDPR deletion does. A principal whose Keycloak deletion failed stays INACTIVE and
+ * is claimed again by a later run.
+ * <p>
+ * Keycloak calls run on virtual threads, at most {@code keycloak-concurrency} at a time per instance.
+ */
+@Component
+public class GdprPurgeWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(GdprPurgeWorker.class);
+
+    private static final String PRINCIPAL_DELETED_KEY = "iam.principal.principal.deleted";
+
+    /**
+     * Outcome of one chunk.
+     *
+     * @param claimed principals claimed
+     * @param purged  principals anonymized
+     * @param failed  principals left INACTIVE because their Keycloak deletion failed
+     */
+    public record PurgeChunk(int claimed, int purged, int failed) {
+    }
+
+    private final GdprPurgeRepository gdprPurgeRepository;
+    private final KeycloakService keycloakService;
+    private final PrincipalCache principalCache;
+    private final PrincipalEventOutbox principalEventOutbox;
+    private final Semaphore keycloakCalls;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public GdprPurgeWorker(
+            GdprPurgeRepository gdprPurgeRepository,
+            KeycloakService keycloakService,
+            PrincipalCache principalCache,
+            PrincipalEventOutbox principalEventOutbox,
+            @Value("${iam.principal.gdpr-purge.keycloak-concurrency:8}") int keycloakConcurrency) {
+        this.gdprPurgeRepository = gdprPurgeRepository;
+        this.keycloakService = keycloakService;
+        this.principalCache = principalCache;
+        this.principalEventOutbox = principalEventOutbox;
+        this.keycloakCalls = new Semaphore(keycloakConcurrency);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Purges up to {@code limit} principals of one type that became INACTIVE at or before {@code cutoff}.
+     * The claimed rows stay locked while Keycloak is called, so a principal cannot change state between its
+     * Keycloak deletion and its anonymization.
+     */
+    @Transactional
+    public PurgeChunk purgeChunk(PrincipalType principalType, Instant cutoff, int limit) {
+        List<PurgeCandidate> candidates = gdprPurgeRepository.claimExpired(principalType, cutoff, limit);
+        if (candidates.isEmpty()) {
+            return new PurgeChunk(0, 0, 0);
+        }
+
+        List<UUID> deleted = deleteFromKeycloak(principalType, candidates);
+        List<UUID> purged = gdprPurgeRepository.anonymize(principalType, deleted);
+        purged.forEach(businessId -> principalCache.invalidate(PrincipalId.of(businessId)));
+        principalEventOutbox.appendAll(PRINCIPAL_DELETED_KEY, deletedEvents(principalType, purged));
+
+        return new PurgeChunk(candidates.size(), purged.size(), candidates.size() - deleted.size());
+    }
+
+    /**
+     * Events for principals purged by the retention policy; there is no GDPR request ticket or requestor.
+     */
+    private static Map<PrincipalId, PrincipalDeletedEvent> deletedEvents(PrincipalType principalType,
+                                                                         List<UUID> purged) {
+        Instant deletedAt = Instant.now();
+        Map<PrincipalId, PrincipalDeletedEvent> events = new LinkedHashMap<>();
+        for (UUID businessId : purged) {
+            String auditReference = "aud-" + UUID.randomUUID().toString().substring(0, 8);
+            events.put(PrincipalId.of(businessId), new PrincipalDeletedEvent(
+                    businessId, principalType.name(), null, null, auditReference, deletedAt));
+        }
+        return events;
+    }
+
+    /**
+     * @return business IDs of the principals that no longer have a Keycloak identity
+     */
+    private List<UUID> deleteFromKeycloak(PrincipalType principalType, List<PurgeCandidate> candidates) {
+        List<Future<UUID>> deletions = new ArrayList<>(candidates.size());
+        for (PurgeCandidate candidate : candidates) {
+            deletions.add(executor.submit(() -> deleteFromKeycloak(principalType, candidate)));
+        }
+
+        List<UUID> deleted = new ArrayList<>(candidates.size());
+        for (int i = 0; i < deletions.size(); i++) {
+            try {
+                deleted.add(deletions.get(i).get());
+            } catch (ExecutionException e) {
+                logger.warn("Failed to delete principal {} from Keycloak, it is retried with the next purge",
+                        candidates.get(i).businessId(), e.getCause());
+            } catch (InterruptedException e) {
+                // Unfinished deletions are retried with the next purge; deleting an absent identity succeeds
+                deletions.forEach(deletion -> deletion.cancel(true));
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private UUID deleteFromKeycloak(PrincipalType principalType, PurgeCandidate candidate) throws InterruptedException {
+        String keycloakId = candidate.keycloakId();
+        if (keycloakId == null || keycloakId.isBlank()) {
+            return candidate.businessId();
+        }
+        keycloakCalls.acquire();
+        try {
+            if (principalType == PrincipalType.HUMAN) {
+                keycloakService.deleteUser(keycloakId);
+            } else {
+                keycloakService.deleteClient(keycloakId);
+            }
+        } finally {
+            keycloakCalls.release();
+        }
+        return candidate.businessId();
+    }
+}
@@ -0,0 +1,160 @@
+package io.openleap.iam.principal.service.heartbeat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.openleap.iam.principal.domain.dto.DeviceHeartbeat;
+import io.openleap.iam.principal.repository.DeviceHeartbeatRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for device heartbeats.
+ * <p>
+ * Heartbeats are coalesced per device in memory, keeping the latest timestamp, firmware and location, and written
+ * periodically with batched narrow updates through {@link DeviceHeartbeatRepository}. A device that reports many
+ * times between two flushes therefore costs a single row update. The buffer holds at most
+ * {@code max-devices} entries; heartbeats of further devices are dropped and counted until the next flush makes
+ * room. Each batch updates its rows in device ID order, the order of the synchronous batch path in
+ * {@code PrincipalService#updateHeartbeats}, so a flush and a concurrent batch request cannot deadlock on the same
+ * rows. Pending heartbeats are flushed on shutdown.
+ */
+@Component
+public class HeartbeatBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatBuffer.class);
+    private static final Comparator<Pending> BY_DEVICE_ID = Comparator.comparing(entry -> entry.heartbeat().deviceId());
+
+    private record Pending(DeviceHeartbeat heartbeat, long bufferedAtNanos) {
+
+        static Pending coalesce(Pending a, Pending b) {
+            return new Pending(DeviceHeartbeat.coalesce(a.heartbeat(), b.heartbeat()),
+                    Math.min(a.bufferedAtNanos(), b.bufferedAtNanos()));
+        }
+    }
+
+    private final ConcurrentHashMap<UUID, Pending> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final DeviceHeartbeatRepository deviceHeartbeatRepository;
+    private final int batchSize;
+    private final int maxDevices;
+    private final DistributionSummary flushSize;
+    private final Timer flushLag;
+    private final Counter dropped;
+    private final Counter flushFailures;
+
+    public HeartbeatBuffer(
+            DeviceHeartbeatRepository deviceHeartbeatRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.heartbeat.batch-size:500}") int batchSize,
+            @Value("${iam.principal.heartbeat.max-devices:100000}") int maxDevices) {
+        this.deviceHeartbeatRepository = deviceHeartbeatRepository;
+        this.batchSize = batchSize;
+        this.maxDevices = maxDevices;
+        this.flushSize = DistributionSummary.builder("iam.principal.heartbeat.flush.size")
+                .description("Device heartbeats written per flush")
+                .register(meterRegistry);
+        this.flushLag = Timer.builder("iam.principal.heartbeat.flush.lag")
+                .description("Time between buffering a device heartbeat and writing it")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("iam.principal.heartbeat.dropped")
+                .description("Device heartbeats dropped because the buffer was full")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("iam.principal.heartbeat.flush.failures")
+                .description("Heartbeat batches that failed to write and were re-buffered")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.heartbeat.buffer.size", pending, ConcurrentHashMap::size)
+                .description("Devices with a heartbeat waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buffers a heartbeat, merging it with any pending heartbeat of the same device.
+     *
+     * @param heartbeat the heartbeat
+     * @return false if the heartbeat was dropped because the buffer is full
+     */
+    public boolean offer(DeviceHeartbeat heartbeat) {
+        return buffer(new Pending(heartbeat, System.nanoTime()));
+    }
+
+    /**
+     * Writes all pending heartbeats. Runs periodically and on shutdown; concurrent calls are serialized.
+     */
+    @Scheduled(fixedDelayString = "${iam.principal.heartbeat.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            int written = 0;
+            List<Pending> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            for (UUID deviceId : pending.keySet()) {
+                Pending entry = pending.remove(deviceId);
+                if (entry == null) {
+                    continue;
+                }
+                batch.add(entry);
+                if (batch.size() >= batchSize) {
+                    written += write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                written += write(batch);
+            }
+            if (written > 0) {
+                flushSize.record(written);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            logger.warn("{} device heartbeats could not be written before shutdown", pending.size());
+        }
+    }
+
+    private int write(List<Pending> batch) {
+        batch.sort(BY_DEVICE_ID);
+        try {
+            deviceHeartbeatRepository.updateHeartbeats(batch.stream().map(Pending::heartbeat).toList());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write {} device heartbeats, keeping them for the next flush: {}", batch.size(), e.getMessage());
+            flushFailures.increment();
+            batch.forEach(this::buffer);
+            return 0;
+        }
+        long now = System.nanoTime();
+        for (Pending entry : batch) {
+            flushLag.record(now - entry.bufferedAtNanos(), TimeUnit.NANOSECONDS);
+        }
+        return batch.size();
+    }
+
+    private boolean buffer(Pending entry) {
+        UUID deviceId = entry.heartbeat().deviceId();
+        if (pending.size() >= maxDevices && !pending.containsKey(deviceId)) {
+            dropped.increment();
+            return false;
+        }
+        pending.merge(deviceId, entry, Pending::coalesce);
+        return true;
+    }
+}
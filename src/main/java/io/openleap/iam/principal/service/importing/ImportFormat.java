@@ -0,0 +1,45 @@
+package io.openleap.iam.principal.service.importing;
+
+import java.util.Locale;
+
+/**
+ * File formats accepted by {@link PrincipalImportService}.
+ */
+public enum ImportFormat {
+
+    /**
+     * One JSON object per line with the fields of a create request.
+     */
+    NDJSON("application/x-ndjson"),
+
+    /**
+     * Header row naming the fields of a create request, then one principal per row. Map fields
+     * ({@code contextTags}, {@code preferences}) hold a JSON object.
+     */
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Resolves the format from a {@code Content-Type} header, ignoring parameters such as {@code charset}.
+     *
+     * @throws IllegalArgumentException if the content type is not supported
+     */
+    public static ImportFormat fromContentType(String contentType) {
+        String mediaType = contentType == null ? "" : contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        for (ImportFormat format : values()) {
+            if (format.mediaType.equals(mediaType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+}
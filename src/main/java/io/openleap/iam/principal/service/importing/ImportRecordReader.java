@@ -0,0 +1,183 @@
+package io.openleap.iam.principal.service.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.domain.dto.CreateHumanPrincipalCommand;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads create commands from an import file one record at a time, so a file of any size is parsed in constant
+ * memory. A record that cannot be parsed is returned with its error instead of failing the import; only an
+ * unreadable file or a malformed CSV header throws.
+ */
+abstract class ImportRecordReader implements Closeable {
+
+    private static final Set<String> JSON_COLUMNS = Set.of("contextTags", "preferences");
+
+    /**
+     * A parsed record: either {@code command} or {@code error} is set.
+     */
+    record ImportRecord(long number, CreateHumanPrincipalCommand command, String error) {
+    }
+
+    protected final BufferedReader reader;
+    protected final ObjectMapper objectMapper;
+
+    private ImportRecordReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    static ImportRecordReader open(ImportFormat format, BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonReader(reader, objectMapper);
+            case CSV -> new CsvReader(reader, objectMapper);
+        };
+    }
+
+    /**
+     * @return the next record, null at the end of the file
+     */
+    abstract ImportRecord next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class NdjsonReader extends ImportRecordReader {
+
+        private long lineNumber;
+
+        NdjsonReader(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader, objectMapper);
+        }
+
+        @Override
+        ImportRecord next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+            try {
+                return new ImportRecord(lineNumber, objectMapper.readValue(line, CreateHumanPrincipalCommand.class), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRecord(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 CSV: comma separated, fields optionally double-quoted, {@code ""} escapes a quote inside a quoted
+     * field, and quoted fields may span lines.
+     */
+    private static final class CsvReader extends ImportRecordReader {
+
+        private final List<String> header;
+        private long rowNumber;
+
+        CsvReader(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+            super(reader, objectMapper);
+            this.header = readRow();
+            if (header == null || header.stream().anyMatch(String::isBlank)) {
+                throw new IOException("CSV import requires a header row naming every column");
+            }
+        }
+
+        @Override
+        ImportRecord next() throws IOException {
+            List<String> row;
+            do {
+                row = readRow();
+                if (row == null) {
+                    return null;
+                }
+                rowNumber++;
+            } while (row.size() == 1 && row.getFirst().isEmpty());
+
+            if (row.size() != header.size()) {
+                return new ImportRecord(rowNumber, null,
+                        "Expected " + header.size() + " columns but found " + row.size());
+            }
+            Map<String, Object> fields = new HashMap<>();
+            for (int i = 0; i < row.size(); i++) {
+                String value = row.get(i);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                String column = header.get(i).trim();
+                try {
+                    fields.put(column, JSON_COLUMNS.contains(column) ? objectMapper.readValue(value, Map.class) : value);
+                } catch (IOException e) {
+                    return new ImportRecord(rowNumber, null, "Invalid JSON in column " + column);
+                }
+            }
+            try {
+                return new ImportRecord(rowNumber, objectMapper.convertValue(fields, CreateHumanPrincipalCommand.class), null);
+            } catch (IllegalArgumentException e) {
+                return new ImportRecord(rowNumber, null, "Invalid value: " + e.getMessage());
+            }
+        }
+
+        /**
+         * @return the fields of the next row, null at the end of the file
+         */
+        private List<String> readRow() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field in CSV row " + (rowNumber + 1));
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
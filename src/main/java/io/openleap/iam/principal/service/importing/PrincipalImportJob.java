@@ -0,0 +1,127 @@
+package io.openleap.iam.principal.service.importing;
+
+import io.openleap.iam.principal.domain.dto.PrincipalImportStatus;
+import io.openleap.iam.principal.domain.dto.PrincipalImportStatus.RecordError;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and state of one running or finished import, updated by the pipeline stages and read by status
+ * queries. Only the first {@code maxReportedErrors} errors are kept, so memory does not grow with the file.
+ */
+final class PrincipalImportJob {
+
+    enum State { RUNNING, COMPLETED, FAILED }
+
+    private final UUID id;
+    private final ImportFormat format;
+    private final Instant startedAt;
+    private final int maxReportedErrors;
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong provisioned = new AtomicLong();
+    private final AtomicLong provisioningDeferred = new AtomicLong();
+    private final List<RecordError> errors = new ArrayList<>();
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    PrincipalImportJob(UUID id, ImportFormat format, Instant startedAt, int maxReportedErrors) {
+        this.id = id;
+        this.format = format;
+        this.startedAt = startedAt;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    UUID id() {
+        return id;
+    }
+
+    boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    Instant finishedAt() {
+        return finishedAt;
+    }
+
+    void recordRead() {
+        read.incrementAndGet();
+    }
+
+    void recordInvalid(long record, String username, String error, String message) {
+        invalid.incrementAndGet();
+        addError(record, username, error, message);
+    }
+
+    void recordRejected(long record, String username, String error, String message) {
+        rejected.incrementAndGet();
+        addError(record, username, error, message);
+    }
+
+    void recordCreated(int count) {
+        created.addAndGet(count);
+    }
+
+    void recordProvisioned(int count, int deferred) {
+        provisioned.addAndGet(count);
+        provisioningDeferred.addAndGet(deferred);
+    }
+
+    void complete(Instant now) {
+        finish(State.COMPLETED, now, null);
+    }
+
+    void fail(Instant now, String reason) {
+        finish(State.FAILED, now, reason);
+    }
+
+    PrincipalImportStatus snapshot(Instant now) {
+        Instant end = finishedAt != null ? finishedAt : now;
+        double seconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+        List<RecordError> reported;
+        synchronized (errors) {
+            reported = List.copyOf(errors);
+        }
+        return new PrincipalImportStatus(
+                id,
+                format.name(),
+                state.name(),
+                startedAt,
+                finishedAt,
+                read.get(),
+                invalid.get(),
+                rejected.get(),
+                created.get(),
+                provisioned.get(),
+                provisioningDeferred.get(),
+                read.get() / seconds,
+                invalid.get() + rejected.get(),
+                reported,
+                failure);
+    }
+
+    private synchronized void finish(State finalState, Instant now, String reason) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        failure = reason;
+        finishedAt = now;
+        state = finalState;
+    }
+
+    private void addError(long record, String username, String error, String message) {
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RecordError(record, username, error, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package io.openleap.iam.principal.service.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.openleap.iam.principal.domain.dto.CreateHumanPrincipalCommand;
+import io.openleap.iam.principal.domain.dto.HumanPrincipalsCreated;
+import io.openleap.iam.principal.domain.dto.PrincipalImportStatus;
+import io.openleap.iam.principal.domain.mapper.HumanPrincipalMapper;
+import io.openleap.iam.principal.exception.PrincipalImportCapacityExceededException;
+import io.openleap.iam.principal.exception.PrincipalImportNotFoundException;
+import io.openleap.iam.principal.service.HumanPrincipalService;
+import io.openleap.iam.principal.service.importing.ImportRecordReader.ImportRecord;
+import io.openleap.iam.principal.service.sync.KeycloakSyncService;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports human principals from NDJSON or CSV files, e.g. for tenant migrations.
+ * <p>
+ * The upload is spooled to a temporary file and processed in the background by three stages connected by
+ * bounded queues, so memory stays flat regardless of the file size and a slow stage throttles the ones before it:
+ * <ol>
+ *     <li>parse: reads records, validates them with the constraints of {@link CreateHumanPrincipalCommand},
+ *     normalizes them through {@link HumanPrincipalMapper} and groups them into batches of {@code batch-size};</li>
+ *     <li>insert: deduplicates and inserts each batch in one transaction through
+ *     {@link HumanPrincipalService#insertHumanPrincipals(List, UUID)};</li>
+ *     <li>provision: creates the Keycloak users of each committed batch through
+ *     {@link KeycloakSyncService#provisionUsers(List)}.</li>
+ * </ol>
+ * Invalid and rejected records are counted and reported without stopping the import. Duplicates within a batch
+ * are rejected as {@code DuplicateInRequest}; a later duplicate of an already imported record is rejected like
+ * any existing principal. A record that passes validation but breaks a database constraint, e.g. the size limit of
+ * {@code context_tags}, rolls back its batch; the batch is then inserted record by record, so only that record is
+ * rejected, as {@code ConstraintViolation}. The rows are recorded as created by the caller of {@link #startImport},
+ * whose security context the background stages do not have. Job status is kept in memory by the instance running the import, for
+ * {@code retention} after it finished.
+ */
+@Service
+public class PrincipalImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalImportService.class);
+
+    private static final long POLL_MILLIS = 200;
+
+    private record Batch(long[] records, List<CreateHumanPrincipalCommand> commands) {
+    }
+
+    private static final Batch END_OF_RECORDS = new Batch(new long[0], List.of());
+    private static final List<UUID> END_OF_CREATED = List.of();
+
+    private final HumanPrincipalService humanPrincipalService;
+    private final KeycloakSyncService keycloakSyncService;
+    private final HumanPrincipalMapper humanPrincipalMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxConcurrent;
+    private final int maxReportedErrors;
+    private final Duration retention;
+    private final Semaphore slots;
+    private final Map<UUID, PrincipalImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter createdRecords;
+    private final Counter invalidRecords;
+    private final Counter rejectedRecords;
+
+    public PrincipalImportService(
+            HumanPrincipalService humanPrincipalService,
+            KeycloakSyncService keycloakSyncService,
+            HumanPrincipalMapper humanPrincipalMapper,
+            ObjectMapper objectMapper,
+            Validator validator,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.import.batch-size:500}") int batchSize,
+            @Value("${iam.principal.import.queue-capacity:4}") int queueCapacity,
+            @Value("${iam.principal.import.max-concurrent:2}") int maxConcurrent,
+            @Value("${iam.principal.import.max-reported-errors:1000}") int maxReportedErrors,
+            @Value("${iam.principal.import.retention:24h}") Duration retention) {
+        this.humanPrincipalService = humanPrincipalService;
+        this.keycloakSyncService = keycloakSyncService;
+        this.humanPrincipalMapper = humanPrincipalMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.maxConcurrent = maxConcurrent;
+        this.maxReportedErrors = maxReportedErrors;
+        this.retention = retention;
+        this.slots = new Semaphore(maxConcurrent);
+        this.createdRecords = recordCounter(meterRegistry, "created");
+        this.invalidRecords = recordCounter(meterRegistry, "invalid");
+        this.rejectedRecords = recordCounter(meterRegistry, "rejected");
+        Gauge.builder("iam.principal.import.running", slots, s -> maxConcurrent - s.availablePermits())
+                .description("Principal imports currently running on this instance")
+                .register(meterRegistry);
+    }
+
+    private static Counter recordCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("iam.principal.import.records")
+                .description("Imported principal records by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Spools the upload and starts importing it in the background.
+     *
+     * @param content the file content
+     * @param format  the file format
+     * @return the initial status, carrying the job ID to poll
+     * @throws PrincipalImportCapacityExceededException if {@code max-concurrent} imports are already running
+     */
+    public PrincipalImportStatus startImport(InputStream content, ImportFormat format) {
+        if (!slots.tryAcquire()) {
+            throw new PrincipalImportCapacityExceededException(maxConcurrent);
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile("principal-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            slots.release();
+            throw new UncheckedIOException("Failed to receive the import file", e);
+        }
+
+        UUID createdBy = humanPrincipalService.currentAuditor();
+        Instant now = Instant.now();
+        evictFinished(now);
+        PrincipalImportJob job = new PrincipalImportJob(UUID.randomUUID(), format, now, maxReportedErrors);
+        jobs.put(job.id(), job);
+        Path spooled = file;
+        executor.execute(() -> run(job, format, spooled, createdBy));
+        logger.info("Started principal import {} ({})", job.id(), format);
+        return job.snapshot(now);
+    }
+
+    /**
+     * @throws PrincipalImportNotFoundException if the job is unknown to this instance or has expired
+     */
+    public PrincipalImportStatus getStatus(UUID jobId) {
+        PrincipalImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new PrincipalImportNotFoundException(jobId);
+        }
+        return job.snapshot(Instant.now());
+    }
+
+    void run(PrincipalImportJob job, ImportFormat format, Path file, UUID createdBy) {
+        BlockingQueue<Batch> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<UUID>> created = new ArrayBlockingQueue<>(queueCapacity);
+        Future<?> inserter = executor.submit(() -> insertStage(job, parsed, created, createdBy));
+        Future<?> provisioner = executor.submit(() -> provisionStage(job, created));
+        try {
+            parseStage(job, format, file, parsed);
+            inserter.get();
+            provisioner.get();
+            job.complete(Instant.now());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            job.fail(Instant.now(), cause.getMessage());
+            inserter.cancel(true);
+            provisioner.cancel(true);
+            logger.error("Principal import {} failed", job.id(), cause);
+        } finally {
+            deleteQuietly(file);
+            slots.release();
+        }
+        PrincipalImportStatus status = job.snapshot(Instant.now());
+        logger.info("Principal import {} {}: {} read, {} created, {} invalid, {} rejected",
+                job.id(), status.state(), status.read(), status.created(), status.invalid(), status.rejected());
+    }
+
+    private void parseStage(PrincipalImportJob job, ImportFormat format, Path file, BlockingQueue<Batch> parsed)
+            throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             ImportRecordReader records = ImportRecordReader.open(format, reader, objectMapper)) {
+            long[] numbers = new long[batchSize];
+            List<CreateHumanPrincipalCommand> commands = new ArrayList<>(batchSize);
+            ImportRecord record;
+            while ((record = records.next()) != null) {
+                job.recordRead();
+                CreateHumanPrincipalCommand command = validate(job, record);
+                if (command == null) {
+                    continue;
+                }
+                numbers[commands.size()] = record.number();
+                commands.add(humanPrincipalMapper.normalize(command));
+                if (commands.size() == batchSize) {
+                    put(job, parsed, new Batch(numbers, commands));
+                    numbers = new long[batchSize];
+                    commands = new ArrayList<>(batchSize);
+                }
+            }
+            if (!commands.isEmpty()) {
+                put(job, parsed, new Batch(numbers, commands));
+            }
+            put(job, parsed, END_OF_RECORDS);
+        }
+    }
+
+    private CreateHumanPrincipalCommand validate(PrincipalImportJob job, ImportRecord record) {
+        if (record.error() != null) {
+            job.recordInvalid(record.number(), null, "ParseError", record.error());
+            invalidRecords.increment();
+            return null;
+        }
+        Set<ConstraintViolation<CreateHumanPrincipalCommand>> violations = validator.validate(record.command());
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(Collectors.joining("; "));
+            job.recordInvalid(record.number(), record.command().username(), "ValidationFailed", message);
+            invalidRecords.increment();
+            return null;
+        }
+        return record.command();
+    }
+
+    private void insertStage(PrincipalImportJob job, BlockingQueue<Batch> parsed, BlockingQueue<List<UUID>> created,
+                             UUID createdBy) throws InterruptedException {
+        try {
+            Batch batch;
+            while ((batch = take(job, parsed)) != END_OF_RECORDS) {
+                if (batch == null) {
+                    return;
+                }
+                HumanPrincipalsCreated result = insertBatch(batch.commands(), createdBy);
+                List<UUID> ids = new ArrayList<>(result.items().size());
+                for (int i = 0; i < result.items().size(); i++) {
+                    HumanPrincipalsCreated.Item item = result.items().get(i);
+                    if (item.isCreated()) {
+                        ids.add(item.id());
+                    } else {
+                        job.recordRejected(batch.records()[i], item.username(), item.error(), item.message());
+                        rejectedRecords.increment();
+                    }
+                }
+                job.recordCreated(ids.size());
+                createdRecords.increment(ids.size());
+                if (!ids.isEmpty()) {
+                    put(job, created, ids);
+                }
+            }
+            put(job, created, END_OF_CREATED);
+        } catch (RuntimeException e) {
+            // Stop the other stages instead of leaving the parser blocked on a full queue
+            job.fail(Instant.now(), e.getMessage());
+            throw e;
+        }
+    }
+
+    private HumanPrincipalsCreated insertBatch(List<CreateHumanPrincipalCommand> commands, UUID createdBy) {
+        try {
+            return humanPrincipalService.insertHumanPrincipals(commands, createdBy);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Batch of {} imported principals broke a database constraint, inserting them one by one: {}",
+                    commands.size(), e.getMostSpecificCause().getMessage());
+        }
+        List<HumanPrincipalsCreated.Item> items = new ArrayList<>(commands.size());
+        for (CreateHumanPrincipalCommand command : commands) {
+            try {
+                items.add(humanPrincipalService.insertHumanPrincipals(List.of(command), createdBy).items().getFirst());
+            } catch (DataIntegrityViolationException e) {
+                items.add(HumanPrincipalsCreated.Item.rejected(command.username(), "ConstraintViolation",
+                        e.getMostSpecificCause().getMessage()));
+            }
+        }
+        return new HumanPrincipalsCreated(items);
+    }
+
+    private void provisionStage(PrincipalImportJob job, BlockingQueue<List<UUID>> created) throws InterruptedException {
+        List<UUID> ids;
+        while ((ids = take(job, created)) != null && ids != END_OF_CREATED) {
+            int provisioned;
+            try {
+                provisioned = keycloakSyncService.provisionUsers(ids);
+            } catch (RuntimeException e) {
+                // The principals stay PENDING and are provisioned by the background sync
+                logger.warn("Keycloak provisioning of {} imported principals deferred: {}", ids.size(), e.getMessage());
+                provisioned = 0;
+            }
+            job.recordProvisioned(provisioned, ids.size() - provisioned);
+        }
+    }
+
+    /**
+     * Blocks until the queue has room; gives up once the job stopped, e.g. because another stage failed.
+     */
+    private static <T> void put(PrincipalImportJob job, BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!job.isRunning()) {
+                throw new IllegalStateException("Import " + job.id() + " was stopped");
+            }
+        }
+    }
+
+    /**
+     * Blocks until an item arrives; returns null once the job stopped.
+     */
+    private static <T> T take(PrincipalImportJob job, BlockingQueue<T> queue) throws InterruptedException {
+        T item;
+        while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            if (!job.isRunning()) {
+                return null;
+            }
+        }
+        return item;
+    }
+
+    private void evictFinished(Instant now) {
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().plus(retention).isBefore(now));
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete import file {}: {}", file, e.getMessage());
+        }
+    }
+}
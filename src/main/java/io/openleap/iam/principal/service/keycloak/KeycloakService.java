@@ -4,6 +4,15 @@ import io.openleap.iam.principal.service.keycloak.dto.User;
 
 public interface KeycloakService {
     String createUser(User user);
+
+    /**
+     * Creates several users in one request through the realm partial-import API. Users whose username already
+     * exists in Keycloak are skipped, not overwritten.
+     *
+     * @param users the users to create
+     * @return Keycloak user IDs of the users actually created, keyed by lowercase username
+     */
+    java.util.Map<String, String> importUsers(java.util.List<User> users);
     
     /**
      * Updates a user in Keycloak.
@@ -12,6 +21,22 @@ public interface KeycloakService {
      * @param user the user data to update
      */
     void updateUser(String keycloakUserId, User user);
+
+    /**
+     * Reads a user's representation, including attributes and required actions, e.g. for a GDPR data export.
+     *
+     * @param keycloakUserId the Keycloak user ID
+     * @return the user representation, or null if Keycloak has no such user
+     */
+    java.util.Map<String, Object> getUser(String keycloakUserId);
+
+    /**
+     * Looks up a user by exact username, e.g. to link a principal to a user created by an earlier attempt.
+     *
+     * @param username the username
+     * @return the Keycloak user ID, or null if Keycloak has no such user
+     */
+    String findUserIdByUsername(String username);
     
     /**
      * Creates an OAuth2 client in Keycloak for service principal authentication.
@@ -19,6 +44,7 @@ public interface KeycloakService {
      * @param clientId the client ID (typically the service name)
      * @param allowedScopes the OAuth2 scopes allowed for this client
      * @return the client secret (returned only once during creation)
+     * @throws io.openleap.iam.principal.exception.ClientAlreadyExistsException if a client with this ID exists
      */
     String createClient(String clientId, java.util.List<String> allowedScopes);
     
@@ -31,14 +57,14 @@ public interface KeycloakService {
     void updateClient(String clientId, boolean enabled);
 
     /**
-     * Deletes a user from Keycloak.
+     * Deletes a user from Keycloak. Deleting a user that does not exist succeeds, so a deletion can be retried.
      *
      * @param keycloakUserId the Keycloak user ID
      */
     void deleteUser(String keycloakUserId);
 
     /**
-     * Deletes a client from Keycloak.
+     * Deletes a client from Keycloak. Deleting a client that does not exist succeeds, so a deletion can be retried.
      *
      * @param clientId the client ID
      */
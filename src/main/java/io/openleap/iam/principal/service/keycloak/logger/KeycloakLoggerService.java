@@ -13,11 +13,31 @@ public class KeycloakLoggerService implements KeycloakService {
         return "logger-user-id";
     }
 
+    @Override
+    public java.util.Map<String, String> importUsers(java.util.List<io.openleap.iam.principal.service.keycloak.dto.User> users) {
+        System.out.println("importUsers called with " + users.size() + " users");
+        java.util.Map<String, String> imported = new java.util.HashMap<>();
+        users.forEach(user -> imported.put(user.username().toLowerCase(), "logger-user-id-" + user.username().toLowerCase()));
+        return imported;
+    }
+
     @Override
     public void updateUser(String keycloakUserId, io.openleap.iam.principal.service.keycloak.dto.User user) {
         System.out.println("updateUser called with keycloakUserId: " + keycloakUserId + ", user: " + user);
     }
 
+    @Override
+    public java.util.Map<String, Object> getUser(String keycloakUserId) {
+        System.out.println("getUser called with keycloakUserId: " + keycloakUserId);
+        return java.util.Map.of("id", keycloakUserId);
+    }
+
+    @Override
+    public String findUserIdByUsername(String username) {
+        System.out.println("findUserIdByUsername called with username: " + username);
+        return "logger-user-id";
+    }
+
     @Override
     public String createClient(String clientId, java.util.List<String> allowedScopes) {
         System.out.println("createClient called with clientId: " + clientId + ", allowedScopes: " + allowedScopes);
@@ -1,6 +1,7 @@
 package io.openleap.iam.principal.service.keycloak.web;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,13 +9,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.function.Function;
 
 @Profile("keycloak.web")
 @Component
@@ -24,112 +28,111 @@ public class KeycloakClient {
     private final RestTemplate restTemplate;
     private final String baseUrl;
     private final String realm;
-    private final String clientId;
-    private final String clientSecret;
-    private final String adminUsername;
-    private final String adminPassword;
-    private String accessToken;
-    private LocalDateTime tokenExpiry;
+    private final KeycloakTokenManager tokenManager;
+
+    /**
+     * clientId → Keycloak internal client UUID. The UUID never changes for the lifetime of a client, so entries
+     * are only dropped on delete, on a 404 (client removed outside this service) or by size eviction.
+     */
+    private final Cache<String, String> clientUuids;
 
     public KeycloakClient(
             @Value("${keycloak.server-url:http://localhost:8080}") String serverUrl,
             @Value("${keycloak.realm:datapart}") String realm,
-            @Value("${keycloak.client-id:datapart-authorization}") String clientId,
-            @Value("${keycloak.client-secret:your-client-secret}") String clientSecret,
-            @Value("${keycloak.admin-username:admin}") String adminUsername,
-            @Value("${keycloak.admin-password:admin}") String adminPassword) {
+            @Value("${keycloak.client-uuid-cache.maximum-size:10000}") long clientUuidCacheSize,
+            KeycloakTokenManager tokenManager) {
 
         this.realm = realm;
-        this.clientId = clientId;
-        this.clientSecret = clientSecret;
-        this.adminUsername = adminUsername;
-        this.adminPassword = adminPassword;
+        this.tokenManager = tokenManager;
         this.baseUrl = serverUrl;
 
         this.restTemplate = new RestTemplate();
+        this.clientUuids = Caffeine.newBuilder()
+                .maximumSize(clientUuidCacheSize)
+                .build();
     }
 
     public ResponseEntity<Void> createUser(Map<String, Object> userData) {
-        ensureValidToken();
         String url = String.format("/admin/realms/%s/users", realm);
 
         return getVoidResponseEntity(userData, url);
     }
     
-    public void updateUser(String keycloakUserId, Map<String, Object> userData) {
-        ensureValidToken();
-        String url = String.format("/admin/realms/%s/users/%s", realm, keycloakUserId);
-        
-        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(userData);
-        restTemplate.put(baseUrl + url, requestEntity);
+    /**
+     * Imports several resources into the realm with a single {@code partialImport} call.
+     */
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<Map<String, Object>> partialImport(Map<String, Object> importData) {
+        String url = String.format("/admin/realms/%s/partialImport", realm);
+
+        return (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.postForEntity(
+                baseUrl + url,
+                getMapHttpEntity(importData),
+                Map.class
+        );
     }
-    
+
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Map<String, Object>> createClient(Map<String, Object> clientData) {
-        ensureValidToken();
-        String url = String.format("/admin/realms/%s/clients", realm);
-        
-        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(clientData);
-        return (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.postForEntity(baseUrl + url, requestEntity, Map.class);
+    public ResponseEntity<Map<String, Object>> getUser(String keycloakUserId) {
+        String url = String.format("/admin/realms/%s/users/%s", realm, keycloakUserId);
+
+        return (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.exchange(
+                baseUrl + url,
+                HttpMethod.GET,
+                getMapHttpEntity(null),
+                Map.class
+        );
     }
-    
+
+    /**
+     * Finds users whose username is exactly {@code username}.
+     */
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Map<String, Object>> getClientSecret(String clientId) {
-        ensureValidToken();
-        // First, get the client UUID by clientId
-        String getClientUrl = String.format("/admin/realms/%s/clients?clientId=%s", realm, clientId);
-        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(null);
-        ResponseEntity<Map[]> clientsResponse = restTemplate.exchange(
-            baseUrl + getClientUrl,
-            org.springframework.http.HttpMethod.GET,
-            requestEntity,
-            Map[].class
+    public ResponseEntity<Map<String, Object>[]> findUsersByUsername(String username) {
+        String url = "/admin/realms/{realm}/users?username={username}&exact=true";
+
+        return (ResponseEntity<Map<String, Object>[]>) (ResponseEntity<?>) restTemplate.exchange(
+                baseUrl + url,
+                HttpMethod.GET,
+                getMapHttpEntity(null),
+                Map[].class,
+                realm,
+                username
         );
+    }
+
+    public void updateUser(String keycloakUserId, Map<String, Object> userData) {
+        String url = String.format("/admin/realms/%s/users/%s", realm, keycloakUserId);
         
-        if (clientsResponse.getBody() == null || clientsResponse.getBody().length == 0) {
-            throw new RuntimeException("Client not found: " + clientId);
-        }
-        
-        Map<String, Object> client = (Map<String, Object>) clientsResponse.getBody()[0];
-        String clientUuid = (String) client.get("id");
-        
-        // Now get the client secret
-        String secretUrl = String.format("/admin/realms/%s/clients/%s/client-secret", realm, clientUuid);
-        return (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.exchange(
-            baseUrl + secretUrl,
-            org.springframework.http.HttpMethod.GET,
-            requestEntity,
-            Map.class
-        );
+        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(userData);
+        restTemplate.put(baseUrl + url, requestEntity);
     }
     
-    public void updateClient(String clientId, Map<String, Object> clientData) {
-        ensureValidToken();
-        // First, get the client UUID by clientId
-        String getClientUrl = String.format("/admin/realms/%s/clients?clientId=%s", realm, clientId);
-        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(null);
-        ResponseEntity<Map[]> clientsResponse = restTemplate.exchange(
-            baseUrl + getClientUrl,
-            org.springframework.http.HttpMethod.GET,
-            requestEntity,
-            Map[].class
-        );
+    /**
+     * Creates a client and remembers its internal UUID from the {@code Location} header,
+     * so later updates, deletes and secret rotations skip the clientId lookup.
+     */
+    public ResponseEntity<Void> createClient(Map<String, Object> clientData) {
+        String url = String.format("/admin/realms/%s/clients", realm);
 
-        if (clientsResponse.getBody() == null || clientsResponse.getBody().length == 0) {
-            throw new RuntimeException("Client not found: " + clientId);
+        ResponseEntity<Void> response = getVoidResponseEntity(clientData, url);
+        String clientUuid = extractIdFromLocationHeader(response.getHeaders().getFirst(HttpHeaders.LOCATION));
+        if (clientUuid != null) {
+            clientUuids.put((String) clientData.get("clientId"), clientUuid);
         }
+        return response;
+    }
 
-        Map<String, Object> client = (Map<String, Object>) clientsResponse.getBody()[0];
-        String clientUuid = (String) client.get("id");
-
-        // Now update the client
-        String updateUrl = String.format("/admin/realms/%s/clients/%s", realm, clientUuid);
-        HttpEntity<Map<String, Object>> updateRequestEntity = getMapHttpEntity(clientData);
-        restTemplate.put(baseUrl + updateUrl, updateRequestEntity);
+    public void updateClient(String clientId, Map<String, Object> clientData) {
+        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(clientData);
+        withClientUuid(clientId, clientUuid -> {
+            String updateUrl = String.format("/admin/realms/%s/clients/%s", realm, clientUuid);
+            restTemplate.put(baseUrl + updateUrl, requestEntity);
+            return null;
+        });
     }
 
     public void deleteUser(String keycloakUserId) {
-        ensureValidToken();
         String url = String.format("/admin/realms/%s/users/%s", realm, keycloakUserId);
 
         HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(null);
@@ -141,63 +144,60 @@ public class KeycloakClient {
         );
     }
 
-    @SuppressWarnings("unchecked")
     public void deleteClient(String clientId) {
-        ensureValidToken();
-        // First, get the client UUID by clientId
-        String getClientUrl = String.format("/admin/realms/%s/clients?clientId=%s", realm, clientId);
         HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(null);
-        ResponseEntity<Map[]> clientsResponse = restTemplate.exchange(
-            baseUrl + getClientUrl,
-            org.springframework.http.HttpMethod.GET,
-            requestEntity,
-            Map[].class
-        );
-
-        if (clientsResponse.getBody() == null || clientsResponse.getBody().length == 0) {
-            throw new RuntimeException("Client not found: " + clientId);
+        try {
+            withClientUuid(clientId, clientUuid -> {
+                String deleteUrl = String.format("/admin/realms/%s/clients/%s", realm, clientUuid);
+                return restTemplate.exchange(baseUrl + deleteUrl, HttpMethod.DELETE, requestEntity, Void.class);
+            });
+        } finally {
+            clientUuids.invalidate(clientId);
         }
+    }
 
-        Map<String, Object> client = (Map<String, Object>) clientsResponse.getBody()[0];
-        String clientUuid = (String) client.get("id");
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<Map<String, Object>> regenerateClientSecret(String clientId) {
+        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(null);
+        return withClientUuid(clientId, clientUuid -> {
+            String secretUrl = String.format("/admin/realms/%s/clients/%s/client-secret", realm, clientUuid);
+            return (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.postForEntity(
+                    baseUrl + secretUrl,
+                    requestEntity,
+                    Map.class
+            );
+        });
+    }
 
-        // Now delete the client
-        String deleteUrl = String.format("/admin/realms/%s/clients/%s", realm, clientUuid);
-        restTemplate.exchange(
-            baseUrl + deleteUrl,
-            org.springframework.http.HttpMethod.DELETE,
-            requestEntity,
-            Void.class
-        );
+    /**
+     * Runs a call against the client's internal UUID. A 404 means the cached UUID is stale (client deleted or
+     * recreated outside this service), so the mapping is looked up again and the call retried once.
+     */
+    private <T> T withClientUuid(String clientId, Function<String, T> call) {
+        try {
+            return call.apply(clientUuids.get(clientId, this::lookupClientUuid));
+        } catch (HttpClientErrorException.NotFound e) {
+            clientUuids.invalidate(clientId);
+            return call.apply(clientUuids.get(clientId, this::lookupClientUuid));
+        }
     }
 
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Map<String, Object>> regenerateClientSecret(String clientId) {
-        ensureValidToken();
-        // First, get the client UUID by clientId
+    private String lookupClientUuid(String clientId) {
         String getClientUrl = String.format("/admin/realms/%s/clients?clientId=%s", realm, clientId);
-        HttpEntity<Map<String, Object>> requestEntity = getMapHttpEntity(null);
         ResponseEntity<Map[]> clientsResponse = restTemplate.exchange(
             baseUrl + getClientUrl,
-            org.springframework.http.HttpMethod.GET,
-            requestEntity,
+            HttpMethod.GET,
+            getMapHttpEntity(null),
             Map[].class
         );
 
         if (clientsResponse.getBody() == null || clientsResponse.getBody().length == 0) {
-            throw new RuntimeException("Client not found: " + clientId);
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Client not found: " + clientId, null, null, null);
         }
 
         Map<String, Object> client = (Map<String, Object>) clientsResponse.getBody()[0];
-        String clientUuid = (String) client.get("id");
-
-        // Now regenerate the client secret
-        String secretUrl = String.format("/admin/realms/%s/clients/%s/client-secret", realm, clientUuid);
-        return (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.postForEntity(
-            baseUrl + secretUrl,
-            requestEntity,
-            Map.class
-        );
+        return (String) client.get("id");
     }
 
     @NotNull
@@ -211,19 +211,19 @@ public class KeycloakClient {
     private HttpEntity<Map<String, Object>> getMapHttpEntity(Map organizationData) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + tokenManager.getAccessToken());
 
         HttpEntity<Map<String, Object>> requestEntity =
                 new HttpEntity<>((Map<String, Object>) organizationData, headers);
         return requestEntity;
     }
 
-    public String extractUserIdFromLocationHeader(String locationHeader) {
+    public String extractIdFromLocationHeader(String locationHeader) {
         if (locationHeader == null) {
             return null;
         }
 
-        // Extract ID from URL like: /admin/realms/datapart/users/12345
+        // Extract ID from URL like: /admin/realms/datapart/users/12345 or .../clients/<uuid>
         String[] parts = locationHeader.split("/");
         if (parts.length > 0) {
             return parts[parts.length - 1];
@@ -231,39 +231,4 @@ public class KeycloakClient {
 
         return null;
     }
-
-    public void ensureValidToken() {
-        if (accessToken == null || tokenExpiry == null || LocalDateTime.now().isAfter(tokenExpiry)) {
-            obtainAccessToken();
-        }
-    }
-
-    private void obtainAccessToken() {
-        try {
-            String url = String.format("/realms/%s/protocol/openid-connect/token", realm);
-
-            // Build form data as URL-encoded string
-            String formData = String.format(
-                    "grant_type=password&client_id=%s&client_secret=%s&username=%s&password=%s",
-                    clientId, clientSecret, adminUsername, adminPassword
-            );
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-            org.springframework.http.HttpEntity<String> requestEntity =
-                    new org.springframework.http.HttpEntity<>(formData, headers);
-
-            ResponseEntity<JsonNode> response = restTemplate.postForEntity(
-                    baseUrl + url, requestEntity, JsonNode.class);
-
-            accessToken = response.getBody().get("access_token").asText();
-            int expiresIn = response.getBody().get("expires_in").asInt();
-            tokenExpiry = LocalDateTime.now().plusSeconds(expiresIn - 60); // 60 seconds buffer
-
-        } catch (Exception e) {
-            logger.error("Error obtaining access token", e);
-            throw new RuntimeException("Failed to obtain access token", e);
-        }
-    }
 }
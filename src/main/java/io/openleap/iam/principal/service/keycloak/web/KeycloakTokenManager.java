@@ -0,0 +1,220 @@
+package io.openleap.iam.principal.service.keycloak.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Supplies the Keycloak admin access token.
+ * <p>
+ * The current token is published through a volatile field, so {@link #getAccessToken()} is a plain read
+ * while the token is valid. A single background task, started with the bean, refreshes it once 80% of its lifetime
+ * has elapsed and then reschedules itself; it is the only place a refresh is scheduled, so there is never more than
+ * one pending {@link ScheduledFuture}. Refreshes are single-flight: callers that find the token expired (cold start,
+ * or background refresh failing) wait on the one request already in flight instead of issuing their own password
+ * grant, and a caller that only wins the race after another refresh completed reuses that token.
+ */
+@Profile("keycloak.web")
+@Component
+public class KeycloakTokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakTokenManager.class);
+
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(10);
+    static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    record AccessToken(String value, Instant expiresAt, Instant refreshAt) {
+
+        boolean isUsable(Instant now) {
+            return now.isBefore(expiresAt.minus(EXPIRY_SKEW));
+        }
+    }
+
+    private final RestTemplate restTemplate;
+    private final String tokenUrl;
+    private final String clientId;
+    private final String clientSecret;
+    private final String adminUsername;
+    private final String adminPassword;
+    private final Timer refreshTimer;
+    private final Counter refreshFailures;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile AccessToken current;
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
+    private ScheduledFuture<?> scheduledRefresh;
+
+    @Autowired
+    public KeycloakTokenManager(
+            @Value("${keycloak.server-url:http://localhost:8080}") String serverUrl,
+            @Value("${keycloak.realm:datapart}") String realm,
+            @Value("${keycloak.client-id:datapart-authorization}") String clientId,
+            @Value("${keycloak.client-secret:your-client-secret}") String clientSecret,
+            @Value("${keycloak.admin-username:admin}") String adminUsername,
+            @Value("${keycloak.admin-password:admin}") String adminPassword,
+            MeterRegistry meterRegistry) {
+        this(serverUrl + String.format("/realms/%s/protocol/openid-connect/token", realm),
+                clientId, clientSecret, adminUsername, adminPassword, meterRegistry, new RestTemplate(),
+                Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("keycloak-token-refresh").daemon().factory()));
+    }
+
+    KeycloakTokenManager(String tokenUrl, String clientId, String clientSecret, String adminUsername,
+                         String adminPassword, MeterRegistry meterRegistry, RestTemplate restTemplate,
+                         ScheduledExecutorService scheduler) {
+        this.tokenUrl = tokenUrl;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.adminUsername = adminUsername;
+        this.adminPassword = adminPassword;
+        this.restTemplate = restTemplate;
+        this.refreshTimer = Timer.builder("iam.principal.keycloak.token.refresh")
+                .description("Latency of Keycloak admin token requests")
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("iam.principal.keycloak.token.refresh.failures")
+                .description("Failed Keycloak admin token requests")
+                .register(meterRegistry);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Returns a valid admin access token, fetching one only if none is usable.
+     */
+    public String getAccessToken() {
+        AccessToken token = current;
+        if (token != null && token.isUsable(Instant.now())) {
+            return token.value();
+        }
+        return refresh(token).value();
+    }
+
+    @PostConstruct
+    void start() {
+        scheduleRefresh(Duration.ZERO);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Replaces {@code stale}, the token the caller found unusable or due, unless another refresh already did.
+     */
+    AccessToken refresh(AccessToken stale) {
+        CompletableFuture<AccessToken> mine = new CompletableFuture<>();
+        CompletableFuture<AccessToken> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // Another refresh may have completed between the caller's read and winning the race
+            AccessToken latest = current;
+            AccessToken token = latest != stale && latest != null && latest.isUsable(Instant.now())
+                    ? latest
+                    : refreshTimer.record(this::requestToken);
+            current = token;
+            mine.complete(token);
+            return token;
+        } catch (RuntimeException e) {
+            refreshFailures.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    /**
+     * Runs on the scheduler thread: refreshes the token if it is due, then schedules the next run.
+     */
+    void backgroundRefresh() {
+        Duration delay;
+        try {
+            AccessToken token = current;
+            if (token == null || !Instant.now().isBefore(token.refreshAt())) {
+                token = refresh(token);
+            }
+            delay = Duration.between(Instant.now(), token.refreshAt());
+        } catch (RuntimeException e) {
+            logger.warn("Background Keycloak token refresh failed, retrying in {}", RETRY_DELAY, e);
+            delay = RETRY_DELAY;
+        }
+        scheduleRefresh(delay);
+    }
+
+    private synchronized void scheduleRefresh(Duration delay) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        ScheduledFuture<?> previous = scheduledRefresh;
+        scheduledRefresh = scheduler.schedule(this::backgroundRefresh,
+                Math.max(0, delay.toMillis()), TimeUnit.MILLISECONDS);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private static AccessToken await(CompletableFuture<AccessToken> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private AccessToken requestToken() {
+        try {
+            MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+            form.add("grant_type", "password");
+            form.add("client_id", clientId);
+            form.add("client_secret", clientSecret);
+            form.add("username", adminUsername);
+            form.add("password", adminPassword);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+
+            ResponseEntity<JsonNode> response = restTemplate.postForEntity(
+                    tokenUrl, new HttpEntity<>(form, headers), JsonNode.class);
+
+            String accessToken = response.getBody().get("access_token").asText();
+            Duration lifetime = Duration.ofSeconds(response.getBody().get("expires_in").asInt());
+            Instant issuedAt = Instant.now();
+            Instant refreshAt = issuedAt.plus(lifetime.minus(lifetime.dividedBy(5)));
+            return new AccessToken(accessToken, issuedAt.plus(lifetime), refreshAt);
+        } catch (Exception e) {
+            logger.error("Error obtaining access token", e);
+            throw new RuntimeException("Failed to obtain access token", e);
+        }
+    }
+}
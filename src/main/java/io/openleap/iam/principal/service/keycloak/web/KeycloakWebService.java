@@ -1,5 +1,6 @@
 package io.openleap.iam.principal.service.keycloak.web;
 
+import io.openleap.iam.principal.exception.ClientAlreadyExistsException;
 import io.openleap.iam.principal.exception.UserAlreadyExistsException;
 import io.openleap.iam.principal.service.keycloak.KeycloakService;
 import io.openleap.iam.principal.service.keycloak.dto.User;
@@ -12,8 +13,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Profile("keycloak.web")
@@ -21,6 +25,9 @@ import java.util.Map;
 public class KeycloakWebService implements KeycloakService {
     private static final Logger logger = LoggerFactory.getLogger(KeycloakWebService.class);
 
+    private static final int CLIENT_SECRET_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
     private final KeycloakClient keycloakClient;
 
     public KeycloakWebService(KeycloakClient keycloakClient) {
@@ -31,16 +38,8 @@ public class KeycloakWebService implements KeycloakService {
     @Override
     public String createUser(User user) {
         try {
-            Map<String, Object> userData = new HashMap<>();
-            userData.put("username", user.username());
-            userData.put("email", user.email());
-            userData.put("firstName", user.firstName());
-            userData.put("lastName", user.lastName());
-            userData.put("enabled", user.enabled());
-            userData.put("emailVerified", user.emailVerified());
-
-            ResponseEntity<Void> response = keycloakClient.createUser(userData);
-            String createdUserId = keycloakClient.extractUserIdFromLocationHeader(response.getHeaders().getFirst("Location"));
+            ResponseEntity<Void> response = keycloakClient.createUser(toUserData(user));
+            String createdUserId = keycloakClient.extractIdFromLocationHeader(response.getHeaders().getFirst("Location"));
 
             if (createdUserId == null) {
                 throw new RuntimeException("Failed to create user");
@@ -57,6 +56,47 @@ public class KeycloakWebService implements KeycloakService {
         }
     }
 
+    /**
+     * Sends all users in one partial import with {@code ifResourceExists=SKIP}. Only {@code ADDED} results are
+     * returned; skipped users are left to the caller.
+     */
+    @Override
+    public Map<String, String> importUsers(List<User> users) {
+        try {
+            Map<String, Object> importData = new HashMap<>();
+            importData.put("ifResourceExists", "SKIP");
+            importData.put("users", users.stream().map(KeycloakWebService::toUserData).toList());
+
+            ResponseEntity<Map<String, Object>> response = keycloakClient.partialImport(importData);
+            Map<String, String> imported = new HashMap<>();
+            if (response.getBody() != null && response.getBody().get("results") instanceof List<?> results) {
+                for (Object entry : results) {
+                    if (entry instanceof Map<?, ?> result
+                            && "USER".equals(result.get("resourceType"))
+                            && "ADDED".equals(result.get("action"))) {
+                        imported.put(((String) result.get("resourceName")).toLowerCase(Locale.ROOT), (String) result.get("id"));
+                    }
+                }
+            }
+            logger.debug("Imported {} of {} users", imported.size(), users.size());
+            return imported;
+        } catch (Exception e) {
+            logger.error("Error importing users into Keycloak", e);
+            throw new RuntimeException("Failed to import users into Keycloak", e);
+        }
+    }
+
+    private static Map<String, Object> toUserData(User user) {
+        Map<String, Object> userData = new HashMap<>();
+        userData.put("username", user.username());
+        userData.put("email", user.email());
+        userData.put("firstName", user.firstName());
+        userData.put("lastName", user.lastName());
+        userData.put("enabled", user.enabled());
+        userData.put("emailVerified", user.emailVerified());
+        return userData;
+    }
+
     @Override
     public void updateUser(String keycloakUserId, User user) {
         try {
@@ -80,13 +120,51 @@ public class KeycloakWebService implements KeycloakService {
         }
     }
 
+    @Override
+    public Map<String, Object> getUser(String keycloakUserId) {
+        try {
+            return keycloakClient.getUser(keycloakUserId).getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (Exception e) {
+            logger.error("Error reading user from Keycloak: {}", keycloakUserId, e);
+            throw new RuntimeException("Failed to read user from Keycloak", e);
+        }
+    }
+
+    @Override
+    public String findUserIdByUsername(String username) {
+        try {
+            Map<String, Object>[] users = keycloakClient.findUsersByUsername(username).getBody();
+            if (users == null) {
+                return null;
+            }
+            for (Map<String, Object> user : users) {
+                if (username.equalsIgnoreCase((String) user.get("username"))) {
+                    return (String) user.get("id");
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            logger.error("Error looking up user in Keycloak: {}", username, e);
+            throw new RuntimeException("Failed to look up user in Keycloak", e);
+        }
+    }
+
+    /**
+     * Creates a confidential client. The secret is generated here and sent with the create request,
+     * so no follow-up lookup or secret fetch is needed.
+     */
     @Override
     public String createClient(String clientId, List<String> allowedScopes) {
         try {
+            String clientSecret = generateClientSecret();
+
             Map<String, Object> clientData = new HashMap<>();
             clientData.put("clientId", clientId);
             clientData.put("enabled", true);
             clientData.put("clientAuthenticatorType", "client-secret");
+            clientData.put("secret", clientSecret);
             clientData.put("serviceAccountsEnabled", true);
             clientData.put("standardFlowEnabled", false);
             clientData.put("directAccessGrantsEnabled", false);
@@ -99,19 +177,18 @@ public class KeycloakWebService implements KeycloakService {
             }
 
             // Create the client
-            ResponseEntity<Map<String, Object>> response = keycloakClient.createClient(clientData);
+            ResponseEntity<Void> response = keycloakClient.createClient(clientData);
 
             if (response.getStatusCode() != HttpStatus.CREATED && response.getStatusCode() != HttpStatus.NO_CONTENT) {
                 throw new RuntimeException("Failed to create client in Keycloak: " + response.getStatusCode());
             }
 
-            // Keycloak doesn't return the secret in the create response, so we need to fetch it
-            logger.debug("Client created, fetching client secret for: {}", clientId);
-            return fetchClientSecret(clientId);
+            logger.debug("Client created: {}", clientId);
+            return clientSecret;
 
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.CONFLICT) {
-                throw new RuntimeException("Client already exists: " + clientId, e);
+                throw new ClientAlreadyExistsException(clientId);
             }
             logger.error("Error creating client", e);
             throw new RuntimeException("Failed to create client in Keycloak", e);
@@ -134,24 +211,18 @@ public class KeycloakWebService implements KeycloakService {
         }
     }
 
-    private String fetchClientSecret(String clientId) {
-        try {
-            ResponseEntity<Map<String, Object>> secretResponse = keycloakClient.getClientSecret(clientId);
-            Map<String, Object> secretBody = secretResponse.getBody();
-            if (secretBody != null && secretBody.containsKey("value")) {
-                return (String) secretBody.get("value");
-            }
-            throw new RuntimeException("Client secret not found in response for client: " + clientId);
-        } catch (Exception e) {
-            logger.error("Error fetching client secret for client: {}", clientId, e);
-            throw new RuntimeException("Failed to fetch client secret from Keycloak", e);
-        }
+    private String generateClientSecret() {
+        byte[] bytes = new byte[CLIENT_SECRET_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
     @Override
     public void deleteUser(String keycloakUserId) {
         try {
             keycloakClient.deleteUser(keycloakUserId);
+        } catch (HttpClientErrorException.NotFound e) {
+            logger.debug("User already absent from Keycloak: {}", keycloakUserId);
         } catch (Exception e) {
             logger.error("Error deleting user from Keycloak: {}", keycloakUserId, e);
             throw new RuntimeException("Failed to delete user from Keycloak", e);
@@ -162,6 +233,8 @@ public class KeycloakWebService implements KeycloakService {
     public void deleteClient(String clientId) {
         try {
             keycloakClient.deleteClient(clientId);
+        } catch (HttpClientErrorException.NotFound e) {
+            logger.debug("Client already absent from Keycloak: {}", clientId);
         } catch (Exception e) {
             logger.error("Error deleting client from Keycloak: {}", clientId, e);
             throw new RuntimeException("Failed to delete client from Keycloak", e);
@@ -0,0 +1,50 @@
+package io.openleap.iam.principal.service.liveness;
+
+import io.openleap.iam.principal.domain.entity.DeviceType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Heartbeat timeouts per {@link DeviceType}: a device is considered offline when no heartbeat arrived within its
+ * type's timeout plus a grace period that covers buffered heartbeat writes of other instances.
+ */
+@Component
+public class DeviceLivenessPolicy {
+
+    private final Map<DeviceType, Duration> timeouts = new EnumMap<>(DeviceType.class);
+    private final Duration grace;
+
+    public DeviceLivenessPolicy(
+            @Value("${iam.principal.device-liveness.timeout.iot-sensor:15m}") Duration iotSensor,
+            @Value("${iam.principal.device-liveness.timeout.edge-device:5m}") Duration edgeDevice,
+            @Value("${iam.principal.device-liveness.timeout.kiosk:5m}") Duration kiosk,
+            @Value("${iam.principal.device-liveness.timeout.terminal:5m}") Duration terminal,
+            @Value("${iam.principal.device-liveness.timeout.gateway:2m}") Duration gateway,
+            @Value("${iam.principal.device-liveness.timeout.other:15m}") Duration other,
+            @Value("${iam.principal.device-liveness.grace:10s}") Duration grace) {
+        timeouts.put(DeviceType.IOT_SENSOR, iotSensor);
+        timeouts.put(DeviceType.EDGE_DEVICE, edgeDevice);
+        timeouts.put(DeviceType.KIOSK, kiosk);
+        timeouts.put(DeviceType.TERMINAL, terminal);
+        timeouts.put(DeviceType.GATEWAY, gateway);
+        timeouts.put(DeviceType.OTHER, other);
+        this.grace = grace;
+    }
+
+    /**
+     * Returns how long after a heartbeat a device of the given type is still online, grace included. Devices of
+     * unknown type get the longest timeout, so they are never reported offline too early.
+     *
+     * @param deviceType the device type, or null if not known yet
+     */
+    public Duration timeout(DeviceType deviceType) {
+        Duration timeout = deviceType != null
+                ? timeouts.get(deviceType)
+                : timeouts.values().stream().max(Duration::compareTo).orElseThrow();
+        return timeout.plus(grace);
+    }
+}
@@ -0,0 +1,293 @@
+package io.openleap.iam.principal.service.liveness;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.openleap.iam.principal.domain.entity.DeviceType;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.event.DeviceConnectivityChangedEvent;
+import io.openleap.iam.principal.repository.DeviceLivenessRepository;
+import io.openleap.iam.principal.repository.DeviceLivenessRepository.DeviceState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Detects devices that stopped sending heartbeats, and devices that resumed.
+ * <p>
+ * Every active device has a deadline, its last heartbeat plus the timeout of its {@link DeviceType} (see
+ * {@link DeviceLivenessPolicy}), held in a {@link DeviceTimingWheel}. Heartbeats move the deadline; a periodic
+ * tick collects the deadlines that passed. Nothing scans the device table except the rebuild on startup, which
+ * streams the active devices once.
+ * <p>
+ * Before a device is reported offline, its row is checked with a batched lookup by ID: the heartbeat may have
+ * been received by another instance, and the device may have been suspended or deactivated in the meantime.
+ * Offline devices are rechecked the same way, which catches devices that came back through another instance. The
+ * recheck backs off exponentially: the next one is due after as long as the device has been offline, at least
+ * {@code offline-recheck} and at most {@code max-offline-recheck}, so devices that stay away cost fewer lookups the
+ * longer they are gone. A heartbeat received by this instance re-arms a device at once. Transitions are published in batches as {@link DeviceConnectivityChangedEvent}s.
+ * Devices that are already stale on startup are marked offline without an event, since their previous state is
+ * not known.
+ * <p>
+ * Every instance tracks all devices, so with several instances each transition is published once per instance.
+ */
+@Service
+public class DeviceLivenessService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceLivenessService.class);
+    private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+    private final DeviceLivenessRepository deviceLivenessRepository;
+    private final DeviceLivenessPolicy policy;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final boolean enabled;
+    private final long tickMillis;
+    private final int wheelSlots;
+    private final int batchSize;
+    private final Duration offlineRecheck;
+    private final Duration maxOfflineRecheck;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile DeviceTimingWheel wheel;
+    private List<UUID> pendingOnline = new ArrayList<>();
+
+    private final Counter wentOfflineCounter;
+    private final Counter cameOnlineCounter;
+    private final Timer tickTimer;
+
+    public DeviceLivenessService(
+            DeviceLivenessRepository deviceLivenessRepository,
+            DeviceLivenessPolicy policy,
+            ApplicationEventPublisher applicationEventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.device-liveness.enabled:true}") boolean enabled,
+            @Value("${iam.principal.device-liveness.tick-interval-ms:1000}") long tickMillis,
+            @Value("${iam.principal.device-liveness.wheel-slots:4096}") int wheelSlots,
+            @Value("${iam.principal.device-liveness.batch-size:1000}") int batchSize,
+            @Value("${iam.principal.device-liveness.offline-recheck:1m}") Duration offlineRecheck,
+            @Value("${iam.principal.device-liveness.max-offline-recheck:1h}") Duration maxOfflineRecheck) {
+        this.deviceLivenessRepository = deviceLivenessRepository;
+        this.policy = policy;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.enabled = enabled;
+        this.tickMillis = tickMillis;
+        this.wheelSlots = wheelSlots;
+        this.batchSize = batchSize;
+        this.offlineRecheck = offlineRecheck;
+        this.maxOfflineRecheck = maxOfflineRecheck;
+        this.wentOfflineCounter = Counter.builder("iam.principal.device-liveness.transitions")
+                .tag("direction", "offline")
+                .description("Devices reported offline")
+                .register(meterRegistry);
+        this.cameOnlineCounter = Counter.builder("iam.principal.device-liveness.transitions")
+                .tag("direction", "online")
+                .description("Devices reported back online")
+                .register(meterRegistry);
+        this.tickTimer = Timer.builder("iam.principal.device-liveness.tick")
+                .description("Time to expire deadlines, confirm them and publish transitions")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.device-liveness.tracked", this, s -> s.wheel != null ? s.wheel.size() : 0)
+                .description("Active devices with a tracked heartbeat deadline")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.device-liveness.offline", this, s -> s.wheel != null ? s.wheel.offlineCount() : 0)
+                .description("Tracked devices that are offline")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the deadlines of all active devices once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (enabled) {
+            rebuild(Instant.now());
+        }
+    }
+
+    void rebuild(Instant now) {
+        DeviceTimingWheel rebuilt = new DeviceTimingWheel(wheelSlots, currentTick(now));
+        deviceLivenessRepository.streamActiveDevices(batchSize, state -> track(rebuilt, state, now));
+        lock.lock();
+        try {
+            wheel = rebuilt;
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Tracking liveness of {} active devices, {} of them offline", rebuilt.size(), rebuilt.offlineCount());
+    }
+
+    /**
+     * Moves the deadline of a device that sent a heartbeat. A device that was offline or not tracked yet is
+     * reported online with the next tick.
+     *
+     * @param deviceId    the device
+     * @param heartbeatAt when the heartbeat was received
+     */
+    public void recordHeartbeat(UUID deviceId, Instant heartbeatAt) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (wheel == null) {
+                return;
+            }
+            Boolean online = wheel.isOnline(deviceId);
+            byte type = wheel.deviceType(deviceId);
+            wheel.schedule(deviceId, type, toTick(heartbeatAt.plus(policy.timeout(deviceType(type)))), true);
+            if (online == null || !online) {
+                pendingOnline.add(deviceId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Expires passed deadlines, confirms them against the database and publishes the transitions.
+     */
+    @Scheduled(fixedDelayString = "${iam.principal.device-liveness.tick-interval-ms:1000}")
+    public void tick() {
+        if (enabled) {
+            tickTimer.record(() -> tick(Instant.now()));
+        }
+    }
+
+    void tick(Instant now) {
+        List<DeviceTimingWheel.Expired> expired;
+        List<UUID> cameOnline;
+        lock.lock();
+        try {
+            if (wheel == null) {
+                return;
+            }
+            expired = wheel.advance(currentTick(now));
+            cameOnline = pendingOnline;
+            pendingOnline = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        List<UUID> wentOffline = new ArrayList<>();
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            confirm(expired.subList(from, Math.min(from + batchSize, expired.size())), now, wentOffline, cameOnline);
+        }
+        publish(wentOffline, cameOnline, now);
+    }
+
+    private void confirm(List<DeviceTimingWheel.Expired> expired, Instant now,
+                         List<UUID> wentOffline, List<UUID> cameOnline) {
+        Map<UUID, DeviceState> states = new HashMap<>();
+        for (DeviceState state : deviceLivenessRepository.findStates(
+                expired.stream().map(DeviceTimingWheel.Expired::deviceId).toList())) {
+            states.put(state.deviceId(), state);
+        }
+
+        lock.lock();
+        try {
+            for (DeviceTimingWheel.Expired entry : expired) {
+                UUID deviceId = entry.deviceId();
+                if (!wheel.contains(deviceId) || wheel.isScheduled(deviceId)) {
+                    // Heartbeat or rebuild while the lookup ran
+                    continue;
+                }
+                DeviceState state = states.get(deviceId);
+                if (state == null || state.status() != PrincipalStatus.ACTIVE) {
+                    wheel.remove(deviceId);
+                    continue;
+                }
+                byte type = (byte) state.deviceType().ordinal();
+                Instant deadline = state.lastHeartbeatAt() != null
+                        ? state.lastHeartbeatAt().plus(policy.timeout(state.deviceType()))
+                        : null;
+                if (deadline != null && deadline.isAfter(now)) {
+                    wheel.schedule(deviceId, type, toTick(deadline), true);
+                    if (!entry.online()) {
+                        cameOnline.add(deviceId);
+                    }
+                } else {
+                    wheel.schedule(deviceId, type, recheckTick(deadline, now), false);
+                    if (entry.online()) {
+                        wentOffline.add(deviceId);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(List<UUID> wentOffline, List<UUID> cameOnline, Instant now) {
+        int events = Math.max(wentOffline.size(), cameOnline.size());
+        for (int from = 0; from < events; from += batchSize) {
+            applicationEventPublisher.publishEvent(new DeviceConnectivityChangedEvent(
+                    chunk(wentOffline, from), chunk(cameOnline, from), now));
+        }
+        wentOfflineCounter.increment(wentOffline.size());
+        cameOnlineCounter.increment(cameOnline.size());
+        if (!wentOffline.isEmpty() || !cameOnline.isEmpty()) {
+            logger.debug("{} devices went offline, {} came online", wentOffline.size(), cameOnline.size());
+        }
+    }
+
+    private List<UUID> chunk(List<UUID> ids, int from) {
+        return from < ids.size() ? List.copyOf(ids.subList(from, Math.min(from + batchSize, ids.size()))) : List.of();
+    }
+
+    private void track(DeviceTimingWheel target, DeviceState state, Instant now) {
+        byte type = (byte) state.deviceType().ordinal();
+        Instant deadline = state.lastHeartbeatAt() != null
+                ? state.lastHeartbeatAt().plus(policy.timeout(state.deviceType()))
+                : null;
+        if (deadline != null && deadline.isAfter(now)) {
+            target.schedule(state.deviceId(), type, toTick(deadline), true);
+        } else {
+            target.schedule(state.deviceId(), type, recheckTick(deadline, now), false);
+        }
+    }
+
+    /**
+     * Next recheck of an offline device: as long after {@code now} as the device has been offline, so the interval
+     * doubles with every recheck, clamped to {@code offline-recheck}..{@code max-offline-recheck}. A device that
+     * never sent a heartbeat is rechecked at the longest interval.
+     */
+    private long recheckTick(Instant deadline, Instant now) {
+        Duration delay = deadline != null ? Duration.between(deadline, now) : maxOfflineRecheck;
+        if (delay.compareTo(offlineRecheck) < 0) {
+            delay = offlineRecheck;
+        } else if (delay.compareTo(maxOfflineRecheck) > 0) {
+            delay = maxOfflineRecheck;
+        }
+        return toTick(now.plus(delay));
+    }
+
+    private static DeviceType deviceType(byte type) {
+        return type == DeviceTimingWheel.UNKNOWN_TYPE ? null : DEVICE_TYPES[type];
+    }
+
+    private long currentTick(Instant now) {
+        return Math.floorDiv(now.toEpochMilli(), tickMillis);
+    }
+
+    /**
+     * Rounds up, so a deadline never fires before it is due.
+     */
+    private long toTick(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli() + tickMillis - 1, tickMillis);
+    }
+}
@@ -0,0 +1,311 @@
+package io.openleap.iam.principal.service.liveness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hashed timing wheel of device heartbeat deadlines.
+ * <p>
+ * Time is divided into ticks, and a deadline lives in slot {@code tick % slots}. Deadlines more than one rotation
+ * ahead share a slot with nearer ones and are skipped until their tick is reached. Scheduling, rescheduling and
+ * removal are O(1). Advancing the wheel only visits the slots that passed.
+ * <p>
+ * Devices are not objects. Each tracked device is an integer handle into parallel primitive arrays: the ID, the
+ * deadline, the slot list links, the device type and a flags byte. An open-addressing index maps IDs to handles.
+ * This comes to about 40 bytes per device including the index, with no per-device allocation and nothing for the
+ * garbage collector to trace.
+ * <p>
+ * Not thread-safe; {@link DeviceLivenessService} serializes access.
+ */
+final class DeviceTimingWheel {
+
+    /**
+     * Device type ordinal of devices whose type is not known yet.
+     */
+    static final byte UNKNOWN_TYPE = -1;
+
+    private static final int NIL = -1;
+    private static final byte IN_USE = 1;
+    private static final byte SCHEDULED = 2;
+    private static final byte ONLINE = 4;
+
+    /**
+     * A device whose deadline passed. It stays tracked, unscheduled, until it is rescheduled or removed.
+     */
+    record Expired(UUID deviceId, byte deviceType, boolean online) {
+    }
+
+    private final int[] slotHeads;
+    private final int slotMask;
+    private final long originTick;
+    private long currentTick;
+
+    private long[] idHigh;
+    private long[] idLow;
+    private int[] deadline;
+    private int[] next;
+    private int[] prev;
+    private byte[] type;
+    private byte[] flags;
+    private int highWater;
+    private int freeHead = NIL;
+    private int size;
+    private int offline;
+
+    private int[] index;
+
+    /**
+     * @param slots       number of wheel slots, rounded up to a power of two
+     * @param currentTick the tick the wheel starts at
+     */
+    DeviceTimingWheel(int slots, long currentTick) {
+        int slotCount = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.slotHeads = new int[slotCount];
+        Arrays.fill(slotHeads, NIL);
+        this.slotMask = slotCount - 1;
+        this.originTick = currentTick;
+        this.currentTick = currentTick;
+        allocate(1024);
+        this.index = new int[2048];
+        Arrays.fill(index, NIL);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of tracked devices that are offline
+     */
+    int offlineCount() {
+        return offline;
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    boolean contains(UUID deviceId) {
+        return find(deviceId) != NIL;
+    }
+
+    /**
+     * @return whether the device is tracked as online, or null if it is not tracked
+     */
+    Boolean isOnline(UUID deviceId) {
+        int handle = find(deviceId);
+        return handle == NIL ? null : (flags[handle] & ONLINE) != 0;
+    }
+
+    /**
+     * @return whether the device is tracked and has a pending deadline
+     */
+    boolean isScheduled(UUID deviceId) {
+        int handle = find(deviceId);
+        return handle != NIL && (flags[handle] & SCHEDULED) != 0;
+    }
+
+    /**
+     * @return the device type ordinal, or {@link #UNKNOWN_TYPE} if the device is unknown or not tracked
+     */
+    byte deviceType(UUID deviceId) {
+        int handle = find(deviceId);
+        return handle == NIL ? UNKNOWN_TYPE : type[handle];
+    }
+
+    /**
+     * Tracks a device or moves its deadline. Deadlines that already passed fire on the next advance.
+     */
+    void schedule(UUID deviceId, byte deviceType, long deadlineTick, boolean online) {
+        int handle = find(deviceId);
+        if (handle == NIL) {
+            handle = insert(deviceId);
+        } else {
+            if ((flags[handle] & SCHEDULED) != 0) {
+                unlink(handle);
+            }
+            if ((flags[handle] & ONLINE) == 0) {
+                offline--;
+            }
+        }
+        if (!online) {
+            offline++;
+        }
+        long tick = Math.max(deadlineTick, currentTick + 1);
+        deadline[handle] = Math.toIntExact(tick - originTick);
+        type[handle] = deviceType;
+        flags[handle] = (byte) (IN_USE | (online ? ONLINE : 0));
+        link(handle, tick);
+    }
+
+    /**
+     * Stops tracking a device.
+     */
+    void remove(UUID deviceId) {
+        int handle = find(deviceId);
+        if (handle == NIL) {
+            return;
+        }
+        if ((flags[handle] & SCHEDULED) != 0) {
+            unlink(handle);
+        }
+        if ((flags[handle] & ONLINE) == 0) {
+            offline--;
+        }
+        deleteFromIndex(handle);
+        flags[handle] = 0;
+        next[handle] = freeHead;
+        freeHead = handle;
+        size--;
+    }
+
+    /**
+     * Advances the wheel to {@code toTick} and returns every device whose deadline is at or before it.
+     */
+    List<Expired> advance(long toTick) {
+        List<Expired> expired = new ArrayList<>();
+        if (toTick <= currentTick) {
+            return expired;
+        }
+        long steps = Math.min(toTick - currentTick, slotHeads.length);
+        int limit = Math.toIntExact(toTick - originTick);
+        for (long i = 1; i <= steps; i++) {
+            int slot = (int) ((currentTick + i) & slotMask);
+            int handle = slotHeads[slot];
+            while (handle != NIL) {
+                int following = next[handle];
+                if (deadline[handle] <= limit) {
+                    unlink(handle);
+                    expired.add(new Expired(new UUID(idHigh[handle], idLow[handle]), type[handle],
+                            (flags[handle] & ONLINE) != 0));
+                }
+                handle = following;
+            }
+        }
+        currentTick = toTick;
+        return expired;
+    }
+
+    private void link(int handle, long tick) {
+        int slot = (int) (tick & slotMask);
+        int head = slotHeads[slot];
+        next[handle] = head;
+        prev[handle] = NIL;
+        if (head != NIL) {
+            prev[head] = handle;
+        }
+        slotHeads[slot] = handle;
+        flags[handle] |= SCHEDULED;
+    }
+
+    private void unlink(int handle) {
+        int slot = (int) ((originTick + deadline[handle]) & slotMask);
+        if (prev[handle] != NIL) {
+            next[prev[handle]] = next[handle];
+        } else {
+            slotHeads[slot] = next[handle];
+        }
+        if (next[handle] != NIL) {
+            prev[next[handle]] = prev[handle];
+        }
+        next[handle] = NIL;
+        prev[handle] = NIL;
+        flags[handle] &= ~SCHEDULED;
+    }
+
+    private int insert(UUID deviceId) {
+        int handle;
+        if (freeHead != NIL) {
+            handle = freeHead;
+            freeHead = next[handle];
+        } else {
+            if (highWater == idHigh.length) {
+                allocate(idHigh.length * 2);
+            }
+            handle = highWater++;
+        }
+        idHigh[handle] = deviceId.getMostSignificantBits();
+        idLow[handle] = deviceId.getLeastSignificantBits();
+        flags[handle] = IN_USE;
+        size++;
+        if (size * 2 > index.length) {
+            rehash(index.length * 2);
+        } else {
+            addToIndex(handle);
+        }
+        return handle;
+    }
+
+    private void allocate(int capacity) {
+        idHigh = idHigh == null ? new long[capacity] : Arrays.copyOf(idHigh, capacity);
+        idLow = idLow == null ? new long[capacity] : Arrays.copyOf(idLow, capacity);
+        deadline = deadline == null ? new int[capacity] : Arrays.copyOf(deadline, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+        type = type == null ? new byte[capacity] : Arrays.copyOf(type, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+    }
+
+    private int find(UUID deviceId) {
+        long high = deviceId.getMostSignificantBits();
+        long low = deviceId.getLeastSignificantBits();
+        int mask = index.length - 1;
+        for (int i = hash(high, low) & mask; ; i = (i + 1) & mask) {
+            int handle = index[i];
+            if (handle == NIL) {
+                return NIL;
+            }
+            if (idHigh[handle] == high && idLow[handle] == low) {
+                return handle;
+            }
+        }
+    }
+
+    private void addToIndex(int handle) {
+        int mask = index.length - 1;
+        int i = hash(idHigh[handle], idLow[handle]) & mask;
+        while (index[i] != NIL) {
+            i = (i + 1) & mask;
+        }
+        index[i] = handle;
+    }
+
+    private void rehash(int capacity) {
+        index = new int[capacity];
+        Arrays.fill(index, NIL);
+        for (int handle = 0; handle < highWater; handle++) {
+            if ((flags[handle] & IN_USE) != 0) {
+                addToIndex(handle);
+            }
+        }
+    }
+
+    /**
+     * Linear-probing deletion with backward shift, so lookups never need tombstones.
+     */
+    private void deleteFromIndex(int handle) {
+        int mask = index.length - 1;
+        int i = hash(idHigh[handle], idLow[handle]) & mask;
+        while (index[i] != handle) {
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        for (int j = (gap + 1) & mask; index[j] != NIL; j = (j + 1) & mask) {
+            int home = hash(idHigh[index[j]], idLow[index[j]]) & mask;
+            // Move the entry into the gap unless its home lies cyclically in (gap, j]
+            boolean homeBetween = gap <= j ? (gap < home && home <= j) : (gap < home || home <= j);
+            if (!homeBetween) {
+                index[gap] = index[j];
+                gap = j;
+            }
+        }
+        index[gap] = NIL;
+    }
+
+    private static int hash(long high, long low) {
+        long h = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,80 @@
+package io.openleap.iam.principal.service.outbox;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository.OutboxEntry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records principal domain events for {@link PrincipalEventRelay}.
+ * <p>
+ * Events are only accepted inside the transaction that changes the principal, so an event is published if and only
+ * if its change commits. Each event is wrapped in the envelope of the spec (Section 5.1) with a new
+ * {@code event_id}, which consumers use to drop the duplicates an at-least-once relay can produce.
+ */
+@Component
+public class PrincipalEventOutbox {
+
+    private static final String AGGREGATE_TYPE = "principal";
+
+    record Envelope(
+            @JsonProperty("event_type") String eventType,
+            @JsonProperty("event_id") UUID eventId,
+            @JsonProperty("timestamp") String timestamp,
+            @JsonProperty("aggregate_type") String aggregateType,
+            @JsonProperty("aggregate_id") UUID aggregateId,
+            @JsonProperty("payload") Object payload) {
+    }
+
+    private final PrincipalEventOutboxRepository principalEventOutboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public PrincipalEventOutbox(PrincipalEventOutboxRepository principalEventOutboxRepository, ObjectMapper objectMapper) {
+        this.principalEventOutboxRepository = principalEventOutboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records an event of {@code principalId}, to be published with {@code routingKey}.
+     *
+     * @throws org.springframework.transaction.IllegalTransactionStateException if called outside a transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(PrincipalId principalId, String routingKey, Object event) {
+        principalEventOutboxRepository.append(toEntry(principalId.value(), routingKey, event, Instant.now()));
+    }
+
+    /**
+     * Records one event per principal with the same {@code routingKey}, as one JDBC batch.
+     *
+     * @throws org.springframework.transaction.IllegalTransactionStateException if called outside a transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(String routingKey, Map<PrincipalId, ?> events) {
+        Instant occurredAt = Instant.now();
+        List<OutboxEntry> entries = new ArrayList<>(events.size());
+        events.forEach((principalId, event) -> entries.add(toEntry(principalId.value(), routingKey, event, occurredAt)));
+        principalEventOutboxRepository.appendAll(entries);
+    }
+
+    private OutboxEntry toEntry(UUID principalId, String routingKey, Object event, Instant occurredAt) {
+        UUID eventId = UUID.randomUUID();
+        Envelope envelope = new Envelope(routingKey, eventId, occurredAt.toString(), AGGREGATE_TYPE, principalId, event);
+        try {
+            return new OutboxEntry(eventId, principalId, routingKey, objectMapper.writeValueAsString(envelope), occurredAt);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event " + routingKey + " is not serializable for principal " + principalId, e);
+        }
+    }
+}
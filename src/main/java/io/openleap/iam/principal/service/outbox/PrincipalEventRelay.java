@@ -0,0 +1,233 @@
+package io.openleap.iam.principal.service.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.openleap.common.messaging.RoutingKey;
+import io.openleap.common.messaging.event.EventPublisher;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository.OutboxBacklog;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository.PendingEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the events recorded by {@link PrincipalEventOutbox} to the {@code iam.principal.events} exchange.
+ * <p>
+ * Pending events are worked off in batches of {@code batch-size}, one transaction per batch: the batch is claimed
+ * with {@code SKIP LOCKED}, each event is handed to the {@link EventPublisher}, and all published events are marked
+ * in one statement. A batch holds at most the oldest pending event of each principal, so a principal's events are
+ * published in order; a failed event is retried after an exponential backoff, and the later events of its
+ * principal wait for it. After {@code max-attempts} failures the event is dead-lettered and its principal's later
+ * events go ahead. Delivery is at least once, since a batch whose commit fails is published again. The relay is
+ * safe to run on every instance.
+ * <p>
+ * The publisher writes in the batch transaction, so each event is published under its own savepoint. A failed
+ * publish rolls back to it, leaving the transaction usable to record the failure and the rest of the batch.
+ * <p>
+ * Published events are kept for {@code retention} and then deleted in chunks of {@code purge-batch-size}, one
+ * statement each, so a large backlog is never deleted in one long transaction.
+ */
+@Service
+public class PrincipalEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalEventRelay.class);
+
+    static final String IAM_PRINCIPAL_EXCHANGE = "iam.principal.events";
+    private static final String NO_DESC = "nodesc";
+
+    private record RelayBatch(int claimed, int published, int failed, int deadLettered) {
+    }
+
+    private final PrincipalEventOutboxRepository principalEventOutboxRepository;
+    private final EventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate savepointTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Duration retention;
+    private final int purgeBatchSize;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final Timer relayLag;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+    private final Counter purgedCounter;
+
+    public PrincipalEventRelay(
+            PrincipalEventOutboxRepository principalEventOutboxRepository,
+            EventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.outbox.enabled:true}") boolean enabled,
+            @Value("${iam.principal.outbox.batch-size:200}") int batchSize,
+            @Value("${iam.principal.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${iam.principal.outbox.retry-backoff:5s}") Duration retryBackoff,
+            @Value("${iam.principal.outbox.max-retry-backoff:5m}") Duration maxRetryBackoff,
+            @Value("${iam.principal.outbox.retention:7d}") Duration retention,
+            @Value("${iam.principal.outbox.purge-batch-size:5000}") int purgeBatchSize) {
+        this.principalEventOutboxRepository = principalEventOutboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.savepointTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.retention = retention;
+        this.purgeBatchSize = purgeBatchSize;
+        this.relayLag = Timer.builder("iam.principal.outbox.relay.lag")
+                .description("Time between recording a principal event and publishing it")
+                .register(meterRegistry);
+        this.publishedCounter = relayCounter(meterRegistry, "published");
+        this.failedCounter = relayCounter(meterRegistry, "failed");
+        this.deadLetteredCounter = relayCounter(meterRegistry, "dead_lettered");
+        this.purgedCounter = Counter.builder("iam.principal.outbox.purged")
+                .description("Published principal events deleted after the retention period")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.outbox.pending", pending, AtomicLong::get)
+                .description("Principal events not published yet, as of the last relay run")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.outbox.oldest-pending-age", oldestPendingAgeSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest principal event not published yet, as of the last relay run")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.outbox.dead-lettered", deadLettered, AtomicLong::get)
+                .description("Principal events given up after max-attempts failures, as of the last relay run")
+                .register(meterRegistry);
+    }
+
+    private static Counter relayCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("iam.principal.outbox.relay")
+                .description("Principal events relayed to the event publisher by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${iam.principal.outbox.interval-ms:1000}")
+    public void relay() {
+        if (enabled) {
+            relayPending();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${iam.principal.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        if (enabled) {
+            purgePublished(Instant.now().minus(retention));
+        }
+    }
+
+    /**
+     * Publishes all due events, then refreshes the pending gauges with what is left. The run stops at the first
+     * batch with failures, since the events behind the failed ones are not due before the backoff has passed.
+     *
+     * @return number of events published
+     */
+    int relayPending() {
+        int published = 0;
+        RelayBatch batch;
+        do {
+            batch = transactionTemplate.execute(status -> relayBatch());
+            published += batch.published();
+            publishedCounter.increment(batch.published());
+            failedCounter.increment(batch.failed());
+            deadLetteredCounter.increment(batch.deadLettered());
+        } while (batch.claimed() == batchSize && batch.failed() == 0);
+
+        OutboxBacklog backlog = principalEventOutboxRepository.countPending();
+        pending.set(backlog.pending());
+        oldestPendingAgeSeconds.set(backlog.oldestOccurredAt() != null
+                ? Math.max(0, Duration.between(backlog.oldestOccurredAt(), Instant.now()).toSeconds())
+                : 0);
+        deadLettered.set(backlog.deadLettered());
+        return published;
+    }
+
+    private RelayBatch relayBatch() {
+        List<PendingEvent> claimed = principalEventOutboxRepository.claimPending(batchSize);
+        if (claimed.isEmpty()) {
+            return new RelayBatch(0, 0, 0, 0);
+        }
+
+        List<Long> published = new ArrayList<>(claimed.size());
+        int failed = 0;
+        int givenUp = 0;
+        for (PendingEvent event : claimed) {
+            try {
+                savepointTemplate.executeWithoutResult(status -> publish(event));
+                published.add(event.id());
+                relayLag.record(Duration.between(event.occurredAt(), Instant.now()));
+            } catch (RuntimeException e) {
+                if (event.attempts() + 1 >= maxAttempts) {
+                    logger.error("Failed to publish {} event {} of principal {} {} times, dead-lettering it",
+                            event.routingKey(), event.eventId(), event.principalId(), maxAttempts, e);
+                    principalEventOutboxRepository.markDeadLettered(event.id(), e.getMessage());
+                    givenUp++;
+                } else {
+                    Duration retryDelay = retryDelay(event.attempts());
+                    logger.warn("Failed to publish {} event {} of principal {}, retrying in {}",
+                            event.routingKey(), event.eventId(), event.principalId(), retryDelay, e);
+                    principalEventOutboxRepository.markFailed(event.id(), e.getMessage(), retryDelay);
+                    failed++;
+                }
+            }
+        }
+        principalEventOutboxRepository.markPublished(published);
+
+        return new RelayBatch(claimed.size(), published.size(), failed, givenUp);
+    }
+
+    private void publish(PendingEvent event) {
+        RoutingKey routingKey = new RoutingKey(event.routingKey(), NO_DESC, "", "");
+        eventPublisher.enqueue(IAM_PRINCIPAL_EXCHANGE, routingKey, event.payloadJson(),
+                Map.of("event_id", event.eventId().toString(), "aggregate_id", event.principalId().toString()));
+    }
+
+    /**
+     * @return {@code retry-backoff} doubled for every earlier failure, capped at {@code max-retry-backoff}
+     */
+    Duration retryDelay(int failedAttempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(failedAttempts, 20));
+        return delay.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : delay;
+    }
+
+    /**
+     * Deletes all events published before {@code cutoff}, one chunk per statement.
+     *
+     * @return number of events deleted
+     */
+    int purgePublished(Instant cutoff) {
+        int purged = 0;
+        int chunk;
+        do {
+            chunk = principalEventOutboxRepository.purgePublished(cutoff, purgeBatchSize);
+            purged += chunk;
+            purgedCounter.increment(chunk);
+        } while (chunk == purgeBatchSize);
+        if (purged > 0) {
+            logger.info("Purged {} principal events published before {}", purged, cutoff);
+        }
+        return purged;
+    }
+}
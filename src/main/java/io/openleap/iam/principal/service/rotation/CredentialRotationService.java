@@ -0,0 +1,124 @@
+package io.openleap.iam.principal.service.rotation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.event.CredentialRotationDueEvent;
+import io.openleap.iam.principal.repository.CredentialRotationRepository;
+import io.openleap.iam.principal.repository.CredentialRotationRepository.DueRotation;
+import io.openleap.iam.principal.repository.CredentialRotationRepository.RotationBacklog;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notifies the owners of service principals whose {@code credential_rotation_date} has come, so rotation no longer
+ * depends on every owner keeping track of the date. An overdue principal cannot be updated at all, since
+ * {@code chk_service_rotation_date_future} rejects the row.
+ * <p>
+ * Due principals are worked off in pages of {@code page-size}, one transaction per page: the page is claimed with
+ * {@code SKIP LOCKED}, an {@code iam.principal.credentials.rotation_due} event is recorded in the outbox for every
+ * principal, and the notice is stored so each rotation date is announced once. The scan is safe to run on every
+ * instance.
+ * <p>
+ * Credentials are not rotated here. The new API key and client secret are handed out once, to the caller of
+ * {@code rotateCredentials}, so rotating them in the background would lock the service out.
+ */
+@Service
+public class CredentialRotationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialRotationService.class);
+
+    private static final String CREDENTIALS_ROTATION_DUE_KEY = "iam.principal.credentials.rotation_due";
+
+    private final CredentialRotationRepository credentialRotationRepository;
+    private final PrincipalEventOutbox principalEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int pageSize;
+    private final AtomicLong due = new AtomicLong();
+    private final AtomicLong overdue = new AtomicLong();
+    private final Counter notifiedCounter;
+
+    public CredentialRotationService(
+            CredentialRotationRepository credentialRotationRepository,
+            PrincipalEventOutbox principalEventOutbox,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.credential-rotation.enabled:true}") boolean enabled,
+            @Value("${iam.principal.credential-rotation.page-size:100}") int pageSize) {
+        this.credentialRotationRepository = credentialRotationRepository;
+        this.principalEventOutbox = principalEventOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.notifiedCounter = Counter.builder("iam.principal.credential-rotation")
+                .description("Scheduled credential rotation notices by outcome")
+                .tag("outcome", "notified")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.credential-rotation.due", due, AtomicLong::get)
+                .description("Active service principals due for credential rotation, as of the last scan")
+                .register(meterRegistry);
+        Gauge.builder("iam.principal.credential-rotation.overdue", overdue, AtomicLong::get)
+                .description("Active service principals past their credential rotation date, as of the last scan")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${iam.principal.credential-rotation.interval-ms:3600000}")
+    public void notifyDue() {
+        if (enabled) {
+            notifyAllDue();
+        }
+    }
+
+    /**
+     * Notifies the owners of all due principals not notified of their current rotation date yet, then refreshes
+     * the due/overdue gauges with what is left.
+     *
+     * @return number of principals notified
+     */
+    int notifyAllDue() {
+        int notified = 0;
+        int claimed;
+        do {
+            claimed = transactionTemplate.execute(status -> notifyPage());
+            notified += claimed;
+            notifiedCounter.increment(claimed);
+        } while (claimed == pageSize);
+
+        RotationBacklog backlog = credentialRotationRepository.countDue();
+        due.set(backlog.due());
+        overdue.set(backlog.overdue());
+        if (notified > 0 || backlog.due() > 0) {
+            logger.info("Notified {} service principals of due credential rotation, {} due ({} overdue)",
+                    notified, backlog.due(), backlog.overdue());
+        }
+        return notified;
+    }
+
+    private int notifyPage() {
+        List<DueRotation> claimed = credentialRotationRepository.claimDue(pageSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<PrincipalId, CredentialRotationDueEvent> events = new LinkedHashMap<>();
+        for (DueRotation rotation : claimed) {
+            events.put(PrincipalId.of(rotation.businessId()), new CredentialRotationDueEvent(
+                    rotation.businessId(), rotation.serviceName(), rotation.credentialRotationDate()));
+        }
+        credentialRotationRepository.markNotified(claimed);
+        principalEventOutbox.appendAll(CREDENTIALS_ROTATION_DUE_KEY, events);
+        return claimed.size();
+    }
+}
@@ -0,0 +1,354 @@
+package io.openleap.iam.principal.service.search;
+
+import io.openleap.iam.principal.domain.dto.CrossTenantPrincipalItem;
+import io.openleap.iam.principal.domain.dto.CrossTenantSearchQuery;
+import io.openleap.iam.principal.domain.dto.CrossTenantSearchResult;
+import io.openleap.iam.principal.domain.dto.PrincipalExportItem;
+import io.openleap.iam.principal.domain.dto.PrincipalExportQuery;
+import io.openleap.iam.principal.domain.dto.SearchCursor;
+import io.openleap.iam.principal.domain.dto.SearchPrincipalsQuery;
+import io.openleap.iam.principal.domain.dto.SearchPrincipalsResult;
+import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
+import io.openleap.iam.principal.domain.entity.Principal;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.exception.PrincipalSearchOffsetTooLargeException;
+import io.openleap.iam.principal.exception.PrincipalSearchTimeoutException;
+import io.openleap.iam.principal.repository.CrossTenantSearchRepository;
+import io.openleap.iam.principal.repository.DevicePrincipalRepository;
+import io.openleap.iam.principal.repository.HumanPrincipalRepository;
+import io.openleap.iam.principal.repository.ServicePrincipalRepository;
+import io.openleap.iam.principal.repository.SystemPrincipalRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Searches the four principal tables.
+ * <p>
+ * Each requested type is queried on its own virtual thread, so a search without type filter takes as long as the
+ * slowest table rather than the sum of all four. All queries share one deadline; if any misses it the search
+ * fails with {@link PrincipalSearchTimeoutException} instead of returning a silently incomplete page. The
+ * per-table pages, each sorted by {@code created_at DESC, id DESC}, are combined with a k-way merge into one
+ * page ordered by {@link #SEARCH_ORDER}. Offset paging across types loads {@code offset + size} rows per table, so
+ * the offset is capped at {@code max-merge-offset}; deeper pages are reached through the cursor.
+ * <p>
+ * Cross-tenant search instead runs as a single {@code UNION ALL} statement in {@link CrossTenantSearchRepository},
+ * which filters and pages in the database so that only the requested page is ever loaded.
+ */
+@Service
+public class PrincipalSearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final Sort TABLE_ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    /**
+     * Newest first; principal type and then ID break ties, matching {@link SearchCursor}.
+     */
+    private static final Comparator<Principal> SEARCH_ORDER = Comparator
+            .comparing(Principal::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Principal::getPrincipalType)
+            .thenComparing(Principal::getId, Comparator.reverseOrder());
+
+    private final HumanPrincipalRepository humanPrincipalRepository;
+    private final ServicePrincipalRepository servicePrincipalRepository;
+    private final SystemPrincipalRepository systemPrincipalRepository;
+    private final DevicePrincipalRepository devicePrincipalRepository;
+    private final CrossTenantSearchRepository crossTenantSearchRepository;
+    private final Duration queryTimeout;
+    private final int maxMergeOffset;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PrincipalSearchService(
+            HumanPrincipalRepository humanPrincipalRepository,
+            ServicePrincipalRepository servicePrincipalRepository,
+            SystemPrincipalRepository systemPrincipalRepository,
+            DevicePrincipalRepository devicePrincipalRepository,
+            CrossTenantSearchRepository crossTenantSearchRepository,
+            @Value("${iam.principal.search.query-timeout:2s}") Duration queryTimeout,
+            @Value("${iam.principal.search.max-merge-offset:1000}") int maxMergeOffset) {
+        this.humanPrincipalRepository = humanPrincipalRepository;
+        this.servicePrincipalRepository = servicePrincipalRepository;
+        this.systemPrincipalRepository = systemPrincipalRepository;
+        this.devicePrincipalRepository = devicePrincipalRepository;
+        this.crossTenantSearchRepository = crossTenantSearchRepository;
+        this.queryTimeout = queryTimeout;
+        this.maxMergeOffset = maxMergeOffset;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Searches the requested principal type, or all types if none is given. Offset paging returns the combined
+     * total; keyset paging ({@code cursor} set) skips the counts.
+     *
+     * @param query the search query
+     * @return the merged search result
+     * @throws PrincipalSearchOffsetTooLargeException if offset paging across types goes past {@code max-merge-offset}
+     */
+    public SearchPrincipalsResult search(SearchPrincipalsQuery query) {
+        int pageSize = Math.min(Math.max(1, query.size()), MAX_PAGE_SIZE);
+        List<PrincipalType> types = query.principalType() != null
+                ? List.of(query.principalType())
+                : List.of(PrincipalType.values());
+        return query.cursor() != null
+                ? searchAfterCursor(query, types, pageSize)
+                : searchPage(query, types, pageSize);
+    }
+
+    /**
+     * Searches principals of all tenants. Uses the same order, cursor format and paging modes as
+     * {@link #search(SearchPrincipalsQuery)}.
+     *
+     * @param query the cross-tenant search query
+     * @return one page of matching principals
+     * @throws PrincipalSearchOffsetTooLargeException if offset paging across types goes past {@code max-merge-offset}
+     */
+    public CrossTenantSearchResult searchCrossTenant(CrossTenantSearchQuery query) {
+        int pageSize = Math.min(Math.max(1, query.size()), MAX_PAGE_SIZE);
+        List<PrincipalType> types = query.principalType() != null
+                ? List.of(query.principalType())
+                : List.of(PrincipalType.values());
+
+        if (query.cursor() != null) {
+            SearchCursor cursor = SearchCursor.decode(query.cursor());
+            List<CrossTenantSearchRepository.Match> matches = crossTenantSearchRepository.search(
+                    types, query.search(), query.status(), cursor, 0, pageSize + 1);
+            boolean hasMore = matches.size() > pageSize;
+            return toCrossTenantResult(hasMore ? matches.subList(0, pageSize) : matches,
+                    null, null, pageSize, hasMore);
+        }
+
+        // Page is 1-indexed from API
+        long offset = (long) Math.max(0, query.page() - 1) * pageSize;
+        // Every UNION ALL branch sorts and returns offset + size rows
+        if (types.size() > 1 && offset > maxMergeOffset) {
+            throw new PrincipalSearchOffsetTooLargeException(offset, maxMergeOffset);
+        }
+        List<CrossTenantSearchRepository.Match> matches = crossTenantSearchRepository.search(
+                types, query.search(), query.status(), null, offset, pageSize);
+        long total = crossTenantSearchRepository.count(types, query.search(), query.status());
+        boolean hasMore = offset + matches.size() < total;
+        return toCrossTenantResult(matches, total, query.page(), pageSize, hasMore);
+    }
+
+    /**
+     * Streams every principal matching {@code query} to {@code sink}, one type after the other. Rows are read
+     * through a database cursor and never collected, so memory use is the same for ten principals or ten million.
+     * Must run inside a transaction, which keeps the cursors open.
+     *
+     * @param query the export filters
+     * @param sink  receives each principal in turn
+     * @return number of exported principals
+     */
+    public long export(PrincipalExportQuery query, Consumer<PrincipalExportItem> sink) {
+        List<PrincipalType> types = query.principalType() != null
+                ? List.of(query.principalType())
+                : List.of(PrincipalType.values());
+        long exported = 0;
+        for (PrincipalType type : types) {
+            try (Stream<PrincipalExportItem> items = stream(type, query)) {
+                Iterator<PrincipalExportItem> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    sink.accept(iterator.next());
+                    exported++;
+                }
+            }
+        }
+        return exported;
+    }
+
+    private Stream<PrincipalExportItem> stream(PrincipalType type, PrincipalExportQuery query) {
+        return switch (type) {
+            case HUMAN -> humanPrincipalRepository.streamForExport(query.status(), query.tenantId());
+            case SERVICE -> servicePrincipalRepository.streamForExport(query.status(), query.tenantId());
+            case SYSTEM -> systemPrincipalRepository.streamForExport(query.status(), query.tenantId());
+            case DEVICE -> devicePrincipalRepository.streamForExport(query.status(), query.tenantId());
+        };
+    }
+
+    private SearchPrincipalsResult searchPage(SearchPrincipalsQuery query, List<PrincipalType> types, int pageSize) {
+        // Page is 1-indexed from API, but Spring Data uses 0-indexed
+        int pageIndex = Math.max(0, query.page() - 1);
+        long offset = (long) pageIndex * pageSize;
+
+        // A single table pages directly; merging several needs the first (offset + size) rows of each
+        Pageable pageable;
+        int skip;
+        if (types.size() == 1) {
+            pageable = PageRequest.of(pageIndex, pageSize, TABLE_ORDER);
+            skip = 0;
+        } else {
+            if (offset > maxMergeOffset) {
+                throw new PrincipalSearchOffsetTooLargeException(offset, maxMergeOffset);
+            }
+            pageable = PageRequest.of(0, (int) offset + pageSize, TABLE_ORDER);
+            skip = (int) offset;
+        }
+
+        List<Page<? extends Principal>> pages = fanOut(types, type -> page(type, query, pageable));
+
+        long total = 0;
+        List<List<? extends Principal>> sorted = new ArrayList<>(pages.size());
+        for (Page<? extends Principal> page : pages) {
+            total += page.getTotalElements();
+            sorted.add(page.getContent());
+        }
+        List<Principal> merged = merge(sorted, skip + pageSize);
+        List<Principal> content = merged.subList(Math.min(skip, merged.size()), merged.size());
+        boolean hasMore = offset + content.size() < total;
+        return toResult(content, total, query.page(), pageSize, hasMore);
+    }
+
+    private SearchPrincipalsResult searchAfterCursor(SearchPrincipalsQuery query, List<PrincipalType> types, int pageSize) {
+        SearchCursor cursor = SearchCursor.decode(query.cursor());
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<List<? extends Principal>> slices = fanOut(types,
+                type -> after(type, query, cursor.createdAt(), cursor.idBoundFor(type), limit));
+
+        List<Principal> merged = merge(slices, pageSize + 1);
+        boolean hasMore = merged.size() > pageSize;
+        return toResult(hasMore ? merged.subList(0, pageSize) : merged, null, null, pageSize, hasMore);
+    }
+
+    private Page<? extends Principal> page(PrincipalType type, SearchPrincipalsQuery query, Pageable pageable) {
+        return switch (type) {
+            case HUMAN -> humanPrincipalRepository.searchPrincipals(query.search(), query.status(), query.tenantId(), pageable);
+            case SERVICE -> servicePrincipalRepository.searchPrincipals(query.search(), query.status(), query.tenantId(), pageable);
+            case SYSTEM -> systemPrincipalRepository.searchPrincipals(query.search(), query.status(), query.tenantId(), pageable);
+            case DEVICE -> devicePrincipalRepository.searchPrincipals(query.search(), query.status(), query.tenantId(), pageable);
+        };
+    }
+
+    private List<? extends Principal> after(PrincipalType type, SearchPrincipalsQuery query,
+                                            Instant createdAt, long id, Limit limit) {
+        return switch (type) {
+            case HUMAN -> humanPrincipalRepository.searchPrincipalsAfter(
+                    query.search(), query.status(), query.tenantId(), createdAt, id, limit);
+            case SERVICE -> servicePrincipalRepository.searchPrincipalsAfter(
+                    query.search(), query.status(), query.tenantId(), createdAt, id, limit);
+            case SYSTEM -> systemPrincipalRepository.searchPrincipalsAfter(
+                    query.search(), query.status(), query.tenantId(), createdAt, id, limit);
+            case DEVICE -> devicePrincipalRepository.searchPrincipalsAfter(
+                    query.search(), query.status(), query.tenantId(), createdAt, id, limit);
+        };
+    }
+
+    /**
+     * Runs one query per type concurrently and returns the results in {@code types} order.
+     */
+    private <T> List<T> fanOut(List<PrincipalType> types, Function<PrincipalType, T> search) {
+        long deadline = System.nanoTime() + queryTimeout.toNanos();
+        List<Future<T>> futures = new ArrayList<>(types.size());
+        for (PrincipalType type : types) {
+            futures.add(executor.submit(() -> search.apply(type)));
+        }
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new PrincipalSearchTimeoutException(queryTimeout);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Principal search failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching principals", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private record Head(Principal principal, Iterator<? extends Principal> rest) {
+    }
+
+    /**
+     * Merges lists that are each sorted by {@link #SEARCH_ORDER}, stopping after {@code limit} elements.
+     */
+    private static List<Principal> merge(List<List<? extends Principal>> sorted, int limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sorted.size()),
+                Comparator.comparing(Head::principal, SEARCH_ORDER));
+        for (List<? extends Principal> list : sorted) {
+            Iterator<? extends Principal> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+
+        List<Principal> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+            merged.add(head.principal());
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
+        return merged;
+    }
+
+    private static SearchPrincipalsResult toResult(List<Principal> principals, Long total, Integer page,
+                                                   int pageSize, boolean hasMore) {
+        List<SearchPrincipalsResult.PrincipalItem> items = new ArrayList<>(principals.size());
+        for (Principal principal : principals) {
+            Instant lastLoginAt = principal instanceof HumanPrincipalEntity human ? human.getLastLoginAt() : null;
+            items.add(new SearchPrincipalsResult.PrincipalItem(
+                    principal.getBusinessId().value(),
+                    principal.getUsername(),
+                    principal.getEmail(),
+                    principal.getPrincipalType().name(),
+                    principal.getStatus().name(),
+                    principal.getDefaultTenantId(),
+                    lastLoginAt,
+                    principal.getCreatedAt()
+            ));
+        }
+
+        String nextCursor = null;
+        if (hasMore && !principals.isEmpty()) {
+            Principal last = principals.getLast();
+            nextCursor = new SearchCursor(last.getCreatedAt(), last.getPrincipalType(), last.getId()).encode();
+        }
+        return new SearchPrincipalsResult(items, total, page, pageSize, nextCursor);
+    }
+
+    private static CrossTenantSearchResult toCrossTenantResult(List<CrossTenantSearchRepository.Match> matches,
+                                                               Long total, Integer page, int pageSize,
+                                                               boolean hasMore) {
+        List<CrossTenantPrincipalItem> items = matches.stream()
+                .map(CrossTenantSearchRepository.Match::item)
+                .toList();
+        String nextCursor = hasMore && !matches.isEmpty() ? matches.getLast().position().encode() : null;
+        return new CrossTenantSearchResult(items, total, page, pageSize, nextCursor);
+    }
+}
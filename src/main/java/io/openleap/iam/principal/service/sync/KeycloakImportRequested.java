@@ -0,0 +1,11 @@
+package io.openleap.iam.principal.service.sync;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published inside a bulk-creating transaction; {@link KeycloakSyncService} provisions the human principals with
+ * batched partial imports once it commits.
+ */
+public record KeycloakImportRequested(List<UUID> principalIds) {
+}
@@ -0,0 +1,10 @@
+package io.openleap.iam.principal.service.sync;
+
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+
+/**
+ * Published inside the creating transaction; picked up by {@link KeycloakSyncService} once it commits.
+ */
+public record KeycloakSyncRequested(PrincipalType principalType, PrincipalId principalId) {
+}
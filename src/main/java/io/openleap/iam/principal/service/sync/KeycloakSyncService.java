@@ -0,0 +1,285 @@
+package io.openleap.iam.principal.service.sync;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.domain.entity.ServicePrincipalEntity;
+import io.openleap.iam.principal.domain.entity.SyncStatus;
+import io.openleap.iam.principal.exception.ClientAlreadyExistsException;
+import io.openleap.iam.principal.exception.UserAlreadyExistsException;
+import io.openleap.iam.principal.repository.HumanPrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalSyncRepository;
+import io.openleap.iam.principal.repository.ServicePrincipalRepository;
+import io.openleap.iam.principal.service.keycloak.KeycloakService;
+import io.openleap.iam.principal.service.keycloak.dto.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Provisions principals in Keycloak outside of the creating database transaction.
+ * <p>
+ * Creation commits the principal with {@link SyncStatus#PENDING} and publishes {@link KeycloakSyncRequested};
+ * an immediate attempt is made right after commit. Principals whose attempt failed are retried by a scheduled
+ * sweep with exponential backoff and end up {@link SyncStatus#FAILED} after the configured number of attempts.
+ * Rows are claimed through {@link PrincipalSyncRepository}, so the sweep is safe to run on every instance.
+ * Provisioning is idempotent: a user or client that already exists in Keycloak, e.g. because an earlier attempt
+ * timed out after Keycloak created it, is linked to the principal instead of failing the attempt.
+ * <p>
+ * Bulk-created human principals are announced with a single {@link KeycloakImportRequested} and provisioned
+ * through Keycloak's partial-import API, one request per {@code import-batch-size} users.
+ */
+@Service
+public class KeycloakSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakSyncService.class);
+
+    private static final List<PrincipalType> SYNCED_TYPES = List.of(PrincipalType.HUMAN, PrincipalType.SERVICE);
+
+    private final HumanPrincipalRepository humanPrincipalRepository;
+    private final ServicePrincipalRepository servicePrincipalRepository;
+    private final PrincipalSyncRepository principalSyncRepository;
+    private final KeycloakService keycloakService;
+    private final int batchSize;
+    private final int importBatchSize;
+    private final int maxRetries;
+    private final long backoffSeconds;
+    private final long syncingTimeoutSeconds;
+    private final Counter synced;
+    private final Counter retried;
+    private final Counter failed;
+
+    public KeycloakSyncService(
+            HumanPrincipalRepository humanPrincipalRepository,
+            ServicePrincipalRepository servicePrincipalRepository,
+            PrincipalSyncRepository principalSyncRepository,
+            KeycloakService keycloakService,
+            MeterRegistry meterRegistry,
+            @Value("${iam.principal.keycloak-sync.batch-size:50}") int batchSize,
+            @Value("${iam.principal.keycloak-sync.import-batch-size:500}") int importBatchSize,
+            @Value("${iam.principal.keycloak-sync.max-retries:5}") int maxRetries,
+            @Value("${iam.principal.keycloak-sync.backoff-seconds:30}") long backoffSeconds,
+            @Value("${iam.principal.keycloak-sync.syncing-timeout-seconds:300}") long syncingTimeoutSeconds) {
+        this.humanPrincipalRepository = humanPrincipalRepository;
+        this.servicePrincipalRepository = servicePrincipalRepository;
+        this.principalSyncRepository = principalSyncRepository;
+        this.keycloakService = keycloakService;
+        this.batchSize = batchSize;
+        this.importBatchSize = importBatchSize;
+        this.maxRetries = maxRetries;
+        this.backoffSeconds = backoffSeconds;
+        this.syncingTimeoutSeconds = syncingTimeoutSeconds;
+        this.synced = syncCounter(meterRegistry, "synced");
+        this.retried = syncCounter(meterRegistry, "retry");
+        this.failed = syncCounter(meterRegistry, "failed");
+    }
+
+    private static Counter syncCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("iam.principal.keycloak.sync")
+                .description("Keycloak provisioning attempts by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * First attempt for a freshly created principal, run asynchronously after the creating transaction commits.
+     */
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSyncRequested(KeycloakSyncRequested event) {
+        UUID businessId = event.principalId().value();
+        if (principalSyncRepository.claim(event.principalType(), businessId)) {
+            sync(event.principalType(), businessId);
+        }
+    }
+
+    /**
+     * First attempt for bulk-created human principals, run asynchronously after the creating transaction commits.
+     * Users Keycloak skipped because they already exist are linked; users it could not import are released to the
+     * background retry.
+     */
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onImportRequested(KeycloakImportRequested event) {
+        provisionUsers(event.principalIds());
+    }
+
+    /**
+     * Provisions committed, still PENDING human principals through partial imports of {@code import-batch-size}
+     * users each, on the calling thread. Users Keycloak skipped because they already exist are linked; users it
+     * could not import are released to the background retry.
+     *
+     * @param principalIds business IDs of the principals
+     * @return number of users created in or linked to Keycloak
+     */
+    public int provisionUsers(List<UUID> principalIds) {
+        int provisioned = 0;
+        for (int from = 0; from < principalIds.size(); from += importBatchSize) {
+            List<UUID> chunk = principalIds.subList(from, Math.min(from + importBatchSize, principalIds.size()));
+            List<UUID> claimed = principalSyncRepository.claimAll(PrincipalType.HUMAN, chunk);
+            if (!claimed.isEmpty()) {
+                provisioned += importUsers(claimed);
+            }
+        }
+        return provisioned;
+    }
+
+    /**
+     * Retries principals that are due according to their backoff, and reclaims rows abandoned mid-sync.
+     */
+    @Scheduled(fixedDelayString = "${iam.principal.keycloak-sync.interval-ms:10000}")
+    public void syncDue() {
+        for (PrincipalType principalType : SYNCED_TYPES) {
+            List<UUID> claimed = principalSyncRepository.claimDue(principalType, batchSize, backoffSeconds, syncingTimeoutSeconds);
+            for (UUID businessId : claimed) {
+                sync(principalType, businessId);
+            }
+        }
+    }
+
+    /**
+     * Creates the Keycloak client for a service principal that was committed in {@link SyncStatus#SYNCING} state.
+     * Called on the request path because the client secret is only returned once; on failure the principal is
+     * left to the background retry and the caller obtains a secret later through credential rotation. If the client
+     * already exists, its secret is regenerated so the caller still gets a working one.
+     *
+     * @param principal the committed service principal
+     * @return the client secret, empty if provisioning was deferred
+     */
+    public Optional<String> provisionClient(ServicePrincipalEntity principal) {
+        UUID businessId = principal.getBusinessId().value();
+        try {
+            String clientSecret;
+            try {
+                clientSecret = keycloakService.createClient(principal.getServiceName(), principal.getAllowedScopes());
+            } catch (ClientAlreadyExistsException e) {
+                logger.info("Keycloak client {} already exists, linking service principal {} and regenerating its secret",
+                        principal.getServiceName(), businessId);
+                clientSecret = keycloakService.regenerateClientSecret(principal.getServiceName());
+            }
+            principalSyncRepository.markSynced(PrincipalType.SERVICE, businessId, principal.getServiceName());
+            principal.setKeycloakClientId(principal.getServiceName());
+            principal.setSyncStatus(SyncStatus.SYNCED);
+            synced.increment();
+            return Optional.of(clientSecret);
+        } catch (Exception e) {
+            recordFailedAttempt(PrincipalType.SERVICE, businessId, e);
+            return Optional.empty();
+        }
+    }
+
+    private void sync(PrincipalType principalType, UUID businessId) {
+        try {
+            String keycloakId = switch (principalType) {
+                case HUMAN -> createUser(businessId);
+                case SERVICE -> createClient(businessId);
+                default -> throw new IllegalArgumentException("Principal type is not synced to Keycloak: " + principalType);
+            };
+            principalSyncRepository.markSynced(principalType, businessId, keycloakId);
+            synced.increment();
+        } catch (Exception e) {
+            recordFailedAttempt(principalType, businessId, e);
+        }
+    }
+
+    private int importUsers(List<UUID> businessIds) {
+        List<HumanPrincipalEntity> principals = humanPrincipalRepository.findAllByBusinessIdIn(businessIds);
+        Map<String, String> imported;
+        try {
+            imported = keycloakService.importUsers(principals.stream().map(KeycloakSyncService::toKeycloakUser).toList());
+        } catch (Exception e) {
+            principals.forEach(principal -> recordFailedAttempt(PrincipalType.HUMAN, principal.getBusinessId().value(), e));
+            return 0;
+        }
+
+        Map<UUID, String> keycloakIds = new HashMap<>();
+        for (HumanPrincipalEntity principal : principals) {
+            UUID businessId = principal.getBusinessId().value();
+            try {
+                String keycloakId = imported.get(principal.getUsername().toLowerCase(Locale.ROOT));
+                if (keycloakId == null) {
+                    // Skipped because the user already exists, e.g. from an import that timed out after Keycloak ran it
+                    keycloakId = keycloakService.findUserIdByUsername(principal.getUsername());
+                }
+                if (keycloakId != null) {
+                    keycloakIds.put(businessId, keycloakId);
+                } else {
+                    recordFailedAttempt(PrincipalType.HUMAN, businessId,
+                            new IllegalStateException("User was skipped by the Keycloak partial import"));
+                }
+            } catch (Exception e) {
+                recordFailedAttempt(PrincipalType.HUMAN, businessId, e);
+            }
+        }
+        principalSyncRepository.markAllSynced(PrincipalType.HUMAN, keycloakIds);
+        synced.increment(keycloakIds.size());
+        return keycloakIds.size();
+    }
+
+    private String createUser(UUID businessId) {
+        HumanPrincipalEntity principal = humanPrincipalRepository.findByBusinessId(businessId)
+                .orElseThrow(() -> new IllegalStateException("Principal not found: " + businessId));
+        try {
+            return keycloakService.createUser(toKeycloakUser(principal));
+        } catch (UserAlreadyExistsException e) {
+            String keycloakId = keycloakService.findUserIdByUsername(principal.getUsername());
+            if (keycloakId == null) {
+                // The conflict is on another attribute, e.g. the email of a different user
+                throw e;
+            }
+            logger.info("Keycloak user {} already exists, linking human principal {}", principal.getUsername(), businessId);
+            return keycloakId;
+        }
+    }
+
+    private static User toKeycloakUser(HumanPrincipalEntity principal) {
+        return User.builder()
+                .id(principal.getBusinessId().toString())
+                .username(principal.getUsername())
+                .email(principal.getEmail())
+                .firstName(principal.getFirstName())
+                .lastName(principal.getLastName())
+                .enabled(principal.getStatus() == PrincipalStatus.ACTIVE)
+                .emailVerified(Boolean.TRUE.equals(principal.getEmailVerified()))
+                .build();
+    }
+
+    private String createClient(UUID businessId) {
+        ServicePrincipalEntity principal = servicePrincipalRepository.findByBusinessId(businessId)
+                .orElseThrow(() -> new IllegalStateException("Principal not found: " + businessId));
+        try {
+            keycloakService.createClient(principal.getServiceName(), principal.getAllowedScopes());
+        } catch (ClientAlreadyExistsException e) {
+            logger.info("Keycloak client {} already exists, linking service principal {}", principal.getServiceName(), businessId);
+        }
+        logger.info("Provisioned deferred Keycloak client for service principal {}; its secret must be obtained by rotating credentials",
+                businessId);
+        return principal.getServiceName();
+    }
+
+    private void recordFailedAttempt(PrincipalType principalType, UUID businessId, Exception cause) {
+        Optional<SyncStatus> status = principalSyncRepository.markFailedAttempt(principalType, businessId, maxRetries);
+        if (status.isPresent() && status.get() == SyncStatus.FAILED) {
+            failed.increment();
+            logger.error("Keycloak sync for {} principal {} failed permanently after {} attempts",
+                    principalType, businessId, maxRetries, cause);
+        } else {
+            retried.increment();
+            logger.warn("Keycloak sync for {} principal {} failed, will retry: {}", principalType, businessId, cause.getMessage());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+-- Principal domain events are written to this table in the transaction that changes the principal, so an event is
+-- stored if and only if its change commits. PrincipalEventRelay hands them to the event publisher in id order per
+-- principal and marks them published; published rows are deleted in chunks once the retention period has passed.
+-- The library-managed outbox table from V1 is left to the event publisher.
+
+CREATE TABLE iam_principal.principal_event_outbox
+(
+    id              BIGSERIAL PRIMARY KEY,
+    event_id        UUID          NOT NULL UNIQUE,
+    principal_id    UUID          NOT NULL,
+    routing_key     VARCHAR(256)  NOT NULL,
+    payload_json    TEXT          NOT NULL,
+    occurred_at     TIMESTAMP     NOT NULL,
+    published_at    TIMESTAMP,
+    attempts        INT           NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP     NOT NULL DEFAULT now(),
+    last_error      VARCHAR(4000)
+);
+
+-- Covers the claim query and its check for an earlier pending event of the same principal. Only pending rows are
+-- indexed, so the index stays small however many published rows are retained.
+CREATE INDEX idx_principal_event_outbox_pending
+    ON iam_principal.principal_event_outbox (principal_id, id) WHERE published_at IS NULL;
+
+CREATE INDEX idx_principal_event_outbox_published
+    ON iam_principal.principal_event_outbox (published_at) WHERE published_at IS NOT NULL;
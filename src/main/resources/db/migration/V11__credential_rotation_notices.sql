@@ -0,0 +1,11 @@
+-- Records which rotation date the owner of a service principal was last notified about, so the rotation scan
+-- announces each due date once. The notice is kept apart from service_principals because an overdue row fails
+-- chk_service_rotation_date_future on any update. Rotating the credentials moves the date, so the next due date
+-- is announced again.
+
+CREATE TABLE iam_principal.credential_rotation_notices
+(
+    business_id   UUID      PRIMARY KEY REFERENCES iam_principal.service_principals (business_id) ON DELETE CASCADE,
+    rotation_date DATE      NOT NULL,
+    notified_at   TIMESTAMP NOT NULL
+);
@@ -0,0 +1,14 @@
+-- An event that still fails after iam.principal.outbox.max-attempts is dead-lettered: it is no longer claimed, no
+-- longer holds back the later events of its principal, and is kept until it is dealt with by hand. The pending
+-- index is rebuilt without dead-lettered rows, so the claim query and its ordering check keep using it.
+
+ALTER TABLE iam_principal.principal_event_outbox ADD COLUMN dead_lettered_at TIMESTAMP;
+
+DROP INDEX iam_principal.idx_principal_event_outbox_pending;
+
+CREATE INDEX idx_principal_event_outbox_pending
+    ON iam_principal.principal_event_outbox (principal_id, id)
+    WHERE published_at IS NULL AND dead_lettered_at IS NULL;
+
+CREATE INDEX idx_principal_event_outbox_dead_lettered
+    ON iam_principal.principal_event_outbox (dead_lettered_at) WHERE dead_lettered_at IS NOT NULL;
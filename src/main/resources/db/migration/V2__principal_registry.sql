@@ -0,0 +1,71 @@
+-- Global registry of all principals across the four principal tables.
+-- Resolves business_id -> principal_type in a single indexed lookup and enforces
+-- the globally unique username rule that per-table constraints cannot express.
+CREATE TABLE iam_principal.principal_registry
+(
+    business_id    UUID PRIMARY KEY,
+    principal_type VARCHAR(50)  NOT NULL CHECK (principal_type IN ('HUMAN', 'SERVICE', 'SYSTEM', 'DEVICE')),
+    principal_id   BIGINT       NOT NULL,
+    username       VARCHAR(100) NOT NULL,
+    status         VARCHAR(50)  NOT NULL CHECK (status IN ('PENDING', 'ACTIVE', 'SUSPENDED', 'INACTIVE', 'DELETED')),
+
+    CONSTRAINT uk_principal_registry_username UNIQUE (username),
+    CONSTRAINT uk_principal_registry_type_id UNIQUE (principal_type, principal_id)
+);
+
+-- Backfill from existing principals (fails if usernames already collide across tables)
+INSERT INTO iam_principal.principal_registry (business_id, principal_type, principal_id, username, status)
+SELECT business_id, 'HUMAN', id, username, status
+FROM iam_principal.human_principals
+UNION ALL
+SELECT business_id, 'SERVICE', id, username, status
+FROM iam_principal.service_principals
+UNION ALL
+SELECT business_id, 'SYSTEM', id, username, status
+FROM iam_principal.system_principals
+UNION ALL
+SELECT business_id, 'DEVICE', id, username, status
+FROM iam_principal.device_principals;
+
+-- Keeps the registry in step with every write to the principal tables.
+-- TG_ARGV[0] carries the principal type of the owning table.
+CREATE OR REPLACE FUNCTION iam_principal.sync_principal_registry()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM iam_principal.principal_registry WHERE business_id = OLD.business_id;
+        RETURN OLD;
+    END IF;
+
+    INSERT INTO iam_principal.principal_registry (business_id, principal_type, principal_id, username, status)
+    VALUES (NEW.business_id, TG_ARGV[0], NEW.id, NEW.username, NEW.status)
+    ON CONFLICT (business_id) DO UPDATE
+        SET username = EXCLUDED.username,
+            status   = EXCLUDED.status;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_human_principals_registry
+    AFTER INSERT OR UPDATE OF username, status OR DELETE
+    ON iam_principal.human_principals
+    FOR EACH ROW
+    EXECUTE FUNCTION iam_principal.sync_principal_registry('HUMAN');
+
+CREATE TRIGGER trigger_service_principals_registry
+    AFTER INSERT OR UPDATE OF username, status OR DELETE
+    ON iam_principal.service_principals
+    FOR EACH ROW
+    EXECUTE FUNCTION iam_principal.sync_principal_registry('SERVICE');
+
+CREATE TRIGGER trigger_system_principals_registry
+    AFTER INSERT OR UPDATE OF username, status OR DELETE
+    ON iam_principal.system_principals
+    FOR EACH ROW
+    EXECUTE FUNCTION iam_principal.sync_principal_registry('SYSTEM');
+
+CREATE TRIGGER trigger_device_principals_registry
+    AFTER INSERT OR UPDATE OF username, status OR DELETE
+    ON iam_principal.device_principals
+    FOR EACH ROW
+    EXECUTE FUNCTION iam_principal.sync_principal_registry('DEVICE');
@@ -0,0 +1,8 @@
+-- Keyset pagination for principal search: ORDER BY created_at DESC, id DESC with a
+-- (created_at, id) < (:createdAt, :id) seek. The tenant-scoped variant serves admin UIs
+-- scrolling a single large tenant.
+CREATE INDEX idx_human_principals_created_at_id
+    ON iam_principal.human_principals (created_at DESC, id DESC);
+
+CREATE INDEX idx_human_principals_tenant_created_at_id
+    ON iam_principal.human_principals (default_tenant_id, created_at DESC, id DESC);
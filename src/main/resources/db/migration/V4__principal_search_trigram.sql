@@ -0,0 +1,12 @@
+-- Substring search on principals: LOWER(col) LIKE '%term%' can only use an index through
+-- trigrams. The expressions must match the search query exactly (lower(...)).
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+CREATE INDEX idx_human_principals_username_trgm
+    ON iam_principal.human_principals USING GIN (lower(username) public.gin_trgm_ops);
+
+CREATE INDEX idx_human_principals_email_trgm
+    ON iam_principal.human_principals USING GIN (lower(email) public.gin_trgm_ops);
+
+CREATE INDEX idx_human_principals_display_name_trgm
+    ON iam_principal.human_principals USING GIN (lower(display_name) public.gin_trgm_ops);
@@ -0,0 +1,38 @@
+-- Principal search fans out to every principal table (see PrincipalSearchService): each needs the
+-- keyset order index from V3 and the trigram indexes from V4 for its username/email predicates.
+
+CREATE INDEX idx_service_principals_created_at_id
+    ON iam_principal.service_principals (created_at DESC, id DESC);
+
+CREATE INDEX idx_service_principals_tenant_created_at_id
+    ON iam_principal.service_principals (default_tenant_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_service_principals_username_trgm
+    ON iam_principal.service_principals USING GIN (lower(username) public.gin_trgm_ops);
+
+CREATE INDEX idx_service_principals_email_trgm
+    ON iam_principal.service_principals USING GIN (lower(email) public.gin_trgm_ops);
+
+CREATE INDEX idx_system_principals_created_at_id
+    ON iam_principal.system_principals (created_at DESC, id DESC);
+
+CREATE INDEX idx_system_principals_tenant_created_at_id
+    ON iam_principal.system_principals (default_tenant_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_system_principals_username_trgm
+    ON iam_principal.system_principals USING GIN (lower(username) public.gin_trgm_ops);
+
+CREATE INDEX idx_system_principals_email_trgm
+    ON iam_principal.system_principals USING GIN (lower(email) public.gin_trgm_ops);
+
+CREATE INDEX idx_device_principals_created_at_id
+    ON iam_principal.device_principals (created_at DESC, id DESC);
+
+CREATE INDEX idx_device_principals_tenant_created_at_id
+    ON iam_principal.device_principals (default_tenant_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_device_principals_username_trgm
+    ON iam_principal.device_principals USING GIN (lower(username) public.gin_trgm_ops);
+
+CREATE INDEX idx_device_principals_email_trgm
+    ON iam_principal.device_principals USING GIN (lower(email) public.gin_trgm_ops);
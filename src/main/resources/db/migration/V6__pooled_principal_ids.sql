@@ -0,0 +1,29 @@
+-- Principal IDs are allocated from the pooled sequences created in V1 (INCREMENT BY 50) instead of the BIGSERIAL
+-- defaults, so Hibernate and HumanPrincipalBatchRepository reserve a block of 50 IDs per nextval and inserts can
+-- be batched. Existing IDs are kept: each sequence is moved past the highest ID in use, never backwards, so the
+-- next block starts above it. The column default draws from the same sequence, so a plain SQL insert takes a
+-- value that no pooled block covers.
+
+SELECT setval('human_principals_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM iam_principal.human_principals),
+                       (SELECT last_value FROM human_principals_seq)));
+ALTER TABLE iam_principal.human_principals ALTER COLUMN id SET DEFAULT nextval('human_principals_seq');
+DROP SEQUENCE IF EXISTS iam_principal.human_principals_id_seq;
+
+SELECT setval('service_principals_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM iam_principal.service_principals),
+                       (SELECT last_value FROM service_principals_seq)));
+ALTER TABLE iam_principal.service_principals ALTER COLUMN id SET DEFAULT nextval('service_principals_seq');
+DROP SEQUENCE IF EXISTS iam_principal.service_principals_id_seq;
+
+SELECT setval('system_principals_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM iam_principal.system_principals),
+                       (SELECT last_value FROM system_principals_seq)));
+ALTER TABLE iam_principal.system_principals ALTER COLUMN id SET DEFAULT nextval('system_principals_seq');
+DROP SEQUENCE IF EXISTS iam_principal.system_principals_id_seq;
+
+SELECT setval('device_principals_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM iam_principal.device_principals),
+                       (SELECT last_value FROM device_principals_seq)));
+ALTER TABLE iam_principal.device_principals ALTER COLUMN id SET DEFAULT nextval('device_principals_seq');
+DROP SEQUENCE IF EXISTS iam_principal.device_principals_id_seq;
@@ -0,0 +1,34 @@
+-- Records when a principal was deactivated, so the GDPR retention period is measured from deactivation instead
+-- of from the last write to the row. Existing INACTIVE principals are backfilled from their last update, which
+-- is what the retention check used before.
+-- The partial indexes only cover INACTIVE rows, so the purge job finds principals past retention without
+-- scanning the far larger set of active and deleted ones.
+
+ALTER TABLE iam_principal.human_principals ADD COLUMN inactivated_at TIMESTAMP;
+ALTER TABLE iam_principal.service_principals ADD COLUMN inactivated_at TIMESTAMP;
+ALTER TABLE iam_principal.system_principals ADD COLUMN inactivated_at TIMESTAMP;
+ALTER TABLE iam_principal.device_principals ADD COLUMN inactivated_at TIMESTAMP;
+
+UPDATE iam_principal.human_principals
+SET inactivated_at = COALESCE(updated_at, created_at)
+WHERE status = 'INACTIVE';
+-- Overdue rotation dates would fail chk_service_rotation_date_future on any update of the row
+UPDATE iam_principal.service_principals
+SET inactivated_at           = COALESCE(updated_at, created_at),
+    credential_rotation_date = GREATEST(credential_rotation_date, CURRENT_DATE)
+WHERE status = 'INACTIVE';
+UPDATE iam_principal.system_principals
+SET inactivated_at = COALESCE(updated_at, created_at)
+WHERE status = 'INACTIVE';
+UPDATE iam_principal.device_principals
+SET inactivated_at = COALESCE(updated_at, created_at)
+WHERE status = 'INACTIVE';
+
+CREATE INDEX idx_human_principals_inactivated_at
+    ON iam_principal.human_principals (inactivated_at) WHERE status = 'INACTIVE';
+CREATE INDEX idx_service_principals_inactivated_at
+    ON iam_principal.service_principals (inactivated_at) WHERE status = 'INACTIVE';
+CREATE INDEX idx_system_principals_inactivated_at
+    ON iam_principal.system_principals (inactivated_at) WHERE status = 'INACTIVE';
+CREATE INDEX idx_device_principals_inactivated_at
+    ON iam_principal.device_principals (inactivated_at) WHERE status = 'INACTIVE';
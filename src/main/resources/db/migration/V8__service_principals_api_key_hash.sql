@@ -0,0 +1,6 @@
+-- API keys are verified by looking up the SHA-256 hash of the presented key. Without an index every verification
+-- scanned service_principals. The index is unique because a hash identifies exactly one key; anonymized principals
+-- all carry the placeholder hash 'deleted', so DELETED rows are excluded and lookups filter on the same predicate.
+
+CREATE UNIQUE INDEX idx_service_principals_api_key_hash
+    ON iam_principal.service_principals (api_key_hash) WHERE status <> 'DELETED';
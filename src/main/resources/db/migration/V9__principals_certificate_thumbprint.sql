@@ -0,0 +1,9 @@
+-- mTLS gateways resolve the thumbprint of every client certificate to a principal. Without an index each
+-- resolution scanned both tables. Thumbprints are not unique in the schema, so the indexes are not either; a
+-- thumbprint held by more than one principal is refused by the resolver instead.
+
+CREATE INDEX idx_system_principals_certificate_thumbprint
+    ON iam_principal.system_principals (certificate_thumbprint) WHERE certificate_thumbprint IS NOT NULL;
+
+CREATE INDEX idx_device_principals_certificate_thumbprint
+    ON iam_principal.device_principals (certificate_thumbprint) WHERE certificate_thumbprint IS NOT NULL;
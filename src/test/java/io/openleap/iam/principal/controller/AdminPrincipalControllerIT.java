@@ -0,0 +1,200 @@
+package io.openleap.iam.principal.controller;
+
+import io.openleap.iam.principal.controller.dto.CrossTenantSearchResponseDto;
+import io.openleap.iam.principal.controller.dto.PrincipalImportResponseDto;
+import io.openleap.iam.principal.controller.exception.PrincipalExceptionHandler;
+import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
+import io.openleap.iam.principal.domain.dto.CrossTenantPrincipalItem;
+import io.openleap.iam.principal.domain.dto.CrossTenantSearchQuery;
+import io.openleap.iam.principal.domain.dto.CrossTenantSearchResult;
+import io.openleap.iam.principal.domain.dto.PrincipalImportStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.exception.InvalidCursorException;
+import io.openleap.iam.principal.exception.PrincipalImportNotFoundException;
+import io.openleap.iam.principal.service.PrincipalService;
+import io.openleap.iam.principal.service.importing.ImportFormat;
+import io.openleap.iam.principal.service.importing.PrincipalImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AdminPrincipalController.class)
+@Import(PrincipalExceptionHandler.class)
+@DisplayName("AdminPrincipalController Integration Tests")
+class AdminPrincipalControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PrincipalService principalService;
+
+    @MockBean
+    private PrincipalMapper principalMapper;
+
+    @MockBean
+    private PrincipalImportService principalImportService;
+
+    private static final String BASE_URL = "/api/v1/iam/admin/principals";
+
+    @Nested
+    @DisplayName("GET /api/v1/iam/admin/principals - Cross-Tenant Search")
+    class SearchPrincipalsCrossTenant {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should search principals across tenants")
+        void shouldSearchPrincipalsAcrossTenants() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+            CrossTenantSearchQuery query = new CrossTenantSearchQuery(
+                    "john", PrincipalType.HUMAN, PrincipalStatus.ACTIVE, 2, 10, null);
+            CrossTenantSearchResult result = new CrossTenantSearchResult(
+                    List.of(new CrossTenantPrincipalItem(principalId, "HUMAN", "johndoe", "john@example.com", "ACTIVE", null)),
+                    11L, 2, 10, null);
+
+            CrossTenantSearchResponseDto.CrossTenantPrincipalItemDto itemDto = new CrossTenantSearchResponseDto.CrossTenantPrincipalItemDto();
+            itemDto.setPrincipalId(principalId.toString());
+            itemDto.setUsername("johndoe");
+            CrossTenantSearchResponseDto responseDto = new CrossTenantSearchResponseDto();
+            responseDto.setItems(List.of(itemDto));
+            responseDto.setTotal(11L);
+            responseDto.setPage(2);
+            responseDto.setSize(10);
+
+            when(principalMapper.toCrossTenantQuery("john", "HUMAN", "ACTIVE", 2, 10, null)).thenReturn(query);
+            when(principalService.searchPrincipalsCrossTenant(query)).thenReturn(result);
+            when(principalMapper.toResponseDto(result)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(get(BASE_URL)
+                            .param("search", "john")
+                            .param("principal_type", "HUMAN")
+                            .param("status", "ACTIVE")
+                            .param("page", "2")
+                            .param("size", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].username").value("johndoe"))
+                    .andExpect(jsonPath("$.total").value(11))
+                    .andExpect(jsonPath("$.page").value(2));
+
+            verify(principalService).searchPrincipalsCrossTenant(query);
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should pass cursor through and return next cursor")
+        void shouldSupportCursorPaging() throws Exception {
+            // given
+            CrossTenantSearchQuery query = new CrossTenantSearchQuery(null, null, null, 1, 50, "current-cursor");
+            CrossTenantSearchResult result = new CrossTenantSearchResult(List.of(), null, null, 50, "next-cursor");
+            CrossTenantSearchResponseDto responseDto = new CrossTenantSearchResponseDto();
+            responseDto.setItems(List.of());
+            responseDto.setSize(50);
+            responseDto.setNextCursor("next-cursor");
+
+            when(principalMapper.toCrossTenantQuery(null, null, null, 1, 50, "current-cursor")).thenReturn(query);
+            when(principalService.searchPrincipalsCrossTenant(query)).thenReturn(result);
+            when(principalMapper.toResponseDto(result)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(get(BASE_URL)
+                            .param("cursor", "current-cursor"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.next_cursor").value("next-cursor"));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return 400 for an invalid cursor")
+        void shouldReturnBadRequestForInvalidCursor() throws Exception {
+            // given
+            when(principalService.searchPrincipalsCrossTenant(any()))
+                    .thenThrow(new InvalidCursorException("garbage"));
+
+            // when / then
+            mockMvc.perform(get(BASE_URL)
+                            .param("cursor", "garbage"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("InvalidCursor"));
+        }
+    }
+
+    @Nested
+    @DisplayName("/api/v1/iam/admin/principals/imports - Principal Import")
+    class PrincipalImport {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should start an NDJSON import and point to its status")
+        void shouldStartImport() throws Exception {
+            // given
+            UUID jobId = UUID.randomUUID();
+            PrincipalImportStatus status = new PrincipalImportStatus(jobId, "NDJSON", "RUNNING", Instant.now(), null,
+                    0, 0, 0, 0, 0, 0, 0.0, 0, List.of(), null);
+            PrincipalImportResponseDto responseDto = new PrincipalImportResponseDto();
+            responseDto.setJobId(jobId.toString());
+            responseDto.setState("RUNNING");
+
+            when(principalImportService.startImport(any(InputStream.class), eq(ImportFormat.NDJSON))).thenReturn(status);
+            when(principalMapper.toResponseDto(status)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/imports")
+                            .with(csrf())
+                            .contentType("application/x-ndjson")
+                            .content("{\"username\":\"johndoe\",\"email\":\"john@example.com\"}\n"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", BASE_URL + "/imports/" + jobId))
+                    .andExpect(jsonPath("$.job_id").value(jobId.toString()))
+                    .andExpect(jsonPath("$.state").value("RUNNING"));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return UNSUPPORTED_MEDIA_TYPE for other formats")
+        void shouldRejectUnsupportedFormat() throws Exception {
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/imports")
+                            .with(csrf())
+                            .contentType("application/xml")
+                            .content("<principals/>"))
+                    .andExpect(status().isUnsupportedMediaType());
+
+            verifyNoInteractions(principalImportService);
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return NOT_FOUND for an unknown import")
+        void shouldReturnNotFoundForUnknownImport() throws Exception {
+            // given
+            UUID jobId = UUID.randomUUID();
+            when(principalImportService.getStatus(jobId)).thenThrow(new PrincipalImportNotFoundException(jobId));
+
+            // when / then
+            mockMvc.perform(get(BASE_URL + "/imports/" + jobId))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.error").value("ImportNotFound"));
+        }
+    }
+}
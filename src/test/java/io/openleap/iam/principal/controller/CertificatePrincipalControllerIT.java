@@ -0,0 +1,133 @@
+package io.openleap.iam.principal.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.controller.dto.ResolveCertificateRequestDto;
+import io.openleap.iam.principal.controller.dto.ResolveCertificateResponseDto;
+import io.openleap.iam.principal.controller.exception.PrincipalExceptionHandler;
+import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
+import io.openleap.iam.principal.domain.dto.CertificateResolved;
+import io.openleap.iam.principal.domain.dto.ResolveCertificateCommand;
+import io.openleap.iam.principal.service.certificate.CertificateResolutionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CertificatePrincipalController.class)
+@Import(PrincipalExceptionHandler.class)
+@DisplayName("CertificatePrincipalController Integration Tests")
+class CertificatePrincipalControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private CertificateResolutionService certificateResolutionService;
+
+    @MockBean
+    private PrincipalMapper principalMapper;
+
+    private static final String BASE_URL = "/api/v1/iam/principals";
+
+    @Nested
+    @DisplayName("POST /api/v1/iam/principals/certificates/resolve - Resolve Client Certificate")
+    class ResolveCertificate {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return the owner of a known certificate")
+        void shouldReturnOwnerOfKnownCertificate() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+
+            ResolveCertificateRequestDto request = new ResolveCertificateRequestDto();
+            request.setCertificateThumbprint("SHA256:abc123");
+
+            ResolveCertificateCommand command = new ResolveCertificateCommand("SHA256:abc123");
+            CertificateResolved resolved = new CertificateResolved(true, principalId, "SYSTEM", "ACTIVE",
+                    List.of("orders.write"));
+
+            ResolveCertificateResponseDto responseDto = new ResolveCertificateResponseDto();
+            responseDto.setValid(true);
+            responseDto.setPrincipalId(principalId.toString());
+            responseDto.setPrincipalType("SYSTEM");
+            responseDto.setStatus("ACTIVE");
+            responseDto.setAllowedOperations(List.of("orders.write"));
+
+            when(principalMapper.toCommand(any(ResolveCertificateRequestDto.class))).thenReturn(command);
+            when(certificateResolutionService.resolveCertificate(command)).thenReturn(resolved);
+            when(principalMapper.toResponseDto(resolved)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/certificates/resolve")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.valid").value(true))
+                    .andExpect(jsonPath("$.principal_id").value(principalId.toString()))
+                    .andExpect(jsonPath("$.principal_type").value("SYSTEM"))
+                    .andExpect(jsonPath("$.allowed_operations[0]").value("orders.write"));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return only valid=false for an unknown certificate")
+        void shouldReturnInvalidForUnknownCertificate() throws Exception {
+            // given
+            ResolveCertificateRequestDto request = new ResolveCertificateRequestDto();
+            request.setCertificateThumbprint("SHA256:unknown");
+
+            ResolveCertificateCommand command = new ResolveCertificateCommand("SHA256:unknown");
+            CertificateResolved resolved = new CertificateResolved(false, null, null, null, List.of());
+
+            ResolveCertificateResponseDto responseDto = new ResolveCertificateResponseDto();
+            responseDto.setValid(false);
+
+            when(principalMapper.toCommand(any(ResolveCertificateRequestDto.class))).thenReturn(command);
+            when(certificateResolutionService.resolveCertificate(command)).thenReturn(resolved);
+            when(principalMapper.toResponseDto(resolved)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/certificates/resolve")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.valid").value(false))
+                    .andExpect(jsonPath("$.principal_id").doesNotExist());
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should reject a request without thumbprint")
+        void shouldRejectMissingThumbprint() throws Exception {
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/certificates/resolve")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(certificateResolutionService);
+        }
+    }
+}
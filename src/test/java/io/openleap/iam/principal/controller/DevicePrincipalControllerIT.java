@@ -9,6 +9,7 @@ import io.openleap.iam.principal.domain.entity.DeviceType;
 import io.openleap.iam.principal.exception.DeviceIdentifierAlreadyExistsException;
 import io.openleap.iam.principal.exception.TenantNotFoundException;
 import io.openleap.iam.principal.service.DevicePrincipalService;
+import io.openleap.iam.principal.service.PrincipalService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -43,6 +45,9 @@ class DevicePrincipalControllerIT {
     @MockBean
     private DevicePrincipalService devicePrincipalService;
 
+    @MockBean
+    private PrincipalService principalService;
+
     @MockBean
     private PrincipalMapper principalMapper;
 
@@ -225,4 +230,75 @@ class DevicePrincipalControllerIT {
                     .andExpect(jsonPath("$.principalId").value(principalId.toString()));
         }
     }
+
+    @Nested
+    @DisplayName("POST /api/v1/iam/principals/heartbeats - Batch Heartbeat")
+    class BatchHeartbeat {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should record heartbeats and report unknown devices")
+        void shouldRecordHeartbeats() throws Exception {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            UUID unknownId = UUID.randomUUID();
+
+            BatchHeartbeatRequestDto.DeviceHeartbeatDto heartbeat = new BatchHeartbeatRequestDto.DeviceHeartbeatDto();
+            heartbeat.setPrincipalId(deviceId);
+            heartbeat.setFirmwareVersion("v2.0.0");
+            BatchHeartbeatRequestDto.DeviceHeartbeatDto unknown = new BatchHeartbeatRequestDto.DeviceHeartbeatDto();
+            unknown.setPrincipalId(unknownId);
+            BatchHeartbeatRequestDto request = new BatchHeartbeatRequestDto();
+            request.setHeartbeats(List.of(heartbeat, unknown));
+
+            List<UpdateHeartbeatCommand> commands = List.of(
+                    new UpdateHeartbeatCommand(deviceId, "v2.0.0", null),
+                    new UpdateHeartbeatCommand(unknownId, null, null));
+            HeartbeatsUpdated updated = new HeartbeatsUpdated(List.of(
+                    new HeartbeatsUpdated.Item(deviceId, java.time.Instant.parse("2025-01-01T00:00:00Z")),
+                    new HeartbeatsUpdated.Item(unknownId, null)));
+
+            BatchHeartbeatResponseDto.BatchHeartbeatItemDto deviceDto = new BatchHeartbeatResponseDto.BatchHeartbeatItemDto();
+            deviceDto.setId(deviceId.toString());
+            deviceDto.setFound(true);
+            deviceDto.setLastHeartbeatAt("2025-01-01T00:00:00Z");
+            BatchHeartbeatResponseDto.BatchHeartbeatItemDto unknownDto = new BatchHeartbeatResponseDto.BatchHeartbeatItemDto();
+            unknownDto.setId(unknownId.toString());
+            BatchHeartbeatResponseDto responseDto = new BatchHeartbeatResponseDto();
+            responseDto.setItems(List.of(deviceDto, unknownDto));
+            responseDto.setNotFound(List.of(unknownId.toString()));
+
+            when(principalMapper.toCommands(any(BatchHeartbeatRequestDto.class))).thenReturn(commands);
+            when(principalService.updateHeartbeats(commands)).thenReturn(updated);
+            when(principalMapper.toResponseDto(updated)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/heartbeats")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].last_heartbeat_at").value("2025-01-01T00:00:00Z"))
+                    .andExpect(jsonPath("$.items[1].found").value(false))
+                    .andExpect(jsonPath("$.not_found[0]").value(unknownId.toString()));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return BAD_REQUEST when a heartbeat has no principal ID")
+        void shouldReturnBadRequestWithoutPrincipalId() throws Exception {
+            // given
+            BatchHeartbeatRequestDto request = new BatchHeartbeatRequestDto();
+            request.setHeartbeats(List.of(new BatchHeartbeatRequestDto.DeviceHeartbeatDto()));
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/heartbeats")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(principalService);
+        }
+    }
 }
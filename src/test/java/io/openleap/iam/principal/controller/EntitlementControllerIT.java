@@ -0,0 +1,163 @@
+package io.openleap.iam.principal.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.controller.dto.CheckEntitlementsRequestDto;
+import io.openleap.iam.principal.controller.dto.CheckEntitlementsResponseDto;
+import io.openleap.iam.principal.controller.dto.EntitlementCheckResultDto;
+import io.openleap.iam.principal.controller.exception.PrincipalExceptionHandler;
+import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
+import io.openleap.iam.principal.domain.dto.CheckEntitlementsCommand;
+import io.openleap.iam.principal.domain.dto.EntitlementCheck;
+import io.openleap.iam.principal.domain.dto.EntitlementsChecked;
+import io.openleap.iam.principal.exception.PrincipalNotFoundException;
+import io.openleap.iam.principal.service.entitlement.EntitlementService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EntitlementController.class)
+@Import(PrincipalExceptionHandler.class)
+@DisplayName("EntitlementController Integration Tests")
+class EntitlementControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private EntitlementService entitlementService;
+
+    @MockBean
+    private PrincipalMapper principalMapper;
+
+    private static final String BASE_URL = "/api/v1/iam/principals";
+
+    private static EntitlementCheckResultDto resultDto(UUID principalId, String entitlement, boolean found, boolean allowed) {
+        EntitlementCheckResultDto dto = new EntitlementCheckResultDto();
+        dto.setPrincipalId(principalId.toString());
+        dto.setEntitlement(entitlement);
+        dto.setFound(found);
+        dto.setAllowed(allowed);
+        return dto;
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/iam/principals/{id}/entitlements/check - Check Entitlement")
+    class CheckEntitlement {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should answer a single check")
+        void shouldAnswerSingleCheck() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+            EntitlementCheck check = new EntitlementCheck(principalId, "orders.write");
+            EntitlementsChecked.Item item = new EntitlementsChecked.Item(principalId, "orders.write", true, true);
+
+            when(entitlementService.checkEntitlement(check)).thenReturn(item);
+            when(principalMapper.toResponseDto(item)).thenReturn(resultDto(principalId, "orders.write", true, true));
+
+            // when / then
+            mockMvc.perform(get(BASE_URL + "/{id}/entitlements/check", principalId)
+                            .param("entitlement", "orders.write"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.principal_id").value(principalId.toString()))
+                    .andExpect(jsonPath("$.allowed").value(true));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return 404 for an unknown principal")
+        void shouldReturnNotFoundForUnknownPrincipal() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(entitlementService.checkEntitlement(new EntitlementCheck(principalId, "orders.write")))
+                    .thenThrow(new PrincipalNotFoundException(principalId));
+
+            // when / then
+            mockMvc.perform(get(BASE_URL + "/{id}/entitlements/check", principalId)
+                            .param("entitlement", "orders.write"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /api/v1/iam/principals/entitlements/check - Check Entitlements in Batch")
+    class CheckEntitlements {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should answer every check of the batch")
+        void shouldAnswerBatch() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+            UUID unknownId = UUID.randomUUID();
+
+            CheckEntitlementsRequestDto.EntitlementCheckDto first = new CheckEntitlementsRequestDto.EntitlementCheckDto();
+            first.setPrincipalId(principalId);
+            first.setEntitlement("orders.write");
+            CheckEntitlementsRequestDto.EntitlementCheckDto second = new CheckEntitlementsRequestDto.EntitlementCheckDto();
+            second.setPrincipalId(unknownId);
+            second.setEntitlement("orders.write");
+            CheckEntitlementsRequestDto request = new CheckEntitlementsRequestDto();
+            request.setChecks(List.of(first, second));
+
+            CheckEntitlementsCommand command = new CheckEntitlementsCommand(List.of(
+                    new EntitlementCheck(principalId, "orders.write"), new EntitlementCheck(unknownId, "orders.write")));
+            EntitlementsChecked checked = new EntitlementsChecked(List.of(
+                    new EntitlementsChecked.Item(principalId, "orders.write", true, true),
+                    new EntitlementsChecked.Item(unknownId, "orders.write", false, false)));
+
+            CheckEntitlementsResponseDto responseDto = new CheckEntitlementsResponseDto();
+            responseDto.setItems(List.of(
+                    resultDto(principalId, "orders.write", true, true),
+                    resultDto(unknownId, "orders.write", false, false)));
+
+            when(principalMapper.toCommand(any(CheckEntitlementsRequestDto.class))).thenReturn(command);
+            when(entitlementService.checkEntitlements(command)).thenReturn(checked);
+            when(principalMapper.toResponseDto(checked)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/entitlements/check")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].allowed").value(true))
+                    .andExpect(jsonPath("$.items[1].found").value(false));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should reject an empty batch")
+        void shouldRejectEmptyBatch() throws Exception {
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/entitlements/check")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"checks\": []}"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(entitlementService);
+        }
+    }
+}
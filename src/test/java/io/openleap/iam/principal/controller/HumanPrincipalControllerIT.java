@@ -7,12 +7,17 @@ import io.openleap.iam.principal.controller.mapper.PrincipalMapper;
 import io.openleap.iam.principal.domain.dto.*;
 import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
 import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
 import io.openleap.iam.principal.exception.EmailAlreadyExistsException;
+import io.openleap.iam.principal.exception.InvalidCursorException;
+import io.openleap.iam.principal.exception.PrincipalNotFoundException;
 import io.openleap.iam.principal.exception.TenantNotFoundException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
 import io.openleap.iam.principal.repository.HumanPrincipalRepository;
 import io.openleap.iam.principal.service.HumanPrincipalService;
 import io.openleap.iam.principal.service.PrincipalService;
+import io.openleap.iam.principal.service.gdpr.GdprExportService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -24,14 +29,19 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -60,6 +70,9 @@ class HumanPrincipalControllerIT {
     @MockBean
     private PrincipalMapper principalMapper;
 
+    @MockBean
+    private GdprExportService gdprExportService;
+
     private static final String BASE_URL = "/api/v1/iam/principals";
 
     @Nested
@@ -238,6 +251,149 @@ class HumanPrincipalControllerIT {
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/v1/iam/principals/batch-get - Batch Get Principals")
+    class BatchGetPrincipals {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return principals in request order with misses")
+        void shouldReturnPrincipalsInRequestOrder() throws Exception {
+            // given
+            UUID foundId = UUID.randomUUID();
+            UUID missingId = UUID.randomUUID();
+
+            BatchGetPrincipalsRequestDto request = new BatchGetPrincipalsRequestDto();
+            request.setIds(List.of(foundId, missingId));
+
+            PrincipalDetailsBatch batch = new PrincipalDetailsBatch(List.of(
+                    new PrincipalDetailsBatch.Item(foundId, mock(PrincipalDetails.class)),
+                    new PrincipalDetailsBatch.Item(missingId, null)));
+
+            BatchGetPrincipalsResponseDto.BatchGetPrincipalItemDto foundDto = new BatchGetPrincipalsResponseDto.BatchGetPrincipalItemDto();
+            foundDto.setId(foundId.toString());
+            foundDto.setFound(true);
+            BatchGetPrincipalsResponseDto.BatchGetPrincipalItemDto missingDto = new BatchGetPrincipalsResponseDto.BatchGetPrincipalItemDto();
+            missingDto.setId(missingId.toString());
+            BatchGetPrincipalsResponseDto responseDto = new BatchGetPrincipalsResponseDto();
+            responseDto.setItems(List.of(foundDto, missingDto));
+            responseDto.setNotFound(List.of(missingId.toString()));
+
+            when(principalService.getPrincipalDetails(List.of(foundId, missingId))).thenReturn(batch);
+            when(principalMapper.toResponseDto(batch)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/batch-get")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].id").value(foundId.toString()))
+                    .andExpect(jsonPath("$.items[0].found").value(true))
+                    .andExpect(jsonPath("$.items[1].found").value(false))
+                    .andExpect(jsonPath("$.not_found[0]").value(missingId.toString()));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return BAD_REQUEST when too many IDs are requested")
+        void shouldReturnBadRequestWhenTooManyIds() throws Exception {
+            // given
+            BatchGetPrincipalsRequestDto request = new BatchGetPrincipalsRequestDto();
+            request.setIds(java.util.stream.Stream.generate(UUID::randomUUID)
+                    .limit(BatchGetPrincipalsRequestDto.MAX_IDS + 1)
+                    .toList());
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/batch-get")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("ValidationFailed"));
+
+            verifyNoInteractions(principalService);
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /api/v1/iam/principals/bulk - Bulk Create Human Principals")
+    class BulkCreateHumanPrincipals {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should report created and rejected principals per item")
+        void shouldReportItemsInRequestOrder() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+
+            BulkCreateHumanPrincipalsRequestDto request = new BulkCreateHumanPrincipalsRequestDto();
+            request.setPrincipals(List.of(
+                    bulkItem("jane.doe", "jane@example.com"),
+                    bulkItem("john.doe", "john@example.com")));
+
+            List<CreateHumanPrincipalCommand> commands = List.of(mock(CreateHumanPrincipalCommand.class));
+            HumanPrincipalsCreated created = new HumanPrincipalsCreated(List.of(
+                    HumanPrincipalsCreated.Item.created("jane.doe", principalId),
+                    HumanPrincipalsCreated.Item.rejected("john.doe", "UsernameAlreadyExists", "Username already exists: john.doe")));
+
+            BulkCreateHumanPrincipalsResponseDto.BulkCreateItemDto createdDto = new BulkCreateHumanPrincipalsResponseDto.BulkCreateItemDto();
+            createdDto.setUsername("jane.doe");
+            createdDto.setId(principalId.toString());
+            BulkCreateHumanPrincipalsResponseDto.BulkCreateItemDto rejectedDto = new BulkCreateHumanPrincipalsResponseDto.BulkCreateItemDto();
+            rejectedDto.setIndex(1);
+            rejectedDto.setUsername("john.doe");
+            rejectedDto.setError("UsernameAlreadyExists");
+            BulkCreateHumanPrincipalsResponseDto responseDto = new BulkCreateHumanPrincipalsResponseDto();
+            responseDto.setCreated(1);
+            responseDto.setFailed(1);
+            responseDto.setItems(List.of(createdDto, rejectedDto));
+
+            when(principalMapper.toCommands(any(BulkCreateHumanPrincipalsRequestDto.class))).thenReturn(commands);
+            when(humanPrincipalService.createHumanPrincipals(commands)).thenReturn(created);
+            when(principalMapper.toResponseDto(created)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/bulk")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(1))
+                    .andExpect(jsonPath("$.failed").value(1))
+                    .andExpect(jsonPath("$.items[0].id").value(principalId.toString()))
+                    .andExpect(jsonPath("$.items[0].error").doesNotExist())
+                    .andExpect(jsonPath("$.items[1].error").value("UsernameAlreadyExists"));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return BAD_REQUEST when an item is invalid")
+        void shouldReturnBadRequestWhenItemIsInvalid() throws Exception {
+            // given
+            BulkCreateHumanPrincipalsRequestDto request = new BulkCreateHumanPrincipalsRequestDto();
+            request.setPrincipals(List.of(bulkItem("jane.doe", "not-an-email")));
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/bulk")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("ValidationFailed"));
+
+            verifyNoInteractions(humanPrincipalService);
+        }
+
+        private CreateHumanPrincipalRequestDto bulkItem(String username, String email) {
+            CreateHumanPrincipalRequestDto item = new CreateHumanPrincipalRequestDto();
+            item.setUsername(username);
+            item.setEmail(email);
+            item.setDefaultTenantId(UUID.randomUUID());
+            return item;
+        }
+    }
+
     @Nested
     @DisplayName("PATCH /api/v1/iam/principals/{id}/profile - Update Profile")
     class UpdateProfile {
@@ -463,7 +619,7 @@ class HumanPrincipalControllerIT {
             );
 
             SearchPrincipalsResult result = new SearchPrincipalsResult(
-                    List.of(item), 1, 1, 50
+                    List.of(item), 1L, 1, 50, null
             );
 
             when(principalService.searchPrincipals(any(SearchPrincipalsQuery.class))).thenReturn(result);
@@ -485,7 +641,7 @@ class HumanPrincipalControllerIT {
         void shouldReturnEmptyResultsWhenNoMatch() throws Exception {
             // given
             SearchPrincipalsResult result = new SearchPrincipalsResult(
-                    List.of(), 0, 1, 50
+                    List.of(), 0L, 1, 50, null
             );
 
             when(principalService.searchPrincipals(any(SearchPrincipalsQuery.class))).thenReturn(result);
@@ -499,5 +655,154 @@ class HumanPrincipalControllerIT {
                     .andExpect(jsonPath("$.total").value(0))
                     .andExpect(jsonPath("$.items").isEmpty());
         }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should pass cursor through and return next cursor")
+        void shouldSupportCursorPaging() throws Exception {
+            // given
+            SearchPrincipalsQuery query = new SearchPrincipalsQuery(null, null, null, null, 1, 50, "current-cursor");
+            SearchPrincipalsResult result = new SearchPrincipalsResult(
+                    List.of(), null, null, 50, "next-cursor"
+            );
+            SearchPrincipalsResponseDto responseDto = new SearchPrincipalsResponseDto();
+            responseDto.setItems(List.of());
+            responseDto.setSize(50);
+            responseDto.setNextCursor("next-cursor");
+
+            when(principalMapper.toQuery(null, null, null, null, 1, 50, "current-cursor")).thenReturn(query);
+            when(principalService.searchPrincipals(query)).thenReturn(result);
+            when(principalMapper.toResponseDto(result)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(get(BASE_URL)
+                            .param("cursor", "current-cursor")
+                            .param("size", "50"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.next_cursor").value("next-cursor"))
+                    .andExpect(jsonPath("$.total").doesNotExist());
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return 400 for an invalid cursor")
+        void shouldReturnBadRequestForInvalidCursor() throws Exception {
+            // given
+            when(principalService.searchPrincipals(any()))
+                    .thenThrow(new InvalidCursorException("garbage"));
+
+            // when / then
+            mockMvc.perform(get(BASE_URL)
+                            .param("cursor", "garbage"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("InvalidCursor"));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/iam/principals/export - Export Principals")
+    class ExportPrincipals {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should stream one NDJSON line per exported principal")
+        void shouldStreamNdjson() throws Exception {
+            // given
+            UUID tenantId = UUID.randomUUID();
+            PrincipalExportQuery query = new PrincipalExportQuery(null, PrincipalStatus.ACTIVE, tenantId);
+            PrincipalExportItem first = new PrincipalExportItem(UUID.randomUUID(), "HUMAN", "johndoe",
+                    "john@example.com", PrincipalStatus.ACTIVE, tenantId, Instant.parse("2025-01-01T00:00:00Z"));
+            PrincipalExportItem second = new PrincipalExportItem(UUID.randomUUID(), "DEVICE", "sensor-1",
+                    null, PrincipalStatus.ACTIVE, tenantId, Instant.parse("2025-01-02T00:00:00Z"));
+
+            when(principalMapper.toExportQuery(null, "ACTIVE", tenantId)).thenReturn(query);
+            when(principalMapper.toExportItemDto(any())).thenAnswer(invocation -> {
+                PrincipalExportItem item = invocation.getArgument(0);
+                PrincipalExportItemDto dto = new PrincipalExportItemDto();
+                dto.setId(item.principalId().toString());
+                dto.setPrincipalType(item.principalType());
+                dto.setUsername(item.username());
+                return dto;
+            });
+            when(principalService.exportPrincipals(eq(query), any())).thenAnswer(invocation -> {
+                Consumer<PrincipalExportItem> sink = invocation.getArgument(1);
+                sink.accept(first);
+                sink.accept(second);
+                return 2L;
+            });
+
+            // when
+            String body = mockMvc.perform(get(BASE_URL + "/export")
+                            .param("status", "ACTIVE")
+                            .param("tenant_id", tenantId.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                    .andReturn().getResponse().getContentAsString();
+
+            // then
+            String[] lines = body.split("\n");
+            assertThat(body).endsWith("\n");
+            assertThat(lines).hasSize(2);
+            assertThat(objectMapper.readTree(lines[0]).get("username").asText()).isEqualTo("johndoe");
+            assertThat(objectMapper.readTree(lines[1]).get("principal_type").asText()).isEqualTo("DEVICE");
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return an empty body when nothing matches")
+        void shouldReturnEmptyBody() throws Exception {
+            // given
+            PrincipalExportQuery query = new PrincipalExportQuery(PrincipalType.SERVICE, null, null);
+            when(principalMapper.toExportQuery("SERVICE", null, null)).thenReturn(query);
+            when(principalService.exportPrincipals(eq(query), any())).thenReturn(0L);
+
+            // when / then
+            mockMvc.perform(get(BASE_URL + "/export")
+                            .param("principal_type", "SERVICE"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(""));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/v1/iam/principals/{id}/gdpr/export - GDPR Export")
+    class GdprExport {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should stream the export as a JSON attachment")
+        void shouldStreamExport() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+            GdprExportService.GdprExport export = mock(GdprExportService.GdprExport.class);
+            doAnswer(invocation -> {
+                invocation.<OutputStream>getArgument(0).write("{\"principal_type\":\"HUMAN\"}".getBytes(StandardCharsets.UTF_8));
+                return null;
+            }).when(export).writeTo(any());
+            when(gdprExportService.exportHumanPrincipal(PrincipalId.of(principalId))).thenReturn(export);
+
+            // when / then
+            mockMvc.perform(get(BASE_URL + "/" + principalId + "/gdpr/export"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"principal-" + principalId + ".json\""))
+                    .andExpect(jsonPath("$.principal_type").value("HUMAN"));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return 404 for an unknown principal")
+        void shouldReturnNotFound() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(gdprExportService.exportHumanPrincipal(PrincipalId.of(principalId)))
+                    .thenThrow(new PrincipalNotFoundException(principalId));
+
+            // when / then
+            mockMvc.perform(get(BASE_URL + "/" + principalId + "/gdpr/export"))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.error").value("PrincipalNotFound"))
+                    .andExpect(header().doesNotExist("Content-Disposition"));
+        }
     }
 }
@@ -211,4 +211,85 @@ class ServicePrincipalControllerIT {
                     .andExpect(status().isInternalServerError());
         }
     }
+
+    @Nested
+    @DisplayName("POST /api/v1/iam/principals/service/verify-api-key - Verify API Key")
+    class VerifyApiKey {
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return the owner of a valid key")
+        void shouldReturnOwnerOfValidKey() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+
+            VerifyApiKeyRequestDto request = new VerifyApiKeyRequestDto();
+            request.setApiKey("sk_live_testApiKey");
+
+            VerifyApiKeyCommand command = new VerifyApiKeyCommand("sk_live_testApiKey");
+            ApiKeyVerified verified = new ApiKeyVerified(true, principalId, "ACTIVE", List.of("payments.read"));
+
+            VerifyApiKeyResponseDto responseDto = new VerifyApiKeyResponseDto();
+            responseDto.setValid(true);
+            responseDto.setPrincipalId(principalId.toString());
+            responseDto.setStatus("ACTIVE");
+            responseDto.setAllowedScopes(List.of("payments.read"));
+
+            when(principalMapper.toCommand(any(VerifyApiKeyRequestDto.class))).thenReturn(command);
+            when(servicePrincipalService.verifyApiKey(command)).thenReturn(verified);
+            when(principalMapper.toResponseDto(verified)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/service/verify-api-key")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.valid").value(true))
+                    .andExpect(jsonPath("$.principal_id").value(principalId.toString()))
+                    .andExpect(jsonPath("$.allowed_scopes[0]").value("payments.read"));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should return only valid=false for an unknown key")
+        void shouldReturnInvalidForUnknownKey() throws Exception {
+            // given
+            VerifyApiKeyRequestDto request = new VerifyApiKeyRequestDto();
+            request.setApiKey("sk_live_unknown");
+
+            VerifyApiKeyCommand command = new VerifyApiKeyCommand("sk_live_unknown");
+            ApiKeyVerified verified = new ApiKeyVerified(false, null, null, List.of());
+
+            VerifyApiKeyResponseDto responseDto = new VerifyApiKeyResponseDto();
+            responseDto.setValid(false);
+
+            when(principalMapper.toCommand(any(VerifyApiKeyRequestDto.class))).thenReturn(command);
+            when(servicePrincipalService.verifyApiKey(command)).thenReturn(verified);
+            when(principalMapper.toResponseDto(verified)).thenReturn(responseDto);
+
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/service/verify-api-key")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.valid").value(false))
+                    .andExpect(jsonPath("$.principal_id").doesNotExist());
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("should reject a request without key")
+        void shouldRejectMissingKey() throws Exception {
+            // when / then
+            mockMvc.perform(post(BASE_URL + "/service/verify-api-key")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(servicePrincipalService);
+        }
+    }
 }
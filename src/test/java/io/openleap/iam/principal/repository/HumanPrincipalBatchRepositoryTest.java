@@ -0,0 +1,159 @@
+package io.openleap.iam.principal.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.SyncStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@DisplayName("HumanPrincipalBatchRepository Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class HumanPrincipalBatchRepositoryTest {
+
+    private static final UUID CREATED_BY = UUID.randomUUID();
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private HumanPrincipalBatchRepository humanPrincipalBatchRepository;
+
+    @BeforeEach
+    void setUp() {
+        humanPrincipalBatchRepository = new HumanPrincipalBatchRepository(jdbcTemplate, new ObjectMapper());
+        when(jdbcTemplate.queryForList(contains("nextval"), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(50L));
+    }
+
+    private static HumanPrincipalEntity principal(String username) {
+        HumanPrincipalEntity principal = new HumanPrincipalEntity();
+        principal.setBusinessId(PrincipalId.create());
+        principal.setUsername(username);
+        principal.setEmail(username + "@example.com");
+        principal.setDisplayName(username);
+        principal.setStatus(PrincipalStatus.PENDING);
+        principal.setSyncStatus(SyncStatus.PENDING);
+        return principal;
+    }
+
+    private static UUID businessId(HumanPrincipalEntity principal) {
+        return principal.getBusinessId().value();
+    }
+
+    private Set<UUID> insertAll(HumanPrincipalEntity... principals) {
+        return humanPrincipalBatchRepository.insertAll(List.of(principals), CREATED_BY, Instant.now());
+    }
+
+    private void stubClaimed(UUID... businessIds) {
+        when(jdbcTemplate.queryForList(contains("FROM iam_principal.principal_registry"),
+                any(MapSqlParameterSource.class), eq(UUID.class))).thenReturn(List.of(businessIds));
+    }
+
+    private void stubInserted(UUID... businessIds) {
+        when(jdbcTemplate.queryForList(contains("FROM iam_principal.human_principals"),
+                any(MapSqlParameterSource.class), eq(UUID.class))).thenReturn(List.of(businessIds));
+    }
+
+    @Nested
+    @DisplayName("insertAll")
+    class InsertAll {
+
+        @Test
+        @DisplayName("should claim usernames in the registry before inserting the rows")
+        void shouldClaimUsernamesBeforeInserting() {
+            // given
+            HumanPrincipalEntity alice = principal("alice");
+            HumanPrincipalEntity bob = principal("bob");
+            stubClaimed(businessId(alice), businessId(bob));
+            stubInserted(businessId(alice), businessId(bob));
+
+            // when
+            Set<UUID> inserted = insertAll(alice, bob);
+
+            // then
+            assertThat(inserted).containsExactlyInAnyOrder(businessId(alice), businessId(bob));
+            ArgumentCaptor<SqlParameterSource[]> claims = ArgumentCaptor.forClass(SqlParameterSource[].class);
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO iam_principal.principal_registry"),
+                    claims.capture());
+            assertThat(claims.getValue()).extracting(claim -> claim.getValue("id")).containsExactly(1L, 2L);
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO iam_principal.human_principals"),
+                    any(SqlParameterSource[].class));
+            verify(jdbcTemplate, never()).update(any(String.class), any(SqlParameterSource.class));
+        }
+
+        @Test
+        @DisplayName("should skip a row whose username is taken by a principal of another type")
+        void shouldSkipRowWithUsernameTakenAcrossTypes() {
+            // given
+            HumanPrincipalEntity alice = principal("alice");
+            HumanPrincipalEntity billing = principal("billing");
+            stubClaimed(businessId(alice));
+            stubInserted(businessId(alice));
+
+            // when
+            Set<UUID> inserted = insertAll(alice, billing);
+
+            // then
+            assertThat(inserted).containsExactly(businessId(alice));
+            ArgumentCaptor<SqlParameterSource[]> rows = ArgumentCaptor.forClass(SqlParameterSource[].class);
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO iam_principal.human_principals"), rows.capture());
+            assertThat(rows.getValue()).extracting(row -> row.getValue("username")).containsExactly("alice");
+        }
+
+        @Test
+        @DisplayName("should release the claim of a row skipped by the principal table")
+        void shouldReleaseClaimOfSkippedRow() {
+            // given
+            HumanPrincipalEntity alice = principal("alice");
+            HumanPrincipalEntity bob = principal("bob");
+            stubClaimed(businessId(alice), businessId(bob));
+            stubInserted(businessId(alice));
+
+            // when
+            Set<UUID> inserted = insertAll(alice, bob);
+
+            // then
+            assertThat(inserted).containsExactly(businessId(alice));
+            ArgumentCaptor<MapSqlParameterSource> released = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+            verify(jdbcTemplate).update(startsWith("DELETE FROM iam_principal.principal_registry"), released.capture());
+            assertThat(released.getValue().getValue("businessIds")).isEqualTo(List.of(businessId(bob)));
+        }
+
+        @Test
+        @DisplayName("should insert nothing when no username could be claimed")
+        void shouldInsertNothingWithoutClaims() {
+            // given
+            HumanPrincipalEntity alice = principal("alice");
+            stubClaimed();
+
+            // when
+            Set<UUID> inserted = insertAll(alice);
+
+            // then
+            assertThat(inserted).isEmpty();
+            verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT INTO iam_principal.human_principals"),
+                    any(SqlParameterSource[].class));
+        }
+    }
+}
@@ -10,10 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -363,6 +367,126 @@ class HumanPrincipalRepositoryIT {
             assertThat(resultUpper.getTotalElements()).isEqualTo(1);
             assertThat(resultMixed.getTotalElements()).isEqualTo(1);
         }
+
+        @Test
+        @DisplayName("should search principals by display name partial match")
+        void shouldSearchByDisplayNamePartialMatch() {
+            // given
+            HumanPrincipalEntity john = createPrincipal("jdoe", "jdoe@example.com");
+            john.setDisplayName("Johnathan Doe");
+            entityManager.persistAndFlush(john);
+            entityManager.persistAndFlush(createPrincipal("bsmith", "bsmith@example.com"));
+
+            // when
+            Page<HumanPrincipalEntity> result = humanPrincipalRepository.searchPrincipals(
+                    "nathan", null, null, PageRequest.of(0, 10));
+
+            // then
+            assertThat(result.getContent())
+                    .extracting(HumanPrincipalEntity::getUsername)
+                    .containsExactly("jdoe");
+        }
+
+        @Test
+        @DisplayName("should treat LIKE wildcards in the search term literally")
+        void shouldTreatWildcardsLiterally() {
+            // given
+            entityManager.persistAndFlush(createPrincipal("john_doe", "john_doe@example.com"));
+            entityManager.persistAndFlush(createPrincipal("johnxdoe", "johnxdoe@example.com"));
+
+            // when
+            Page<HumanPrincipalEntity> result = humanPrincipalRepository.searchPrincipals(
+                    "n_d", null, null, PageRequest.of(0, 10));
+
+            // then
+            assertThat(result.getContent())
+                    .extracting(HumanPrincipalEntity::getUsername)
+                    .containsExactly("john_doe");
+        }
+    }
+
+    @Nested
+    @DisplayName("searchPrincipalsAfter")
+    class SearchPrincipalsAfter {
+
+        @Test
+        @DisplayName("should page through principals with equal creation times without gaps or duplicates")
+        void shouldPageThroughWithoutGapsOrDuplicates() {
+            // given
+            Instant createdAt = Instant.parse("2025-01-01T00:00:00Z");
+            for (int i = 1; i <= 5; i++) {
+                HumanPrincipalEntity principal = createPrincipal("user" + i, "user" + i + "@example.com");
+                principal.setCreatedAt(createdAt);
+                entityManager.persistAndFlush(principal);
+            }
+
+            // when
+            List<HumanPrincipalEntity> seen = new ArrayList<>();
+            Instant afterCreatedAt = Instant.parse("2100-01-01T00:00:00Z");
+            Long afterId = Long.MAX_VALUE;
+            List<HumanPrincipalEntity> slice;
+            do {
+                slice = humanPrincipalRepository.searchPrincipalsAfter(
+                        null, null, null, afterCreatedAt, afterId, Limit.of(2));
+                seen.addAll(slice);
+                if (!slice.isEmpty()) {
+                    afterCreatedAt = slice.getLast().getCreatedAt();
+                    afterId = slice.getLast().getId();
+                }
+            } while (!slice.isEmpty());
+
+            // then
+            assertThat(seen)
+                    .extracting(HumanPrincipalEntity::getUsername)
+                    .containsExactly("user5", "user4", "user3", "user2", "user1");
+        }
+
+        @Test
+        @DisplayName("should apply search filter after the cursor")
+        void shouldApplySearchFilter() {
+            // given
+            entityManager.persistAndFlush(createPrincipal("johndoe", "john@example.com"));
+            entityManager.persistAndFlush(createPrincipal("bobsmith", "bob@example.com"));
+
+            // when
+            List<HumanPrincipalEntity> result = humanPrincipalRepository.searchPrincipalsAfter(
+                    "doe", null, null, Instant.parse("2100-01-01T00:00:00Z"), Long.MAX_VALUE, Limit.of(10));
+
+            // then
+            assertThat(result)
+                    .extracting(HumanPrincipalEntity::getUsername)
+                    .containsExactly("johndoe");
+        }
+    }
+
+    @Nested
+    @DisplayName("id allocation")
+    class IdAllocation {
+
+        @Test
+        @DisplayName("should take ids from human_principals_seq in blocks of 50")
+        void shouldTakeIdsFromSequenceInBlocks() {
+            // given
+            List<HumanPrincipalEntity> principals = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                principals.add(createPrincipal("pooled" + i, "pooled" + i + "@example.com"));
+            }
+
+            // when
+            principals.forEach(entityManager::persist);
+            entityManager.flush();
+            long nextSequenceValue = ((Number) entityManager.getEntityManager()
+                    .createNativeQuery("SELECT NEXT VALUE FOR human_principals_seq")
+                    .getSingleResult()).longValue();
+
+            // then
+            long firstId = principals.getFirst().getId();
+            assertThat(principals)
+                    .extracting(HumanPrincipalEntity::getId)
+                    .containsExactly(firstId, firstId + 1, firstId + 2);
+            assertThat(nextSequenceValue - firstId).isGreaterThanOrEqualTo(50);
+            assertThat(nextSequenceValue).isGreaterThan(firstId + 2);
+        }
     }
 
     // Helper methods
@@ -0,0 +1,86 @@
+package io.openleap.iam.principal.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the API-key operations on the authentication path. Not run by the test suite; run
+ * {@link #main} after {@code test-compile}, see "Benchmarks" in the README. The GC profiler reports allocations
+ * per operation as {@code gc.alloc.rate.norm}.
+ * <p>
+ * Keys are verified by looking up their hash, so {@link #matches} is only a baseline for a verification that
+ * compares the key against a stored hash in constant time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CredentialServiceBenchmark {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private CredentialService credentialService;
+    private String apiKey;
+    private String apiKeyHash;
+    private String otherApiKeyHash;
+
+    @Setup
+    public void setUp() {
+        credentialService = new CredentialService();
+        apiKey = credentialService.generateApiKey();
+        apiKeyHash = credentialService.hashApiKey(apiKey);
+        otherApiKeyHash = credentialService.hashApiKey(credentialService.generateApiKey());
+    }
+
+    @Benchmark
+    public String generateApiKey() {
+        return credentialService.generateApiKey();
+    }
+
+    @Benchmark
+    public String hashApiKey() {
+        return credentialService.hashApiKey(apiKey);
+    }
+
+    @Benchmark
+    public boolean matchesApiKey() {
+        return matches(apiKey, apiKeyHash);
+    }
+
+    @Benchmark
+    public boolean matchesApiKeyMismatch() {
+        return matches(apiKey, otherApiKeyHash);
+    }
+
+    private boolean matches(String apiKey, String apiKeyHash) {
+        return MessageDigest.isEqual(HEX.parseHex(credentialService.hashApiKey(apiKey)), HEX.parseHex(apiKeyHash));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CredentialServiceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -5,6 +5,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DisplayName("CredentialService Unit Tests")
@@ -141,6 +147,30 @@ class CredentialServiceTest {
             assertThat(hash).isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
         }
 
+        @Test
+        @DisplayName("should produce the same hash on every thread")
+        void shouldProduceSameHashOnEveryThread() throws Exception {
+            // given
+            String apiKey = "sk_live_sharedKey";
+            String expected = credentialService.hashApiKey(apiKey);
+
+            // when
+            List<String> hashes;
+            try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+                List<Future<String>> futures = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    futures.add(executor.submit(() -> credentialService.hashApiKey(apiKey)));
+                }
+                hashes = new ArrayList<>();
+                for (Future<String> future : futures) {
+                    hashes.add(future.get());
+                }
+            }
+
+            // then
+            assertThat(hashes).containsOnly(expected);
+        }
+
         @Test
         @DisplayName("should handle unicode characters")
         void shouldHandleUnicodeCharacters() {
@@ -8,8 +8,9 @@ import io.openleap.iam.principal.exception.DeviceIdentifierAlreadyExistsExceptio
 import io.openleap.iam.principal.exception.TenantNotFoundException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
 import io.openleap.iam.principal.repository.DevicePrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
 import io.openleap.iam.principal.repository.PrincipalTenantMembershipRepository;
-import io.openleap.common.messaging.event.EventPublisher;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -34,11 +35,14 @@ class DevicePrincipalServiceTest {
     @Mock
     private DevicePrincipalRepository devicePrincipalRepository;
 
+    @Mock
+    private PrincipalRegistryRepository principalRegistryRepository;
+
     @Mock
     private TenantService tenantService;
 
     @Mock
-    private EventPublisher eventPublisher;
+    private PrincipalEventOutbox principalEventOutbox;
 
     @Mock
     private DevicePrincipalMapper devicePrincipalMapper;
@@ -49,8 +53,9 @@ class DevicePrincipalServiceTest {
     void setUp() {
         devicePrincipalService = new DevicePrincipalService(
                 devicePrincipalRepository,
+                principalRegistryRepository,
                 tenantService,
-                eventPublisher,
+                principalEventOutbox,
                 devicePrincipalMapper
         );
     }
@@ -77,7 +82,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("DEVICE_SENSOR_001")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("device_sensor_001")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("device_sensor_001")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             DevicePrincipalEntity savedEntity = createDevicePrincipalEntity("device_sensor_001", "DEVICE_SENSOR_001");
@@ -154,7 +159,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(true);
+            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(true);
 
             // when / then
             assertThatThrownBy(() -> devicePrincipalService.createDevicePrincipal(command))
@@ -182,7 +187,7 @@ class DevicePrincipalServiceTest {
 //            );
 //
 //            when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-//            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(false);
+//            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(false);
 //
 //            // when / then
@@ -210,7 +215,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             // when / then
@@ -239,7 +244,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             // when / then
@@ -266,7 +271,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             ArgumentCaptor<DevicePrincipalEntity> captor = ArgumentCaptor.forClass(DevicePrincipalEntity.class);
@@ -302,7 +307,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             ArgumentCaptor<DevicePrincipalEntity> captor = ArgumentCaptor.forClass(DevicePrincipalEntity.class);
@@ -338,7 +343,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("MY_DEVICE_ID")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("my_device_id")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("my_device_id")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             ArgumentCaptor<DevicePrincipalEntity> captor = ArgumentCaptor.forClass(DevicePrincipalEntity.class);
@@ -374,7 +379,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             DevicePrincipalEntity savedEntity = new DevicePrincipalEntity();
@@ -425,7 +430,7 @@ class DevicePrincipalServiceTest {
             );
 
             when(devicePrincipalRepository.existsByDeviceIdentifier("NEW_DEVICE")).thenReturn(false);
-            when(devicePrincipalRepository.existsByUsername("new_device")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_device")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             ArgumentCaptor<DevicePrincipalEntity> captor = ArgumentCaptor.forClass(DevicePrincipalEntity.class);
@@ -2,22 +2,30 @@ package io.openleap.iam.principal.service;
 
 import io.openleap.iam.principal.domain.dto.CreateHumanPrincipalCommand;
 import io.openleap.iam.principal.domain.dto.HumanPrincipalCreated;
+import io.openleap.iam.principal.domain.dto.HumanPrincipalsCreated;
 import io.openleap.iam.principal.domain.dto.ProfileDetails;
 import io.openleap.iam.principal.domain.dto.ProfileUpdated;
 import io.openleap.iam.principal.domain.dto.UpdateProfileCommand;
 import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
 import io.openleap.iam.principal.domain.entity.PrincipalId;
 import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
 import io.openleap.iam.principal.domain.entity.SyncStatus;
 import io.openleap.iam.principal.domain.mapper.HumanPrincipalMapper;
 import io.openleap.iam.principal.exception.EmailAlreadyExistsException;
 import io.openleap.iam.principal.exception.InactivePrincipalFoundException;
 import io.openleap.iam.principal.exception.TenantNotFoundException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
+import io.openleap.iam.principal.repository.HumanPrincipalBatchRepository;
+import io.openleap.iam.principal.repository.HumanPrincipalBatchRepository.EmailOwner;
 import io.openleap.iam.principal.repository.HumanPrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
 import io.openleap.iam.principal.repository.PrincipalTenantMembershipRepository;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
 import io.openleap.iam.principal.service.keycloak.KeycloakService;
-import io.openleap.common.messaging.event.EventPublisher;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import io.openleap.iam.principal.service.sync.KeycloakImportRequested;
+import io.openleap.iam.principal.service.sync.KeycloakSyncRequested;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -26,10 +34,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.AuditorAware;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -43,6 +57,9 @@ class HumanPrincipalServiceTest {
     @Mock
     private HumanPrincipalRepository humanPrincipalRepository;
 
+    @Mock
+    private PrincipalRegistryRepository principalRegistryRepository;
+
 
     @Mock
     private TenantService tenantService;
@@ -51,20 +68,33 @@ class HumanPrincipalServiceTest {
     private KeycloakService keycloakService;
 
     @Mock
-    private EventPublisher eventPublisher;
+    private PrincipalEventOutbox principalEventOutbox;
 
     private HumanPrincipalService humanPrincipalService;
     @Mock
     private HumanPrincipalMapper humanPrincipalMapper;
+    @Mock
+    private PrincipalCache principalCache;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Mock
+    private HumanPrincipalBatchRepository humanPrincipalBatchRepository;
+    @Mock
+    private ObjectProvider<AuditorAware<UUID>> auditorAware;
 
     @BeforeEach
     void setUp() {
         humanPrincipalService = new HumanPrincipalService(
                 humanPrincipalRepository,
+                principalRegistryRepository,
                 keycloakService,
                 tenantService,
-                eventPublisher,
-                humanPrincipalMapper
+                principalEventOutbox,
+                humanPrincipalMapper,
+                principalCache,
+                applicationEventPublisher,
+                humanPrincipalBatchRepository,
+                auditorAware
         );
     }
 
@@ -94,18 +124,17 @@ class HumanPrincipalServiceTest {
                     Map.of("theme", "dark")
             );
 
-            when(humanPrincipalRepository.existsByUsername("johndoe")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("johndoe")).thenReturn(false);
             when(humanPrincipalRepository.findInactiveByEmail("john@example.com")).thenReturn(Optional.empty());
             when(humanPrincipalRepository.existsByEmail("john@example.com")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
-            when(keycloakService.createUser(any())).thenReturn("keycloak-user-id");
 
             HumanPrincipalEntity savedEntity = createHumanPrincipalEntity("johndoe", "john@example.com");
             when(humanPrincipalRepository.save(any(HumanPrincipalEntity.class))).thenReturn(savedEntity);
 
             HumanPrincipalCreated expectedCreated = new HumanPrincipalCreated(
                     savedEntity.getBusinessId().value(), "HUMAN", "johndoe", "john@example.com", tenantId,
-                    "PENDING", null, "SYNCED", null, null,
+                    "PENDING", null, "PENDING", null, null,
                     null, false, false, null, "johndoe",
                     "John", "Doe", null, null, null, null, null, null, null
             );
@@ -117,9 +146,11 @@ class HumanPrincipalServiceTest {
             // then
             assertThat(result).isNotNull();
             assertThat(result.id()).isEqualTo(savedEntity.getBusinessId().value());
-            verify(humanPrincipalRepository, times(2)).save(any(HumanPrincipalEntity.class));
+            verify(humanPrincipalRepository).save(any(HumanPrincipalEntity.class));
 //            verify(membershipRepository).save(any());
-            verify(keycloakService).createUser(any());
+            verify(keycloakService, never()).createUser(any());
+            verify(applicationEventPublisher).publishEvent(
+                    new KeycloakSyncRequested(PrincipalType.HUMAN, savedEntity.getBusinessId()));
         }
 
         @Test
@@ -127,7 +158,7 @@ class HumanPrincipalServiceTest {
         void shouldThrowExceptionWhenUsernameExists() {
             // given
             CreateHumanPrincipalCommand command = createCommand("existinguser", "new@example.com");
-            when(humanPrincipalRepository.existsByUsername("existinguser")).thenReturn(true);
+            when(principalRegistryRepository.existsByUsername("existinguser")).thenReturn(true);
 
             // when / then
             assertThatThrownBy(() -> humanPrincipalService.createHumanPrincipal(command))
@@ -143,7 +174,7 @@ class HumanPrincipalServiceTest {
         void shouldThrowExceptionWhenEmailExists() {
             // given
             CreateHumanPrincipalCommand command = createCommand("newuser", "existing@example.com");
-            when(humanPrincipalRepository.existsByUsername("newuser")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("newuser")).thenReturn(false);
             when(humanPrincipalRepository.findInactiveByEmail("existing@example.com")).thenReturn(Optional.empty());
             when(humanPrincipalRepository.existsByEmail("existing@example.com")).thenReturn(true);
 
@@ -163,7 +194,7 @@ class HumanPrincipalServiceTest {
             HumanPrincipalEntity inactivePrincipal = createHumanPrincipalEntity("olduser", "inactive@example.com");
             inactivePrincipal.setStatus(PrincipalStatus.INACTIVE);
 
-            when(humanPrincipalRepository.existsByUsername("newuser")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("newuser")).thenReturn(false);
             when(humanPrincipalRepository.findInactiveByEmail("inactive@example.com"))
                     .thenReturn(Optional.of(inactivePrincipal));
 
@@ -180,7 +211,7 @@ class HumanPrincipalServiceTest {
 //            // given
 //            UUID tenantId = UUID.randomUUID();
 //            CreateHumanPrincipalCommand command = createCommand("newuser", "new@example.com", tenantId);
-//            when(humanPrincipalRepository.existsByUsername("newuser")).thenReturn(false);
+//            when(principalRegistryRepository.existsByUsername("newuser")).thenReturn(false);
 //            when(humanPrincipalRepository.findInactiveByEmail("new@example.com")).thenReturn(Optional.empty());
 //            when(humanPrincipalRepository.existsByEmail("new@example.com")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(false);
@@ -193,12 +224,12 @@ class HumanPrincipalServiceTest {
 //        }
 
         @Test
-        @DisplayName("should throw exception when Keycloak sync fails")
-        void shouldThrowExceptionWhenKeycloakFails() {
+        @DisplayName("should leave Keycloak provisioning to the sync pipeline")
+        void shouldDeferKeycloakProvisioning() {
             // given
             UUID tenantId = UUID.randomUUID();
             CreateHumanPrincipalCommand command = createCommand("newuser", "new@example.com", tenantId);
-            when(humanPrincipalRepository.existsByUsername("newuser")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("newuser")).thenReturn(false);
             when(humanPrincipalRepository.findInactiveByEmail("new@example.com")).thenReturn(Optional.empty());
             when(humanPrincipalRepository.existsByEmail("new@example.com")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
@@ -210,12 +241,15 @@ class HumanPrincipalServiceTest {
                 return entity;
             });
 
-            when(keycloakService.createUser(any())).thenThrow(new RuntimeException("Keycloak error"));
+            // when
+            humanPrincipalService.createHumanPrincipal(command);
 
-            // when / then
-            assertThatThrownBy(() -> humanPrincipalService.createHumanPrincipal(command))
-                    .isInstanceOf(RuntimeException.class)
-                    .hasMessageContaining("Keycloak");
+            // then
+            HumanPrincipalEntity saved = captor.getValue();
+            assertThat(saved.getSyncStatus()).isEqualTo(SyncStatus.PENDING);
+            assertThat(saved.getKeycloakUserId()).isNull();
+            verifyNoInteractions(keycloakService);
+            verify(applicationEventPublisher).publishEvent(new KeycloakSyncRequested(PrincipalType.HUMAN, saved.getBusinessId()));
         }
 
         @Test
@@ -224,11 +258,10 @@ class HumanPrincipalServiceTest {
             // given
             UUID tenantId = UUID.randomUUID();
             CreateHumanPrincipalCommand command = createCommand("newuser", "new@example.com", tenantId);
-            when(humanPrincipalRepository.existsByUsername("newuser")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("newuser")).thenReturn(false);
             when(humanPrincipalRepository.findInactiveByEmail("new@example.com")).thenReturn(Optional.empty());
             when(humanPrincipalRepository.existsByEmail("new@example.com")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
-            when(keycloakService.createUser(any())).thenReturn("keycloak-user-id");
 
             ArgumentCaptor<HumanPrincipalEntity> captor = ArgumentCaptor.forClass(HumanPrincipalEntity.class);
             when(humanPrincipalRepository.save(captor.capture())).thenAnswer(inv -> {
@@ -246,6 +279,80 @@ class HumanPrincipalServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("createHumanPrincipals")
+    class CreateHumanPrincipals {
+
+        @Test
+        @DisplayName("should insert accepted principals in one batch and report rejected ones per row")
+        @SuppressWarnings("unchecked")
+        void shouldReportRejectedPrincipalsPerRow() {
+            // given
+            UUID inactiveId = UUID.randomUUID();
+            List<CreateHumanPrincipalCommand> commands = List.of(
+                    bulkCommand("alice", "alice@example.com"),
+                    bulkCommand("bob", "bob@example.com"),
+                    bulkCommand("carol", "carol@example.com"),
+                    bulkCommand("dave", "dave@example.com"),
+                    bulkCommand("alice2", "alice@example.com"));
+
+            when(humanPrincipalBatchRepository.findTakenUsernames(Set.of("alice", "bob", "carol", "dave", "alice2")))
+                    .thenReturn(Set.of("bob"));
+            when(humanPrincipalBatchRepository.findEmailOwners(
+                    Set.of("alice@example.com", "bob@example.com", "carol@example.com", "dave@example.com")))
+                    .thenReturn(Map.of(
+                            "carol@example.com", new EmailOwner(UUID.randomUUID(), PrincipalStatus.ACTIVE),
+                            "dave@example.com", new EmailOwner(inactiveId, PrincipalStatus.INACTIVE)));
+            when(humanPrincipalBatchRepository.insertAll(any(), any(), any())).thenAnswer(invocation ->
+                    Set.copyOf(((List<HumanPrincipalEntity>) invocation.getArgument(0)).stream()
+                            .map(principal -> principal.getBusinessId().value())
+                            .toList()));
+
+            // when
+            HumanPrincipalsCreated result = humanPrincipalService.createHumanPrincipals(commands);
+
+            // then
+            assertThat(result.items()).extracting(HumanPrincipalsCreated.Item::error)
+                    .containsExactly(null, "UsernameAlreadyExists", "EmailAlreadyExists", "InactivePrincipalFound",
+                            "DuplicateInRequest");
+            assertThat(result.items().get(3).message()).contains(inactiveId.toString());
+            assertThat(result.createdCount()).isEqualTo(1);
+
+            ArgumentCaptor<List<HumanPrincipalEntity>> inserted = ArgumentCaptor.forClass(List.class);
+            verify(humanPrincipalBatchRepository).insertAll(inserted.capture(), eq(new UUID(0L, 0L)), any());
+            assertThat(inserted.getValue()).extracting(HumanPrincipalEntity::getUsername).containsExactly("alice");
+            assertThat(inserted.getValue().getFirst().getSyncStatus()).isEqualTo(SyncStatus.PENDING);
+            verify(applicationEventPublisher).publishEvent(new KeycloakImportRequested(List.of(result.items().getFirst().id())));
+            verify(humanPrincipalRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should report rows lost to a concurrent insert as conflicts")
+        void shouldReportConcurrentConflicts() {
+            // given
+            when(humanPrincipalBatchRepository.findTakenUsernames(any())).thenReturn(Set.of());
+            when(humanPrincipalBatchRepository.findEmailOwners(any())).thenReturn(Map.of());
+            when(humanPrincipalBatchRepository.insertAll(any(), any(), any())).thenReturn(Set.of());
+
+            // when
+            HumanPrincipalsCreated result = humanPrincipalService.createHumanPrincipals(
+                    List.of(bulkCommand("alice", "alice@example.com")));
+
+            // then
+            assertThat(result.items()).singleElement()
+                    .satisfies(item -> {
+                        assertThat(item.isCreated()).isFalse();
+                        assertThat(item.error()).isEqualTo("Conflict");
+                    });
+            verify(applicationEventPublisher, never()).publishEvent(any(Object.class));
+        }
+
+        private CreateHumanPrincipalCommand bulkCommand(String username, String email) {
+            return new CreateHumanPrincipalCommand(username, email, UUID.randomUUID(), null, null,
+                    null, null, null, null, null, null, null, null, null);
+        }
+    }
+
     @Nested
     @DisplayName("updateProfile")
     class UpdateProfile {
@@ -285,6 +392,7 @@ class HumanPrincipalServiceTest {
             assertThat(result.changedFields()).isNotEmpty();
             verify(humanPrincipalRepository).save(any());
             verify(keycloakService).updateUser(eq("keycloak-123"), any());
+            verify(principalCache).invalidate(PrincipalId.of(principalId));
         }
 
         @Test
@@ -346,6 +454,7 @@ class HumanPrincipalServiceTest {
             // then
             assertThat(result.changedFields()).isEmpty();
             verify(humanPrincipalRepository, never()).save(any());
+            verify(principalCache, never()).invalidate(any());
         }
 
         @Test
@@ -377,6 +486,13 @@ class HumanPrincipalServiceTest {
     @DisplayName("getProfile")
     class GetProfile {
 
+        @BeforeEach
+        @SuppressWarnings("unchecked")
+        void loadThroughCache() {
+            when(principalCache.getProfile(any(PrincipalId.class), any()))
+                    .thenAnswer(inv -> inv.getArgument(1, Function.class).apply(inv.getArgument(0)));
+        }
+
         @Test
         @DisplayName("should return profile details successfully")
         void shouldReturnProfileDetailsSuccessfully() {
@@ -8,8 +8,12 @@ import io.openleap.iam.principal.domain.mapper.PrincipalEventMapper;
 import io.openleap.iam.principal.domain.mapper.ServicePrincipalMapper;
 import io.openleap.iam.principal.domain.mapper.SystemPrincipalMapper;
 import io.openleap.iam.principal.repository.*;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import io.openleap.iam.principal.service.heartbeat.HeartbeatBuffer;
+import io.openleap.iam.principal.service.liveness.DeviceLivenessService;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import io.openleap.iam.principal.service.search.PrincipalSearchService;
 import io.openleap.iam.principal.service.keycloak.KeycloakService;
-import io.openleap.common.messaging.event.EventPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -21,13 +25,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @DisplayName("PrincipalService Unit Tests")
@@ -46,11 +56,14 @@ class PrincipalServiceTest {
     @Mock
     private DevicePrincipalRepository devicePrincipalRepository;
 
+    @Mock
+    private PrincipalRegistryRepository principalRegistryRepository;
+
     @Mock
     private KeycloakService keycloakService;
 
     @Mock
-    private EventPublisher eventPublisher;
+    private PrincipalEventOutbox principalEventOutbox;
 
     @Mock
     private ServicePrincipalMapper servicePrincipalMapper;
@@ -61,6 +74,21 @@ class PrincipalServiceTest {
     @Mock
     private PrincipalEventMapper principalEventMapper;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private PrincipalSearchService principalSearchService;
+
+    @Mock
+    private HeartbeatBuffer heartbeatBuffer;
+
+    @Mock
+    private DeviceHeartbeatRepository deviceHeartbeatRepository;
+
+    @Mock
+    private DeviceLivenessService deviceLivenessService;
+
     private PrincipalService principalService;
 
     @BeforeEach
@@ -70,11 +98,17 @@ class PrincipalServiceTest {
                 servicePrincipalRepository,
                 systemPrincipalRepository,
                 devicePrincipalRepository,
+                principalRegistryRepository,
                 keycloakService,
-                eventPublisher,
+                principalEventOutbox,
                 servicePrincipalMapper,
                 systemPrincipalMapper,
-                principalEventMapper
+                principalEventMapper,
+                principalCache,
+                principalSearchService,
+                heartbeatBuffer,
+                deviceHeartbeatRepository,
+                deviceLivenessService
         );
     }
 
@@ -88,6 +122,7 @@ class PrincipalServiceTest {
             // given
             UUID principalId = UUID.randomUUID();
             HumanPrincipalEntity humanPrincipal = createHumanPrincipal(principalId);
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(humanPrincipal));
 
             // when
@@ -105,7 +140,7 @@ class PrincipalServiceTest {
             // given
             UUID principalId = UUID.randomUUID();
             ServicePrincipalEntity servicePrincipal = createServicePrincipal(principalId);
-            when(servicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.SERVICE));
             when(servicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(servicePrincipal));
 
             // when
@@ -121,10 +156,7 @@ class PrincipalServiceTest {
         void shouldReturnEmptyWhenNotFound() {
             // given
             UUID principalId = UUID.randomUUID();
-            when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
-            when(servicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
-            when(systemPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
-            when(devicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
 
             // when
             Optional<Principal> result = principalService.findPrincipalByBusinessId(PrincipalId.of(principalId));
@@ -151,6 +183,7 @@ class PrincipalServiceTest {
                     principalId, null, true, "Admin activation"
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
             when(humanPrincipalRepository.save(any())).thenReturn(principal);
 
@@ -171,10 +204,7 @@ class PrincipalServiceTest {
             UUID principalId = UUID.randomUUID();
             ActivatePrincipalCommand command = new ActivatePrincipalCommand(principalId, null, false, null);
 
-            when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
-            when(servicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
-            when(systemPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
-            when(devicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
 
             // when / then
             assertThatThrownBy(() -> principalService.activatePrincipal(command))
@@ -192,6 +222,7 @@ class PrincipalServiceTest {
 
             ActivatePrincipalCommand command = new ActivatePrincipalCommand(principalId, null, false, null);
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
 
             // when / then
@@ -214,6 +245,7 @@ class PrincipalServiceTest {
                     principalId, "verification-token", false, null
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
             when(humanPrincipalRepository.save(any())).thenReturn(principal);
 
@@ -242,11 +274,12 @@ class PrincipalServiceTest {
                     principalId, "Security concern", "INC-12345"
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
             when(humanPrincipalRepository.save(any())).thenReturn(principal);
-            when(principalEventMapper.toPrincipalSuspendedEvent(any(), any())).thenReturn(
-                    new PrincipalSuspendedEvent(principalId, "HUMAN", "SUSPENDED", "Security concern", "INC-12345")
-            );
+            PrincipalSuspendedEvent event =
+                    new PrincipalSuspendedEvent(principalId, "HUMAN", "SUSPENDED", "Security concern", "INC-12345");
+            when(principalEventMapper.toPrincipalSuspendedEvent(any(), any())).thenReturn(event);
 
             // when
             PrincipalSuspended result = principalService.suspendPrincipal(command);
@@ -256,6 +289,8 @@ class PrincipalServiceTest {
             assertThat(result.id()).isEqualTo(principalId);
             assertThat(principal.getStatus()).isEqualTo(PrincipalStatus.SUSPENDED);
             verify(keycloakService).updateUser(eq("keycloak-123"), any());
+            verify(principalCache).invalidate(PrincipalId.of(principalId));
+            verify(principalEventOutbox).append(PrincipalId.of(principalId), "iam.principal.principal.suspended", event);
         }
 
         @Test
@@ -268,6 +303,7 @@ class PrincipalServiceTest {
 
             SuspendPrincipalCommand command = new SuspendPrincipalCommand(principalId, "Reason", null);
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
 
             // when / then
@@ -318,6 +354,7 @@ class PrincipalServiceTest {
                     principalId, "Left company", LocalDate.now()
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
             when(humanPrincipalRepository.save(any())).thenReturn(principal);
             when(principalEventMapper.toPrincipalDeactivatedEvent(any(), any())).thenReturn(
@@ -330,6 +367,7 @@ class PrincipalServiceTest {
             // then
             assertThat(result).isNotNull();
             assertThat(principal.getStatus()).isEqualTo(PrincipalStatus.INACTIVE);
+            assertThat(principal.getInactivatedAt()).isNotNull();
         }
 
         @Test
@@ -344,6 +382,7 @@ class PrincipalServiceTest {
                     principalId, "Account terminated", LocalDate.now()
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
             when(humanPrincipalRepository.save(any())).thenReturn(principal);
             when(principalEventMapper.toPrincipalDeactivatedEvent(any(), any())).thenReturn(
@@ -368,6 +407,7 @@ class PrincipalServiceTest {
 
             DeactivatePrincipalCommand command = new DeactivatePrincipalCommand(principalId, "Reason", null);
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
 
             // when / then
@@ -395,6 +435,7 @@ class PrincipalServiceTest {
                     principalId, "DELETE", "GDPR-12345", "requestor@example.com"
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
             when(humanPrincipalRepository.save(any())).thenReturn(principal);
 //            when(membershipRepository.findByPrincipalId(principalId)).thenReturn(List.of());
@@ -423,6 +464,7 @@ class PrincipalServiceTest {
                     principalId, "DELETE", "GDPR-12345", "requestor@example.com"
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
 
             // when / then
@@ -444,6 +486,30 @@ class PrincipalServiceTest {
                     principalId, "DELETE", "GDPR-12345", "requestor@example.com"
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
+            when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
+
+            // when / then
+            assertThatThrownBy(() -> principalService.deletePrincipalGdpr(command))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("30 days");
+        }
+
+        @Test
+        @DisplayName("should measure retention from deactivation, not from the last update")
+        void shouldMeasureRetentionFromDeactivation() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            HumanPrincipalEntity principal = createHumanPrincipal(principalId);
+            principal.setStatus(PrincipalStatus.INACTIVE);
+            principal.setUpdatedAt(Instant.now().minus(Duration.ofDays(31)));
+            principal.setInactivatedAt(Instant.now().minus(Duration.ofDays(5)));
+
+            DeletePrincipalGdprCommand command = new DeletePrincipalGdprCommand(
+                    principalId, "DELETE", "GDPR-12345", "requestor@example.com"
+            );
+
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
 
             // when / then
@@ -466,6 +532,7 @@ class PrincipalServiceTest {
             principal.setApiKeyHash("someHash");
             principal.setCredentialRotationDate(LocalDate.now().plusDays(30));
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.SERVICE));
             when(servicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
 
             CredentialStatus expectedStatus = new CredentialStatus(
@@ -493,6 +560,7 @@ class PrincipalServiceTest {
             UUID principalId = UUID.randomUUID();
             HumanPrincipalEntity principal = createHumanPrincipal(principalId);
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
 
             // when / then
@@ -507,18 +575,16 @@ class PrincipalServiceTest {
     class UpdateHeartbeat {
 
         @Test
-        @DisplayName("should update device heartbeat successfully")
+        @DisplayName("should buffer device heartbeat without loading the device")
         void shouldUpdateHeartbeatSuccessfully() {
             // given
             UUID principalId = UUID.randomUUID();
-            DevicePrincipalEntity device = createDevicePrincipal(principalId);
 
             UpdateHeartbeatCommand command = new UpdateHeartbeatCommand(
                     principalId, "v2.0.0", Map.of("location", "New location")
             );
 
-            when(devicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(device));
-            when(devicePrincipalRepository.save(any())).thenReturn(device);
+            when(devicePrincipalRepository.existsByBusinessId(principalId)).thenReturn(true);
 
             // when
             HeartbeatUpdated result = principalService.updateHeartbeat(command);
@@ -527,8 +593,11 @@ class PrincipalServiceTest {
             assertThat(result).isNotNull();
             assertThat(result.id()).isEqualTo(principalId);
             assertThat(result.lastHeartbeatAt()).isNotNull();
-            assertThat(device.getFirmwareVersion()).isEqualTo("v2.0.0");
-            assertThat(device.getLocationInfo()).containsEntry("location", "New location");
+            verify(heartbeatBuffer).offer(new DeviceHeartbeat(
+                    principalId, result.lastHeartbeatAt(), "v2.0.0", Map.of("location", "New location")));
+            verify(deviceLivenessService).recordHeartbeat(principalId, result.lastHeartbeatAt());
+            verify(devicePrincipalRepository, never()).findByBusinessId(any(PrincipalId.class));
+            verify(devicePrincipalRepository, never()).save(any());
         }
 
         @Test
@@ -538,12 +607,60 @@ class PrincipalServiceTest {
             UUID principalId = UUID.randomUUID();
             UpdateHeartbeatCommand command = new UpdateHeartbeatCommand(principalId, null, null);
 
-            when(devicePrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.empty());
+            when(devicePrincipalRepository.existsByBusinessId(principalId)).thenReturn(false);
 
             // when / then
             assertThatThrownBy(() -> principalService.updateHeartbeat(command))
                     .isInstanceOf(RuntimeException.class)
                     .hasMessageContaining("not found");
+            verifyNoInteractions(heartbeatBuffer);
+        }
+    }
+
+    @Nested
+    @DisplayName("updateHeartbeats")
+    class UpdateHeartbeats {
+
+        @Test
+        @DisplayName("should write existing devices in one batch and report unknown ones")
+        void shouldWriteExistingDevicesInOneBatch() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            UUID unknownId = UUID.randomUUID();
+            List<UpdateHeartbeatCommand> commands = List.of(
+                    new UpdateHeartbeatCommand(deviceId, "v1", null),
+                    new UpdateHeartbeatCommand(unknownId, null, null),
+                    new UpdateHeartbeatCommand(deviceId, null, Map.of("site", "A")));
+
+            when(deviceHeartbeatRepository.findExisting(Set.of(deviceId, unknownId))).thenReturn(Set.of(deviceId));
+
+            // when
+            HeartbeatsUpdated result = principalService.updateHeartbeats(commands);
+
+            // then
+            assertThat(result.items()).extracting(HeartbeatsUpdated.Item::id).containsExactly(deviceId, unknownId, deviceId);
+            assertThat(result.items()).extracting(HeartbeatsUpdated.Item::found).containsExactly(true, false, true);
+            Instant recordedAt = result.items().get(0).lastHeartbeatAt();
+            verify(deviceHeartbeatRepository).updateHeartbeats(List.of(
+                    new DeviceHeartbeat(deviceId, recordedAt, "v1", Map.of("site", "A"))));
+            verify(deviceLivenessService).recordHeartbeat(deviceId, recordedAt);
+            verify(deviceLivenessService, never()).recordHeartbeat(eq(unknownId), any());
+            verifyNoInteractions(heartbeatBuffer);
+        }
+
+        @Test
+        @DisplayName("should not write when no device exists")
+        void shouldNotWriteWhenNoDeviceExists() {
+            // given
+            UUID unknownId = UUID.randomUUID();
+            when(deviceHeartbeatRepository.findExisting(Set.of(unknownId))).thenReturn(Set.of());
+
+            // when
+            HeartbeatsUpdated result = principalService.updateHeartbeats(List.of(new UpdateHeartbeatCommand(unknownId, null, null)));
+
+            // then
+            assertThat(result.items()).singleElement().extracting(HeartbeatsUpdated.Item::found).isEqualTo(false);
+            verify(deviceHeartbeatRepository, never()).updateHeartbeats(any());
         }
     }
 
@@ -562,6 +679,7 @@ class PrincipalServiceTest {
                     principalId, Map.of("tag1", "value1", "tag2", "value2")
             );
 
+            when(principalRegistryRepository.findPrincipalTypeByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(PrincipalType.HUMAN));
             when(humanPrincipalRepository.findByBusinessId(PrincipalId.of(principalId))).thenReturn(Optional.of(principal));
             when(humanPrincipalRepository.save(any())).thenReturn(principal);
 
@@ -575,6 +693,61 @@ class PrincipalServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("getPrincipalDetails (batch)")
+    class GetPrincipalDetailsBatch {
+
+        @BeforeEach
+        void loadThroughCache() {
+            when(principalCache.getAllDetails(any(), any())).thenAnswer(invocation -> {
+                Collection<PrincipalId> principalIds = invocation.getArgument(0);
+                Function<Set<? extends PrincipalId>, Map<PrincipalId, PrincipalDetails>> loader = invocation.getArgument(1);
+                return loader.apply(new HashSet<>(principalIds));
+            });
+        }
+
+        @Test
+        @DisplayName("should return details in request order with explicit misses")
+        void shouldReturnDetailsInRequestOrder() {
+            // given
+            UUID humanId = UUID.randomUUID();
+            UUID deviceId = UUID.randomUUID();
+            UUID missingId = UUID.randomUUID();
+            when(humanPrincipalRepository.findAllByBusinessIdIn(any())).thenReturn(List.of(createHumanPrincipal(humanId)));
+            when(servicePrincipalRepository.findAllByBusinessIdIn(any())).thenReturn(List.of());
+            when(systemPrincipalRepository.findAllByBusinessIdIn(any())).thenReturn(List.of());
+            when(devicePrincipalRepository.findAllByBusinessIdIn(any())).thenReturn(List.of(createDevicePrincipal(deviceId)));
+
+            // when
+            PrincipalDetailsBatch result = principalService.getPrincipalDetails(List.of(deviceId, missingId, humanId, deviceId));
+
+            // then
+            assertThat(result.items()).extracting(PrincipalDetailsBatch.Item::id)
+                    .containsExactly(deviceId, missingId, humanId, deviceId);
+            assertThat(result.items()).extracting(PrincipalDetailsBatch.Item::found)
+                    .containsExactly(true, false, true, true);
+            assertThat(result.items().get(0).details().principalType()).isEqualTo("DEVICE");
+            assertThat(result.items().get(2).details().username()).isEqualTo("testuser");
+            verify(principalCache).getAllDetails(eq(Set.of(PrincipalId.of(deviceId), PrincipalId.of(missingId), PrincipalId.of(humanId))), any());
+        }
+
+        @Test
+        @DisplayName("should skip the remaining tables once every ID is resolved")
+        void shouldStopAfterAllIdsResolved() {
+            // given
+            UUID humanId = UUID.randomUUID();
+            when(humanPrincipalRepository.findAllByBusinessIdIn(any())).thenReturn(List.of(createHumanPrincipal(humanId)));
+
+            // when
+            PrincipalDetailsBatch result = principalService.getPrincipalDetails(List.of(humanId));
+
+            // then
+            assertThat(result.items()).singleElement().extracting(PrincipalDetailsBatch.Item::found).isEqualTo(true);
+            verifyNoInteractions(servicePrincipalRepository, systemPrincipalRepository, devicePrincipalRepository);
+            verifyNoInteractions(principalRegistryRepository);
+        }
+    }
+
     // Helper methods
 
     private HumanPrincipalEntity createHumanPrincipal(UUID principalId) {
@@ -1,9 +1,12 @@
 package io.openleap.iam.principal.service;
 
+import io.openleap.iam.principal.domain.dto.ApiKeyOwner;
+import io.openleap.iam.principal.domain.dto.ApiKeyVerified;
 import io.openleap.iam.principal.domain.dto.CreateServicePrincipalCommand;
 import io.openleap.iam.principal.domain.dto.CredentialsRotated;
 import io.openleap.iam.principal.domain.dto.RotateCredentialsCommand;
 import io.openleap.iam.principal.domain.dto.ServicePrincipalCreated;
+import io.openleap.iam.principal.domain.dto.VerifyApiKeyCommand;
 import io.openleap.iam.principal.domain.entity.PrincipalId;
 import io.openleap.iam.principal.domain.entity.PrincipalStatus;
 import io.openleap.iam.principal.domain.entity.ServicePrincipalEntity;
@@ -13,9 +16,12 @@ import io.openleap.iam.principal.domain.event.ServicePrincipalCreatedEvent;
 import io.openleap.iam.principal.domain.mapper.ServicePrincipalMapper;
 import io.openleap.iam.principal.exception.ServiceNameAlreadyExistsException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
 import io.openleap.iam.principal.repository.ServicePrincipalRepository;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
 import io.openleap.iam.principal.service.keycloak.KeycloakService;
-import io.openleap.common.messaging.event.EventPublisher;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import io.openleap.iam.principal.service.sync.KeycloakSyncService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -24,18 +30,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @DisplayName("ServicePrincipalService Unit Tests")
@@ -45,6 +54,9 @@ class ServicePrincipalServiceTest {
     @Mock
     private ServicePrincipalRepository servicePrincipalRepository;
 
+    @Mock
+    private PrincipalRegistryRepository principalRegistryRepository;
+
     @Mock
     private KeycloakService keycloakService;
 
@@ -52,21 +64,34 @@ class ServicePrincipalServiceTest {
     private CredentialService credentialService;
 
     @Mock
-    private EventPublisher eventPublisher;
+    private PrincipalEventOutbox principalEventOutbox;
 
     @Mock
     private ServicePrincipalMapper servicePrincipalMapper;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private KeycloakSyncService keycloakSyncService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private ServicePrincipalService servicePrincipalService;
 
     @BeforeEach
     void setUp() {
         servicePrincipalService = new ServicePrincipalService(
                 servicePrincipalRepository,
+                principalRegistryRepository,
                 keycloakService,
                 credentialService,
-                eventPublisher,
-                servicePrincipalMapper
+                principalEventOutbox,
+                servicePrincipalMapper,
+                principalCache,
+                keycloakSyncService,
+                new TransactionTemplate(transactionManager)
         );
     }
 
@@ -87,10 +112,10 @@ class ServicePrincipalServiceTest {
             );
 
             when(servicePrincipalRepository.existsByServiceName("PaymentService")).thenReturn(false);
-            when(servicePrincipalRepository.existsByUsername("paymentservice")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("paymentservice")).thenReturn(false);
             when(credentialService.generateApiKey()).thenReturn("sk_live_testApiKey123");
             when(credentialService.hashApiKey("sk_live_testApiKey123")).thenReturn("hashedApiKey");
-            when(keycloakService.createClient(anyString(), anyList())).thenReturn("keycloak-client-secret");
+            when(keycloakSyncService.provisionClient(any())).thenReturn(Optional.of("keycloak-client-secret"));
 
             ServicePrincipalEntity savedEntity = createServicePrincipalEntity("paymentservice", "PaymentService");
             when(servicePrincipalRepository.save(any(ServicePrincipalEntity.class))).thenReturn(savedEntity);
@@ -122,8 +147,10 @@ class ServicePrincipalServiceTest {
             assertThat(result.keycloakClientSecret()).isEqualTo("keycloak-client-secret");
             verify(credentialService).generateApiKey();
             verify(credentialService).hashApiKey("sk_live_testApiKey123");
-            verify(keycloakService).createClient(eq("PaymentService"), anyList());
+            verify(keycloakSyncService).provisionClient(savedEntity);
+            verify(transactionManager).commit(any());
             verify(servicePrincipalMapper).toServicePrincipalCreatedEvent(any());
+            verify(principalEventOutbox).append(savedEntity.getBusinessId(), "iam.principal.service_principal.created", mockEvent);
             verify(servicePrincipalMapper).toServicePrincipalCreated(any(), eq("sk_live_testApiKey123"), eq("PaymentService"), eq("keycloak-client-secret"));
         }
 
@@ -147,7 +174,8 @@ class ServicePrincipalServiceTest {
                     .hasMessageContaining("ExistingService");
 
             verify(servicePrincipalRepository, never()).save(any());
-            verify(keycloakService, never()).createClient(any(), any());
+            verify(keycloakSyncService, never()).provisionClient(any());
+            verify(transactionManager).rollback(any());
         }
 
         @Test
@@ -163,7 +191,7 @@ class ServicePrincipalServiceTest {
             );
 
             when(servicePrincipalRepository.existsByServiceName("NewService")).thenReturn(false);
-            when(servicePrincipalRepository.existsByUsername("newservice")).thenReturn(true);
+            when(principalRegistryRepository.existsByUsername("newservice")).thenReturn(true);
 
             // when / then
             assertThatThrownBy(() -> servicePrincipalService.createServicePrincipal(command))
@@ -186,7 +214,7 @@ class ServicePrincipalServiceTest {
 //            );
 //
 //            when(servicePrincipalRepository.existsByServiceName("NewService")).thenReturn(false);
-//            when(servicePrincipalRepository.existsByUsername("newservice")).thenReturn(false);
+//            when(principalRegistryRepository.existsByUsername("newservice")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(false);
 //
 //            // when / then
@@ -197,8 +225,8 @@ class ServicePrincipalServiceTest {
 //        }
 
         @Test
-        @DisplayName("should rollback when Keycloak client creation fails")
-        void shouldRollbackWhenKeycloakFails() {
+        @DisplayName("should keep principal and defer sync when Keycloak client creation fails")
+        void shouldDeferSyncWhenKeycloakFails() {
             // given
             UUID tenantId = UUID.randomUUID();
             CreateServicePrincipalCommand command = new CreateServicePrincipalCommand(
@@ -209,17 +237,22 @@ class ServicePrincipalServiceTest {
             );
 
             when(servicePrincipalRepository.existsByServiceName("NewService")).thenReturn(false);
-            when(servicePrincipalRepository.existsByUsername("newservice")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("newservice")).thenReturn(false);
 //            when(tenantService.tenantExists(tenantId)).thenReturn(true);
             when(credentialService.generateApiKey()).thenReturn("sk_live_test");
             when(credentialService.hashApiKey(any())).thenReturn("hash");
-            when(servicePrincipalRepository.save(any())).thenReturn(createServicePrincipalEntity("newservice", "NewService"));
-            when(keycloakService.createClient(any(), any())).thenThrow(new RuntimeException("Keycloak error"));
+            ServicePrincipalEntity savedEntity = createServicePrincipalEntity("newservice", "NewService");
+            when(servicePrincipalRepository.save(any())).thenReturn(savedEntity);
+            when(keycloakSyncService.provisionClient(savedEntity)).thenReturn(Optional.empty());
+            when(servicePrincipalMapper.toServicePrincipalCreatedEvent(any())).thenReturn(mock(ServicePrincipalCreatedEvent.class));
+            when(servicePrincipalMapper.toServicePrincipalCreated(any(), any(), any(), any())).thenReturn(mock(ServicePrincipalCreated.class));
 
-            // when / then
-            assertThatThrownBy(() -> servicePrincipalService.createServicePrincipal(command))
-                    .isInstanceOf(RuntimeException.class)
-                    .hasMessageContaining("Keycloak");
+            // when
+            servicePrincipalService.createServicePrincipal(command);
+
+            // then
+            verify(transactionManager).commit(any());
+            verify(servicePrincipalMapper).toServicePrincipalCreated(savedEntity, "sk_live_test", null, null);
         }
 
         @Test
@@ -235,10 +268,10 @@ class ServicePrincipalServiceTest {
             );
 
             when(servicePrincipalRepository.existsByServiceName("NewService")).thenReturn(false);
-            when(servicePrincipalRepository.existsByUsername("newservice")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("newservice")).thenReturn(false);
             when(credentialService.generateApiKey()).thenReturn("sk_live_test");
             when(credentialService.hashApiKey(any())).thenReturn("hash");
-            when(keycloakService.createClient(any(), any())).thenReturn("secret");
+            when(keycloakSyncService.provisionClient(any())).thenReturn(Optional.of("secret"));
             when(servicePrincipalMapper.toServicePrincipalCreatedEvent(any())).thenReturn(mock(ServicePrincipalCreatedEvent.class));
             when(servicePrincipalMapper.toServicePrincipalCreated(any(), any(), any(), any())).thenReturn(mock(ServicePrincipalCreated.class));
 
@@ -270,10 +303,10 @@ class ServicePrincipalServiceTest {
             );
 
             when(servicePrincipalRepository.existsByServiceName("NewService")).thenReturn(false);
-            when(servicePrincipalRepository.existsByUsername("newservice")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("newservice")).thenReturn(false);
             when(credentialService.generateApiKey()).thenReturn("sk_live_test");
             when(credentialService.hashApiKey(any())).thenReturn("hash");
-            when(keycloakService.createClient(any(), any())).thenReturn("secret");
+            when(keycloakSyncService.provisionClient(any())).thenReturn(Optional.of("secret"));
             when(servicePrincipalMapper.toServicePrincipalCreatedEvent(any())).thenReturn(mock(ServicePrincipalCreatedEvent.class));
             when(servicePrincipalMapper.toServicePrincipalCreated(any(), any(), any(), any())).thenReturn(mock(ServicePrincipalCreated.class));
 
@@ -306,10 +339,10 @@ class ServicePrincipalServiceTest {
             );
 
             when(servicePrincipalRepository.existsByServiceName("MyServiceName")).thenReturn(false);
-            when(servicePrincipalRepository.existsByUsername("myservicename")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("myservicename")).thenReturn(false);
             when(credentialService.generateApiKey()).thenReturn("sk_live_test");
             when(credentialService.hashApiKey(any())).thenReturn("hash");
-            when(keycloakService.createClient(any(), any())).thenReturn("secret");
+            when(keycloakSyncService.provisionClient(any())).thenReturn(Optional.of("secret"));
             when(servicePrincipalMapper.toServicePrincipalCreatedEvent(any())).thenReturn(mock(ServicePrincipalCreatedEvent.class));
             when(servicePrincipalMapper.toServicePrincipalCreated(any(), any(), any(), any())).thenReturn(mock(ServicePrincipalCreated.class));
 
@@ -484,6 +517,71 @@ class ServicePrincipalServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("verifyApiKey")
+    class VerifyApiKey {
+
+        @SuppressWarnings("unchecked")
+        private void loadThroughCache() {
+            when(principalCache.getApiKeyOwner(eq("hash"), any()))
+                    .thenAnswer(invocation -> ((Function<String, ApiKeyOwner>) invocation.getArgument(1)).apply("hash"));
+        }
+
+        @Test
+        @DisplayName("should accept the key of an ACTIVE service principal")
+        void shouldAcceptKeyOfActivePrincipal() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(credentialService.hashApiKey("sk_live_key")).thenReturn("hash");
+            loadThroughCache();
+            when(servicePrincipalRepository.findApiKeyOwner("hash")).thenReturn(Optional.of(
+                    new ApiKeyOwner(principalId, PrincipalStatus.ACTIVE, List.of("payments.read"))));
+
+            // when
+            ApiKeyVerified result = servicePrincipalService.verifyApiKey(new VerifyApiKeyCommand("sk_live_key"));
+
+            // then
+            assertThat(result.valid()).isTrue();
+            assertThat(result.principalId()).isEqualTo(principalId);
+            assertThat(result.allowedScopes()).containsExactly("payments.read");
+        }
+
+        @Test
+        @DisplayName("should reject the key of a suspended service principal without its scopes")
+        void shouldRejectKeyOfSuspendedPrincipal() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(credentialService.hashApiKey("sk_live_key")).thenReturn("hash");
+            loadThroughCache();
+            when(servicePrincipalRepository.findApiKeyOwner("hash")).thenReturn(Optional.of(
+                    new ApiKeyOwner(principalId, PrincipalStatus.SUSPENDED, List.of("payments.read"))));
+
+            // when
+            ApiKeyVerified result = servicePrincipalService.verifyApiKey(new VerifyApiKeyCommand("sk_live_key"));
+
+            // then
+            assertThat(result.valid()).isFalse();
+            assertThat(result.status()).isEqualTo("SUSPENDED");
+            assertThat(result.allowedScopes()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should reject an unknown key")
+        void shouldRejectUnknownKey() {
+            // given
+            when(credentialService.hashApiKey("sk_live_unknown")).thenReturn("hash");
+            loadThroughCache();
+            when(servicePrincipalRepository.findApiKeyOwner("hash")).thenReturn(Optional.empty());
+
+            // when
+            ApiKeyVerified result = servicePrincipalService.verifyApiKey(new VerifyApiKeyCommand("sk_live_unknown"));
+
+            // then
+            assertThat(result.valid()).isFalse();
+            assertThat(result.principalId()).isNull();
+        }
+    }
+
     // Helper methods
 
     private ServicePrincipalEntity createServicePrincipalEntity(String username, String serviceName) {
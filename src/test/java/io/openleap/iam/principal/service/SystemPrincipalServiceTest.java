@@ -8,8 +8,9 @@ import io.openleap.iam.principal.domain.mapper.SystemPrincipalMapper;
 import io.openleap.iam.principal.exception.SystemIdentifierAlreadyExistsException;
 import io.openleap.iam.principal.exception.TenantNotFoundException;
 import io.openleap.iam.principal.exception.UsernameAlreadyExistsException;
+import io.openleap.iam.principal.repository.PrincipalRegistryRepository;
 import io.openleap.iam.principal.repository.SystemPrincipalRepository;
-import io.openleap.common.messaging.event.EventPublisher;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -35,11 +36,14 @@ class SystemPrincipalServiceTest {
     @Mock
     private SystemPrincipalRepository systemPrincipalRepository;
 
+    @Mock
+    private PrincipalRegistryRepository principalRegistryRepository;
+
     @Mock
     private TenantService tenantService;
 
     @Mock
-    private EventPublisher eventPublisher;
+    private PrincipalEventOutbox principalEventOutbox;
 
     @Mock
     private SystemPrincipalMapper systemPrincipalMapper;
@@ -50,8 +54,9 @@ class SystemPrincipalServiceTest {
     void setUp() {
         systemPrincipalService = new SystemPrincipalService(
                 systemPrincipalRepository,
+                principalRegistryRepository,
                 tenantService,
-                eventPublisher,
+                principalEventOutbox,
                 systemPrincipalMapper
         );
     }
@@ -75,7 +80,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("ERP_SYSTEM_001")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("erp_system_001")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("erp_system_001")).thenReturn(false);
             when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             SystemPrincipalEntity savedEntity = createSystemPrincipalEntity("erp_system_001", "ERP_SYSTEM_001");
@@ -142,7 +147,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("NEW_SYSTEM")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("new_system")).thenReturn(true);
+            when(principalRegistryRepository.existsByUsername("new_system")).thenReturn(true);
 
             // when / then
             assertThatThrownBy(() -> systemPrincipalService.createSystemPrincipal(command))
@@ -167,7 +172,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("NEW_SYSTEM")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("new_system")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_system")).thenReturn(false);
             when(tenantService.tenantExists(tenantId)).thenReturn(false);
 
             // when / then
@@ -192,7 +197,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("NEW_SYSTEM")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("new_system")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_system")).thenReturn(false);
             when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             // when / then
@@ -218,7 +223,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("NEW_SYSTEM")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("new_system")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_system")).thenReturn(false);
             when(tenantService.tenantExists(tenantId)).thenReturn(true);
 
             // when / then
@@ -242,7 +247,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("NEW_SYSTEM")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("new_system")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_system")).thenReturn(false);
             when(tenantService.tenantExists(tenantId)).thenReturn(true);
             when(systemPrincipalMapper.toSystemPrincipalCreatedEvent(any())).thenReturn(mock(SystemPrincipalCreatedEvent.class));
             when(systemPrincipalMapper.toSystemPrincipalCreated(any())).thenReturn(mock(SystemPrincipalCreated.class));
@@ -277,7 +282,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("NEW_SYSTEM")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("new_system")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("new_system")).thenReturn(false);
             when(tenantService.tenantExists(tenantId)).thenReturn(true);
             when(systemPrincipalMapper.toSystemPrincipalCreatedEvent(any())).thenReturn(mock(SystemPrincipalCreatedEvent.class));
             when(systemPrincipalMapper.toSystemPrincipalCreated(any())).thenReturn(mock(SystemPrincipalCreated.class));
@@ -312,7 +317,7 @@ class SystemPrincipalServiceTest {
             );
 
             when(systemPrincipalRepository.existsBySystemIdentifier("MY_SYSTEM_ID")).thenReturn(false);
-            when(systemPrincipalRepository.existsByUsername("my_system_id")).thenReturn(false);
+            when(principalRegistryRepository.existsByUsername("my_system_id")).thenReturn(false);
             when(tenantService.tenantExists(tenantId)).thenReturn(true);
             when(systemPrincipalMapper.toSystemPrincipalCreatedEvent(any())).thenReturn(mock(SystemPrincipalCreatedEvent.class));
             when(systemPrincipalMapper.toSystemPrincipalCreated(any())).thenReturn(mock(SystemPrincipalCreated.class));
@@ -347,7 +352,7 @@ class SystemPrincipalServiceTest {
 //            );
 //
 //            when(systemPrincipalRepository.existsBySystemIdentifier("NEW_SYSTEM")).thenReturn(false);
-//            when(systemPrincipalRepository.existsByUsername("new_system")).thenReturn(false);
+//            when(principalRegistryRepository.existsByUsername("new_system")).thenReturn(false);
 //
 //            ArgumentCaptor<SystemPrincipalEntity> captor = ArgumentCaptor.forClass(SystemPrincipalEntity.class);
 //            when(systemPrincipalRepository.save(captor.capture())).thenAnswer(inv -> {
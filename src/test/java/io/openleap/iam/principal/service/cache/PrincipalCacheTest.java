@@ -0,0 +1,233 @@
+package io.openleap.iam.principal.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.iam.principal.domain.dto.ApiKeyOwner;
+import io.openleap.iam.principal.domain.dto.CertificateOwner;
+import io.openleap.iam.principal.domain.dto.PrincipalEntitlements;
+import io.openleap.iam.principal.domain.dto.ProfileDetails;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("PrincipalCache Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(jdbcTemplate, meterRegistry, 100, Duration.ofMinutes(5), Duration.ofSeconds(30),
+                Duration.ofSeconds(30), Duration.ofSeconds(5), true);
+    }
+
+    @Nested
+    @DisplayName("getProfile")
+    class GetProfile {
+
+        @Test
+        @DisplayName("should load once and serve subsequent reads from cache")
+        void shouldLoadOnce() {
+            // given
+            PrincipalId principalId = PrincipalId.of(UUID.randomUUID());
+            AtomicInteger loads = new AtomicInteger();
+
+            // when
+            principalCache.getProfile(principalId, id -> profile(id, loads));
+            ProfileDetails result = principalCache.getProfile(principalId, id -> profile(id, loads));
+
+            // then
+            assertThat(result.id()).isEqualTo(principalId.value());
+            assertThat(loads).hasValue(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidate")
+    class Invalidate {
+
+        @Test
+        @DisplayName("should evict locally and notify other instances")
+        @SuppressWarnings("unchecked")
+        void shouldEvictAndNotify() {
+            // given
+            PrincipalId principalId = PrincipalId.of(UUID.randomUUID());
+            AtomicInteger loads = new AtomicInteger();
+            principalCache.getProfile(principalId, id -> profile(id, loads));
+
+            // when
+            principalCache.invalidate(principalId);
+            principalCache.getProfile(principalId, id -> profile(id, loads));
+
+            // then
+            assertThat(loads).hasValue(2);
+            verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                    eq(PrincipalCache.CHANNEL), startsWith(principalId.value().toString()));
+        }
+
+        @Test
+        @DisplayName("should evict on remote notification and record lag")
+        void shouldEvictOnNotification() {
+            // given
+            PrincipalId principalId = PrincipalId.of(UUID.randomUUID());
+            AtomicInteger loads = new AtomicInteger();
+            principalCache.getProfile(principalId, id -> profile(id, loads));
+
+            // when
+            principalCache.onNotification(principalId.value() + ";" + Instant.now().toEpochMilli());
+            principalCache.getProfile(principalId, id -> profile(id, loads));
+
+            // then
+            assertThat(loads).hasValue(2);
+            assertThat(meterRegistry.get("iam.principal.cache.invalidation.lag").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should evict the cached API key of the principal")
+        void shouldEvictApiKey() {
+            // given
+            PrincipalId principalId = PrincipalId.of(UUID.randomUUID());
+            AtomicInteger loads = new AtomicInteger();
+            principalCache.getApiKeyOwner("hash", hash -> apiKeyOwner(principalId, loads));
+            principalCache.getApiKeyOwner("hash", hash -> apiKeyOwner(principalId, loads));
+
+            // when
+            principalCache.onNotification(principalId.value().toString());
+            ApiKeyOwner result = principalCache.getApiKeyOwner("hash", hash -> apiKeyOwner(principalId, loads));
+
+            // then
+            assertThat(result.principalId()).isEqualTo(principalId.value());
+            assertThat(loads).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("should evict the compiled entitlements of the notified principal")
+        void shouldEvictEntitlements() {
+            // given
+            PrincipalId principalId = PrincipalId.of(UUID.randomUUID());
+            AtomicInteger loads = new AtomicInteger();
+            principalCache.getAllEntitlements(List.of(principalId), ids -> entitlements(principalId, loads));
+            principalCache.getAllEntitlements(List.of(principalId), ids -> entitlements(principalId, loads));
+
+            // when
+            principalCache.onNotification(principalId.value().toString());
+            Map<PrincipalId, PrincipalEntitlements> result =
+                    principalCache.getAllEntitlements(List.of(principalId), ids -> entitlements(principalId, loads));
+
+            // then
+            assertThat(result.get(principalId).allows("orders.write")).isTrue();
+            assertThat(loads).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("should evict the cached certificate resolution of the notified principal")
+        void shouldEvictCertificate() {
+            // given
+            PrincipalId principalId = PrincipalId.of(UUID.randomUUID());
+            AtomicInteger loads = new AtomicInteger();
+            principalCache.getCertificateOwner("thumbprint", thumbprint -> certificateOwner(principalId, loads));
+            principalCache.getCertificateOwner("thumbprint", thumbprint -> certificateOwner(principalId, loads));
+
+            // when
+            principalCache.onNotification(principalId.value().toString());
+            Optional<CertificateOwner> result =
+                    principalCache.getCertificateOwner("thumbprint", thumbprint -> certificateOwner(principalId, loads));
+
+            // then
+            assertThat(result).map(CertificateOwner::principalId).contains(principalId.value());
+            assertThat(loads).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("should ignore malformed notifications")
+        void shouldIgnoreMalformedNotification() {
+            // given
+            PrincipalId principalId = PrincipalId.of(UUID.randomUUID());
+            AtomicInteger loads = new AtomicInteger();
+            principalCache.getProfile(principalId, id -> profile(id, loads));
+
+            // when
+            principalCache.onNotification("not-a-uuid");
+            principalCache.getProfile(principalId, id -> profile(id, loads));
+
+            // then
+            assertThat(loads).hasValue(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("getCertificateOwner")
+    class GetCertificateOwner {
+
+        @Test
+        @DisplayName("should cache unknown thumbprints")
+        void shouldCacheUnknownThumbprints() {
+            // given
+            AtomicInteger loads = new AtomicInteger();
+
+            // when
+            principalCache.getCertificateOwner("unknown", thumbprint -> {
+                loads.incrementAndGet();
+                return Optional.empty();
+            });
+            Optional<CertificateOwner> result = principalCache.getCertificateOwner("unknown", thumbprint -> {
+                loads.incrementAndGet();
+                return Optional.empty();
+            });
+
+            // then
+            assertThat(result).isEmpty();
+            assertThat(loads).hasValue(1);
+        }
+    }
+
+    private static Map<PrincipalId, PrincipalEntitlements> entitlements(PrincipalId principalId, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return Map.of(principalId, new PrincipalEntitlements(principalId.value(), PrincipalStatus.ACTIVE, Set.of("orders.write")));
+    }
+
+    private static Optional<CertificateOwner> certificateOwner(PrincipalId principalId, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return Optional.of(new CertificateOwner(principalId.value(), PrincipalType.DEVICE, PrincipalStatus.ACTIVE, List.of()));
+    }
+
+    private static ApiKeyOwner apiKeyOwner(PrincipalId principalId, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new ApiKeyOwner(principalId.value(), PrincipalStatus.ACTIVE, List.of("orders:read"));
+    }
+
+    private static ProfileDetails profile(PrincipalId principalId, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new ProfileDetails(principalId.value(), "John", "Doe", "Johnny", null,
+                null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,131 @@
+package io.openleap.iam.principal.service.certificate;
+
+import io.openleap.iam.principal.domain.dto.CertificateOwner;
+import io.openleap.iam.principal.domain.dto.CertificateResolved;
+import io.openleap.iam.principal.domain.dto.ResolveCertificateCommand;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.repository.CertificatePrincipalRepository;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@DisplayName("CertificateResolutionService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class CertificateResolutionServiceTest {
+
+    private static final String THUMBPRINT = "SHA256:abc123";
+
+    @Mock
+    private CertificatePrincipalRepository certificatePrincipalRepository;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    private CertificateResolutionService certificateResolutionService;
+
+    @BeforeEach
+    void setUp() {
+        certificateResolutionService = new CertificateResolutionService(certificatePrincipalRepository, principalCache);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadThroughCache() {
+        when(principalCache.getCertificateOwner(eq(THUMBPRINT), any()))
+                .thenAnswer(invocation -> ((Function<String, Optional<CertificateOwner>>) invocation.getArgument(1))
+                        .apply(THUMBPRINT));
+    }
+
+    private CertificateResolved resolve() {
+        return certificateResolutionService.resolveCertificate(new ResolveCertificateCommand(THUMBPRINT));
+    }
+
+    @Nested
+    @DisplayName("resolveCertificate")
+    class ResolveCertificate {
+
+        @Test
+        @DisplayName("should resolve the certificate of an ACTIVE system principal with its operations")
+        void shouldResolveActiveSystem() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            loadThroughCache();
+            when(certificatePrincipalRepository.findByThumbprint(THUMBPRINT)).thenReturn(List.of(
+                    new CertificateOwner(principalId, PrincipalType.SYSTEM, PrincipalStatus.ACTIVE, List.of("orders.write"))));
+
+            // when
+            CertificateResolved result = resolve();
+
+            // then
+            assertThat(result.valid()).isTrue();
+            assertThat(result.principalId()).isEqualTo(principalId);
+            assertThat(result.principalType()).isEqualTo("SYSTEM");
+            assertThat(result.allowedOperations()).containsExactly("orders.write");
+        }
+
+        @Test
+        @DisplayName("should reject the certificate of a suspended principal without its operations")
+        void shouldRejectSuspendedPrincipal() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            loadThroughCache();
+            when(certificatePrincipalRepository.findByThumbprint(THUMBPRINT)).thenReturn(List.of(
+                    new CertificateOwner(principalId, PrincipalType.SYSTEM, PrincipalStatus.SUSPENDED, List.of("orders.write"))));
+
+            // when
+            CertificateResolved result = resolve();
+
+            // then
+            assertThat(result.valid()).isFalse();
+            assertThat(result.status()).isEqualTo("SUSPENDED");
+            assertThat(result.allowedOperations()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should reject an unknown thumbprint")
+        void shouldRejectUnknownThumbprint() {
+            // given
+            loadThroughCache();
+            when(certificatePrincipalRepository.findByThumbprint(THUMBPRINT)).thenReturn(List.of());
+
+            // when
+            CertificateResolved result = resolve();
+
+            // then
+            assertThat(result.valid()).isFalse();
+            assertThat(result.principalId()).isNull();
+        }
+
+        @Test
+        @DisplayName("should not resolve a thumbprint held by more than one principal")
+        void shouldRejectSharedThumbprint() {
+            // given
+            loadThroughCache();
+            when(certificatePrincipalRepository.findByThumbprint(THUMBPRINT)).thenReturn(List.of(
+                    new CertificateOwner(UUID.randomUUID(), PrincipalType.SYSTEM, PrincipalStatus.ACTIVE, List.of()),
+                    new CertificateOwner(UUID.randomUUID(), PrincipalType.DEVICE, PrincipalStatus.ACTIVE, List.of())));
+
+            // when
+            CertificateResolved result = resolve();
+
+            // then
+            assertThat(result.valid()).isFalse();
+            assertThat(result.principalId()).isNull();
+        }
+    }
+}
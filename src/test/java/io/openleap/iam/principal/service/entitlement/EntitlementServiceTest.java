@@ -0,0 +1,154 @@
+package io.openleap.iam.principal.service.entitlement;
+
+import io.openleap.iam.principal.domain.dto.CheckEntitlementsCommand;
+import io.openleap.iam.principal.domain.dto.EntitlementCheck;
+import io.openleap.iam.principal.domain.dto.EntitlementsChecked;
+import io.openleap.iam.principal.domain.dto.PrincipalDetails;
+import io.openleap.iam.principal.domain.dto.PrincipalDetailsBatch;
+import io.openleap.iam.principal.domain.dto.PrincipalEntitlements;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.exception.PrincipalNotFoundException;
+import io.openleap.iam.principal.service.PrincipalService;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("EntitlementService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class EntitlementServiceTest {
+
+    @Mock
+    private PrincipalService principalService;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    private EntitlementService entitlementService;
+
+    @BeforeEach
+    void setUp() {
+        entitlementService = new EntitlementService(principalService, principalCache);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadThroughCache() {
+        when(principalCache.getAllEntitlements(any(), any())).thenAnswer(invocation -> {
+            Set<PrincipalId> principalIds = Set.copyOf((Collection<PrincipalId>) invocation.getArgument(0));
+            return ((Function<Set<? extends PrincipalId>, Map<PrincipalId, PrincipalEntitlements>>) invocation.getArgument(1))
+                    .apply(principalIds);
+        });
+    }
+
+    @Nested
+    @DisplayName("checkEntitlements")
+    class CheckEntitlements {
+
+        @Test
+        @DisplayName("should allow scopes of services and operations of systems")
+        void shouldAllowGrantedEntitlements() {
+            // given
+            UUID serviceId = UUID.randomUUID();
+            UUID systemId = UUID.randomUUID();
+            loadThroughCache();
+            when(principalService.getPrincipalDetails(anyList())).thenReturn(new PrincipalDetailsBatch(List.of(
+                    new PrincipalDetailsBatch.Item(serviceId, details(serviceId, "SERVICE", "ACTIVE", List.of("payments.read"), null)),
+                    new PrincipalDetailsBatch.Item(systemId, details(systemId, "SYSTEM", "ACTIVE", null, List.of("orders.write"))))));
+
+            // when
+            EntitlementsChecked result = entitlementService.checkEntitlements(new CheckEntitlementsCommand(List.of(
+                    new EntitlementCheck(serviceId, "payments.read"),
+                    new EntitlementCheck(serviceId, "payments.write"),
+                    new EntitlementCheck(systemId, "orders.write"))));
+
+            // then
+            assertThat(result.items()).extracting(EntitlementsChecked.Item::allowed).containsExactly(true, false, true);
+            assertThat(result.items()).allMatch(EntitlementsChecked.Item::found);
+        }
+
+        @Test
+        @DisplayName("should deny entitlements of principals that are not ACTIVE")
+        void shouldDenyInactivePrincipal() {
+            // given
+            UUID systemId = UUID.randomUUID();
+            loadThroughCache();
+            when(principalService.getPrincipalDetails(anyList())).thenReturn(new PrincipalDetailsBatch(List.of(
+                    new PrincipalDetailsBatch.Item(systemId, details(systemId, "SYSTEM", "SUSPENDED", null, List.of("orders.write"))))));
+
+            // when
+            EntitlementsChecked result = entitlementService.checkEntitlements(new CheckEntitlementsCommand(List.of(
+                    new EntitlementCheck(systemId, "orders.write"))));
+
+            // then
+            assertThat(result.items()).singleElement().satisfies(item -> {
+                assertThat(item.found()).isTrue();
+                assertThat(item.allowed()).isFalse();
+            });
+        }
+
+        @Test
+        @DisplayName("should report unknown principals as not found and load each principal once")
+        void shouldReportUnknownPrincipals() {
+            // given
+            UUID unknownId = UUID.randomUUID();
+            loadThroughCache();
+            when(principalService.getPrincipalDetails(anyList())).thenReturn(new PrincipalDetailsBatch(List.of(
+                    new PrincipalDetailsBatch.Item(unknownId, null))));
+
+            // when
+            EntitlementsChecked result = entitlementService.checkEntitlements(new CheckEntitlementsCommand(List.of(
+                    new EntitlementCheck(unknownId, "orders.read"),
+                    new EntitlementCheck(unknownId, "orders.write"))));
+
+            // then
+            assertThat(result.items()).hasSize(2).noneMatch(EntitlementsChecked.Item::found);
+            verify(principalService).getPrincipalDetails(List.of(unknownId));
+        }
+    }
+
+    @Nested
+    @DisplayName("checkEntitlement")
+    class CheckEntitlement {
+
+        @Test
+        @DisplayName("should throw for an unknown principal")
+        void shouldThrowForUnknownPrincipal() {
+            // given
+            UUID unknownId = UUID.randomUUID();
+            loadThroughCache();
+            when(principalService.getPrincipalDetails(List.of(unknownId))).thenReturn(new PrincipalDetailsBatch(List.of(
+                    new PrincipalDetailsBatch.Item(unknownId, null))));
+
+            // when / then
+            assertThatThrownBy(() -> entitlementService.checkEntitlement(new EntitlementCheck(unknownId, "orders.read")))
+                    .isInstanceOf(PrincipalNotFoundException.class);
+        }
+    }
+
+    private static PrincipalDetails details(UUID id, String principalType, String status,
+            List<String> allowedScopes, List<String> allowedOperations) {
+        return new PrincipalDetails(id, principalType, "principal", null, status, UUID.randomUUID(), null, null, null,
+                null, null, null, null, null, null,
+                null, allowedScopes, null,
+                null, null, allowedOperations,
+                null, null, null, null);
+    }
+}
@@ -0,0 +1,126 @@
+package io.openleap.iam.principal.service.gdpr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.exception.PrincipalNotFoundException;
+import io.openleap.iam.principal.repository.HumanPrincipalGdprRepository;
+import io.openleap.iam.principal.repository.HumanPrincipalGdprRepository.ExportSubject;
+import io.openleap.iam.principal.service.keycloak.KeycloakService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("GdprExportService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class GdprExportServiceTest {
+
+    @Mock
+    private HumanPrincipalGdprRepository humanPrincipalGdprRepository;
+
+    @Mock
+    private KeycloakService keycloakService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GdprExportService gdprExportService;
+
+    @BeforeEach
+    void setUp() {
+        gdprExportService = new GdprExportService(humanPrincipalGdprRepository, keycloakService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("should stream the principal row, raw JSONB columns and the Keycloak user as one document")
+    void shouldExportPrincipal() throws Exception {
+        // given
+        UUID principalId = UUID.randomUUID();
+        when(humanPrincipalGdprRepository.findExportSubject(principalId)).thenReturn(Optional.of(new ExportSubject("kc-1")));
+        when(keycloakService.getUser("kc-1")).thenReturn(Map.of("id", "kc-1", "requiredActions", new String[]{"VERIFY_EMAIL"}));
+
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(5);
+        when(metaData.getColumnLabel(1)).thenReturn("username");
+        when(metaData.getColumnLabel(2)).thenReturn("mfa_enabled");
+        when(metaData.getColumnLabel(3)).thenReturn("phone");
+        when(metaData.getColumnLabel(4)).thenReturn("preferences");
+        when(metaData.getColumnLabel(5)).thenReturn("created_at");
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(rs.getObject(1)).thenReturn("johndoe");
+        when(rs.getObject(2)).thenReturn(true);
+        when(rs.getObject(3)).thenReturn(null);
+        when(rs.getObject(4)).thenReturn("{\"theme\": \"dark\", \"nested\": {\"a\": [1, 2]}}");
+        when(rs.getObject(5)).thenReturn(Timestamp.from(Instant.parse("2025-01-01T10:00:00Z")));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(humanPrincipalGdprRepository).streamForExport(eq(principalId), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        gdprExportService.exportHumanPrincipal(PrincipalId.of(principalId)).writeTo(out);
+
+        // then
+        JsonNode document = objectMapper.readTree(out.toByteArray());
+        assertThat(document.get("principal_id").asText()).isEqualTo(principalId.toString());
+        assertThat(document.get("principal_type").asText()).isEqualTo("HUMAN");
+        JsonNode principal = document.get("principal");
+        assertThat(principal.get("username").asText()).isEqualTo("johndoe");
+        assertThat(principal.get("mfa_enabled").asBoolean()).isTrue();
+        assertThat(principal.get("phone").isNull()).isTrue();
+        assertThat(principal.get("preferences").get("nested").get("a").get(1).asInt()).isEqualTo(2);
+        assertThat(principal.get("created_at").asText()).isEqualTo("2025-01-01T10:00:00Z");
+        assertThat(document.get("keycloak").get("requiredActions").get(0).asText()).isEqualTo("VERIFY_EMAIL");
+    }
+
+    @Test
+    @DisplayName("should write null Keycloak data for a principal never synced to Keycloak")
+    void shouldExportWithoutKeycloakUser() throws Exception {
+        // given
+        UUID principalId = UUID.randomUUID();
+        when(humanPrincipalGdprRepository.findExportSubject(principalId)).thenReturn(Optional.of(new ExportSubject(null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        gdprExportService.exportHumanPrincipal(PrincipalId.of(principalId)).writeTo(out);
+
+        // then
+        JsonNode document = objectMapper.readTree(out.toByteArray());
+        assertThat(document.get("principal").isNull()).isTrue();
+        assertThat(document.get("keycloak").isNull()).isTrue();
+        verifyNoInteractions(keycloakService);
+    }
+
+    @Test
+    @DisplayName("should fail before writing anything for an unknown principal")
+    void shouldThrowForUnknownPrincipal() {
+        // given
+        UUID principalId = UUID.randomUUID();
+        when(humanPrincipalGdprRepository.findExportSubject(principalId)).thenReturn(Optional.empty());
+
+        // when / then
+        assertThatThrownBy(() -> gdprExportService.exportHumanPrincipal(PrincipalId.of(principalId)))
+                .isInstanceOf(PrincipalNotFoundException.class);
+        verify(humanPrincipalGdprRepository, never()).streamForExport(any(), any());
+    }
+}
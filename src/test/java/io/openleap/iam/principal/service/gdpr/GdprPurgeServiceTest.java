@@ -0,0 +1,181 @@
+package io.openleap.iam.principal.service.gdpr;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.domain.event.PrincipalDeletedEvent;
+import io.openleap.iam.principal.repository.GdprPurgeRepository;
+import io.openleap.iam.principal.repository.GdprPurgeRepository.PurgeCandidate;
+import io.openleap.iam.principal.service.cache.PrincipalCache;
+import io.openleap.iam.principal.service.keycloak.KeycloakService;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("GdprPurgeService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class GdprPurgeServiceTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final Instant CUTOFF = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Mock
+    private GdprPurgeRepository gdprPurgeRepository;
+
+    @Mock
+    private KeycloakService keycloakService;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private PrincipalEventOutbox principalEventOutbox;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GdprPurgeWorker gdprPurgeWorker;
+    private GdprPurgeService gdprPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        gdprPurgeWorker = new GdprPurgeWorker(gdprPurgeRepository, keycloakService, principalCache,
+                principalEventOutbox, 2);
+        gdprPurgeService = new GdprPurgeService(gdprPurgeWorker, meterRegistry, true, BATCH_SIZE, Duration.ofDays(30));
+        lenient().when(gdprPurgeRepository.claimExpired(any(), eq(CUTOFF), eq(BATCH_SIZE))).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gdprPurgeWorker.shutdown();
+    }
+
+    private double purgeCount(String outcome) {
+        return meterRegistry.counter("iam.principal.gdpr.purge", "outcome", outcome).count();
+    }
+
+    @Nested
+    @DisplayName("purgeExpired")
+    class PurgeExpired {
+
+        @Test
+        @DisplayName("should delete Keycloak identities and anonymize the claimed principals")
+        void shouldDeleteAndAnonymize() {
+            // given
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            when(gdprPurgeRepository.claimExpired(PrincipalType.HUMAN, CUTOFF, BATCH_SIZE))
+                    .thenReturn(List.of(new PurgeCandidate(first, "kc-1"), new PurgeCandidate(second, null)), List.of());
+            when(gdprPurgeRepository.anonymize(eq(PrincipalType.HUMAN), anyCollection())).thenReturn(List.of(first, second));
+
+            // when
+            int purged = gdprPurgeService.purgeExpired(CUTOFF);
+
+            // then
+            assertThat(purged).isEqualTo(2);
+            verify(keycloakService).deleteUser("kc-1");
+            verify(gdprPurgeRepository).anonymize(PrincipalType.HUMAN, List.of(first, second));
+            verify(principalCache).invalidate(PrincipalId.of(first));
+            verify(principalCache).invalidate(PrincipalId.of(second));
+            // a full chunk is followed by another claim for the same type
+            verify(gdprPurgeRepository, times(2)).claimExpired(PrincipalType.HUMAN, CUTOFF, BATCH_SIZE);
+            assertThat(purgeCount("purged")).isEqualTo(2.0);
+        }
+
+        @Test
+        @DisplayName("should record a deleted event for every anonymized principal")
+        @SuppressWarnings("unchecked")
+        void shouldRecordDeletedEvents() {
+            // given
+            UUID deleted = UUID.randomUUID();
+            UUID failed = UUID.randomUUID();
+            when(gdprPurgeRepository.claimExpired(PrincipalType.SYSTEM, CUTOFF, BATCH_SIZE))
+                    .thenReturn(List.of(new PurgeCandidate(deleted, "sys-ok"), new PurgeCandidate(failed, "sys-down")));
+            doThrow(new RuntimeException("Keycloak unavailable")).when(keycloakService).deleteClient("sys-down");
+            when(gdprPurgeRepository.anonymize(PrincipalType.SYSTEM, List.of(deleted))).thenReturn(List.of(deleted));
+
+            // when
+            gdprPurgeService.purgeExpired(CUTOFF);
+
+            // then
+            ArgumentCaptor<Map<PrincipalId, PrincipalDeletedEvent>> events = ArgumentCaptor.forClass(Map.class);
+            verify(principalEventOutbox).appendAll(eq("iam.principal.principal.deleted"), events.capture());
+            assertThat(events.getValue()).containsOnlyKeys(PrincipalId.of(deleted));
+            PrincipalDeletedEvent event = events.getValue().get(PrincipalId.of(deleted));
+            assertThat(event.principalId()).isEqualTo(deleted);
+            assertThat(event.principalType()).isEqualTo("SYSTEM");
+            assertThat(event.auditReference()).startsWith("aud-");
+            assertThat(event.deletedAt()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("should delete clients for non-human principals")
+        void shouldDeleteClients() {
+            // given
+            UUID device = UUID.randomUUID();
+            when(gdprPurgeRepository.claimExpired(PrincipalType.DEVICE, CUTOFF, BATCH_SIZE))
+                    .thenReturn(List.of(new PurgeCandidate(device, "device-client")));
+            when(gdprPurgeRepository.anonymize(PrincipalType.DEVICE, List.of(device))).thenReturn(List.of(device));
+
+            // when
+            int purged = gdprPurgeService.purgeExpired(CUTOFF);
+
+            // then
+            assertThat(purged).isEqualTo(1);
+            verify(keycloakService).deleteClient("device-client");
+            verify(keycloakService, never()).deleteUser(any());
+        }
+
+        @Test
+        @DisplayName("should keep principals whose Keycloak deletion failed and stop claiming that type")
+        void shouldKeepFailedPrincipals() {
+            // given
+            UUID deleted = UUID.randomUUID();
+            UUID failed = UUID.randomUUID();
+            when(gdprPurgeRepository.claimExpired(PrincipalType.SERVICE, CUTOFF, BATCH_SIZE))
+                    .thenReturn(List.of(new PurgeCandidate(deleted, "svc-ok"), new PurgeCandidate(failed, "svc-down")));
+            doThrow(new RuntimeException("Keycloak unavailable")).when(keycloakService).deleteClient("svc-down");
+            when(gdprPurgeRepository.anonymize(PrincipalType.SERVICE, List.of(deleted))).thenReturn(List.of(deleted));
+
+            // when
+            int purged = gdprPurgeService.purgeExpired(CUTOFF);
+
+            // then
+            assertThat(purged).isEqualTo(1);
+            verify(gdprPurgeRepository).claimExpired(PrincipalType.SERVICE, CUTOFF, BATCH_SIZE);
+            verify(principalCache, never()).invalidate(PrincipalId.of(failed));
+            assertThat(purgeCount("purged")).isEqualTo(1.0);
+            assertThat(purgeCount("failed")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should not touch Keycloak when nothing is past retention")
+        void shouldDoNothingWhenNothingExpired() {
+            // when
+            int purged = gdprPurgeService.purgeExpired(CUTOFF);
+
+            // then
+            assertThat(purged).isZero();
+            verify(gdprPurgeRepository, never()).anonymize(any(), anyCollection());
+            verifyNoInteractions(keycloakService, principalCache);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package io.openleap.iam.principal.service.heartbeat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.iam.principal.domain.dto.DeviceHeartbeat;
+import io.openleap.iam.principal.repository.DeviceHeartbeatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("HeartbeatBuffer Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class HeartbeatBufferTest {
+
+    private static final Instant T1 = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant T2 = Instant.parse("2025-01-01T00:00:10Z");
+
+    @Mock
+    private DeviceHeartbeatRepository deviceHeartbeatRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HeartbeatBuffer heartbeatBuffer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        heartbeatBuffer = new HeartbeatBuffer(deviceHeartbeatRepository, meterRegistry, 2, 3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DeviceHeartbeat> flushed() {
+        ArgumentCaptor<List<DeviceHeartbeat>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deviceHeartbeatRepository, atLeastOnce()).updateHeartbeats(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    @Nested
+    @DisplayName("offer")
+    class Offer {
+
+        @Test
+        @DisplayName("should coalesce heartbeats of one device into a single update")
+        void shouldCoalescePerDevice() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            heartbeatBuffer.offer(new DeviceHeartbeat(deviceId, T1, "v1", Map.of("site", "A")));
+            heartbeatBuffer.offer(new DeviceHeartbeat(deviceId, T2, null, null));
+
+            // when
+            heartbeatBuffer.flush();
+
+            // then
+            assertThat(flushed()).containsExactly(new DeviceHeartbeat(deviceId, T2, "v1", Map.of("site", "A")));
+            assertThat(meterRegistry.summary("iam.principal.heartbeat.flush.size").totalAmount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should keep the latest heartbeat when an older one arrives late")
+        void shouldKeepLatestHeartbeat() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            heartbeatBuffer.offer(new DeviceHeartbeat(deviceId, T2, "v2", null));
+            heartbeatBuffer.offer(new DeviceHeartbeat(deviceId, T1, "v1", null));
+
+            // when
+            heartbeatBuffer.flush();
+
+            // then
+            assertThat(flushed()).containsExactly(new DeviceHeartbeat(deviceId, T2, "v2", null));
+        }
+
+        @Test
+        @DisplayName("should drop heartbeats of new devices when the buffer is full")
+        void shouldDropWhenFull() {
+            // given
+            for (int i = 0; i < 3; i++) {
+                assertThat(heartbeatBuffer.offer(new DeviceHeartbeat(UUID.randomUUID(), T1, null, null))).isTrue();
+            }
+
+            // when
+            boolean accepted = heartbeatBuffer.offer(new DeviceHeartbeat(UUID.randomUUID(), T1, null, null));
+
+            // then
+            assertThat(accepted).isFalse();
+            assertThat(meterRegistry.counter("iam.principal.heartbeat.dropped").count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("flush")
+    class Flush {
+
+        @Test
+        @DisplayName("should write in batches of the configured size")
+        void shouldWriteInBatches() {
+            // given
+            for (int i = 0; i < 3; i++) {
+                heartbeatBuffer.offer(new DeviceHeartbeat(UUID.randomUUID(), T1, null, null));
+            }
+
+            // when
+            heartbeatBuffer.flush();
+
+            // then
+            verify(deviceHeartbeatRepository, times(2)).updateHeartbeats(any());
+            assertThat(flushed()).hasSize(3);
+            assertThat(meterRegistry.timer("iam.principal.heartbeat.flush.lag").count()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should write each batch in device ID order")
+        void shouldWriteInDeviceIdOrder() {
+            // given
+            UUID first = new UUID(0L, 1L);
+            UUID second = new UUID(0L, 2L);
+            heartbeatBuffer.offer(new DeviceHeartbeat(second, T1, null, null));
+            heartbeatBuffer.offer(new DeviceHeartbeat(first, T1, null, null));
+
+            // when
+            heartbeatBuffer.flush();
+
+            // then
+            assertThat(flushed()).extracting(DeviceHeartbeat::deviceId).containsExactly(first, second);
+        }
+
+        @Test
+        @DisplayName("should keep heartbeats for the next flush when the write fails")
+        void shouldRebufferOnFailure() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            heartbeatBuffer.offer(new DeviceHeartbeat(deviceId, T1, null, null));
+            when(deviceHeartbeatRepository.updateHeartbeats(any()))
+                    .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                    .thenReturn(new int[]{1});
+
+            // when
+            heartbeatBuffer.flush();
+            heartbeatBuffer.flush();
+
+            // then
+            verify(deviceHeartbeatRepository, times(2)).updateHeartbeats(List.of(new DeviceHeartbeat(deviceId, T1, null, null)));
+            assertThat(meterRegistry.counter("iam.principal.heartbeat.flush.failures").count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should flush pending heartbeats on shutdown")
+        void shouldFlushOnShutdown() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            heartbeatBuffer.offer(new DeviceHeartbeat(deviceId, T1, null, null));
+
+            // when
+            heartbeatBuffer.shutdown();
+
+            // then
+            assertThat(flushed()).containsExactly(new DeviceHeartbeat(deviceId, T1, null, null));
+        }
+    }
+}
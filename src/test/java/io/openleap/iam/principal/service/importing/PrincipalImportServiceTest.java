@@ -0,0 +1,268 @@
+package io.openleap.iam.principal.service.importing;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.iam.principal.domain.dto.CreateHumanPrincipalCommand;
+import io.openleap.iam.principal.domain.dto.HumanPrincipalsCreated;
+import io.openleap.iam.principal.domain.dto.PrincipalImportStatus;
+import io.openleap.iam.principal.domain.dto.PrincipalImportStatus.RecordError;
+import io.openleap.iam.principal.domain.mapper.HumanPrincipalMapper;
+import io.openleap.iam.principal.exception.PrincipalImportCapacityExceededException;
+import io.openleap.iam.principal.exception.PrincipalImportNotFoundException;
+import io.openleap.iam.principal.service.HumanPrincipalService;
+import io.openleap.iam.principal.service.sync.KeycloakSyncService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PrincipalImportService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class PrincipalImportServiceTest {
+
+    @Mock
+    private HumanPrincipalService humanPrincipalService;
+
+    @Mock
+    private KeycloakSyncService keycloakSyncService;
+
+    private final HumanPrincipalMapper humanPrincipalMapper = mock(HumanPrincipalMapper.class, CALLS_REAL_METHODS);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private PrincipalImportService principalImportService;
+
+    private PrincipalImportService createService(int batchSize, int maxConcurrent) {
+        principalImportService = new PrincipalImportService(humanPrincipalService, keycloakSyncService,
+                humanPrincipalMapper, objectMapper, Validation.buildDefaultValidatorFactory().getValidator(),
+                new SimpleMeterRegistry(), batchSize, 2, maxConcurrent, 100, Duration.ofHours(1));
+        return principalImportService;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (principalImportService != null) {
+            principalImportService.shutdown();
+        }
+    }
+
+    private PrincipalImportStatus importAndWait(String content, ImportFormat format) throws InterruptedException {
+        PrincipalImportStatus status = principalImportService.startImport(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (status.state().equals("RUNNING") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = principalImportService.getStatus(status.jobId());
+        }
+        return status;
+    }
+
+    @Nested
+    @DisplayName("NDJSON")
+    class Ndjson {
+
+        @Test
+        @DisplayName("should insert valid records in batches, provision them and report invalid and rejected ones")
+        void shouldImportAndReportErrors() throws Exception {
+            // given
+            createService(2, 1);
+            UUID aliceId = UUID.randomUUID();
+            UUID importedBy = UUID.randomUUID();
+            when(humanPrincipalService.currentAuditor()).thenReturn(importedBy);
+            when(humanPrincipalService.insertHumanPrincipals(any(), any())).thenReturn(new HumanPrincipalsCreated(List.of(
+                    HumanPrincipalsCreated.Item.created("alice", aliceId),
+                    HumanPrincipalsCreated.Item.rejected("bob", "UsernameAlreadyExists", "Username already exists: bob"))));
+            when(keycloakSyncService.provisionUsers(List.of(aliceId))).thenReturn(1);
+            String content = """
+                    {"username":"Alice","email":"Alice@Example.com"}
+                    {"username":"bob","email":"bob@example.com","firstName":"Bob"}
+
+                    {"username":"carol","email":"not-an-email"}
+                    {"username":
+                    """;
+
+            // when
+            PrincipalImportStatus status = importAndWait(content, ImportFormat.NDJSON);
+
+            // then
+            assertThat(status.state()).isEqualTo("COMPLETED");
+            assertThat(status.read()).isEqualTo(4);
+            assertThat(status.created()).isEqualTo(1);
+            assertThat(status.rejected()).isEqualTo(1);
+            assertThat(status.invalid()).isEqualTo(2);
+            assertThat(status.provisioned()).isEqualTo(1);
+            assertThat(status.errorCount()).isEqualTo(3);
+            assertThat(status.errors()).extracting(RecordError::record, RecordError::error)
+                    .containsExactlyInAnyOrder(
+                            tuple(2L, "UsernameAlreadyExists"),
+                            tuple(4L, "ValidationFailed"),
+                            tuple(5L, "ParseError"));
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<CreateHumanPrincipalCommand>> batch = ArgumentCaptor.forClass(List.class);
+            verify(humanPrincipalService).insertHumanPrincipals(batch.capture(), eq(importedBy));
+            assertThat(batch.getValue()).extracting(CreateHumanPrincipalCommand::username, CreateHumanPrincipalCommand::email)
+                    .containsExactly(
+                            tuple("alice", "alice@example.com"),
+                            tuple("bob", "bob@example.com"));
+        }
+
+        @Test
+        @DisplayName("should reject only the record that breaks a database constraint and continue the import")
+        void shouldRejectRecordBreakingConstraint() throws Exception {
+            // given
+            createService(10, 1);
+            UUID aliceId = UUID.randomUUID();
+            UUID carolId = UUID.randomUUID();
+            DataIntegrityViolationException violation =
+                    new DataIntegrityViolationException("violates check constraint \"chk_human_context_tags_size\"");
+            when(humanPrincipalService.insertHumanPrincipals(any(), any())).thenAnswer(invocation -> {
+                List<CreateHumanPrincipalCommand> commands = invocation.getArgument(0);
+                if (commands.size() > 1 || commands.getFirst().username().equals("bob")) {
+                    throw violation;
+                }
+                UUID id = commands.getFirst().username().equals("alice") ? aliceId : carolId;
+                return new HumanPrincipalsCreated(List.of(
+                        HumanPrincipalsCreated.Item.created(commands.getFirst().username(), id)));
+            });
+            when(keycloakSyncService.provisionUsers(any())).thenReturn(2);
+            String content = """
+                    {"username":"alice","email":"alice@example.com"}
+                    {"username":"bob","email":"bob@example.com"}
+                    {"username":"carol","email":"carol@example.com"}
+                    """;
+
+            // when
+            PrincipalImportStatus status = importAndWait(content, ImportFormat.NDJSON);
+
+            // then
+            assertThat(status.state()).isEqualTo("COMPLETED");
+            assertThat(status.created()).isEqualTo(2);
+            assertThat(status.rejected()).isEqualTo(1);
+            assertThat(status.errors()).extracting(RecordError::record, RecordError::error)
+                    .containsExactly(tuple(2L, "ConstraintViolation"));
+            verify(humanPrincipalService, times(4)).insertHumanPrincipals(any(), any());
+            verify(keycloakSyncService).provisionUsers(List.of(aliceId, carolId));
+        }
+
+        @Test
+        @DisplayName("should fail the import and stop parsing when a batch cannot be inserted")
+        void shouldFailWhenInsertFails() throws Exception {
+            // given
+            createService(1, 1);
+            when(humanPrincipalService.insertHumanPrincipals(any(), any())).thenThrow(new IllegalStateException("database unavailable"));
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                content.append("{\"username\":\"user").append(i).append("\",\"email\":\"user").append(i).append("@example.com\"}\n");
+            }
+
+            // when
+            PrincipalImportStatus status = importAndWait(content.toString(), ImportFormat.NDJSON);
+
+            // then
+            assertThat(status.state()).isEqualTo("FAILED");
+            assertThat(status.failure()).isEqualTo("database unavailable");
+            assertThat(status.read()).isLessThan(100);
+            verify(humanPrincipalService, times(1)).insertHumanPrincipals(any(), any());
+            verifyNoInteractions(keycloakSyncService);
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV")
+    class Csv {
+
+        @Test
+        @DisplayName("should map columns by header, including quoted fields and JSON columns")
+        void shouldParseCsv() throws Exception {
+            // given
+            createService(10, 1);
+            UUID tenantId = UUID.randomUUID();
+            when(humanPrincipalService.insertHumanPrincipals(any(), any())).thenReturn(new HumanPrincipalsCreated(List.of(
+                    HumanPrincipalsCreated.Item.created("johndoe", UUID.randomUUID()))));
+            when(keycloakSyncService.provisionUsers(any())).thenReturn(0);
+            String content = "username,email,defaultTenantId,displayName,preferences\r\n"
+                    + "johndoe,john@example.com," + tenantId + ",\"Doe, John \"\"JD\"\"\",\"{\"\"theme\"\":\"\"dark\"\"}\"\r\n"
+                    + "janedoe,jane@example.com\r\n";
+
+            // when
+            PrincipalImportStatus status = importAndWait(content, ImportFormat.CSV);
+
+            // then
+            assertThat(status.state()).isEqualTo("COMPLETED");
+            assertThat(status.read()).isEqualTo(2);
+            assertThat(status.invalid()).isEqualTo(1);
+            assertThat(status.errors().getFirst().record()).isEqualTo(2);
+            assertThat(status.provisioningDeferred()).isEqualTo(1);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<CreateHumanPrincipalCommand>> batch = ArgumentCaptor.forClass(List.class);
+            verify(humanPrincipalService).insertHumanPrincipals(batch.capture(), any());
+            CreateHumanPrincipalCommand command = batch.getValue().getFirst();
+            assertThat(command.defaultTenantId()).isEqualTo(tenantId);
+            assertThat(command.displayName()).isEqualTo("Doe, John \"JD\"");
+            assertThat(command.preferences()).isEqualTo(Map.of("theme", "dark"));
+        }
+
+        @Test
+        @DisplayName("should fail the import when the header is missing")
+        void shouldFailWithoutHeader() throws Exception {
+            // given
+            createService(10, 1);
+
+            // when
+            PrincipalImportStatus status = importAndWait("", ImportFormat.CSV);
+
+            // then
+            assertThat(status.state()).isEqualTo("FAILED");
+            verify(humanPrincipalService, never()).insertHumanPrincipals(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("capacity and status")
+    class CapacityAndStatus {
+
+        @Test
+        @DisplayName("should reject an import when max-concurrent imports are running")
+        void shouldRejectWhenAtCapacity() {
+            // given
+            createService(10, 0);
+
+            // when / then
+            assertThatThrownBy(() -> principalImportService.startImport(new ByteArrayInputStream(new byte[0]), ImportFormat.NDJSON))
+                    .isInstanceOf(PrincipalImportCapacityExceededException.class);
+        }
+
+        @Test
+        @DisplayName("should throw for an unknown job")
+        void shouldThrowForUnknownJob() {
+            // given
+            createService(10, 1);
+
+            // when / then
+            assertThatThrownBy(() -> principalImportService.getStatus(UUID.randomUUID()))
+                    .isInstanceOf(PrincipalImportNotFoundException.class);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package io.openleap.iam.principal.service.keycloak.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DisplayName("KeycloakTokenManager Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class KeycloakTokenManagerTest {
+
+    private static final String TOKEN_URL = "http://keycloak/realms/test/protocol/openid-connect/token";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private ScheduledFuture<Object> firstRun;
+
+    @Mock
+    private ScheduledFuture<Object> secondRun;
+
+    private SimpleMeterRegistry meterRegistry;
+    private KeycloakTokenManager tokenManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenManager = new KeycloakTokenManager(TOKEN_URL, "admin-cli", "secret", "admin", "admin",
+                meterRegistry, restTemplate, scheduler);
+    }
+
+    private static ResponseEntity<JsonNode> tokenResponse(String accessToken, int expiresIn) {
+        return ResponseEntity.ok(OBJECT_MAPPER.createObjectNode()
+                .put("access_token", accessToken)
+                .put("expires_in", expiresIn));
+    }
+
+    private void stubTokenResponse(ResponseEntity<JsonNode> response) {
+        when(restTemplate.postForEntity(eq(TOKEN_URL), any(HttpEntity.class), eq(JsonNode.class))).thenReturn(response);
+    }
+
+    private Runnable scheduledTask(long expectedDelayMillis) {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(task.capture(), eq(expectedDelayMillis), eq(TimeUnit.MILLISECONDS));
+        return task.getValue();
+    }
+
+    @Nested
+    @DisplayName("getAccessToken")
+    class GetAccessToken {
+
+        @Test
+        @DisplayName("should share one token request between concurrent callers")
+        void shouldShareOneRequestBetweenConcurrentCallers() throws Exception {
+            // given
+            CountDownLatch requestStarted = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger requests = new AtomicInteger();
+            when(restTemplate.postForEntity(eq(TOKEN_URL), any(HttpEntity.class), eq(JsonNode.class)))
+                    .thenAnswer(invocation -> {
+                        requests.incrementAndGet();
+                        requestStarted.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        return tokenResponse("token-1", 300);
+                    });
+
+            // when
+            ExecutorService callers = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<String>> tokens = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    tokens.add(callers.submit(tokenManager::getAccessToken));
+                }
+                assertThat(requestStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                release.countDown();
+
+                // then
+                for (Future<String> token : tokens) {
+                    assertThat(token.get(5, TimeUnit.SECONDS)).isEqualTo("token-1");
+                }
+            } finally {
+                callers.shutdownNow();
+            }
+            assertThat(requests).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("should reuse a token refreshed by another caller after winning the race")
+        void shouldReuseTokenRefreshedByAnotherCaller() {
+            // given
+            stubTokenResponse(tokenResponse("token-1", 300));
+            tokenManager.getAccessToken();
+
+            // when a caller that read no token only gets to refresh after the first refresh completed
+            KeycloakTokenManager.AccessToken token = tokenManager.refresh(null);
+
+            // then
+            assertThat(token.value()).isEqualTo("token-1");
+            verify(restTemplate, times(1)).postForEntity(eq(TOKEN_URL), any(HttpEntity.class), eq(JsonNode.class));
+        }
+
+        @Test
+        @DisplayName("should not schedule refreshes from request threads")
+        void shouldNotScheduleFromRequestThreads() {
+            // given
+            stubTokenResponse(tokenResponse("token-1", 300));
+
+            // when
+            tokenManager.getAccessToken();
+            tokenManager.getAccessToken();
+
+            // then
+            verifyNoInteractions(scheduler);
+            verify(restTemplate, times(1)).postForEntity(eq(TOKEN_URL), any(HttpEntity.class), eq(JsonNode.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("background refresh")
+    class BackgroundRefresh {
+
+        @Test
+        @DisplayName("should fetch a token and replace its own schedule at 80% of the lifetime")
+        void shouldReplaceScheduleAfterRefresh() {
+            // given
+            stubTokenResponse(tokenResponse("token-1", 300));
+            doReturn(firstRun, secondRun).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+            tokenManager.start();
+            Runnable task = scheduledTask(0);
+
+            // when
+            task.run();
+
+            // then
+            ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+            verify(scheduler, times(2)).schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.MILLISECONDS));
+            assertThat(delay.getAllValues().get(1)).isBetween(239_000L, 240_000L);
+            verify(firstRun).cancel(false);
+            verify(secondRun, never()).cancel(anyBoolean());
+            assertThat(tokenManager.getAccessToken()).isEqualTo("token-1");
+        }
+
+        @Test
+        @DisplayName("should only reschedule when the token is not due yet")
+        void shouldNotRefreshTokenBeforeItIsDue() {
+            // given
+            stubTokenResponse(tokenResponse("token-1", 300));
+            tokenManager.getAccessToken();
+            doReturn(firstRun).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+            // when
+            tokenManager.backgroundRefresh();
+
+            // then
+            verify(restTemplate, times(1)).postForEntity(eq(TOKEN_URL), any(HttpEntity.class), eq(JsonNode.class));
+            verify(scheduler, times(1)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @DisplayName("should retry after the retry delay when the refresh fails")
+        void shouldRetryAfterFailure() {
+            // given
+            when(restTemplate.postForEntity(eq(TOKEN_URL), any(HttpEntity.class), eq(JsonNode.class)))
+                    .thenThrow(new ResourceAccessException("Connection refused"));
+            doReturn(firstRun).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+            // when
+            tokenManager.backgroundRefresh();
+
+            // then
+            scheduledTask(KeycloakTokenManager.RETRY_DELAY.toMillis());
+            assertThat(meterRegistry.counter("iam.principal.keycloak.token.refresh.failures").count()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should not schedule after shutdown")
+        void shouldNotScheduleAfterShutdown() {
+            // given
+            when(scheduler.isShutdown()).thenReturn(true);
+
+            // when
+            tokenManager.start();
+
+            // then
+            verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        }
+    }
+}
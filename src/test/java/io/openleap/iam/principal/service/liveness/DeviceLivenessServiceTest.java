@@ -0,0 +1,211 @@
+package io.openleap.iam.principal.service.liveness;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.iam.principal.domain.entity.DeviceType;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.event.DeviceConnectivityChangedEvent;
+import io.openleap.iam.principal.repository.DeviceLivenessRepository;
+import io.openleap.iam.principal.repository.DeviceLivenessRepository.DeviceState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@DisplayName("DeviceLivenessService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class DeviceLivenessServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Duration GATEWAY_TIMEOUT = Duration.ofMinutes(2);
+
+    @Mock
+    private DeviceLivenessRepository deviceLivenessRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeviceLivenessService deviceLivenessService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        DeviceLivenessPolicy policy = new DeviceLivenessPolicy(Duration.ofMinutes(15), Duration.ofMinutes(5),
+                Duration.ofMinutes(5), Duration.ofMinutes(5), GATEWAY_TIMEOUT, Duration.ofMinutes(15), Duration.ZERO);
+        deviceLivenessService = new DeviceLivenessService(deviceLivenessRepository, policy, applicationEventPublisher,
+                meterRegistry, true, 1000, 64, 100, Duration.ofMinutes(1), Duration.ofMinutes(30));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenActiveDevices(DeviceState... states) {
+        doAnswer(invocation -> {
+            Consumer<DeviceState> consumer = invocation.getArgument(1);
+            for (DeviceState state : states) {
+                consumer.accept(state);
+            }
+            return null;
+        }).when(deviceLivenessRepository).streamActiveDevices(anyInt(), any(Consumer.class));
+    }
+
+    private static DeviceState gateway(UUID deviceId, PrincipalStatus status, Instant lastHeartbeatAt) {
+        return new DeviceState(deviceId, DeviceType.GATEWAY, status, lastHeartbeatAt);
+    }
+
+    @Nested
+    @DisplayName("rebuild")
+    class Rebuild {
+
+        @Test
+        @DisplayName("should track active devices and mark stale ones offline without an event")
+        void shouldTrackActiveDevices() {
+            // given
+            givenActiveDevices(
+                    gateway(UUID.randomUUID(), PrincipalStatus.ACTIVE, T0),
+                    gateway(UUID.randomUUID(), PrincipalStatus.ACTIVE, T0.minus(Duration.ofHours(1))),
+                    gateway(UUID.randomUUID(), PrincipalStatus.ACTIVE, null));
+
+            // when
+            deviceLivenessService.rebuild(T0);
+
+            // then
+            assertThat(meterRegistry.get("iam.principal.device-liveness.tracked").gauge().value()).isEqualTo(3);
+            assertThat(meterRegistry.get("iam.principal.device-liveness.offline").gauge().value()).isEqualTo(2);
+            verifyNoInteractions(applicationEventPublisher);
+        }
+    }
+
+    @Nested
+    @DisplayName("tick")
+    class Tick {
+
+        @Test
+        @DisplayName("should report a device offline once its timeout passed without a heartbeat")
+        void shouldReportOffline() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            givenActiveDevices(gateway(deviceId, PrincipalStatus.ACTIVE, T0));
+            deviceLivenessService.rebuild(T0);
+            Instant later = T0.plus(GATEWAY_TIMEOUT).plusSeconds(1);
+            when(deviceLivenessRepository.findStates(List.of(deviceId)))
+                    .thenReturn(List.of(gateway(deviceId, PrincipalStatus.ACTIVE, T0)));
+
+            // when
+            deviceLivenessService.tick(T0.plusSeconds(60));
+            deviceLivenessService.tick(later);
+
+            // then
+            verify(deviceLivenessRepository, times(1)).findStates(any());
+            verify(applicationEventPublisher).publishEvent(
+                    new DeviceConnectivityChangedEvent(List.of(deviceId), List.of(), later));
+            assertThat(meterRegistry.counter("iam.principal.device-liveness.transitions", "direction", "offline").count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should not report a device offline that sent a heartbeat")
+        void shouldKeepDeviceWithHeartbeatOnline() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            givenActiveDevices(gateway(deviceId, PrincipalStatus.ACTIVE, T0));
+            deviceLivenessService.rebuild(T0);
+
+            // when
+            deviceLivenessService.recordHeartbeat(deviceId, T0.plusSeconds(60));
+            deviceLivenessService.tick(T0.plus(GATEWAY_TIMEOUT).plusSeconds(1));
+
+            // then
+            verify(deviceLivenessRepository, never()).findStates(any());
+            verifyNoInteractions(applicationEventPublisher);
+        }
+
+        @Test
+        @DisplayName("should reschedule when another instance recorded a newer heartbeat")
+        void shouldRescheduleOnNewerHeartbeatInDatabase() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            givenActiveDevices(gateway(deviceId, PrincipalStatus.ACTIVE, T0));
+            deviceLivenessService.rebuild(T0);
+            when(deviceLivenessRepository.findStates(List.of(deviceId)))
+                    .thenReturn(List.of(gateway(deviceId, PrincipalStatus.ACTIVE, T0.plusSeconds(90))));
+
+            // when
+            deviceLivenessService.tick(T0.plus(GATEWAY_TIMEOUT).plusSeconds(1));
+
+            // then
+            verifyNoInteractions(applicationEventPublisher);
+            assertThat(meterRegistry.get("iam.principal.device-liveness.offline").gauge().value()).isZero();
+        }
+
+        @Test
+        @DisplayName("should stop tracking devices that are no longer active")
+        void shouldDropInactiveDevices() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            givenActiveDevices(gateway(deviceId, PrincipalStatus.ACTIVE, T0));
+            deviceLivenessService.rebuild(T0);
+            when(deviceLivenessRepository.findStates(List.of(deviceId)))
+                    .thenReturn(List.of(gateway(deviceId, PrincipalStatus.SUSPENDED, T0)));
+
+            // when
+            deviceLivenessService.tick(T0.plus(GATEWAY_TIMEOUT).plusSeconds(1));
+
+            // then
+            verifyNoInteractions(applicationEventPublisher);
+            assertThat(meterRegistry.get("iam.principal.device-liveness.tracked").gauge().value()).isZero();
+        }
+
+        @Test
+        @DisplayName("should back off rechecking a device the longer it stays offline")
+        void shouldBackOffOfflineRechecks() {
+            // given a gateway offline since T0
+            UUID deviceId = UUID.randomUUID();
+            Instant lastHeartbeatAt = T0.minus(GATEWAY_TIMEOUT);
+            givenActiveDevices(gateway(deviceId, PrincipalStatus.ACTIVE, lastHeartbeatAt));
+            deviceLivenessService.rebuild(T0);
+            when(deviceLivenessRepository.findStates(List.of(deviceId)))
+                    .thenReturn(List.of(gateway(deviceId, PrincipalStatus.ACTIVE, lastHeartbeatAt)));
+
+            // when ticking every minute for two hours
+            for (int minute = 1; minute <= 120; minute++) {
+                deviceLivenessService.tick(T0.plus(Duration.ofMinutes(minute)));
+            }
+
+            // then rechecked at minute 1, 2, 4, 8, 16 and 32, then every 30 minutes
+            verify(deviceLivenessRepository, times(8)).findStates(List.of(deviceId));
+            verifyNoInteractions(applicationEventPublisher);
+        }
+
+        @Test
+        @DisplayName("should report an offline device online on its next heartbeat")
+        void shouldReportOnlineOnHeartbeat() {
+            // given
+            UUID deviceId = UUID.randomUUID();
+            givenActiveDevices(gateway(deviceId, PrincipalStatus.ACTIVE, null));
+            deviceLivenessService.rebuild(T0);
+
+            // when
+            deviceLivenessService.recordHeartbeat(deviceId, T0.plusSeconds(5));
+            deviceLivenessService.tick(T0.plusSeconds(6));
+
+            // then
+            verify(applicationEventPublisher).publishEvent(
+                    new DeviceConnectivityChangedEvent(List.of(), List.of(deviceId), T0.plusSeconds(6)));
+            assertThat(meterRegistry.get("iam.principal.device-liveness.offline").gauge().value()).isZero();
+        }
+    }
+}
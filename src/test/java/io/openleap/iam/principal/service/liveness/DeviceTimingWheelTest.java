@@ -0,0 +1,105 @@
+package io.openleap.iam.principal.service.liveness;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("DeviceTimingWheel Unit Tests")
+class DeviceTimingWheelTest {
+
+    private static final byte TYPE = 2;
+
+    @Test
+    @DisplayName("should expire a deadline only once its tick is reached")
+    void shouldExpireAtDeadline() {
+        // given
+        DeviceTimingWheel wheel = new DeviceTimingWheel(8, 100);
+        UUID deviceId = UUID.randomUUID();
+        wheel.schedule(deviceId, TYPE, 105, true);
+
+        // when / then
+        assertThat(wheel.advance(104)).isEmpty();
+        assertThat(wheel.advance(105)).containsExactly(new DeviceTimingWheel.Expired(deviceId, TYPE, true));
+        assertThat(wheel.isScheduled(deviceId)).isFalse();
+        assertThat(wheel.contains(deviceId)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should keep deadlines more than one rotation ahead until their tick")
+    void shouldSkipDeadlinesOfLaterRotations() {
+        // given
+        DeviceTimingWheel wheel = new DeviceTimingWheel(8, 0);
+        UUID near = UUID.randomUUID();
+        UUID far = UUID.randomUUID();
+        wheel.schedule(near, TYPE, 3, true);
+        wheel.schedule(far, TYPE, 3 + 8 * 4, false);
+
+        // when / then
+        assertThat(wheel.advance(3)).extracting(DeviceTimingWheel.Expired::deviceId).containsExactly(near);
+        assertThat(wheel.advance(34)).isEmpty();
+        assertThat(wheel.advance(1000)).extracting(DeviceTimingWheel.Expired::deviceId).containsExactly(far);
+    }
+
+    @Test
+    @DisplayName("should move a rescheduled deadline")
+    void shouldReschedule() {
+        // given
+        DeviceTimingWheel wheel = new DeviceTimingWheel(16, 0);
+        UUID deviceId = UUID.randomUUID();
+        wheel.schedule(deviceId, TYPE, 5, false);
+
+        // when
+        wheel.schedule(deviceId, TYPE, 10, true);
+
+        // then
+        assertThat(wheel.advance(9)).isEmpty();
+        assertThat(wheel.advance(10)).containsExactly(new DeviceTimingWheel.Expired(deviceId, TYPE, true));
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.offlineCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should fire deadlines in the past on the next tick")
+    void shouldFirePastDeadlinesOnNextTick() {
+        // given
+        DeviceTimingWheel wheel = new DeviceTimingWheel(16, 50);
+        UUID deviceId = UUID.randomUUID();
+
+        // when
+        wheel.schedule(deviceId, TYPE, 10, true);
+
+        // then
+        assertThat(wheel.advance(51)).extracting(DeviceTimingWheel.Expired::deviceId).containsExactly(deviceId);
+    }
+
+    @Test
+    @DisplayName("should track many devices and forget removed ones")
+    void shouldGrowAndRemove() {
+        // given
+        DeviceTimingWheel wheel = new DeviceTimingWheel(64, 0);
+        List<UUID> devices = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID deviceId = UUID.randomUUID();
+            devices.add(deviceId);
+            wheel.schedule(deviceId, TYPE, 1 + i % 100, i % 2 == 0);
+        }
+
+        // when
+        for (int i = 0; i < devices.size(); i += 2) {
+            wheel.remove(devices.get(i));
+        }
+
+        // then
+        assertThat(wheel.size()).isEqualTo(5_000);
+        assertThat(wheel.offlineCount()).isEqualTo(5_000);
+        for (int i = 0; i < devices.size(); i++) {
+            assertThat(wheel.contains(devices.get(i))).isEqualTo(i % 2 == 1);
+        }
+        assertThat(wheel.advance(100)).hasSize(5_000).noneMatch(DeviceTimingWheel.Expired::online);
+    }
+}
@@ -0,0 +1,101 @@
+package io.openleap.iam.principal.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.event.PrincipalSuspendedEvent;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository.OutboxEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("PrincipalEventOutbox Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class PrincipalEventOutboxTest {
+
+    private static final String SUSPENDED_KEY = "iam.principal.principal.suspended";
+
+    @Mock
+    private PrincipalEventOutboxRepository principalEventOutboxRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PrincipalEventOutbox principalEventOutbox;
+
+    @BeforeEach
+    void setUp() {
+        principalEventOutbox = new PrincipalEventOutbox(principalEventOutboxRepository, objectMapper);
+    }
+
+    @Nested
+    @DisplayName("append")
+    class Append {
+
+        @Test
+        @DisplayName("should store the event wrapped in the event envelope")
+        void shouldStoreEnvelope() throws Exception {
+            // given
+            UUID principalId = UUID.randomUUID();
+            PrincipalSuspendedEvent event = new PrincipalSuspendedEvent(principalId, "HUMAN", "SUSPENDED",
+                    "Security concern", "INC-12345");
+
+            // when
+            principalEventOutbox.append(PrincipalId.of(principalId), SUSPENDED_KEY, event);
+
+            // then
+            ArgumentCaptor<OutboxEntry> captor = ArgumentCaptor.forClass(OutboxEntry.class);
+            verify(principalEventOutboxRepository).append(captor.capture());
+            OutboxEntry entry = captor.getValue();
+            assertThat(entry.principalId()).isEqualTo(principalId);
+            assertThat(entry.routingKey()).isEqualTo(SUSPENDED_KEY);
+
+            JsonNode envelope = objectMapper.readTree(entry.payloadJson());
+            assertThat(envelope.get("event_type").asText()).isEqualTo(SUSPENDED_KEY);
+            assertThat(envelope.get("event_id").asText()).isEqualTo(entry.eventId().toString());
+            assertThat(envelope.get("aggregate_type").asText()).isEqualTo("principal");
+            assertThat(envelope.get("aggregate_id").asText()).isEqualTo(principalId.toString());
+            assertThat(envelope.get("timestamp").asText()).isEqualTo(entry.occurredAt().toString());
+            assertThat(envelope.get("payload").get("reason").asText()).isEqualTo("Security concern");
+        }
+    }
+
+    @Nested
+    @DisplayName("appendAll")
+    class AppendAll {
+
+        @Test
+        @DisplayName("should store one event per principal with its own event ID")
+        @SuppressWarnings("unchecked")
+        void shouldStoreOneEventPerPrincipal() {
+            // given
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            Map<PrincipalId, PrincipalSuspendedEvent> events = new LinkedHashMap<>();
+            events.put(PrincipalId.of(first), new PrincipalSuspendedEvent(first, "HUMAN", "SUSPENDED", "a", null));
+            events.put(PrincipalId.of(second), new PrincipalSuspendedEvent(second, "HUMAN", "SUSPENDED", "b", null));
+
+            // when
+            principalEventOutbox.appendAll(SUSPENDED_KEY, events);
+
+            // then
+            ArgumentCaptor<List<OutboxEntry>> captor = ArgumentCaptor.forClass(List.class);
+            verify(principalEventOutboxRepository).appendAll(captor.capture());
+            List<OutboxEntry> entries = captor.getValue();
+            assertThat(entries).extracting(OutboxEntry::principalId).containsExactly(first, second);
+            assertThat(entries).extracting(OutboxEntry::eventId).doesNotHaveDuplicates();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package io.openleap.iam.principal.service.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.common.messaging.event.EventPublisher;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository.OutboxBacklog;
+import io.openleap.iam.principal.repository.PrincipalEventOutboxRepository.PendingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PrincipalEventRelay Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class PrincipalEventRelayTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int PURGE_BATCH_SIZE = 3;
+
+    @Mock
+    private PrincipalEventOutboxRepository principalEventOutboxRepository;
+
+    @Mock
+    private EventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalEventRelay principalEventRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalEventRelay = new PrincipalEventRelay(
+                principalEventOutboxRepository,
+                eventPublisher,
+                new TransactionTemplate(transactionManager),
+                meterRegistry,
+                true,
+                BATCH_SIZE,
+                MAX_ATTEMPTS,
+                Duration.ofSeconds(5),
+                Duration.ofMinutes(1),
+                Duration.ofDays(7),
+                PURGE_BATCH_SIZE);
+    }
+
+    private static PendingEvent pendingEvent(long id, int attempts) {
+        return new PendingEvent(id, UUID.randomUUID(), UUID.randomUUID(), "iam.principal.principal.suspended",
+                "{\"event_type\":\"iam.principal.principal.suspended\"}", Instant.now().minusSeconds(2), attempts);
+    }
+
+    private double relayCount(String outcome) {
+        return meterRegistry.counter("iam.principal.outbox.relay", "outcome", outcome).count();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    @Nested
+    @DisplayName("relayPending")
+    class RelayPending {
+
+        @Test
+        @DisplayName("should publish claimed events batch by batch and mark them published")
+        void shouldPublishBatchByBatch() {
+            // given
+            PendingEvent first = pendingEvent(1, 0);
+            PendingEvent second = pendingEvent(2, 0);
+            PendingEvent third = pendingEvent(3, 0);
+            when(principalEventOutboxRepository.claimPending(BATCH_SIZE)).thenReturn(List.of(first, second), List.of(third));
+            when(principalEventOutboxRepository.countPending()).thenReturn(new OutboxBacklog(0, null, 0));
+
+            // when
+            int published = principalEventRelay.relayPending();
+
+            // then
+            assertThat(published).isEqualTo(3);
+            verify(eventPublisher, times(3)).enqueue(eq(PrincipalEventRelay.IAM_PRINCIPAL_EXCHANGE), any(),
+                    eq("{\"event_type\":\"iam.principal.principal.suspended\"}"), anyMap());
+            verify(principalEventOutboxRepository).markPublished(List.of(1L, 2L));
+            verify(principalEventOutboxRepository).markPublished(List.of(3L));
+            verify(transactionManager, times(3)).getTransaction(argThat(definition ->
+                    definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NESTED));
+            verify(transactionManager, times(5)).commit(any());
+            assertThat(relayCount("published")).isEqualTo(3.0);
+            assertThat(meterRegistry.get("iam.principal.outbox.relay.lag").timer().count()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should back off failed events, publish the others and stop the run")
+        void shouldBackOffFailedEvents() {
+            // given
+            PendingEvent failing = pendingEvent(1, 2);
+            PendingEvent ok = pendingEvent(2, 0);
+            when(principalEventOutboxRepository.claimPending(BATCH_SIZE)).thenReturn(List.of(failing, ok));
+            doThrow(new RuntimeException("Broker unavailable")).doAnswer(invocation -> null)
+                    .when(eventPublisher).enqueue(any(), any(), any(), anyMap());
+            when(principalEventOutboxRepository.countPending()).thenReturn(new OutboxBacklog(1, Instant.now().minusSeconds(30), 0));
+
+            // when
+            int published = principalEventRelay.relayPending();
+
+            // then
+            assertThat(published).isEqualTo(1);
+            verify(principalEventOutboxRepository).markFailed(1L, "Broker unavailable", Duration.ofSeconds(20));
+            verify(principalEventOutboxRepository).markPublished(List.of(2L));
+            verify(principalEventOutboxRepository, times(1)).claimPending(BATCH_SIZE);
+            verify(transactionManager, times(1)).rollback(any());
+            assertThat(relayCount("published")).isEqualTo(1.0);
+            assertThat(relayCount("failed")).isEqualTo(1.0);
+            assertThat(gauge("iam.principal.outbox.pending")).isEqualTo(1.0);
+            assertThat(gauge("iam.principal.outbox.oldest-pending-age")).isGreaterThanOrEqualTo(30.0);
+        }
+
+        @Test
+        @DisplayName("should dead-letter an event on its last attempt and go on with the next batch")
+        void shouldDeadLetterAfterMaxAttempts() {
+            // given
+            PendingEvent exhausted = pendingEvent(1, MAX_ATTEMPTS - 1);
+            PendingEvent ok = pendingEvent(2, 0);
+            PendingEvent next = pendingEvent(3, 0);
+            when(principalEventOutboxRepository.claimPending(BATCH_SIZE)).thenReturn(List.of(exhausted, ok), List.of(next));
+            doThrow(new RuntimeException("Payload rejected")).doAnswer(invocation -> null)
+                    .when(eventPublisher).enqueue(any(), any(), any(), anyMap());
+            when(principalEventOutboxRepository.countPending()).thenReturn(new OutboxBacklog(0, null, 1));
+
+            // when
+            int published = principalEventRelay.relayPending();
+
+            // then
+            assertThat(published).isEqualTo(2);
+            verify(principalEventOutboxRepository).markDeadLettered(1L, "Payload rejected");
+            verify(principalEventOutboxRepository, never()).markFailed(anyLong(), any(), any());
+            verify(principalEventOutboxRepository).markPublished(List.of(2L));
+            verify(principalEventOutboxRepository).markPublished(List.of(3L));
+            assertThat(relayCount("dead_lettered")).isEqualTo(1.0);
+            assertThat(gauge("iam.principal.outbox.dead-lettered")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should not publish anything when nothing is pending")
+        void shouldDoNothingWhenNothingPending() {
+            // given
+            when(principalEventOutboxRepository.claimPending(BATCH_SIZE)).thenReturn(List.of());
+            when(principalEventOutboxRepository.countPending()).thenReturn(new OutboxBacklog(0, null, 0));
+
+            // when
+            int published = principalEventRelay.relayPending();
+
+            // then
+            assertThat(published).isZero();
+            verifyNoInteractions(eventPublisher);
+            verify(principalEventOutboxRepository, never()).markPublished(any());
+            assertThat(gauge("iam.principal.outbox.oldest-pending-age")).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("retryDelay")
+    class RetryDelay {
+
+        @Test
+        @DisplayName("should double the backoff per failure up to the maximum")
+        void shouldDoubleBackoffUpToMaximum() {
+            assertThat(principalEventRelay.retryDelay(0)).isEqualTo(Duration.ofSeconds(5));
+            assertThat(principalEventRelay.retryDelay(1)).isEqualTo(Duration.ofSeconds(10));
+            assertThat(principalEventRelay.retryDelay(3)).isEqualTo(Duration.ofSeconds(40));
+            assertThat(principalEventRelay.retryDelay(4)).isEqualTo(Duration.ofMinutes(1));
+            assertThat(principalEventRelay.retryDelay(Integer.MAX_VALUE)).isEqualTo(Duration.ofMinutes(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("purgePublished")
+    class PurgePublished {
+
+        @Test
+        @DisplayName("should delete published events chunk by chunk until a chunk is not full")
+        void shouldPurgeInChunks() {
+            // given
+            Instant cutoff = Instant.now().minus(Duration.ofDays(7));
+            when(principalEventOutboxRepository.purgePublished(cutoff, PURGE_BATCH_SIZE)).thenReturn(3, 3, 1);
+
+            // when
+            int purged = principalEventRelay.purgePublished(cutoff);
+
+            // then
+            assertThat(purged).isEqualTo(7);
+            verify(principalEventOutboxRepository, times(3)).purgePublished(cutoff, PURGE_BATCH_SIZE);
+            assertThat(meterRegistry.counter("iam.principal.outbox.purged").count()).isEqualTo(7.0);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.openleap.iam.principal.service.rotation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.event.CredentialRotationDueEvent;
+import io.openleap.iam.principal.repository.CredentialRotationRepository;
+import io.openleap.iam.principal.repository.CredentialRotationRepository.DueRotation;
+import io.openleap.iam.principal.repository.CredentialRotationRepository.RotationBacklog;
+import io.openleap.iam.principal.service.outbox.PrincipalEventOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@DisplayName("CredentialRotationService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class CredentialRotationServiceTest {
+
+    private static final int PAGE_SIZE = 2;
+    private static final String ROTATION_DUE_KEY = "iam.principal.credentials.rotation_due";
+
+    @Mock
+    private CredentialRotationRepository credentialRotationRepository;
+
+    @Mock
+    private PrincipalEventOutbox principalEventOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CredentialRotationService credentialRotationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        credentialRotationService = new CredentialRotationService(
+                credentialRotationRepository,
+                principalEventOutbox,
+                new TransactionTemplate(transactionManager),
+                meterRegistry,
+                true,
+                PAGE_SIZE);
+    }
+
+    private static DueRotation dueRotation(String serviceName) {
+        return new DueRotation(UUID.randomUUID(), serviceName, LocalDate.now().minusDays(1));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    @Nested
+    @DisplayName("notifyAllDue")
+    class NotifyAllDue {
+
+        @Test
+        @DisplayName("should record a rotation-due event and a notice per principal, page by page")
+        @SuppressWarnings("unchecked")
+        void shouldNotifyPageByPage() {
+            // given
+            DueRotation first = dueRotation("billing");
+            DueRotation second = dueRotation("reporting");
+            DueRotation third = dueRotation("search");
+            when(credentialRotationRepository.claimDue(PAGE_SIZE)).thenReturn(List.of(first, second), List.of(third));
+            when(credentialRotationRepository.countDue()).thenReturn(new RotationBacklog(3, 3));
+
+            // when
+            int notified = credentialRotationService.notifyAllDue();
+
+            // then
+            assertThat(notified).isEqualTo(3);
+            verify(credentialRotationRepository).markNotified(List.of(first, second));
+            verify(credentialRotationRepository).markNotified(List.of(third));
+
+            ArgumentCaptor<Map<PrincipalId, CredentialRotationDueEvent>> events = ArgumentCaptor.forClass(Map.class);
+            verify(principalEventOutbox, times(2)).appendAll(eq(ROTATION_DUE_KEY), events.capture());
+            assertThat(events.getAllValues().getFirst()).containsOnlyKeys(
+                    PrincipalId.of(first.businessId()), PrincipalId.of(second.businessId()));
+            assertThat(events.getAllValues().get(1).get(PrincipalId.of(third.businessId())))
+                    .isEqualTo(new CredentialRotationDueEvent(third.businessId(), "search", third.credentialRotationDate()));
+            verify(transactionManager, times(2)).commit(any());
+            assertThat(meterRegistry.counter("iam.principal.credential-rotation", "outcome", "notified").count())
+                    .isEqualTo(3.0);
+        }
+
+        @Test
+        @DisplayName("should publish the remaining backlog as gauges without notifying anyone twice")
+        void shouldPublishBacklogGauges() {
+            // given
+            when(credentialRotationRepository.claimDue(PAGE_SIZE)).thenReturn(List.of());
+            when(credentialRotationRepository.countDue()).thenReturn(new RotationBacklog(5, 3));
+
+            // when
+            int notified = credentialRotationService.notifyAllDue();
+
+            // then
+            assertThat(notified).isZero();
+            verify(credentialRotationRepository, never()).markNotified(any());
+            verify(principalEventOutbox, never()).appendAll(any(), anyMap());
+            assertThat(gauge("iam.principal.credential-rotation.due")).isEqualTo(5.0);
+            assertThat(gauge("iam.principal.credential-rotation.overdue")).isEqualTo(3.0);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package io.openleap.iam.principal.service.search;
+
+import io.openleap.iam.principal.domain.dto.CrossTenantPrincipalItem;
+import io.openleap.iam.principal.domain.dto.CrossTenantSearchQuery;
+import io.openleap.iam.principal.domain.dto.CrossTenantSearchResult;
+import io.openleap.iam.principal.domain.dto.PrincipalExportItem;
+import io.openleap.iam.principal.domain.dto.PrincipalExportQuery;
+import io.openleap.iam.principal.domain.dto.SearchCursor;
+import io.openleap.iam.principal.domain.dto.SearchPrincipalsQuery;
+import io.openleap.iam.principal.domain.dto.SearchPrincipalsResult;
+import io.openleap.iam.principal.domain.entity.DevicePrincipalEntity;
+import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
+import io.openleap.iam.principal.domain.entity.Principal;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.domain.entity.ServicePrincipalEntity;
+import io.openleap.iam.principal.exception.PrincipalSearchOffsetTooLargeException;
+import io.openleap.iam.principal.exception.PrincipalSearchTimeoutException;
+import io.openleap.iam.principal.repository.CrossTenantSearchRepository;
+import io.openleap.iam.principal.repository.DevicePrincipalRepository;
+import io.openleap.iam.principal.repository.HumanPrincipalRepository;
+import io.openleap.iam.principal.repository.ServicePrincipalRepository;
+import io.openleap.iam.principal.repository.SystemPrincipalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PrincipalSearchService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class PrincipalSearchServiceTest {
+
+    private static final Instant T1 = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant T2 = Instant.parse("2025-01-02T00:00:00Z");
+    private static final Instant T3 = Instant.parse("2025-01-03T00:00:00Z");
+    private static final Instant T4 = Instant.parse("2025-01-04T00:00:00Z");
+    private static final int MAX_MERGE_OFFSET = 20;
+
+    @Mock
+    private HumanPrincipalRepository humanPrincipalRepository;
+
+    @Mock
+    private ServicePrincipalRepository servicePrincipalRepository;
+
+    @Mock
+    private SystemPrincipalRepository systemPrincipalRepository;
+
+    @Mock
+    private DevicePrincipalRepository devicePrincipalRepository;
+
+    @Mock
+    private CrossTenantSearchRepository crossTenantSearchRepository;
+
+    private PrincipalSearchService principalSearchService;
+
+    @BeforeEach
+    void setUp() {
+        principalSearchService = new PrincipalSearchService(
+                humanPrincipalRepository,
+                servicePrincipalRepository,
+                systemPrincipalRepository,
+                devicePrincipalRepository,
+                crossTenantSearchRepository,
+                Duration.ofSeconds(5),
+                MAX_MERGE_OFFSET
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        principalSearchService.shutdown();
+    }
+
+    @Nested
+    @DisplayName("offset paging")
+    class OffsetPaging {
+
+        @Test
+        @DisplayName("should merge all principal types by creation time with combined total")
+        void shouldMergeAllTypes() {
+            // given
+            when(humanPrincipalRepository.searchPrincipals(any(), any(), any(), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(human("alice", T3), human("bob", T1))));
+            when(servicePrincipalRepository.searchPrincipals(any(), any(), any(), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(service("billing", T2))));
+            when(systemPrincipalRepository.searchPrincipals(any(), any(), any(), any(Pageable.class)))
+                    .thenReturn(Page.empty());
+            when(devicePrincipalRepository.searchPrincipals(any(), any(), any(), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(device("sensor-1", T4))));
+
+            // when
+            SearchPrincipalsResult result = principalSearchService.search(query(null, 1, 10, null));
+
+            // then
+            assertThat(result.items())
+                    .extracting(SearchPrincipalsResult.PrincipalItem::username)
+                    .containsExactly("sensor-1", "alice", "billing", "bob");
+            assertThat(result.items())
+                    .extracting(SearchPrincipalsResult.PrincipalItem::principalType)
+                    .containsExactly("DEVICE", "HUMAN", "SERVICE", "HUMAN");
+            assertThat(result.total()).isEqualTo(4);
+            assertThat(result.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("should fetch offset plus size rows per table and skip the offset after merging")
+        void shouldSkipOffsetAfterMerging() {
+            // given
+            Pageable expected = PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+            when(humanPrincipalRepository.searchPrincipals(any(), any(), any(), eq(expected)))
+                    .thenReturn(new PageImpl<>(List.of(human("alice", T3), human("bob", T1)), expected, 2));
+            when(servicePrincipalRepository.searchPrincipals(any(), any(), any(), eq(expected)))
+                    .thenReturn(new PageImpl<>(List.of(service("billing", T2)), expected, 1));
+            when(systemPrincipalRepository.searchPrincipals(any(), any(), any(), eq(expected)))
+                    .thenReturn(Page.empty(expected));
+            when(devicePrincipalRepository.searchPrincipals(any(), any(), any(), eq(expected)))
+                    .thenReturn(new PageImpl<>(List.of(device("sensor-1", T4)), expected, 5));
+
+            // when
+            SearchPrincipalsResult result = principalSearchService.search(query(null, 2, 2, null));
+
+            // then
+            assertThat(result.items())
+                    .extracting(SearchPrincipalsResult.PrincipalItem::username)
+                    .containsExactly("billing", "bob");
+            assertThat(result.total()).isEqualTo(8);
+            assertThat(result.page()).isEqualTo(2);
+            assertThat(result.nextCursor()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("should refuse offsets past the merge limit across types instead of loading them")
+        void shouldRefuseDeepOffsetAcrossTypes() {
+            // when / then
+            assertThatThrownBy(() -> principalSearchService.search(query(null, 4, 10, null)))
+                    .isInstanceOf(PrincipalSearchOffsetTooLargeException.class);
+            verifyNoInteractions(humanPrincipalRepository, servicePrincipalRepository,
+                    systemPrincipalRepository, devicePrincipalRepository);
+        }
+
+        @Test
+        @DisplayName("should page a single principal type directly past the merge limit")
+        void shouldPageSingleTypePastMergeLimit() {
+            // given
+            Pageable expected = PageRequest.of(9, 10, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+            when(servicePrincipalRepository.searchPrincipals(any(), any(), any(), eq(expected)))
+                    .thenReturn(Page.empty(expected));
+
+            // when
+            principalSearchService.search(query(PrincipalType.SERVICE, 10, 10, null));
+
+            // then
+            verifyNoInteractions(humanPrincipalRepository, systemPrincipalRepository, devicePrincipalRepository);
+        }
+
+        @Test
+        @DisplayName("should page a single principal type directly")
+        void shouldPageSingleTypeDirectly() {
+            // given
+            Pageable expected = PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+            when(servicePrincipalRepository.searchPrincipals(any(), any(), any(), eq(expected)))
+                    .thenReturn(Page.empty(expected));
+
+            // when
+            principalSearchService.search(query(PrincipalType.SERVICE, 3, 10, null));
+
+            // then
+            verifyNoInteractions(humanPrincipalRepository, systemPrincipalRepository, devicePrincipalRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("keyset paging")
+    class KeysetPaging {
+
+        @Test
+        @DisplayName("should seek each table relative to the cursor's principal type")
+        void shouldSeekEachTableRelativeToCursorType() {
+            // given
+            String cursor = new SearchCursor(T3, PrincipalType.SERVICE, 42L).encode();
+            when(humanPrincipalRepository.searchPrincipalsAfter(any(), any(), any(), eq(T3), eq(Long.MIN_VALUE), eq(Limit.of(3))))
+                    .thenReturn(List.of(human("bob", T1)));
+            when(servicePrincipalRepository.searchPrincipalsAfter(any(), any(), any(), eq(T3), eq(42L), eq(Limit.of(3))))
+                    .thenReturn(List.of(service("billing", T2)));
+            when(systemPrincipalRepository.searchPrincipalsAfter(any(), any(), any(), eq(T3), eq(Long.MAX_VALUE), eq(Limit.of(3))))
+                    .thenReturn(List.of());
+            when(devicePrincipalRepository.searchPrincipalsAfter(any(), any(), any(), eq(T3), eq(Long.MAX_VALUE), eq(Limit.of(3))))
+                    .thenReturn(List.of(device("sensor-1", T3)));
+
+            // when
+            SearchPrincipalsResult result = principalSearchService.search(query(null, 1, 2, cursor));
+
+            // then
+            assertThat(result.items())
+                    .extracting(SearchPrincipalsResult.PrincipalItem::username)
+                    .containsExactly("sensor-1", "billing");
+            assertThat(result.total()).isNull();
+            assertThat(result.page()).isNull();
+            assertThat(result.nextCursor()).isNotNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("deadline")
+    class Deadline {
+
+        @Test
+        @DisplayName("should fail instead of returning partial results when a query misses the deadline")
+        void shouldFailWhenQueryMissesDeadline() {
+            // given
+            principalSearchService = new PrincipalSearchService(
+                    humanPrincipalRepository,
+                    servicePrincipalRepository,
+                    systemPrincipalRepository,
+                    devicePrincipalRepository,
+                    crossTenantSearchRepository,
+                    Duration.ofMillis(50),
+                    MAX_MERGE_OFFSET
+            );
+            when(humanPrincipalRepository.searchPrincipals(any(), any(), any(), any(Pageable.class)))
+                    .thenAnswer(invocation -> {
+                        Thread.sleep(5_000);
+                        return Page.empty();
+                    });
+
+            // when / then
+            assertThatThrownBy(() -> principalSearchService.search(query(PrincipalType.HUMAN, 1, 10, null)))
+                    .isInstanceOf(PrincipalSearchTimeoutException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("cross-tenant")
+    class CrossTenant {
+
+        @Test
+        @DisplayName("should page in the database and return the combined count")
+        void shouldPageInDatabase() {
+            // given
+            List<PrincipalType> allTypes = List.of(PrincipalType.values());
+            when(crossTenantSearchRepository.search(allTypes, "ali", PrincipalStatus.ACTIVE, null, 20L, 10))
+                    .thenReturn(List.of(match("alice", PrincipalType.HUMAN, T2, 7L)));
+            when(crossTenantSearchRepository.count(allTypes, "ali", PrincipalStatus.ACTIVE)).thenReturn(21L);
+
+            // when
+            CrossTenantSearchResult result = principalSearchService.searchCrossTenant(
+                    new CrossTenantSearchQuery("ali", null, PrincipalStatus.ACTIVE, 3, 10, null));
+
+            // then
+            assertThat(result.items()).extracting(CrossTenantPrincipalItem::username).containsExactly("alice");
+            assertThat(result.total()).isEqualTo(21);
+            assertThat(result.page()).isEqualTo(3);
+            assertThat(result.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("should refuse offsets past the merge limit across types")
+        void shouldRefuseDeepOffsetAcrossTypes() {
+            // when / then
+            assertThatThrownBy(() -> principalSearchService.searchCrossTenant(
+                    new CrossTenantSearchQuery(null, null, null, 4, 10, null)))
+                    .isInstanceOf(PrincipalSearchOffsetTooLargeException.class);
+            verifyNoInteractions(crossTenantSearchRepository);
+        }
+
+        @Test
+        @DisplayName("should page a single principal type past the merge limit")
+        void shouldPageSingleTypePastMergeLimit() {
+            // given
+            List<PrincipalType> types = List.of(PrincipalType.SERVICE);
+            when(crossTenantSearchRepository.search(types, null, null, null, 90L, 10)).thenReturn(List.of());
+            when(crossTenantSearchRepository.count(types, null, null)).thenReturn(0L);
+
+            // when
+            CrossTenantSearchResult result = principalSearchService.searchCrossTenant(
+                    new CrossTenantSearchQuery(null, PrincipalType.SERVICE, null, 10, 10, null));
+
+            // then
+            assertThat(result.items()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should fetch one extra row after the cursor and skip the count")
+        void shouldSeekAfterCursor() {
+            // given
+            SearchCursor cursor = new SearchCursor(T4, PrincipalType.SERVICE, 42L);
+            List<PrincipalType> types = List.of(PrincipalType.DEVICE);
+            when(crossTenantSearchRepository.search(types, null, null, cursor, 0L, 3))
+                    .thenReturn(List.of(
+                            match("sensor-1", PrincipalType.DEVICE, T3, 9L),
+                            match("sensor-2", PrincipalType.DEVICE, T2, 8L),
+                            match("sensor-3", PrincipalType.DEVICE, T1, 7L)));
+
+            // when
+            CrossTenantSearchResult result = principalSearchService.searchCrossTenant(
+                    new CrossTenantSearchQuery(null, PrincipalType.DEVICE, null, 1, 2, cursor.encode()));
+
+            // then
+            assertThat(result.items()).extracting(CrossTenantPrincipalItem::username)
+                    .containsExactly("sensor-1", "sensor-2");
+            assertThat(result.total()).isNull();
+            assertThat(SearchCursor.decode(result.nextCursor()))
+                    .isEqualTo(new SearchCursor(T2, PrincipalType.DEVICE, 8L));
+            verify(crossTenantSearchRepository, never()).count(any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("export")
+    class Export {
+
+        @Test
+        @DisplayName("should stream every type in turn and close each stream")
+        void shouldStreamAllTypes() {
+            // given
+            UUID tenantId = UUID.randomUUID();
+            AtomicInteger closed = new AtomicInteger();
+            when(humanPrincipalRepository.streamForExport(PrincipalStatus.ACTIVE, tenantId))
+                    .thenReturn(Stream.of(exportItem("alice", PrincipalType.HUMAN), exportItem("bob", PrincipalType.HUMAN))
+                            .onClose(closed::incrementAndGet));
+            when(servicePrincipalRepository.streamForExport(PrincipalStatus.ACTIVE, tenantId))
+                    .thenReturn(Stream.<PrincipalExportItem>empty().onClose(closed::incrementAndGet));
+            when(systemPrincipalRepository.streamForExport(PrincipalStatus.ACTIVE, tenantId))
+                    .thenReturn(Stream.<PrincipalExportItem>empty().onClose(closed::incrementAndGet));
+            when(devicePrincipalRepository.streamForExport(PrincipalStatus.ACTIVE, tenantId))
+                    .thenReturn(Stream.of(exportItem("sensor-1", PrincipalType.DEVICE)).onClose(closed::incrementAndGet));
+            List<String> exported = new ArrayList<>();
+
+            // when
+            long count = principalSearchService.export(
+                    new PrincipalExportQuery(null, PrincipalStatus.ACTIVE, tenantId), item -> exported.add(item.username()));
+
+            // then
+            assertThat(count).isEqualTo(3);
+            assertThat(exported).containsExactly("alice", "bob", "sensor-1");
+            assertThat(closed).hasValue(4);
+        }
+
+        @Test
+        @DisplayName("should only query the requested type")
+        void shouldStreamRequestedType() {
+            // given
+            when(servicePrincipalRepository.streamForExport(null, null))
+                    .thenReturn(Stream.of(exportItem("billing", PrincipalType.SERVICE)));
+
+            // when
+            long count = principalSearchService.export(
+                    new PrincipalExportQuery(PrincipalType.SERVICE, null, null), item -> { });
+
+            // then
+            assertThat(count).isEqualTo(1);
+            verifyNoInteractions(humanPrincipalRepository, systemPrincipalRepository, devicePrincipalRepository);
+        }
+    }
+
+    private static SearchPrincipalsQuery query(PrincipalType principalType, int page, int size, String cursor) {
+        return new SearchPrincipalsQuery(null, principalType, null, null, page, size, cursor);
+    }
+
+    private static CrossTenantSearchRepository.Match match(String username, PrincipalType type,
+                                                           Instant createdAt, long id) {
+        CrossTenantPrincipalItem item = new CrossTenantPrincipalItem(
+                UUID.randomUUID(), type.name(), username, null, PrincipalStatus.ACTIVE.name(), null);
+        return new CrossTenantSearchRepository.Match(item, new SearchCursor(createdAt, type, id));
+    }
+
+    private static PrincipalExportItem exportItem(String username, PrincipalType type) {
+        return new PrincipalExportItem(UUID.randomUUID(), type.name(), username, null, PrincipalStatus.ACTIVE, null, T1);
+    }
+
+    private static HumanPrincipalEntity human(String username, Instant createdAt) {
+        return init(new HumanPrincipalEntity(), username, createdAt);
+    }
+
+    private static ServicePrincipalEntity service(String username, Instant createdAt) {
+        return init(new ServicePrincipalEntity(), username, createdAt);
+    }
+
+    private static DevicePrincipalEntity device(String username, Instant createdAt) {
+        return init(new DevicePrincipalEntity(), username, createdAt);
+    }
+
+    private static <T extends Principal> T init(T principal, String username, Instant createdAt) {
+        principal.setBusinessId(PrincipalId.of(UUID.randomUUID()));
+        principal.setUsername(username);
+        principal.setStatus(PrincipalStatus.ACTIVE);
+        principal.setCreatedAt(createdAt);
+        return principal;
+    }
+}
@@ -0,0 +1,411 @@
+package io.openleap.iam.principal.service.sync;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.openleap.iam.principal.domain.entity.HumanPrincipalEntity;
+import io.openleap.iam.principal.domain.entity.PrincipalId;
+import io.openleap.iam.principal.domain.entity.PrincipalStatus;
+import io.openleap.iam.principal.domain.entity.PrincipalType;
+import io.openleap.iam.principal.domain.entity.ServicePrincipalEntity;
+import io.openleap.iam.principal.domain.entity.SyncStatus;
+import io.openleap.iam.principal.exception.ClientAlreadyExistsException;
+import io.openleap.iam.principal.exception.UserAlreadyExistsException;
+import io.openleap.iam.principal.repository.HumanPrincipalRepository;
+import io.openleap.iam.principal.repository.PrincipalSyncRepository;
+import io.openleap.iam.principal.repository.ServicePrincipalRepository;
+import io.openleap.iam.principal.service.keycloak.KeycloakService;
+import io.openleap.iam.principal.service.keycloak.dto.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@DisplayName("KeycloakSyncService Unit Tests")
+@ExtendWith(MockitoExtension.class)
+class KeycloakSyncServiceTest {
+
+    private static final int MAX_RETRIES = 5;
+
+    @Mock
+    private HumanPrincipalRepository humanPrincipalRepository;
+
+    @Mock
+    private ServicePrincipalRepository servicePrincipalRepository;
+
+    @Mock
+    private PrincipalSyncRepository principalSyncRepository;
+
+    @Mock
+    private KeycloakService keycloakService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private KeycloakSyncService keycloakSyncService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        keycloakSyncService = new KeycloakSyncService(
+                humanPrincipalRepository,
+                servicePrincipalRepository,
+                principalSyncRepository,
+                keycloakService,
+                meterRegistry,
+                50,
+                2,
+                MAX_RETRIES,
+                30,
+                300
+        );
+    }
+
+    @Nested
+    @DisplayName("onSyncRequested")
+    class OnSyncRequested {
+
+        @Test
+        @DisplayName("should create Keycloak user and mark principal synced")
+        void shouldCreateUserAndMarkSynced() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            HumanPrincipalEntity principal = createHumanPrincipal(principalId);
+            when(principalSyncRepository.claim(PrincipalType.HUMAN, principalId)).thenReturn(true);
+            when(humanPrincipalRepository.findByBusinessId(principalId)).thenReturn(Optional.of(principal));
+            when(keycloakService.createUser(any())).thenReturn("keycloak-user-id");
+
+            // when
+            keycloakSyncService.onSyncRequested(new KeycloakSyncRequested(PrincipalType.HUMAN, PrincipalId.of(principalId)));
+
+            // then
+            ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+            verify(keycloakService).createUser(captor.capture());
+            assertThat(captor.getValue().username()).isEqualTo("johndoe");
+            assertThat(captor.getValue().enabled()).isFalse();
+            verify(principalSyncRepository).markSynced(PrincipalType.HUMAN, principalId, "keycloak-user-id");
+        }
+
+        @Test
+        @DisplayName("should link principal to the Keycloak user created by an earlier attempt")
+        void shouldLinkExistingUserOnConflict() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(principalSyncRepository.claim(PrincipalType.HUMAN, principalId)).thenReturn(true);
+            when(humanPrincipalRepository.findByBusinessId(principalId)).thenReturn(Optional.of(createHumanPrincipal(principalId)));
+            when(keycloakService.createUser(any())).thenThrow(new UserAlreadyExistsException("john@example.com"));
+            when(keycloakService.findUserIdByUsername("johndoe")).thenReturn("existing-user-id");
+
+            // when
+            keycloakSyncService.onSyncRequested(new KeycloakSyncRequested(PrincipalType.HUMAN, PrincipalId.of(principalId)));
+
+            // then
+            verify(principalSyncRepository).markSynced(PrincipalType.HUMAN, principalId, "existing-user-id");
+            verify(principalSyncRepository, never()).markFailedAttempt(any(), any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("should record failed attempt when the conflicting Keycloak user has another username")
+        void shouldRecordFailedAttemptOnForeignConflict() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(principalSyncRepository.claim(PrincipalType.HUMAN, principalId)).thenReturn(true);
+            when(humanPrincipalRepository.findByBusinessId(principalId)).thenReturn(Optional.of(createHumanPrincipal(principalId)));
+            when(keycloakService.createUser(any())).thenThrow(new UserAlreadyExistsException("john@example.com"));
+            when(keycloakService.findUserIdByUsername("johndoe")).thenReturn(null);
+            when(principalSyncRepository.markFailedAttempt(PrincipalType.HUMAN, principalId, MAX_RETRIES))
+                    .thenReturn(Optional.of(SyncStatus.PENDING));
+
+            // when
+            keycloakSyncService.onSyncRequested(new KeycloakSyncRequested(PrincipalType.HUMAN, PrincipalId.of(principalId)));
+
+            // then
+            verify(principalSyncRepository, never()).markSynced(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should link service principal to an existing Keycloak client")
+        void shouldLinkExistingClientOnConflict() {
+            // given
+            ServicePrincipalEntity principal = createServicePrincipal();
+            UUID principalId = principal.getBusinessId().value();
+            when(principalSyncRepository.claim(PrincipalType.SERVICE, principalId)).thenReturn(true);
+            when(servicePrincipalRepository.findByBusinessId(principalId)).thenReturn(Optional.of(principal));
+            when(keycloakService.createClient("PaymentService", List.of("payments.read")))
+                    .thenThrow(new ClientAlreadyExistsException("PaymentService"));
+
+            // when
+            keycloakSyncService.onSyncRequested(new KeycloakSyncRequested(PrincipalType.SERVICE, PrincipalId.of(principalId)));
+
+            // then
+            verify(principalSyncRepository).markSynced(PrincipalType.SERVICE, principalId, "PaymentService");
+        }
+
+        @Test
+        @DisplayName("should skip principal already claimed by another worker")
+        void shouldSkipWhenNotClaimed() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(principalSyncRepository.claim(PrincipalType.HUMAN, principalId)).thenReturn(false);
+
+            // when
+            keycloakSyncService.onSyncRequested(new KeycloakSyncRequested(PrincipalType.HUMAN, PrincipalId.of(principalId)));
+
+            // then
+            verifyNoInteractions(keycloakService, humanPrincipalRepository);
+        }
+
+        @Test
+        @DisplayName("should record failed attempt when Keycloak is unavailable")
+        void shouldRecordFailedAttempt() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(principalSyncRepository.claim(PrincipalType.HUMAN, principalId)).thenReturn(true);
+            when(humanPrincipalRepository.findByBusinessId(principalId)).thenReturn(Optional.of(createHumanPrincipal(principalId)));
+            when(keycloakService.createUser(any())).thenThrow(new RuntimeException("Keycloak error"));
+            when(principalSyncRepository.markFailedAttempt(PrincipalType.HUMAN, principalId, MAX_RETRIES))
+                    .thenReturn(Optional.of(SyncStatus.PENDING));
+
+            // when
+            keycloakSyncService.onSyncRequested(new KeycloakSyncRequested(PrincipalType.HUMAN, PrincipalId.of(principalId)));
+
+            // then
+            verify(principalSyncRepository, never()).markSynced(any(), any(), any());
+            assertThat(meterRegistry.get("iam.principal.keycloak.sync").tag("outcome", "retry").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("onImportRequested")
+    class OnImportRequested {
+
+        @Test
+        @DisplayName("should import claimed users in batches and mark them synced")
+        void shouldImportInBatches() {
+            // given
+            UUID firstId = UUID.randomUUID();
+            UUID secondId = UUID.randomUUID();
+            UUID thirdId = UUID.randomUUID();
+            HumanPrincipalEntity first = createHumanPrincipal(firstId);
+            HumanPrincipalEntity second = createHumanPrincipal(secondId);
+            second.setUsername("janedoe");
+            HumanPrincipalEntity third = createHumanPrincipal(thirdId);
+            third.setUsername("maxmuster");
+            when(principalSyncRepository.claimAll(PrincipalType.HUMAN, List.of(firstId, secondId))).thenReturn(List.of(firstId, secondId));
+            when(principalSyncRepository.claimAll(PrincipalType.HUMAN, List.of(thirdId))).thenReturn(List.of(thirdId));
+            when(humanPrincipalRepository.findAllByBusinessIdIn(List.of(firstId, secondId))).thenReturn(List.of(first, second));
+            when(humanPrincipalRepository.findAllByBusinessIdIn(List.of(thirdId))).thenReturn(List.of(third));
+            when(keycloakService.importUsers(any()))
+                    .thenReturn(Map.of("johndoe", "kc-1", "janedoe", "kc-2"))
+                    .thenReturn(Map.of("maxmuster", "kc-3"));
+
+            // when
+            keycloakSyncService.onImportRequested(new KeycloakImportRequested(List.of(firstId, secondId, thirdId)));
+
+            // then
+            verify(keycloakService, times(2)).importUsers(any());
+            verify(principalSyncRepository).markAllSynced(PrincipalType.HUMAN, Map.of(firstId, "kc-1", secondId, "kc-2"));
+            verify(principalSyncRepository).markAllSynced(PrincipalType.HUMAN, Map.of(thirdId, "kc-3"));
+            assertThat(meterRegistry.get("iam.principal.keycloak.sync").tag("outcome", "synced").counter().count()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should link users skipped by Keycloak because they already exist")
+        void shouldLinkSkippedExistingUsers() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(principalSyncRepository.claimAll(PrincipalType.HUMAN, List.of(principalId))).thenReturn(List.of(principalId));
+            when(humanPrincipalRepository.findAllByBusinessIdIn(List.of(principalId))).thenReturn(List.of(createHumanPrincipal(principalId)));
+            when(keycloakService.importUsers(any())).thenReturn(Map.of());
+            when(keycloakService.findUserIdByUsername("johndoe")).thenReturn("existing-user-id");
+
+            // when
+            keycloakSyncService.onImportRequested(new KeycloakImportRequested(List.of(principalId)));
+
+            // then
+            verify(principalSyncRepository).markAllSynced(PrincipalType.HUMAN, Map.of(principalId, "existing-user-id"));
+            verify(principalSyncRepository, never()).markFailedAttempt(any(), any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("should release users skipped by Keycloak to the background retry")
+        void shouldReleaseSkippedUsers() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(principalSyncRepository.claimAll(PrincipalType.HUMAN, List.of(principalId))).thenReturn(List.of(principalId));
+            when(humanPrincipalRepository.findAllByBusinessIdIn(List.of(principalId))).thenReturn(List.of(createHumanPrincipal(principalId)));
+            when(keycloakService.importUsers(any())).thenReturn(Map.of());
+            when(keycloakService.findUserIdByUsername("johndoe")).thenReturn(null);
+            when(principalSyncRepository.markFailedAttempt(PrincipalType.HUMAN, principalId, MAX_RETRIES))
+                    .thenReturn(Optional.of(SyncStatus.PENDING));
+
+            // when
+            keycloakSyncService.onImportRequested(new KeycloakImportRequested(List.of(principalId)));
+
+            // then
+            verify(principalSyncRepository).markAllSynced(PrincipalType.HUMAN, Map.of());
+            assertThat(meterRegistry.get("iam.principal.keycloak.sync").tag("outcome", "retry").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("provisionUsers")
+    class ProvisionUsers {
+
+        @Test
+        @DisplayName("should return the number of users created in Keycloak")
+        void shouldReturnProvisionedCount() {
+            // given
+            UUID firstId = UUID.randomUUID();
+            UUID secondId = UUID.randomUUID();
+            HumanPrincipalEntity first = createHumanPrincipal(firstId);
+            HumanPrincipalEntity second = createHumanPrincipal(secondId);
+            second.setUsername("janedoe");
+            when(principalSyncRepository.claimAll(PrincipalType.HUMAN, List.of(firstId, secondId))).thenReturn(List.of(firstId, secondId));
+            when(humanPrincipalRepository.findAllByBusinessIdIn(List.of(firstId, secondId))).thenReturn(List.of(first, second));
+            when(keycloakService.importUsers(any())).thenReturn(Map.of("johndoe", "kc-1"));
+            when(keycloakService.findUserIdByUsername("janedoe")).thenReturn(null);
+            when(principalSyncRepository.markFailedAttempt(PrincipalType.HUMAN, secondId, MAX_RETRIES))
+                    .thenReturn(Optional.of(SyncStatus.PENDING));
+
+            // when
+            int provisioned = keycloakSyncService.provisionUsers(List.of(firstId, secondId));
+
+            // then
+            assertThat(provisioned).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should return zero when Keycloak is unavailable")
+        void shouldReturnZeroOnFailure() {
+            // given
+            UUID principalId = UUID.randomUUID();
+            when(principalSyncRepository.claimAll(PrincipalType.HUMAN, List.of(principalId))).thenReturn(List.of(principalId));
+            when(humanPrincipalRepository.findAllByBusinessIdIn(List.of(principalId))).thenReturn(List.of(createHumanPrincipal(principalId)));
+            when(keycloakService.importUsers(any())).thenThrow(new RuntimeException("Keycloak down"));
+            when(principalSyncRepository.markFailedAttempt(PrincipalType.HUMAN, principalId, MAX_RETRIES))
+                    .thenReturn(Optional.of(SyncStatus.PENDING));
+
+            // when
+            int provisioned = keycloakSyncService.provisionUsers(List.of(principalId));
+
+            // then
+            assertThat(provisioned).isZero();
+            verify(principalSyncRepository, never()).markAllSynced(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("syncDue")
+    class SyncDue {
+
+        @Test
+        @DisplayName("should process claimed principals and count permanent failures")
+        void shouldProcessClaimedPrincipals() {
+            // given
+            UUID serviceId = UUID.randomUUID();
+            when(principalSyncRepository.claimDue(PrincipalType.HUMAN, 50, 30, 300)).thenReturn(List.of());
+            when(principalSyncRepository.claimDue(PrincipalType.SERVICE, 50, 30, 300)).thenReturn(List.of(serviceId));
+            when(servicePrincipalRepository.findByBusinessId(serviceId)).thenReturn(Optional.empty());
+            when(principalSyncRepository.markFailedAttempt(PrincipalType.SERVICE, serviceId, MAX_RETRIES))
+                    .thenReturn(Optional.of(SyncStatus.FAILED));
+
+            // when
+            keycloakSyncService.syncDue();
+
+            // then
+            verifyNoInteractions(keycloakService);
+            assertThat(meterRegistry.get("iam.principal.keycloak.sync").tag("outcome", "failed").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("provisionClient")
+    class ProvisionClient {
+
+        @Test
+        @DisplayName("should return client secret and mark principal synced")
+        void shouldReturnSecret() {
+            // given
+            ServicePrincipalEntity principal = createServicePrincipal();
+            when(keycloakService.createClient("PaymentService", List.of("payments.read"))).thenReturn("client-secret");
+
+            // when
+            Optional<String> result = keycloakSyncService.provisionClient(principal);
+
+            // then
+            assertThat(result).contains("client-secret");
+            assertThat(principal.getSyncStatus()).isEqualTo(SyncStatus.SYNCED);
+            assertThat(principal.getKeycloakClientId()).isEqualTo("PaymentService");
+            verify(principalSyncRepository).markSynced(PrincipalType.SERVICE, principal.getBusinessId().value(), "PaymentService");
+        }
+
+        @Test
+        @DisplayName("should regenerate the secret of a client that already exists and mark principal synced")
+        void shouldRegenerateSecretOfExistingClient() {
+            // given
+            ServicePrincipalEntity principal = createServicePrincipal();
+            when(keycloakService.createClient("PaymentService", List.of("payments.read")))
+                    .thenThrow(new ClientAlreadyExistsException("PaymentService"));
+            when(keycloakService.regenerateClientSecret("PaymentService")).thenReturn("regenerated-secret");
+
+            // when
+            Optional<String> result = keycloakSyncService.provisionClient(principal);
+
+            // then
+            assertThat(result).contains("regenerated-secret");
+            assertThat(principal.getSyncStatus()).isEqualTo(SyncStatus.SYNCED);
+            verify(principalSyncRepository).markSynced(PrincipalType.SERVICE, principal.getBusinessId().value(), "PaymentService");
+        }
+
+        @Test
+        @DisplayName("should defer to background sync when Keycloak fails")
+        void shouldDeferOnFailure() {
+            // given
+            ServicePrincipalEntity principal = createServicePrincipal();
+            when(keycloakService.createClient(any(), any())).thenThrow(new RuntimeException("Keycloak error"));
+            when(principalSyncRepository.markFailedAttempt(PrincipalType.SERVICE, principal.getBusinessId().value(), MAX_RETRIES))
+                    .thenReturn(Optional.of(SyncStatus.PENDING));
+
+            // when
+            Optional<String> result = keycloakSyncService.provisionClient(principal);
+
+            // then
+            assertThat(result).isEmpty();
+            assertThat(principal.getSyncStatus()).isEqualTo(SyncStatus.SYNCING);
+        }
+    }
+
+    private HumanPrincipalEntity createHumanPrincipal(UUID principalId) {
+        HumanPrincipalEntity entity = new HumanPrincipalEntity();
+        entity.setBusinessId(PrincipalId.of(principalId));
+        entity.setUsername("johndoe");
+        entity.setEmail("john@example.com");
+        entity.setFirstName("John");
+        entity.setLastName("Doe");
+        entity.setStatus(PrincipalStatus.PENDING);
+        entity.setSyncStatus(SyncStatus.SYNCING);
+        return entity;
+    }
+
+    private ServicePrincipalEntity createServicePrincipal() {
+        ServicePrincipalEntity entity = new ServicePrincipalEntity();
+        entity.setBusinessId(PrincipalId.of(UUID.randomUUID()));
+        entity.setUsername("paymentservice");
+        entity.setServiceName("PaymentService");
+        entity.setAllowedScopes(List.of("payments.read"));
+        entity.setStatus(PrincipalStatus.ACTIVE);
+        entity.setSyncStatus(SyncStatus.SYNCING);
+        return entity;
+    }
+}